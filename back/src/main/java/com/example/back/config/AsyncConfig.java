@@ -0,0 +1,170 @@
+package com.example.back.config;
+
+import com.example.back.service.AsyncTaskMetrics;
+import com.example.back.service.RejectedTaskStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * One bounded executor per delivery channel, so a slow SMS provider or mail server only
+ * backs up its own queue. {@code @Async} methods name their executor; the notification
+ * outbox hands its deliveries to the same pools.
+ *
+ * Scheduled jobs run on two schedulers: the frequent pollers feeding those pools on
+ * {@link #POLLER_SCHEDULER}, everything else on the default {@code taskScheduler}.
+ */
+@Configuration
+@EnableAsync
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+
+    public static final String SMS_EXECUTOR = "smsExecutor";
+
+    public static final String EMAIL_EXECUTOR = "emailExecutor";
+
+    public static final String WEBSOCKET_EXECUTOR = "websocketExecutor";
+
+    public static final String STREAMING_EXECUTOR = "streamingExecutor";
+
+    public static final String EXPORT_EXECUTOR = "exportExecutor";
+
+    public static final String POLLER_SCHEDULER = "pollerScheduler";
+
+    private final AsyncTaskMetrics metrics;
+
+    private final RejectedTaskStore rejectedTaskStore;
+
+    @Value("${app.async.sms.pool-size:1}")
+    private int smsPoolSize;
+
+    @Value("${app.async.sms.queue-capacity:100}")
+    private int smsQueueCapacity;
+
+    @Value("${app.async.email.pool-size:2}")
+    private int emailPoolSize;
+
+    @Value("${app.async.email.queue-capacity:200}")
+    private int emailQueueCapacity;
+
+    @Value("${app.async.websocket.pool-size:2}")
+    private int websocketPoolSize;
+
+    @Value("${app.async.websocket.queue-capacity:500}")
+    private int websocketQueueCapacity;
+
+    @Value("${app.async.export.pool-size:2}")
+    private int exportPoolSize;
+
+    @Value("${app.async.export.queue-capacity:50}")
+    private int exportQueueCapacity;
+
+    @Value("${app.async.streaming.pool-size:4}")
+    private int streamingPoolSize;
+
+    @Value("${app.async.streaming.queue-capacity:50}")
+    private int streamingQueueCapacity;
+
+    @Value("${spring.task.scheduling.pool.size:1}")
+    private int schedulingPoolSize;
+
+    @Value("${app.async.pollers.pool-size:3}")
+    private int pollerPoolSize;
+
+    public AsyncConfig(AsyncTaskMetrics metrics, RejectedTaskStore rejectedTaskStore) {
+        this.metrics = metrics;
+        this.rejectedTaskStore = rejectedTaskStore;
+    }
+
+    @Bean(name = SMS_EXECUTOR)
+    public ThreadPoolTaskExecutor smsExecutor() {
+        return channelExecutor(SMS_EXECUTOR, "async-sms-", smsPoolSize, smsQueueCapacity);
+    }
+
+    @Bean(name = EMAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor emailExecutor() {
+        return channelExecutor(EMAIL_EXECUTOR, "async-email-", emailPoolSize, emailQueueCapacity);
+    }
+
+    @Bean(name = WEBSOCKET_EXECUTOR)
+    public ThreadPoolTaskExecutor websocketExecutor() {
+        return channelExecutor(WEBSOCKET_EXECUTOR, "async-websocket-", websocketPoolSize, websocketQueueCapacity);
+    }
+
+    @Bean(name = EXPORT_EXECUTOR)
+    public ThreadPoolTaskExecutor exportExecutor() {
+        return channelExecutor(EXPORT_EXECUTOR, "async-export-", exportPoolSize, exportQueueCapacity);
+    }
+
+    /**
+     * Writes streamed HTTP responses (file exports). A saturated pool rejects the request
+     * instead of parking it, since the client is waiting on the connection.
+     */
+    @Bean(name = STREAMING_EXECUTOR)
+    public ThreadPoolTaskExecutor streamingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, streamingPoolSize));
+        executor.setMaxPoolSize(Math.max(1, streamingPoolSize));
+        executor.setQueueCapacity(Math.max(1, streamingQueueCapacity));
+        executor.setThreadNamePrefix("async-streaming-");
+        executor.setDaemon(true);
+        executor.setTaskDecorator(metrics.decorator(STREAMING_EXECUTOR));
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        metrics.register(STREAMING_EXECUTOR, executor);
+        return executor;
+    }
+
+    /**
+     * Cron and maintenance jobs. Declared here since the poller scheduler would otherwise
+     * replace Spring Boot's default one and run every job.
+     */
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        return scheduler("scheduling-", schedulingPoolSize);
+    }
+
+    /**
+     * The notification outbox, export job and rejected-task pollers, which run every few
+     * seconds and must not wait behind a long nightly job on the default scheduler.
+     */
+    @Bean(name = POLLER_SCHEDULER)
+    public ThreadPoolTaskScheduler pollerScheduler() {
+        return scheduler("poller-", pollerPoolSize);
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (error, method, params) -> log.error("❌ Async call {}.{} failed: {}",
+                method.getDeclaringClass().getSimpleName(), method.getName(), error.getMessage(), error);
+    }
+
+    private ThreadPoolTaskExecutor channelExecutor(String name, String threadPrefix, int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, poolSize));
+        executor.setMaxPoolSize(Math.max(1, poolSize));
+        executor.setQueueCapacity(Math.max(1, queueCapacity));
+        executor.setThreadNamePrefix(threadPrefix);
+        executor.setDaemon(true);
+        executor.setTaskDecorator(metrics.decorator(name));
+        executor.setRejectedExecutionHandler(rejectedTaskStore.handlerFor(name));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        metrics.register(name, executor);
+        return executor;
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(String threadPrefix, int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(1, poolSize));
+        scheduler.setThreadNamePrefix(threadPrefix);
+        return scheduler;
+    }
+}
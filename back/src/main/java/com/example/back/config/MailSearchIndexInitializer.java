@@ -0,0 +1,44 @@
+package com.example.back.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the full-text search column of {@code mails} and its GIN index.
+ *
+ * The column is generated by PostgreSQL from the subject (weight A) and the body (weight B),
+ * so it is filled for existing rows when added and kept up to date on every insert and update
+ * without any application code. Hibernate's schema update cannot express it, hence this
+ * idempotent DDL at startup.
+ */
+@Component
+@Slf4j
+public class MailSearchIndexInitializer implements CommandLineRunner {
+
+    private static final String ADD_SEARCH_VECTOR = "ALTER TABLE mails ADD COLUMN IF NOT EXISTS search_vector tsvector " +
+            "GENERATED ALWAYS AS (" +
+            "setweight(to_tsvector('french', coalesce(subject, '')), 'A') || " +
+            "setweight(to_tsvector('french', coalesce(content, '')), 'B')) STORED";
+
+    private static final String CREATE_SEARCH_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_mails_search_vector ON mails USING GIN (search_vector)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MailSearchIndexInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        try {
+            jdbcTemplate.execute(ADD_SEARCH_VECTOR);
+            jdbcTemplate.execute(CREATE_SEARCH_INDEX);
+        } catch (Exception e) {
+            // Non-PostgreSQL databases (e.g. the H2 test profile) have no full-text search
+            log.warn("Mail full-text index not available: {}", e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.back.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -10,6 +14,29 @@ import java.nio.file.Paths;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final AsyncTaskExecutor streamingExecutor;
+
+    @Value("${app.async.streaming.timeout-ms:300000}")
+    private long streamingTimeoutMs;
+
+    public WebConfig(@Qualifier(AsyncConfig.STREAMING_EXECUTOR) AsyncTaskExecutor streamingExecutor) {
+        this.streamingExecutor = streamingExecutor;
+    }
+
+    /**
+     * StreamingResponseBody downloads are written on their own bounded pool.
+     *
+     * This is the MVC-wide default: a Callable added later would also run on the streaming pool,
+     * and any async request (DeferredResult, SseEmitter...) without its own timeout gets
+     * {@code app.async.streaming.timeout-ms}. Wrap such handlers in a WebAsyncTask with their
+     * own executor and timeout when the download settings do not suit them.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor);
+        configurer.setDefaultTimeout(streamingTimeoutMs);
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         String currentDir = System.getProperty("user.dir");
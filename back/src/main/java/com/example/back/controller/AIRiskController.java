@@ -12,6 +12,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -92,14 +93,23 @@ public class AIRiskController {
     @PreAuthorize("hasAnyRole('ADMIN', 'COMMERCIAL_METIER', 'DECIDEUR')")
     public ResponseEntity<?> getRiskDashboard() {
         try {
-            // This would need to be implemented in the service
-            // For now, returns a placeholder
+            Collection<ClientRisk> clients = scoreOpenInvoicesByClient();
+
             Map<String, Object> dashboard = new HashMap<>();
-            dashboard.put("totalClientsAnalyzed", 0);
-            dashboard.put("criticalClients", 0);
-            dashboard.put("highRiskClients", 0);
-            dashboard.put("totalOverdueAmount", 0);
-            dashboard.put("averageRiskScore", 0);
+            dashboard.put("totalClientsAnalyzed", clients.size());
+            dashboard.put("criticalClients", clients.stream()
+                    .filter(c -> c.maxLevel == InvoiceRiskAIModel.RiskLevel.CRITICAL)
+                    .count());
+            dashboard.put("highRiskClients", clients.stream()
+                    .filter(c -> c.maxLevel.getSeverity() >= InvoiceRiskAIModel.RiskLevel.HIGH.getSeverity())
+                    .count());
+            dashboard.put("totalOverdueAmount", clients.stream()
+                    .map(c -> c.overdueAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+            dashboard.put("averageRiskScore", clients.stream()
+                    .flatMapToDouble(c -> c.riskScores.stream().mapToDouble(Double::doubleValue))
+                    .average()
+                    .orElse(0));
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -135,11 +145,35 @@ public class AIRiskController {
     public ResponseEntity<?> getHighRiskClients(
             @RequestParam(defaultValue = "HIGH") String minLevel) {
         try {
-            // This would need to be implemented in the service
+            InvoiceRiskAIModel.RiskLevel threshold = InvoiceRiskAIModel.RiskLevel.valueOf(minLevel.toUpperCase());
+
+            List<Map<String, Object>> clients = scoreOpenInvoicesByClient().stream()
+                    .filter(c -> c.maxLevel.getSeverity() >= threshold.getSeverity())
+                    .sorted(Comparator.comparingDouble((ClientRisk c) -> c.maxRiskScore).reversed()
+                            .thenComparing(c -> c.amountAtRisk, Comparator.reverseOrder()))
+                    .map(c -> {
+                        Map<String, Object> client = new HashMap<>();
+                        client.put("clientId", c.clientId);
+                        client.put("clientCode", c.clientCode);
+                        client.put("clientName", c.clientName);
+                        client.put("openInvoices", c.riskScores.size());
+                        client.put("riskyInvoices", c.riskyInvoices);
+                        client.put("maxRiskLevel", c.maxLevel.name());
+                        client.put("maxRiskLabel", c.maxLevel.getLabel());
+                        client.put("riskColor", c.maxLevel.getColor());
+                        client.put("amountAtRisk", c.amountAtRisk);
+                        client.put("overdueAmount", c.overdueAmount);
+                        client.put("maxRiskScore", c.maxRiskScore);
+                        client.put("averageRiskScore", c.riskScores.stream().mapToDouble(Double::doubleValue).average().orElse(0));
+                        return client;
+                    })
+                    .toList();
+
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("message", "Endpoint to be implemented - returns all high risk clients");
-            response.put("minLevel", minLevel);
+            response.put("minLevel", threshold.name());
+            response.put("count", clients.size());
+            response.put("clients", clients);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             log.error("Error getting high risk clients: {}", e.getMessage());
@@ -152,11 +186,13 @@ public class AIRiskController {
     @PreAuthorize("hasAnyRole('ADMIN', 'COMMERCIAL_METIER', 'DECIDEUR')")
     public ResponseEntity<?> retrainModel() {
         try {
-            riskAIModel.autoRetrainModel();
+            boolean scheduled = riskAIModel.scheduleRetrain();
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("message", "AI model retrained successfully");
+            response.put("message", scheduled
+                    ? "AI model retraining started in background"
+                    : "AI model retraining already in progress");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             log.error("Error retraining model: {}", e.getMessage());
@@ -190,7 +226,9 @@ public class AIRiskController {
             modelInfo.put("inputFeatures", 15);
             modelInfo.put("hiddenLayers", 3);
             modelInfo.put("riskLevels", 6);
-            modelInfo.put("lastTrainingDate", LocalDate.now());
+            modelInfo.put("lastTrainingDate", riskAIModel.getTrainingCheckpoint());
+            modelInfo.put("activeSnapshot", riskAIModel.getActiveSnapshot());
+            modelInfo.put("predictionCache", riskAIModel.getPredictionCacheStats());
             modelInfo.put("status", "Active");
 
             Map<String, Object> response = new HashMap<>();
@@ -204,6 +242,53 @@ public class AIRiskController {
     }
 
 
+    @GetMapping("/model/snapshots")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DECIDEUR')")
+    public ResponseEntity<?> listModelSnapshots() {
+        try {
+            String active = riskAIModel.getActiveSnapshot();
+            List<Map<String, Object>> snapshots = riskAIModel.listSnapshots().stream()
+                    .map(snapshot -> {
+                        Map<String, Object> item = new HashMap<>();
+                        item.put("version", snapshot.version());
+                        item.put("createdAt", snapshot.createdAt());
+                        item.put("trainingCheckpoint", snapshot.trainingCheckpoint());
+                        item.put("baselineLoss", snapshot.baselineLoss());
+                        item.put("reason", snapshot.reason());
+                        item.put("active", snapshot.version().equals(active));
+                        return item;
+                    })
+                    .toList();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("activeSnapshot", active);
+            response.put("data", snapshots);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error listing model snapshots: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/model/snapshots/{version}/rollback")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rollbackModelSnapshot(@PathVariable String version) {
+        try {
+            riskAIModel.rollbackToSnapshot(version);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "AI model rolled back to snapshot " + version);
+            response.put("activeSnapshot", version);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error rolling back model to snapshot {}: {}", version, e.getMessage());
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+
     @GetMapping("/health")
     public ResponseEntity<?> healthCheck() {
         Map<String, Object> response = new HashMap<>();
@@ -213,6 +298,59 @@ public class AIRiskController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Per-client risk figures over all unpaid invoices, scored through one batch prediction.
+     */
+    private static class ClientRisk {
+        private final Long clientId;
+        private final String clientCode;
+        private final String clientName;
+        // RiskPrediction.getRiskScore() of each open invoice, 0-100
+        private final List<Double> riskScores = new ArrayList<>();
+        private double maxRiskScore;
+        private InvoiceRiskAIModel.RiskLevel maxLevel = InvoiceRiskAIModel.RiskLevel.VERY_LOW;
+        private int riskyInvoices;
+        private BigDecimal amountAtRisk = BigDecimal.ZERO;
+        private BigDecimal overdueAmount = BigDecimal.ZERO;
+
+        private ClientRisk(Long clientId, String clientCode, String clientName) {
+            this.clientId = clientId;
+            this.clientCode = clientCode;
+            this.clientName = clientName;
+        }
+    }
+
+    private Collection<ClientRisk> scoreOpenInvoicesByClient() {
+        // [factureId, clientId, clientCode, clientName, montantTTC, dateEcheance]
+        List<Object[]> openInvoices = factureRepository.findOpenInvoicesWithClient();
+        List<Long> ids = openInvoices.stream().map(row -> (Long) row[0]).toList();
+        List<InvoiceRiskAIModel.RiskPrediction> predictions = riskAIModel.predictInvoiceRisks(ids);
+
+        LocalDate today = LocalDate.now();
+        Map<Long, ClientRisk> byClient = new LinkedHashMap<>();
+        for (int i = 0; i < openInvoices.size(); i++) {
+            Object[] row = openInvoices.get(i);
+            InvoiceRiskAIModel.RiskPrediction prediction = predictions.get(i);
+            ClientRisk client = byClient.computeIfAbsent((Long) row[1],
+                    id -> new ClientRisk(id, (String) row[2], (String) row[3]));
+            BigDecimal amount = row[4] != null ? (BigDecimal) row[4] : BigDecimal.ZERO;
+
+            client.riskScores.add(prediction.getRiskScore());
+            client.maxRiskScore = Math.max(client.maxRiskScore, prediction.getRiskScore());
+            if (prediction.getLevel().getSeverity() > client.maxLevel.getSeverity()) {
+                client.maxLevel = prediction.getLevel();
+            }
+            if (prediction.getLevel().getSeverity() >= InvoiceRiskAIModel.RiskLevel.HIGH.getSeverity()) {
+                client.riskyInvoices++;
+                client.amountAtRisk = client.amountAtRisk.add(amount);
+            }
+            if (row[5] != null && ((LocalDate) row[5]).isBefore(today)) {
+                client.overdueAmount = client.overdueAmount.add(amount);
+            }
+        }
+        return byClient.values();
+    }
+
     private Map<String, Object> createErrorResponse(String message) {
         Map<String, Object> response = new HashMap<>();
         response.put("success", false);
@@ -369,13 +507,16 @@ public class AIRiskController {
     @PreAuthorize("hasAnyRole('ADMIN', 'COMMERCIAL_METIER', 'DECIDEUR')")
     public ResponseEntity<?> forceRetrain() {
         try {
-            // Call the retrain method in the service
-            riskAIModel.forceRetrain();
+            // Trains in the background on the model's training executor
+            if (!riskAIModel.scheduleForceRetrain()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("success", false, "error", "AI model training already in progress"));
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("message", "Model force-retrained successfully");
-            return ResponseEntity.ok(response);
+            response.put("message", "AI model force-retrain started in background");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
         } catch (Exception e) {
             log.error("Force retrain failed: {}", e.getMessage(), e);
             return ResponseEntity.badRequest().body(Map.of("success", false, "error", e.getMessage()));
@@ -591,7 +732,7 @@ public class AIRiskController {
                     .orElseThrow(() -> new RuntimeException("Client not found with code: " + clientCode));
 
             List<InvoiceRiskAIModel.RiskPrediction> predictions =
-                    riskAIModel.predictClientRisk(client.getId());
+                    riskAIModel.predictInvoiceRisks(factureRepository.findOpenIdsByClientId(client.getId()));
 
             // Aggregate statistics
             Map<String, Object> stats = new HashMap<>();
@@ -616,7 +757,7 @@ public class AIRiskController {
                             p.getLevel() == InvoiceRiskAIModel.RiskLevel.VERY_LOW)
                     .count());
             stats.put("averageRiskScore", predictions.stream()
-                    .mapToDouble(p -> p.getProbability() * 100)
+                    .mapToDouble(InvoiceRiskAIModel.RiskPrediction::getRiskScore)
                     .average()
                     .orElse(0));
             stats.put("totalPredictedDelay", predictions.stream()
@@ -7,6 +7,8 @@ import com.example.back.payload.request.SignupRequest;
 import com.example.back.payload.response.MessageResponse;
 import com.example.back.repository.RoleRepository;
 import com.example.back.repository.UserRepository;
+import com.example.back.security.services.PrincipalCache;
+import com.example.back.service.AsyncTaskMetrics;
 import com.example.back.service.AvatarService;
 import com.example.back.service.EmailService;
 import com.example.back.service.HistoryService;
@@ -40,13 +42,19 @@ public class AdminController {
 
     private final EmailService emailService;
 
-    public AdminController(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder encoder, AvatarService avatarService, HistoryService historyService, EmailService emailService) {
+    private final PrincipalCache principalCache;
+
+    private final AsyncTaskMetrics asyncTaskMetrics;
+
+    public AdminController(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder encoder, AvatarService avatarService, HistoryService historyService, EmailService emailService, PrincipalCache principalCache, AsyncTaskMetrics asyncTaskMetrics) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.encoder = encoder;
         this.avatarService = avatarService;
         this.historyService = historyService;
         this.emailService = emailService;
+        this.principalCache = principalCache;
+        this.asyncTaskMetrics = asyncTaskMetrics;
     }
 
 
@@ -76,6 +84,7 @@ public class AdminController {
             targetUser.setLockedByAdmin(true);
             targetUser.setAccountNonLocked(false);
             userRepository.save(targetUser);
+            principalCache.evict(targetUser.getUsername());
 
             historyService.logUserLock(targetUser, currentUser);
 
@@ -105,6 +114,7 @@ public class AdminController {
             targetUser.setFailedLoginAttempts(0);
             targetUser.setAccountLockedUntil(null);
             userRepository.save(targetUser);
+            principalCache.evict(targetUser.getUsername());
             historyService.logUserUnlock(targetUser, currentUser);
 
             try {
@@ -280,6 +290,8 @@ public class AdminController {
             }
 
             targetUser.setRoles(newRoles);
+            userRepository.save(targetUser);
+            principalCache.evict(targetUser.getUsername());
 
             // LOG HISTORY: Role change
             historyService.logUserRoleChange(targetUser, currentUser, oldRoles,
@@ -339,4 +351,12 @@ public class AdminController {
             return ResponseEntity.badRequest().body(response);
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/async-executors")
+    public ResponseEntity<?> getAsyncExecutors() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("executors", asyncTaskMetrics.snapshot());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -90,34 +91,35 @@ public class ClientBilanController {
         return ResponseEntity.ok(poorPayers);
     }
 
+    // Both exports are written straight to the response as they are rendered (chunked transfer)
     @GetMapping("/export-pdf/{clientId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'COMMERCIAL_METIER', 'DECIDEUR')")
-    public ResponseEntity<byte[]> exportBilanToPdf(
+    public ResponseEntity<StreamingResponseBody> exportBilanToPdf(
             @PathVariable Long clientId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
 
-        byte[] pdfBytes = clientBilanService.exportBilanToPdf(clientId, startDate, endDate);
+        ClientBilanService.BilanExport export = clientBilanService.prepareBilanExport(clientId, startDate, endDate);
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=client-bilan-" + clientId + ".pdf")
                 .contentType(MediaType.APPLICATION_PDF)
-                .body(pdfBytes);
+                .body(out -> clientBilanService.writeBilanPdf(export, out));
     }
 
     @GetMapping("/export-excel/{clientId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'COMMERCIAL_METIER', 'DECIDEUR')")
-    public ResponseEntity<byte[]> exportBilanToExcel(
+    public ResponseEntity<StreamingResponseBody> exportBilanToExcel(
             @PathVariable Long clientId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
 
-        byte[] excelBytes = clientBilanService.exportBilanToExcel(clientId, startDate, endDate);
+        ClientBilanService.BilanExport export = clientBilanService.prepareBilanExport(clientId, startDate, endDate);
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=client-bilan-" + clientId + ".xlsx")
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(excelBytes);
+                .body(out -> clientBilanService.writeBilanExcel(export, out));
     }
 
     @GetMapping("/summary")
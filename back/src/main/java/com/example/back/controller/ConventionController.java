@@ -7,8 +7,12 @@ import com.example.back.payload.request.RenewalRequestDTO;
 import com.example.back.payload.response.ConventionResponse;
 import com.example.back.repository.*;
 import com.example.back.service.ApplicationService;
+import com.example.back.service.ClientScorecardService;
 import com.example.back.service.ConventionService;
 import com.example.back.service.HistoryService;
+import com.example.back.service.StatsMetricsService;
+import com.example.back.service.WorkloadLedgerService;
+import com.example.back.service.ai.RiskPredictionCache;
 import com.example.back.service.mapper.ConventionMapper;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
@@ -53,7 +57,15 @@ public class ConventionController {
 
     private final OldConventionRepository oldConventionRepository;
 
-    public ConventionController(ConventionRepository conventionRepository, ApplicationRepository applicationRepository, FactureRepository factureRepository, ConventionService conventionService, ConventionMapper conventionMapper, UserRepository userRepository, ApplicationService applicationService, HistoryService historyService, OldFactureRepository oldFactureRepository, OldConventionRepository oldConventionRepository) {
+    private final StatsMetricsService statsMetricsService;
+
+    private final RiskPredictionCache riskPredictionCache;
+
+    private final WorkloadLedgerService workloadLedger;
+
+    private final ClientScorecardService clientScorecardService;
+
+    public ConventionController(ConventionRepository conventionRepository, ApplicationRepository applicationRepository, FactureRepository factureRepository, ConventionService conventionService, ConventionMapper conventionMapper, UserRepository userRepository, ApplicationService applicationService, HistoryService historyService, OldFactureRepository oldFactureRepository, OldConventionRepository oldConventionRepository, StatsMetricsService statsMetricsService, RiskPredictionCache riskPredictionCache, WorkloadLedgerService workloadLedger, ClientScorecardService clientScorecardService) {
         this.conventionRepository = conventionRepository;
         this.applicationRepository = applicationRepository;
         this.factureRepository = factureRepository;
@@ -64,6 +76,10 @@ public class ConventionController {
         this.historyService = historyService;
         this.oldFactureRepository = oldFactureRepository;
         this.oldConventionRepository = oldConventionRepository;
+        this.statsMetricsService = statsMetricsService;
+        this.riskPredictionCache = riskPredictionCache;
+        this.workloadLedger = workloadLedger;
+        this.clientScorecardService = clientScorecardService;
     }
 
 
@@ -248,8 +264,11 @@ public class ConventionController {
             }
 
             // Archive the convention
+            WorkloadLedgerService.Share workloadBefore = WorkloadLedgerService.Share.of(convention);
             convention.archive(currentUsername, request.getReason());
             Convention archivedConvention = conventionRepository.save(convention);
+            workloadLedger.recordConventionChange(workloadBefore, archivedConvention);
+            clientScorecardService.markDirty(archivedConvention);
 
             // ===== NEW: Check if ALL conventions of the application are archived =====
             Application application = convention.getApplication();
@@ -314,8 +333,11 @@ public class ConventionController {
             boolean wasAppArchived = application != null && application.getArchived();
 
             // Restore convention
+            WorkloadLedgerService.Share workloadBefore = WorkloadLedgerService.Share.of(convention);
             convention.restore();
             Convention restoredConvention = conventionRepository.save(convention);
+            workloadLedger.recordConventionChange(workloadBefore, restoredConvention);
+            clientScorecardService.markDirty(restoredConvention);
 
             // Restore related invoices
             List<Facture> invoices = factureRepository.findByConventionId(id);
@@ -469,7 +491,12 @@ public class ConventionController {
                 return ResponseEntity.badRequest().body(response);
             }
 
+            WorkloadLedgerService.Share workloadBefore = WorkloadLedgerService.Share.of(convention);
             conventionRepository.delete(convention);
+            statsMetricsService.markDirty(convention);
+            clientScorecardService.markDirty(convention);
+            riskPredictionCache.evict(convention);
+            workloadLedger.recordConventionChange(workloadBefore, null);
             log.info("Convention deleted successfully: ID={}", id);
 
             Map<String, Object> response = new HashMap<>();
@@ -0,0 +1,90 @@
+package com.example.back.controller;
+
+import com.example.back.entity.ExportJob;
+import com.example.back.entity.User;
+import com.example.back.payload.request.ExportJobRequest;
+import com.example.back.payload.response.ExportJobResponse;
+import com.example.back.payload.response.MessageResponse;
+import com.example.back.service.ExportJobService;
+import com.example.back.service.UserContextService;
+import jakarta.validation.Valid;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bulk bilan exports: submit a job, follow it here or on {@code /topic/export-jobs/{id}},
+ * then download its archive.
+ */
+@RestController
+@RequestMapping("/api/export-jobs")
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+
+    private final UserContextService userContextService;
+
+    public ExportJobController(ExportJobService exportJobService, UserContextService userContextService) {
+        this.exportJobService = exportJobService;
+        this.userContextService = userContextService;
+    }
+
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMMERCIAL_METIER', 'DECIDEUR')")
+    public ResponseEntity<?> submit(@Valid @RequestBody ExportJobRequest request) {
+        try {
+            User currentUser = userContextService.getCurrentUser();
+            ExportJobResponse job = exportJobService.submit(request, currentUser.getUsername());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMMERCIAL_METIER', 'DECIDEUR')")
+    public ResponseEntity<List<ExportJobResponse>> getMyJobs() {
+        return ResponseEntity.ok(exportJobService.getJobs(userContextService.getCurrentUser().getUsername()));
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMMERCIAL_METIER', 'DECIDEUR')")
+    public ResponseEntity<ExportJobResponse> getJob(@PathVariable Long id) {
+        return findAccessibleJob(id)
+                .map(job -> ResponseEntity.ok(exportJobService.toResponse(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/download")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COMMERCIAL_METIER', 'DECIDEUR')")
+    public ResponseEntity<?> download(@PathVariable Long id) {
+        Optional<ExportJob> job = findAccessibleJob(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Optional<Path> archive = exportJobService.getArchive(job.get());
+        if (archive.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new MessageResponse("Export is not ready (status " + job.get().getStatus() + ")"));
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=bilans-export-" + id + ".zip")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(new FileSystemResource(archive.get()));
+    }
+
+    // Jobs are only visible to the user who submitted them, and to admins
+    private Optional<ExportJob> findAccessibleJob(Long id) {
+        String username = userContextService.getCurrentUser().getUsername();
+        return exportJobService.findJob(id)
+                .filter(job -> job.getRequestedBy().equals(username) || userContextService.isAdmin());
+    }
+}
@@ -8,6 +8,7 @@ import com.example.back.payload.request.SendEmailRequest;
 import com.example.back.payload.response.FactureResponse;
 import com.example.back.repository.*;
 import com.example.back.service.*;
+import com.example.back.service.ai.RiskPredictionCache;
 import com.example.back.service.mapper.FactureMapper;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
@@ -44,7 +45,13 @@ public class FactureController {
 
     private final NotificationService notificationService;
 
-    public FactureController(EmailService emailService, FactureRepository factureRepository, ConventionRepository conventionRepository, ConventionService conventionService, FactureMapper factureMapper, UserContextService userContextService, HistoryService historyService, NotificationService notificationService) {
+    private final StatsMetricsService statsMetricsService;
+
+    private final RiskPredictionCache riskPredictionCache;
+
+    private final ClientScorecardService clientScorecardService;
+
+    public FactureController(EmailService emailService, FactureRepository factureRepository, ConventionRepository conventionRepository, ConventionService conventionService, FactureMapper factureMapper, UserContextService userContextService, HistoryService historyService, NotificationService notificationService, StatsMetricsService statsMetricsService, RiskPredictionCache riskPredictionCache, ClientScorecardService clientScorecardService) {
         this.emailService = emailService;
         this.factureRepository = factureRepository;
         this.conventionRepository = conventionRepository;
@@ -53,6 +60,9 @@ public class FactureController {
         this.userContextService = userContextService;
         this.historyService = historyService;
         this.notificationService = notificationService;
+        this.statsMetricsService = statsMetricsService;
+        this.riskPredictionCache = riskPredictionCache;
+        this.clientScorecardService = clientScorecardService;
     }
 
 
@@ -164,6 +174,8 @@ public class FactureController {
             Facture facture = factureOpt.get();
             Facture oldFacture = cloneFacture(facture);
             String oldStatus = facture.getStatutPaiement();
+            statsMetricsService.markDirty(oldFacture);
+            riskPredictionCache.evict(oldFacture);
 
             // Update fields
             if (request.getDateFacturation() != null) {
@@ -197,6 +209,9 @@ public class FactureController {
             }
 
             Facture updated = factureRepository.save(facture);
+            statsMetricsService.markDirty(updated);
+            riskPredictionCache.evict(updated);
+            clientScorecardService.markDirty(updated);
 
             checkAndCreateNotificationForFacture(updated);
 
@@ -252,6 +267,9 @@ public class FactureController {
             historyService.logFactureDelete(facture, currentUser);
 
             factureRepository.delete(facture);
+            statsMetricsService.markDirty(facture);
+            riskPredictionCache.evict(facture);
+            clientScorecardService.markDirty(facture);
 
             // Update convention status
             conventionService.updateConventionStatusRealTime(conventionId);
@@ -288,6 +306,7 @@ public class FactureController {
 
             Facture facture = factureOpt.get();
             String oldStatus = facture.getStatutPaiement();
+            statsMetricsService.markDirty(facture);
 
             // Update payment information
             facture.setStatutPaiement("PAYE");
@@ -296,6 +315,9 @@ public class FactureController {
                     request.getDatePaiement() : LocalDate.now());
 
             Facture updated = factureRepository.save(facture);
+            statsMetricsService.markDirty(updated);
+            riskPredictionCache.evict(updated);
+            clientScorecardService.markDirty(updated);
 
 
             if ("PAYE".equals(updated.getStatutPaiement())) {
@@ -390,6 +412,8 @@ public class FactureController {
             }
 
             Facture saved = factureRepository.save(facture);
+            statsMetricsService.markDirty(saved);
+            clientScorecardService.markDirty(saved);
 
             checkAndCreateNotificationForFacture(saved);
 
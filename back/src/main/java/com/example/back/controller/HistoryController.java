@@ -1,6 +1,8 @@
 package com.example.back.controller;
 
+import com.example.back.payload.response.HistoryPageResponse;
 import com.example.back.payload.response.HistoryResponse;
+import com.example.back.service.HistoryArchiveService;
 import com.example.back.service.HistoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -20,21 +22,20 @@ public class HistoryController {
 
     private final HistoryService historyService;
 
-    public HistoryController(HistoryService historyService) {
+    private final HistoryArchiveService historyArchiveService;
+
+    public HistoryController(HistoryService historyService, HistoryArchiveService historyArchiveService) {
         this.historyService = historyService;
+        this.historyArchiveService = historyArchiveService;
     }
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'DECIDEUR', 'COMMERCIAL_METIER', 'CHEF_PROJET')")
-    public ResponseEntity<?> getAllHistory() {
+    public ResponseEntity<?> getAllHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<HistoryResponse> history = historyService.getAllHistory();
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", history);
-            response.put("count", history.size());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(createPageResponse(historyService.getAllHistory(cursor, limit)));
         } catch (Exception e) {
             log.error("Error fetching history: ", e);
             return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
@@ -60,15 +61,12 @@ public class HistoryController {
 
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasAnyRole('ADMIN')")
-    public ResponseEntity<?> getHistoryByUser(@PathVariable Long userId) {
+    public ResponseEntity<?> getHistoryByUser(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<HistoryResponse> history = historyService.getHistoryByUser(userId);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", history);
-            response.put("count", history.size());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(createPageResponse(historyService.getHistoryByUser(userId, cursor, limit)));
         } catch (Exception e) {
             log.error("Error fetching user history: ", e);
             return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
@@ -79,15 +77,12 @@ public class HistoryController {
     @PreAuthorize("hasAnyRole('ADMIN', 'DECIDEUR', 'COMMERCIAL_METIER', 'CHEF_PROJET')")
     public ResponseEntity<?> getHistoryByEntity(
             @PathVariable String entityType,
-            @PathVariable Long entityId) {
+            @PathVariable Long entityId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<HistoryResponse> history = historyService.getHistoryByEntity(entityType, entityId);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", history);
-            response.put("count", history.size());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(createPageResponse(
+                    historyService.getHistoryByEntity(entityType, entityId, cursor, limit)));
         } catch (Exception e) {
             log.error("Error fetching entity history: ", e);
             return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
@@ -97,15 +92,12 @@ public class HistoryController {
     @GetMapping("/date/{date}")
     @PreAuthorize("hasAnyRole('ADMIN', 'DECIDEUR', 'COMMERCIAL_METIER', 'CHEF_PROJET')")
     public ResponseEntity<?> getHistoryByDate(
-            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<HistoryResponse> history = historyService.getHistoryByDate(date);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", history);
+            Map<String, Object> response = createPageResponse(historyService.getHistoryByDate(date, cursor, limit));
             response.put("date", date.toString());
-            response.put("count", history.size());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             log.error("Error fetching history by date: ", e);
@@ -115,13 +107,20 @@ public class HistoryController {
 
     @GetMapping("/grouped-by-day")
     @PreAuthorize("hasAnyRole('ADMIN', 'DECIDEUR', 'COMMERCIAL_METIER', 'CHEF_PROJET')")
-    public ResponseEntity<?> getHistoryGroupedByDay() {
+    public ResponseEntity<?> getHistoryGroupedByDay(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "100") int perDay) {
         try {
-            Map<LocalDate, List<HistoryResponse>> grouped = historyService.getHistoryGroupedByDay();
+            LocalDate end = to != null ? to : LocalDate.now();
+            LocalDate start = from != null ? from : end.minusDays(29);
+            Map<LocalDate, List<HistoryResponse>> grouped = historyService.getHistoryGroupedByDay(start, end, perDay);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("data", grouped);
+            response.put("from", start.toString());
+            response.put("to", end.toString());
             response.put("totalDays", grouped.size());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -136,15 +135,12 @@ public class HistoryController {
             @RequestParam(required = false) String entityType,
             @RequestParam(required = false) String actionType,
             @RequestParam(required = false) Long userId,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<HistoryResponse> history = historyService.searchHistory(entityType, actionType, userId, date);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", history);
-            response.put("count", history.size());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(createPageResponse(
+                    historyService.searchHistory(entityType, actionType, userId, date, cursor, limit)));
         } catch (Exception e) {
             log.error("Error searching history: ", e);
             return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
@@ -155,33 +151,7 @@ public class HistoryController {
     @PreAuthorize("hasAnyRole('ADMIN', 'DECIDEUR', 'COMMERCIAL_METIER', 'CHEF_PROJET')")
     public ResponseEntity<?> getHistoryStats() {
         try {
-            List<HistoryResponse> allHistory = historyService.getAllHistory();
-
-            Map<String, Long> actionTypeStats = new HashMap<>();
-            Map<String, Long> entityTypeStats = new HashMap<>();
-            Map<String, Long> userStats = new HashMap<>();
-
-            for (HistoryResponse h : allHistory) {
-                // Action type stats
-                actionTypeStats.put(h.getActionTypeLabel(),
-                        actionTypeStats.getOrDefault(h.getActionTypeLabel(), 0L) + 1);
-
-                // Entity type stats
-                entityTypeStats.put(h.getEntityTypeLabel(),
-                        entityTypeStats.getOrDefault(h.getEntityTypeLabel(), 0L) + 1);
-
-                // User stats
-                if (h.getUserFullName() != null) {
-                    userStats.put(h.getUserFullName(),
-                            userStats.getOrDefault(h.getUserFullName(), 0L) + 1);
-                }
-            }
-
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("totalEntries", (long) allHistory.size());
-            stats.put("byActionType", actionTypeStats);
-            stats.put("byEntityType", entityTypeStats);
-            stats.put("byUser", userStats);
+            Map<String, Object> stats = historyService.getHistoryStats();
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -195,6 +165,52 @@ public class HistoryController {
 
 
 
+    @GetMapping("/archive")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<?> getArchivedMonths() {
+        try {
+            List<Map<String, Object>> months = historyArchiveService.listArchivedMonths();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", months);
+            response.put("retentionStart", historyArchiveService.getRetentionStart().toString());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error listing history archives: ", e);
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/archive/{month}")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<?> getArchivedHistory(
+            @PathVariable String month,
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) Long entityId,
+            @RequestParam(required = false) String actionType,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(createPageResponse(historyArchiveService.readMonth(
+                    month, entityType, entityId, actionType, userId, cursor, limit)));
+        } catch (Exception e) {
+            log.error("Error reading history archive {}: ", month, e);
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> createPageResponse(HistoryPageResponse page) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", page.getItems());
+        response.put("count", page.getItems().size());
+        response.put("nextCursor", page.getNextCursor());
+        response.put("hasMore", page.isHasMore());
+        return response;
+    }
+
     private Map<String, Object> createErrorResponse(String message) {
         Map<String, Object> response = new HashMap<>();
         response.put("success", false);
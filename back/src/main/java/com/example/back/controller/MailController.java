@@ -16,9 +16,10 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -27,9 +28,11 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/mails")
@@ -402,11 +405,12 @@ public class MailController {
     public ResponseEntity<?> performBatchAction(@Valid @RequestBody MailActionRequest request) {
         try {
             User currentUser = getCurrentUser();
-            mailService.performBatchAction(request, currentUser.getEmail());
+            MailBatchActionResponse result = mailService.performBatchAction(request, currentUser.getEmail());
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Action performed successfully");
+            response.put("data", result);
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
@@ -557,17 +561,22 @@ public class MailController {
                     .orElseThrow(() -> new RuntimeException("Attachment not found"));
 
             Path filePath = Paths.get(attachment.getFilePath());
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(attachment.getFileType()))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + attachment.getFileName() + "\"")
-                        .body(resource);
-            } else {
+            if (!Files.isReadable(filePath)) {
                 return ResponseEntity.notFound().build();
             }
 
+            // Served as a file resource: Spring answers Range requests with 206 partial content
+            // and If-None-Match with 304 from the ETag below, without buffering the file
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(attachment.getFileType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + attachment.getFileName() + "\"");
+            if (attachment.getBlobHash() != null) {
+                // Content-addressed: the bytes behind this hash never change
+                response.eTag(attachment.getBlobHash())
+                        .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable());
+            }
+            return response.body(new FileSystemResource(filePath));
+
         } catch (Exception e) {
             log.error("Error downloading attachment: {}", e.getMessage(), e);
             return ResponseEntity.badRequest().build();
@@ -4,6 +4,7 @@ import com.example.back.entity.*;
 import com.example.back.payload.request.NomenclatureRequest;
 import com.example.back.payload.request.StructureRequest;
 import com.example.back.repository.*;
+import com.example.back.service.ClientScorecardService;
 import com.example.back.service.EntitySyncService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
@@ -35,13 +36,16 @@ public class NomenclatureController {
 
     private final ConventionRepository conventionRepository;
 
-    public NomenclatureController(EntitySyncService entitySyncService, ApplicationRepository applicationRepository, ZoneGeographiqueRepository zoneGeographiqueRepository, StructureRepository structureRepository, FactureRepository factureRepository, ConventionRepository conventionRepository) {
+    private final ClientScorecardService clientScorecardService;
+
+    public NomenclatureController(EntitySyncService entitySyncService, ApplicationRepository applicationRepository, ZoneGeographiqueRepository zoneGeographiqueRepository, StructureRepository structureRepository, FactureRepository factureRepository, ConventionRepository conventionRepository, ClientScorecardService clientScorecardService) {
         this.entitySyncService = entitySyncService;
         this.applicationRepository = applicationRepository;
         this.zoneGeographiqueRepository = zoneGeographiqueRepository;
         this.structureRepository = structureRepository;
         this.factureRepository = factureRepository;
         this.conventionRepository = conventionRepository;
+        this.clientScorecardService = clientScorecardService;
     }
 
 
@@ -312,6 +316,7 @@ public class NomenclatureController {
             }
 
             Structure saved = structureRepository.save(structure);
+            clientScorecardService.markDirty(saved.getId());
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -371,6 +376,8 @@ public class NomenclatureController {
             }
 
             Structure updated = structureRepository.save(structure);
+            // Name, code or type changes show in the client's scorecard
+            clientScorecardService.markDirty(updated.getId());
 
             try {
                 entitySyncService.syncStructureChanges(oldStructure, updated);
@@ -437,6 +444,7 @@ public class NomenclatureController {
             }
 
             structureRepository.deleteById(id);
+            clientScorecardService.markDirty(id);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -2,8 +2,12 @@ package com.example.back.controller;
 
 import com.example.back.entity.*;
 import com.example.back.repository.*;
+import com.example.back.service.StatsMetricsService;
+import com.example.back.service.StatsMetricsService.MetricTotal;
 import com.example.back.service.UserContextService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -37,7 +41,11 @@ public class StatsController {
 
     private final UserContextService userContextService;
 
-    public StatsController(ConventionRepository conventionRepository, FactureRepository factureRepository, UserRepository userRepository, StructureRepository structureRepository, ZoneGeographiqueRepository zoneGeographiqueRepository, ApplicationRepository applicationRepository, UserContextService userContextService) {
+    private final StatsMetricsService statsMetricsService;
+
+    private final StatsRepository statsRepository;
+
+    public StatsController(ConventionRepository conventionRepository, FactureRepository factureRepository, UserRepository userRepository, StructureRepository structureRepository, ZoneGeographiqueRepository zoneGeographiqueRepository, ApplicationRepository applicationRepository, UserContextService userContextService, StatsMetricsService statsMetricsService, StatsRepository statsRepository) {
         this.conventionRepository = conventionRepository;
         this.factureRepository = factureRepository;
         this.userRepository = userRepository;
@@ -45,69 +53,66 @@ public class StatsController {
         this.zoneGeographiqueRepository = zoneGeographiqueRepository;
         this.applicationRepository = applicationRepository;
         this.userContextService = userContextService;
+        this.statsMetricsService = statsMetricsService;
+        this.statsRepository = statsRepository;
     }
 
-    // ==================== HELPER METHODS FOR ACCESS CONTROL ====================
+    // ==================== HELPER METHODS FOR MATERIALIZED METRICS ====================
 
-    private String getHighestRole(User user) {
-        if (user.getRoles().stream().anyMatch(r -> r.getName() == ERole.ROLE_ADMIN)) {
-            return "ADMIN";
-        } else if (user.getRoles().stream().anyMatch(r -> r.getName() == ERole.ROLE_CHEF_PROJET)) {
-            return "CHEF_PROJET";
-        } else if (user.getRoles().stream().anyMatch(r -> r.getName() == ERole.ROLE_COMMERCIAL_METIER)) {
-            return "COMMERCIAL_METIER";
-        } else if (user.getRoles().stream().anyMatch(r -> r.getName() == ERole.ROLE_DECIDEUR)) {
-            return "DECIDEUR";
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("MMM yyyy");
+
+    // Delayed application alerts listed for a chef or a commercial, most overdue first
+    private static final int MAX_DELAYED_ALERTS = 100;
+
+    private Map<String, Long> countByEtat(List<Object[]> rows) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
         }
-        return "USER";
+        return counts;
     }
 
-    private List<Application> getApplicationsForChef(User chef) {
-        return applicationRepository.findByChefDeProjet(chef);
+    private Map<String, BigDecimal> amountByEtat(List<Object[]> rows) {
+        Map<String, BigDecimal> amounts = new HashMap<>();
+        for (Object[] row : rows) {
+            amounts.put((String) row[0], row[2] instanceof BigDecimal bd ? bd : new BigDecimal(row[2].toString()));
+        }
+        return amounts;
     }
 
-    private List<Convention> getConventionsForChef(User chef) {
-        List<Application> chefApplications = getApplicationsForChef(chef);
-        return conventionRepository.findAll().stream()
-                .filter(c -> c.getApplication() != null &&
-                        chefApplications.stream()
-                                .anyMatch(app -> app.getId().equals(c.getApplication().getId())))
-                .collect(Collectors.toList());
+    private MetricTotal overdueFactures() {
+        return statsMetricsService.totalBefore(MetricType.FACTURE_OUTSTANDING, LocalDate.now());
     }
 
-    private List<Facture> getFacturesForChef(User chef) {
-        List<Convention> chefConventions = getConventionsForChef(chef);
-        return factureRepository.findAll().stream()
-                .filter(f -> f.getConvention() != null &&
-                        chefConventions.stream()
-                                .anyMatch(conv -> conv.getId().equals(f.getConvention().getId())))
-                .collect(Collectors.toList());
+    private MetricTotal notYetDueFactures() {
+        return statsMetricsService.totalFrom(MetricType.FACTURE_OUTSTANDING, LocalDate.now());
     }
 
-    private List<Convention> getConventionsForCommercial(User commercial) {
-        return conventionRepository.findAll().stream()
-                .filter(c -> c.getCreatedBy() != null &&
-                        c.getCreatedBy().getId().equals(commercial.getId()))
-                .collect(Collectors.toList());
+    private Map<String, Long> monthlyCounts(MetricType type) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        statsMetricsService.monthly(type, 6).forEach((month, total) -> result.put(month.format(MONTH_LABEL), total.count()));
+        return result;
     }
 
-    private List<Facture> getFacturesForCommercial(User commercial) {
-        return factureRepository.findAll().stream()
-                .filter(f -> f.getConvention() != null &&
-                        f.getConvention().getCreatedBy() != null &&
-                        f.getConvention().getCreatedBy().getId().equals(commercial.getId()))
-                .collect(Collectors.toList());
+    private Map<String, BigDecimal> monthlyAmounts(MetricType type) {
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        statsMetricsService.monthly(type, 6).forEach((month, total) -> result.put(month.format(MONTH_LABEL), total.amount()));
+        return result;
     }
 
-    private List<Application> getApplicationsForCommercial(User commercial) {
-        List<Convention> commercialConventions = getConventionsForCommercial(commercial);
-        return applicationRepository.findAll().stream()
-                .filter(a -> a.getConventions() != null &&
-                        a.getConventions().stream()
-                                .anyMatch(c -> commercialConventions.stream()
-                                        .anyMatch(cc -> cc.getId().equals(c.getId()))))
-                .distinct()
-                .collect(Collectors.toList());
+    // ==================== HELPER METHODS FOR ACCESS CONTROL ====================
+
+    private String getHighestRole(User user) {
+        if (user.getRoles().stream().anyMatch(r -> r.getName() == ERole.ROLE_ADMIN)) {
+            return "ADMIN";
+        } else if (user.getRoles().stream().anyMatch(r -> r.getName() == ERole.ROLE_CHEF_PROJET)) {
+            return "CHEF_PROJET";
+        } else if (user.getRoles().stream().anyMatch(r -> r.getName() == ERole.ROLE_COMMERCIAL_METIER)) {
+            return "COMMERCIAL_METIER";
+        } else if (user.getRoles().stream().anyMatch(r -> r.getName() == ERole.ROLE_DECIDEUR)) {
+            return "DECIDEUR";
+        }
+        return "USER";
     }
 
     // ==================== DASHBOARD OVERALL STATS ====================
@@ -142,20 +147,20 @@ public class StatsController {
                     stats.putAll(getMonthlyTrends());
                 }
                 case "CHEF_PROJET" -> {
-                    stats.putAll(getConventionStatsForChef(currentUser));
-                    stats.putAll(getFactureStatsForChef(currentUser));
-                    stats.putAll(getFinancialStatsForChef(currentUser));
-                    stats.putAll(getApplicationStatsForChef(currentUser));
-                    stats.putAll(getRecentActivityForChef(currentUser));
-                    stats.putAll(getMonthlyTrendsForChef(currentUser));
+                    stats.putAll(getScopedConventionStats(StatsScope.chef(currentUser)));
+                    stats.putAll(getScopedFactureStats(StatsScope.chef(currentUser)));
+                    stats.putAll(getScopedFinancialStats(StatsScope.chef(currentUser)));
+                    stats.putAll(getScopedApplicationStats(StatsScope.chef(currentUser)));
+                    stats.putAll(getScopedRecentActivity(StatsScope.chef(currentUser)));
+                    stats.putAll(getScopedMonthlyTrends(StatsScope.chef(currentUser)));
                 }
                 case "COMMERCIAL_METIER" -> {
-                    stats.putAll(getConventionStatsForCommercial(currentUser));
-                    stats.putAll(getFactureStatsForCommercial(currentUser));
-                    stats.putAll(getFinancialStatsForCommercial(currentUser));
-                    stats.putAll(getApplicationStatsForCommercial(currentUser));
-                    stats.putAll(getRecentActivityForCommercial(currentUser));
-                    stats.putAll(getMonthlyTrendsForCommercial(currentUser));
+                    stats.putAll(getScopedConventionStats(StatsScope.commercial(currentUser)));
+                    stats.putAll(getScopedFactureStats(StatsScope.commercial(currentUser)));
+                    stats.putAll(getScopedFinancialStats(StatsScope.commercial(currentUser)));
+                    stats.putAll(getScopedApplicationStats(StatsScope.commercial(currentUser)));
+                    stats.putAll(getScopedRecentActivity(StatsScope.commercial(currentUser)));
+                    stats.putAll(getScopedMonthlyTrends(StatsScope.commercial(currentUser)));
                 }
 
                 default -> throw new IllegalStateException("Unexpected value: " + userRole);
@@ -186,8 +191,8 @@ public class StatsController {
 
             stats = switch (userRole) {
                 case "ADMIN", "DECIDEUR" -> getConventionDetailedStatsForAdmin();
-                case "CHEF_PROJET" -> getConventionDetailedStatsForChef(currentUser);
-                case "COMMERCIAL_METIER" -> getConventionDetailedStatsForCommercial(currentUser);
+                case "CHEF_PROJET" -> getScopedConventionDetailedStats(StatsScope.chef(currentUser));
+                case "COMMERCIAL_METIER" -> getScopedConventionDetailedStats(StatsScope.commercial(currentUser));
                 default -> stats;
             };
 
@@ -216,8 +221,8 @@ public class StatsController {
 
             stats = switch (userRole) {
                 case "ADMIN", "DECIDEUR" -> getFactureDetailedStatsForAdmin();
-                case "CHEF_PROJET" -> getFactureDetailedStatsForChef(currentUser);
-                case "COMMERCIAL_METIER" -> getFactureDetailedStatsForCommercial(currentUser);
+                case "CHEF_PROJET" -> getScopedFactureDetailedStats(StatsScope.chef(currentUser));
+                case "COMMERCIAL_METIER" -> getScopedFactureDetailedStats(StatsScope.commercial(currentUser));
                 default -> stats;
             };
 
@@ -246,8 +251,8 @@ public class StatsController {
 
             stats = switch (userRole) {
                 case "ADMIN", "DECIDEUR" -> getApplicationDetailedStatsForAdmin();
-                case "CHEF_PROJET" -> getApplicationDetailedStatsForChef(currentUser);
-                case "COMMERCIAL_METIER" -> getApplicationDetailedStatsForCommercial(currentUser);
+                case "CHEF_PROJET" -> getScopedApplicationDetailedStats(StatsScope.chef(currentUser));
+                case "COMMERCIAL_METIER" -> getScopedApplicationDetailedStats(StatsScope.commercial(currentUser));
                 default -> stats;
             };
 
@@ -276,8 +281,8 @@ public class StatsController {
 
             stats = switch (userRole) {
                 case "ADMIN", "DECIDEUR" -> getFinancialDetailedStatsForAdmin();
-                case "CHEF_PROJET" -> getFinancialDetailedStatsForChef(currentUser);
-                case "COMMERCIAL_METIER" -> getFinancialDetailedStatsForCommercial(currentUser);
+                case "CHEF_PROJET" -> getScopedFinancialDetailedStats(StatsScope.chef(currentUser));
+                case "COMMERCIAL_METIER" -> getScopedFinancialDetailedStats(StatsScope.commercial(currentUser));
                 default -> stats;
             };
 
@@ -366,58 +371,28 @@ public class StatsController {
         try {
             Map<String, Object> stats = new HashMap<>();
 
-            // Get all non-admin users first
-            List<User> nonAdminUsers = userRepository.findAll().stream()
-                    .filter(user -> user.getRoles().stream()
-                            .noneMatch(role -> role.getName() == ERole.ROLE_ADMIN))
-                    .toList();
-
             // Role Distribution (excluding admins)
-            Map<String, Long> roleDistribution = nonAdminUsers.stream()
-                    .flatMap(user -> user.getRoles().stream())
-                    .collect(Collectors.groupingBy(
-                            role -> role.getName().name(),
-                            Collectors.counting()
-                    ));
+            Map<String, Long> roleDistribution = roleCounts(userRepository.countUsersByRoleExcluding(ERole.ROLE_ADMIN));
             stats.put("roleDistribution", roleDistribution);
 
             // User Activity (excluding admins)
+            LocalDateTime now = LocalDateTime.now();
+            Object[] activity = singleRow(userRepository.activitySummaryExcluding(ERole.ROLE_ADMIN, now, now.minusMonths(3)));
             Map<String, Long> userActivity = new HashMap<>();
-            userActivity.put("total", (long) nonAdminUsers.size());
-            userActivity.put("active", nonAdminUsers.stream()
-                    .filter(user -> user.getEnabled() != null && user.getEnabled())
-                    .count());
-            userActivity.put("locked", nonAdminUsers.stream()
-                    .filter(user -> (user.getLockedByAdmin() != null && user.getLockedByAdmin()) ||
-                            (user.getAccountLockedUntil() != null &&
-                                    user.getAccountLockedUntil().isAfter(LocalDateTime.now())))
-                    .count());
-            userActivity.put("inactive", nonAdminUsers.stream()
-                    .filter(user -> user.getLastLogin() != null &&
-                            user.getLastLogin().isBefore(LocalDateTime.now().minusMonths(3)))
-                    .count());
+            userActivity.put("total", longAt(activity, 0));
+            userActivity.put("active", longAt(activity, 1));
+            userActivity.put("locked", longAt(activity, 2));
+            userActivity.put("inactive", longAt(activity, 3));
             stats.put("userActivity", userActivity);
 
             // Users by Role Counts (excluding admins)
             Map<String, Long> usersByRole = new HashMap<>();
-            usersByRole.put("chefDeProjet", nonAdminUsers.stream()
-                    .filter(user -> user.getRoles().stream()
-                            .anyMatch(role -> role.getName() == ERole.ROLE_CHEF_PROJET))
-                    .count());
-            usersByRole.put("commercialMetier", nonAdminUsers.stream()
-                    .filter(user -> user.getRoles().stream()
-                            .anyMatch(role -> role.getName() == ERole.ROLE_COMMERCIAL_METIER))
-                    .count());
-            usersByRole.put("decideur", nonAdminUsers.stream()
-                    .filter(user -> user.getRoles().stream()
-                            .anyMatch(role -> role.getName() == ERole.ROLE_DECIDEUR))
-                    .count());
+            usersByRole.put("chefDeProjet", roleDistribution.getOrDefault(ERole.ROLE_CHEF_PROJET.name(), 0L));
+            usersByRole.put("commercialMetier", roleDistribution.getOrDefault(ERole.ROLE_COMMERCIAL_METIER.name(), 0L));
+            usersByRole.put("decideur", roleDistribution.getOrDefault(ERole.ROLE_DECIDEUR.name(), 0L));
 
             // Optional: Add admin count separately if needed
-            long adminCount = userRepository.findAll().stream()
-                    .filter(user -> user.getRoles().stream()
-                            .anyMatch(role -> role.getName() == ERole.ROLE_ADMIN))
-                    .count();
+            long adminCount = roleCounts(userRepository.countUsersByRole()).getOrDefault(ERole.ROLE_ADMIN.name(), 0L);
             usersByRole.put("admin", adminCount);
 
             stats.put("usersByRole", usersByRole);
@@ -446,8 +421,8 @@ public class StatsController {
 
             summary = switch (userRole) {
                 case "ADMIN", "DECIDEUR" -> getSummaryStatsForAdmin();
-                case "CHEF_PROJET" -> getSummaryStatsForChef(currentUser);
-                case "COMMERCIAL_METIER" -> getSummaryStatsForCommercial(currentUser);
+                case "CHEF_PROJET" -> getScopedSummaryStats(StatsScope.chef(currentUser));
+                case "COMMERCIAL_METIER" -> getScopedSummaryStats(StatsScope.commercial(currentUser));
                 default -> summary;
             };
 
@@ -476,8 +451,8 @@ public class StatsController {
 
             alerts = switch (userRole) {
                 case "ADMIN", "DECIDEUR" -> getOverdueAlertsForAdmin();
-                case "CHEF_PROJET" -> getOverdueAlertsForChef(currentUser);
-                case "COMMERCIAL_METIER" -> getOverdueAlertsForCommercial(currentUser);
+                case "CHEF_PROJET" -> getScopedOverdueAlerts(StatsScope.chef(currentUser));
+                case "COMMERCIAL_METIER" -> getScopedOverdueAlerts(StatsScope.commercial(currentUser));
                 default -> alerts;
             };
 
@@ -498,21 +473,13 @@ public class StatsController {
 
     private Map<String, Object> getConventionStats() {
         Map<String, Object> stats = new HashMap<>();
-        List<Convention> allConventions = conventionRepository.findAll();
-
-        long totalConventions = allConventions.size();
-        long activeConventions = allConventions.stream()
-                .filter(c -> "EN COURS".equals(c.getEtat()))
-                .count();
-        long planifiedConventions = allConventions.stream()
-                .filter(c -> "PLANIFIE".equals(c.getEtat()))
-                .count();
-        long terminatedConventions = allConventions.stream()
-                .filter(c -> "TERMINE".equals(c.getEtat()))
-                .count();
-        long archivedConventions = allConventions.stream()
-                .filter(c -> "ARCHIVE".equals(c.getEtat()))
-                .count();
+        Map<String, Long> countByEtat = countByEtat(conventionRepository.countAndSumByEtat());
+
+        long totalConventions = countByEtat.values().stream().mapToLong(Long::longValue).sum();
+        long activeConventions = countByEtat.getOrDefault("EN COURS", 0L);
+        long planifiedConventions = countByEtat.getOrDefault("PLANIFIE", 0L);
+        long terminatedConventions = countByEtat.getOrDefault("TERMINE", 0L);
+        long archivedConventions = countByEtat.getOrDefault("ARCHIVE", 0L);
 
         stats.put("totalConventions", totalConventions);
         stats.put("activeConventions", activeConventions);
@@ -527,18 +494,15 @@ public class StatsController {
 
     private Map<String, Object> getFactureStats() {
         Map<String, Object> stats = new HashMap<>();
-        List<Facture> allFactures = factureRepository.findAll();
-
-        long totalFactures = allFactures.size();
-        long paidFactures = allFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .count();
-        long unpaidFactures = allFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) && !f.isEnRetard())
-                .count();
-        long overdueFactures = allFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .count();
+
+        MetricTotal all = statsMetricsService.total(MetricType.FACTURE_DUE);
+        MetricTotal paid = statsMetricsService.total(MetricType.FACTURE_PAID);
+        MetricTotal outstanding = statsMetricsService.total(MetricType.FACTURE_OUTSTANDING);
+
+        long totalFactures = all.count();
+        long paidFactures = paid.count();
+        long unpaidFactures = notYetDueFactures().count();
+        long overdueFactures = overdueFactures().count();
 
         stats.put("totalFactures", totalFactures);
         stats.put("paidFactures", paidFactures);
@@ -547,40 +511,22 @@ public class StatsController {
         stats.put("paymentRate",
                 totalFactures > 0 ? ((double) paidFactures / totalFactures) * 100 : 0);
 
-        BigDecimal totalPaidAmount = allFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalPaidAmount", totalPaidAmount);
-
-        BigDecimal totalUnpaidAmount = allFactures.stream()
-                .filter(f -> !"PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalUnpaidAmount", totalUnpaidAmount);
+        stats.put("totalPaidAmount", paid.amount());
+        stats.put("totalUnpaidAmount", outstanding.amount());
 
         return stats;
     }
 
     private Map<String, Object> getApplicationStats() {
         Map<String, Object> stats = new HashMap<>();
-        List<Application> allApplications = applicationRepository.findAll();
-
-        long totalApplications = allApplications.size();
-        long activeApplications = allApplications.stream()
-                .filter(a -> "EN_COURS".equals(a.getStatus()))
-                .count();
-        long plannedApplications = allApplications.stream()
-                .filter(a -> "PLANIFIE".equals(a.getStatus()))
-                .count();
-        long completedApplications = allApplications.stream()
-                .filter(a -> "TERMINE".equals(a.getStatus()))
-                .count();
-
-        double avgProgress = allApplications.stream()
-                .mapToInt(a -> a.getTimeBasedProgress() != null ? a.getTimeBasedProgress() : 0)
-                .average()
-                .orElse(0.0);
+        Map<String, Long> countByStatus = countByEtat(applicationRepository.countByStatus());
+
+        long totalApplications = countByStatus.values().stream().mapToLong(Long::longValue).sum();
+        long activeApplications = countByStatus.getOrDefault("EN_COURS", 0L);
+        long plannedApplications = countByStatus.getOrDefault("PLANIFIE", 0L);
+        long completedApplications = countByStatus.getOrDefault("TERMINE", 0L);
+
+        double avgProgress = doubleAt(singleRow(applicationRepository.progressSummary(LocalDate.now())), 0);
 
         stats.put("totalApplications", totalApplications);
         stats.put("activeApplications", activeApplications);
@@ -596,28 +542,14 @@ public class StatsController {
     private Map<String, Object> getUserStats() {
         Map<String, Object> stats = new HashMap<>();
 
-        List<User> allUsers = userRepository.findAll();
-
-        long totalUsers = allUsers.size();
-        long activeUsers = allUsers.stream()
-                .filter(user -> user.getEnabled() != null && user.getEnabled())
-                .count();
+        Map<String, Long> usersByRole = roleCounts(userRepository.countUsersByRole());
 
-        long chefDeProjetCount = allUsers.stream()
-                .filter(user -> user.getRoles().stream()
-                        .anyMatch(role -> role.getName().name().equals("ROLE_CHEF_PROJET")))
-                .count();
-
-        long commercialMetierCount = allUsers.stream()
-                .filter(user -> user.getRoles().stream()
-                        .anyMatch(role -> role.getName().name().equals("ROLE_COMMERCIAL_METIER")))
-                .count();
-
-        long decideurCount = allUsers.stream()
-                .filter(user -> user.getRoles().stream()
-                        .anyMatch(role -> role.getName().name().equals("ROLE_DECIDEUR")))
-                .count();
+        long totalUsers = userRepository.count();
+        long activeUsers = userRepository.countByEnabledTrue();
 
+        long chefDeProjetCount = usersByRole.getOrDefault(ERole.ROLE_CHEF_PROJET.name(), 0L);
+        long commercialMetierCount = usersByRole.getOrDefault(ERole.ROLE_COMMERCIAL_METIER.name(), 0L);
+        long decideurCount = usersByRole.getOrDefault(ERole.ROLE_DECIDEUR.name(), 0L);
 
         stats.put("totalUsers", totalUsers);
         stats.put("activeUsers", activeUsers);
@@ -650,26 +582,9 @@ public class StatsController {
     private Map<String, Object> getFinancialStats() {
         Map<String, Object> stats = new HashMap<>();
 
-        List<Facture> allFactures = factureRepository.findAll();
-        List<Convention> allConventions = conventionRepository.findAll();
-
-        BigDecimal totalRevenue = allFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal pendingRevenue = allFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) || "EN_RETARD".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalContractValue = allConventions.stream()
-                .map(c -> c.getMontantTTC() != null ? c.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        stats.put("totalRevenue", totalRevenue);
-        stats.put("pendingRevenue", pendingRevenue);
-        stats.put("totalContractValue", totalContractValue);
+        stats.put("totalRevenue", statsMetricsService.total(MetricType.FACTURE_PAID).amount());
+        stats.put("pendingRevenue", statsMetricsService.total(MetricType.FACTURE_OUTSTANDING).amount());
+        stats.put("totalContractValue", statsMetricsService.total(MetricType.CONVENTION_CREATED).amount());
 
         return stats;
     }
@@ -678,9 +593,7 @@ public class StatsController {
         Map<String, Object> activity = new HashMap<>();
 
         // Recent Applications
-        List<Map<String, Object>> recentApplications = applicationRepository.findAll().stream()
-                .sorted(Comparator.comparing(Application::getCreatedAt).reversed())
-                .limit(5)
+        List<Map<String, Object>> recentApplications = applicationRepository.findTop5ByOrderByCreatedAtDesc().stream()
                 .map(a -> {
                     Map<String, Object> app = new HashMap<>();
                     app.put("code", a.getCode());
@@ -695,9 +608,7 @@ public class StatsController {
                 .collect(Collectors.toList());
 
         // Recent Conventions
-        List<Map<String, Object>> recentConventions = conventionRepository.findAll().stream()
-                .sorted(Comparator.comparing(Convention::getCreatedAt).reversed())
-                .limit(5)
+        List<Map<String, Object>> recentConventions = conventionRepository.findTop5ByOrderByCreatedAtDesc().stream()
                 .map(c -> {
                     Map<String, Object> conv = new HashMap<>();
                     conv.put("reference", c.getReferenceConvention());
@@ -710,9 +621,7 @@ public class StatsController {
                 .collect(Collectors.toList());
 
         // Recent Factures
-        List<Map<String, Object>> recentFactures = factureRepository.findAll().stream()
-                .sorted(Comparator.comparing(Facture::getCreatedAt).reversed())
-                .limit(5)
+        List<Map<String, Object>> recentFactures = factureRepository.findRecentWithConvention(PageRequest.of(0, 5)).stream()
                 .map(f -> {
                     Map<String, Object> fact = new HashMap<>();
                     fact.put("numero", f.getNumeroFacture());
@@ -735,56 +644,20 @@ public class StatsController {
     private Map<String, Object> getMonthlyTrends() {
         Map<String, Object> trends = new HashMap<>();
 
-        // Application trends by month
-        Map<String, Long> applicationTrends = new LinkedHashMap<>();
-        // Convention trends by month
-        Map<String, Long> conventionTrends = new LinkedHashMap<>();
-        // Revenue trends by month
-        Map<String, BigDecimal> revenueTrends = new LinkedHashMap<>();
-
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            String monthKey = month.format(DateTimeFormatter.ofPattern("MMM yyyy"));
-
-            long appsCount = applicationRepository.findAll().stream()
-                    .filter(a -> a.getCreatedAt() != null &&
-                            YearMonth.from(a.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-            applicationTrends.put(monthKey, appsCount);
-
-            long convCount = conventionRepository.findAll().stream()
-                    .filter(c -> c.getCreatedAt() != null &&
-                            YearMonth.from(c.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-            conventionTrends.put(monthKey, convCount);
-
-            BigDecimal revenue = factureRepository.findAll().stream()
-                    .filter(f -> "PAYE".equals(f.getStatutPaiement()) &&
-                            f.getDatePaiement() != null &&
-                            YearMonth.from(f.getDatePaiement()).equals(month))
-                    .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            revenueTrends.put(monthKey, revenue);
-        }
-
-        trends.put("applicationTrends", applicationTrends);
-        trends.put("conventionTrends", conventionTrends);
-        trends.put("revenueTrends", revenueTrends);
+        trends.put("applicationTrends", monthlyCounts(MetricType.APPLICATION_CREATED));
+        trends.put("conventionTrends", monthlyCounts(MetricType.CONVENTION_CREATED));
+        trends.put("revenueTrends", monthlyAmounts(MetricType.FACTURE_PAID));
 
         return trends;
     }
 
     private Map<String, Object> getConventionDetailedStatsForAdmin() {
         Map<String, Object> stats = new HashMap<>();
-        List<Convention> allConventions = conventionRepository.findAll();
+        List<Object[]> etatRows = conventionRepository.countAndSumByEtat();
 
         // Status Distribution
         List<Map<String, Object>> statusDistribution = new ArrayList<>();
-        Map<String, Long> statusCount = allConventions.stream()
-                .collect(Collectors.groupingBy(
-                        c -> c.getEtat() != null ? c.getEtat() : "NO_STATUS",
-                        Collectors.counting()
-                ));
+        Map<String, Long> statusCount = countByEtat(etatRows);
 
         List<String> allStatuses = Arrays.asList("PLANIFIE", "EN COURS", "TERMINE", "ARCHIVE");
         for (String status : allStatuses) {
@@ -796,40 +669,17 @@ public class StatsController {
         stats.put("statusDistribution", statusDistribution);
 
         // Monthly Conventions
-        Map<String, Long> monthlyConventions = new LinkedHashMap<>();
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            long count = allConventions.stream()
-                    .filter(c -> c.getCreatedAt() != null &&
-                            YearMonth.from(c.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-            monthlyConventions.put(month.format(DateTimeFormatter.ofPattern("MMM yyyy")), count);
-        }
-        stats.put("monthlyConventions", monthlyConventions);
+        stats.put("monthlyConventions", monthlyCounts(MetricType.CONVENTION_CREATED));
 
         // Amount by Status
-        Map<String, BigDecimal> amountByStatus = new HashMap<>();
-        for (Convention convention : allConventions) {
-            String etat = convention.getEtat() != null ? convention.getEtat() : "NO_STATUS";
-            BigDecimal montant = convention.getMontantTTC() != null ? convention.getMontantTTC() : BigDecimal.ZERO;
-            amountByStatus.merge(etat, montant, BigDecimal::add);
-        }
-        stats.put("amountByStatus", amountByStatus);
+        stats.put("amountByStatus", amountByEtat(etatRows));
 
         // Top Structures by Convention Count
-        List<Map<String, Object>> topStructures = allConventions.stream()
-                .filter(c -> c.getStructureResponsable() != null)
-                .collect(Collectors.groupingBy(
-                        Convention::getStructureResponsable,
-                        Collectors.counting()
-                ))
-                .entrySet().stream()
-                .sorted((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()))
-                .limit(5)
-                .map(entry -> {
+        List<Map<String, Object>> topStructures = conventionRepository.findTopStructuresByConventionCount(PageRequest.of(0, 5)).stream()
+                .map(row -> {
                     Map<String, Object> struct = new HashMap<>();
-                    struct.put("structure", entry.getKey().getName());
-                    struct.put("count", entry.getValue());
+                    struct.put("structure", row[0]);
+                    struct.put("count", ((Number) row[1]).longValue());
                     return struct;
                 })
                 .collect(Collectors.toList());
@@ -840,81 +690,48 @@ public class StatsController {
 
     private Map<String, Object> getFactureDetailedStatsForAdmin() {
         Map<String, Object> stats = new HashMap<>();
-        List<Facture> allFactures = factureRepository.findAll();
 
         // Payment Status Distribution
         List<Map<String, Object>> paymentStatus = new ArrayList<>();
 
-        long paidCount = allFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .count();
-        BigDecimal paidAmount = allFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        long unpaidCount = allFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) && !f.isEnRetard())
-                .count();
-        BigDecimal unpaidAmount = allFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) && !f.isEnRetard())
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        long overdueCount = allFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .count();
-        BigDecimal overdueAmount = allFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        MetricTotal paid = statsMetricsService.total(MetricType.FACTURE_PAID);
+        MetricTotal unpaid = notYetDueFactures();
+        MetricTotal overdue = overdueFactures();
 
         Map<String, Object> paidStatus = new HashMap<>();
         paidStatus.put("status", "PAYE");
-        paidStatus.put("count", paidCount);
-        paidStatus.put("amount", paidAmount);
+        paidStatus.put("count", paid.count());
+        paidStatus.put("amount", paid.amount());
         paymentStatus.add(paidStatus);
 
         Map<String, Object> unpaidStatus = new HashMap<>();
         unpaidStatus.put("status", "NON_PAYE");
-        unpaidStatus.put("count", unpaidCount);
-        unpaidStatus.put("amount", unpaidAmount);
+        unpaidStatus.put("count", unpaid.count());
+        unpaidStatus.put("amount", unpaid.amount());
         paymentStatus.add(unpaidStatus);
 
         Map<String, Object> overdueStatus = new HashMap<>();
         overdueStatus.put("status", "EN_RETARD");
-        overdueStatus.put("count", overdueCount);
-        overdueStatus.put("amount", overdueAmount);
+        overdueStatus.put("count", overdue.count());
+        overdueStatus.put("amount", overdue.amount());
         paymentStatus.add(overdueStatus);
 
         stats.put("paymentStatus", paymentStatus);
 
         // Monthly Invoice Amounts
+        Map<YearMonth, MetricTotal> issued = statsMetricsService.monthly(MetricType.FACTURE_ISSUED, 6);
+        Map<YearMonth, MetricTotal> issuedPaid = statsMetricsService.monthly(MetricType.FACTURE_ISSUED_PAID, 6);
         Map<String, Map<String, BigDecimal>> monthlyAmounts = new LinkedHashMap<>();
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            List<Facture> monthFactures = allFactures.stream()
-                    .filter(f -> f.getDateFacturation() != null &&
-                            YearMonth.from(f.getDateFacturation()).equals(month))
-                    .toList();
-
+        for (YearMonth month : issued.keySet()) {
             Map<String, BigDecimal> monthStats = new HashMap<>();
-            monthStats.put("total", monthFactures.stream()
-                    .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add));
-            monthStats.put("paid", monthFactures.stream()
-                    .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                    .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add));
-
-            monthlyAmounts.put(month.format(DateTimeFormatter.ofPattern("MMM yyyy")), monthStats);
+            monthStats.put("total", issued.get(month).amount());
+            monthStats.put("paid", issuedPaid.get(month).amount());
+            monthlyAmounts.put(month.format(MONTH_LABEL), monthStats);
         }
         stats.put("monthlyAmounts", monthlyAmounts);
 
         // Overdue Invoices Details
-        List<Map<String, Object>> overdueDetails = allFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .sorted(Comparator.comparing(Facture::getDateEcheance))
+        List<Map<String, Object>> overdueDetails = factureRepository.findOverdueWithConvention(LocalDate.now()).stream()
                 .map(f -> {
                     Map<String, Object> detail = new HashMap<>();
                     detail.put("numero", f.getNumeroFacture());
@@ -929,22 +746,12 @@ public class StatsController {
         stats.put("overdueDetails", overdueDetails);
 
         // Top Convention by Invoice Amount
-        List<Map<String, Object>> topConventionAmounts = allFactures.stream()
-                .filter(f -> f.getConvention() != null)
-                .collect(Collectors.groupingBy(
-                        Facture::getConvention,
-                        Collectors.reducing(BigDecimal.ZERO,
-                                f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO,
-                                BigDecimal::add)
-                ))
-                .entrySet().stream()
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                .limit(5)
-                .map(entry -> {
+        List<Map<String, Object>> topConventionAmounts = factureRepository.findTopConventionsByInvoicedAmount(PageRequest.of(0, 5)).stream()
+                .map(row -> {
                     Map<String, Object> conv = new HashMap<>();
-                    conv.put("convention", entry.getKey().getReferenceConvention());
-                    conv.put("totalAmount", entry.getValue());
-                    conv.put("etat", entry.getKey().getEtat());
+                    conv.put("convention", row[0]);
+                    conv.put("totalAmount", row[1]);
+                    conv.put("etat", row[2]);
                     return conv;
                 })
                 .collect(Collectors.toList());
@@ -956,56 +763,24 @@ public class StatsController {
     private Map<String, Object> getFinancialDetailedStatsForAdmin() {
         Map<String, Object> stats = new HashMap<>();
 
-        List<Facture> allFactures = factureRepository.findAll();
-        List<Convention> allConventions = conventionRepository.findAll();
-
         // Total Revenue
-        BigDecimal totalRevenue = allFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalRevenue = statsMetricsService.total(MetricType.FACTURE_PAID).amount();
         stats.put("totalRevenue", totalRevenue);
 
         // Pending Payments
-        BigDecimal pendingPayments = allFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) || "EN_RETARD".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("pendingPayments", pendingPayments);
+        stats.put("pendingPayments", statsMetricsService.total(MetricType.FACTURE_OUTSTANDING).amount());
 
         // Overdue Amount
-        BigDecimal overdueAmount = allFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("overdueAmount", overdueAmount);
+        stats.put("overdueAmount", overdueFactures().amount());
 
         // Total Contract Value
-        BigDecimal totalContractValue = allConventions.stream()
-                .map(c -> c.getMontantTTC() != null ? c.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalContractValue", totalContractValue);
+        stats.put("totalContractValue", statsMetricsService.total(MetricType.CONVENTION_CREATED).amount());
 
         // Revenue by Month
-        Map<String, BigDecimal> revenueByMonth = new LinkedHashMap<>();
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            BigDecimal monthRevenue = allFactures.stream()
-                    .filter(f -> "PAYE".equals(f.getStatutPaiement()) &&
-                            f.getDatePaiement() != null &&
-                            YearMonth.from(f.getDatePaiement()).equals(month))
-                    .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            revenueByMonth.put(month.format(DateTimeFormatter.ofPattern("MMM yyyy")), monthRevenue);
-        }
-        stats.put("revenueByMonth", revenueByMonth);
+        stats.put("revenueByMonth", monthlyAmounts(MetricType.FACTURE_PAID));
 
         // Top Earning Conventions
-        List<Map<String, Object>> topEarningConventions = allConventions.stream()
-                .filter(c -> c.getMontantTTC() != null && c.getMontantTTC().compareTo(BigDecimal.ZERO) > 0)
-                .sorted((c1, c2) -> c2.getMontantTTC().compareTo(c1.getMontantTTC()))
-                .limit(5)
+        List<Map<String, Object>> topEarningConventions = conventionRepository.findTop5ByMontantTTCGreaterThanOrderByMontantTTCDesc(BigDecimal.ZERO).stream()
                 .map(c -> {
                     Map<String, Object> conventionInfo = new HashMap<>();
                     conventionInfo.put("reference", c.getReferenceConvention());
@@ -1019,9 +794,7 @@ public class StatsController {
         stats.put("topEarningConventions", topEarningConventions);
 
         // Payment Collection Rate
-        BigDecimal totalInvoiced = allFactures.stream()
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalInvoiced = statsMetricsService.total(MetricType.FACTURE_DUE).amount();
 
         double collectionRate = totalInvoiced.compareTo(BigDecimal.ZERO) > 0 ?
                 totalRevenue.divide(totalInvoiced, 4, RoundingMode.HALF_UP).doubleValue() * 100 : 0;
@@ -1032,15 +805,11 @@ public class StatsController {
 
     private Map<String, Object> getApplicationDetailedStatsForAdmin() {
         Map<String, Object> stats = new HashMap<>();
-        List<Application> allApplications = applicationRepository.findAll();
+        LocalDate today = LocalDate.now();
 
         // Status Distribution
         List<Map<String, Object>> statusDistribution = new ArrayList<>();
-        Map<String, Long> statusCount = allApplications.stream()
-                .collect(Collectors.groupingBy(
-                        a -> a.getStatus() != null ? a.getStatus() : "NO_STATUS",
-                        Collectors.counting()
-                ));
+        Map<String, Long> statusCount = countByEtat(applicationRepository.countByStatus());
 
         List<String> allStatuses = Arrays.asList("PLANIFIE", "EN_COURS", "TERMINE");
         for (String status : allStatuses) {
@@ -1052,58 +821,30 @@ public class StatsController {
         stats.put("statusDistribution", statusDistribution);
 
         // Monthly Applications
-        Map<String, Long> monthlyApplications = new LinkedHashMap<>();
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            long count = allApplications.stream()
-                    .filter(a -> a.getCreatedAt() != null &&
-                            YearMonth.from(a.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-            monthlyApplications.put(month.format(DateTimeFormatter.ofPattern("MMM yyyy")), count);
-        }
-        stats.put("monthlyApplications", monthlyApplications);
+        stats.put("monthlyApplications", monthlyCounts(MetricType.APPLICATION_CREATED));
 
         // Applications by Chef
-        List<Map<String, Object>> applicationsByChef = allApplications.stream()
-                .filter(a -> a.getChefDeProjet() != null)
-                .collect(Collectors.groupingBy(
-                        Application::getChefDeProjet,
-                        Collectors.counting()
-                ))
-                .entrySet().stream()
-                .sorted((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()))
-                .limit(5)
-                .map(entry -> {
+        List<Map<String, Object>> applicationsByChef = applicationRepository.countByChef(PageRequest.of(0, 5)).stream()
+                .map(row -> {
                     Map<String, Object> chef = new HashMap<>();
-                    chef.put("chef", entry.getKey().getFirstName() + " " + entry.getKey().getLastName());
-                    chef.put("count", entry.getValue());
+                    chef.put("chef", row[0] + " " + row[1]);
+                    chef.put("count", longAt(row, 2));
                     return chef;
                 })
                 .collect(Collectors.toList());
         stats.put("applicationsByChef", applicationsByChef);
 
         // Unassigned Applications
-        long unassignedCount = allApplications.stream()
-                .filter(a -> a.getChefDeProjet() == null)
-                .count();
+        long unassignedCount = applicationRepository.countByChefDeProjetIsNull();
         stats.put("unassignedApplications", unassignedCount);
 
         // Progress Statistics
         Map<String, Object> progressStats = new HashMap<>();
-        double avgProgress = allApplications.stream()
-                .mapToInt(a -> a.getTimeBasedProgress() != null ? a.getTimeBasedProgress() : 0)
-                .average()
-                .orElse(0.0);
-        progressStats.put("averageProgress", Math.round(avgProgress * 100.0) / 100.0);
-
-        long onTrackApplications = allApplications.stream()
-                .filter(a -> a.getTimeBasedProgress() != null && a.getTimeBasedProgress() >= 70)
-                .count();
-        progressStats.put("onTrackApplications", onTrackApplications);
-
-        long delayedApplications = allApplications.stream()
-                .filter(a -> a.getDaysRemaining() < 0 && !"TERMINE".equals(a.getStatus()))
-                .count();
+        Object[] progress = singleRow(applicationRepository.progressSummary(today));
+        progressStats.put("averageProgress", Math.round(doubleAt(progress, 0) * 100.0) / 100.0);
+        progressStats.put("onTrackApplications", longAt(progress, 1));
+
+        long delayedApplications = applicationRepository.countDelayed(today);
         progressStats.put("delayedApplications", delayedApplications);
 
         stats.put("progressStats", progressStats);
@@ -1120,37 +861,11 @@ public class StatsController {
 
         LocalDate today = LocalDate.now();
 
-        long conventionsCreatedToday = conventionRepository.findAll().stream()
-                .filter(c -> c.getCreatedAt() != null &&
-                        c.getCreatedAt().toLocalDate().equals(today))
-                .count();
-
-        long facturesCreatedToday = factureRepository.findAll().stream()
-                .filter(f -> f.getCreatedAt() != null &&
-                        f.getCreatedAt().toLocalDate().equals(today))
-                .count();
-
-        long facturesDueToday = factureRepository.findAll().stream()
-                .filter(f -> f.getDateEcheance() != null &&
-                        f.getDateEcheance().equals(today))
-                .count();
-
-        long overdueFacturesToday = factureRepository.findAll().stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .count();
-
-        summary.put("conventionsToday", conventionsCreatedToday);
-        summary.put("facturesToday", facturesCreatedToday);
-        summary.put("dueToday", facturesDueToday);
-        summary.put("overdueToday", overdueFacturesToday);
-
-        BigDecimal todayRevenue = factureRepository.findAll().stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()) &&
-                        f.getDatePaiement() != null &&
-                        f.getDatePaiement().equals(today))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        summary.put("todayRevenue", todayRevenue);
+        summary.put("conventionsToday", statsMetricsService.total(MetricType.CONVENTION_CREATED, today, today).count());
+        summary.put("facturesToday", statsMetricsService.total(MetricType.FACTURE_CREATED, today, today).count());
+        summary.put("dueToday", statsMetricsService.total(MetricType.FACTURE_DUE, today, today).count());
+        summary.put("overdueToday", overdueFactures().count());
+        summary.put("todayRevenue", statsMetricsService.total(MetricType.FACTURE_PAID, today, today).amount());
 
         return summary;
     }
@@ -1159,9 +874,7 @@ public class StatsController {
         List<Map<String, Object>> alerts = new ArrayList<>();
 
         // Overdue invoices
-        List<Facture> overdueInvoices = factureRepository.findAll().stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .toList();
+        List<Facture> overdueInvoices = factureRepository.findOverdueWithConvention(LocalDate.now());
 
         for (Facture invoice : overdueInvoices) {
             Map<String, Object> alert = new HashMap<>();
@@ -1179,15 +892,13 @@ public class StatsController {
         }
 
         // Delayed applications
-        List<Application> delayedApplications = applicationRepository.findAll().stream()
-                .filter(a -> a.getDaysRemaining() < 0 && !"TERMINE".equals(a.getStatus()))
-                .toList();
+        List<Application> delayedApplications = applicationRepository.findDelayed(LocalDate.now());
 
         for (Application app : delayedApplications) {
             Map<String, Object> alert = new HashMap<>();
             alert.put("type", "APPLICATION_DELAYED");
             alert.put("message", String.format("Application %s en retard (échéance dépassée de %d jours)",
-                    app.getName(), Math.abs(app.getDaysRemaining())));
+                    app.getName(), ChronoUnit.DAYS.between(app.getDateFin(), LocalDate.now())));
             alert.put("application", app.getName());
             alert.put("code", app.getCode());
             alert.put("progress", app.getTimeBasedProgress());
@@ -1200,677 +911,169 @@ public class StatsController {
     }
 
     private String getOverduePriority(Facture invoice) {
-        long daysOverdue = ChronoUnit.DAYS.between(invoice.getDateEcheance(), LocalDate.now());
+        return getOverduePriority(ChronoUnit.DAYS.between(invoice.getDateEcheance(), LocalDate.now()));
+    }
+
+    private String getOverduePriority(long daysOverdue) {
         if (daysOverdue > 30) return "CRITICAL";
         if (daysOverdue > 15) return "HIGH";
         if (daysOverdue > 7) return "MEDIUM";
         return "LOW";
     }
 
-    // ==================== CHEF DE PROJET METHODS ====================
-
-    private Map<String, Object> getConventionStatsForChef(User chef) {
-        Map<String, Object> stats = new HashMap<>();
-        List<Convention> chefConventions = getConventionsForChef(chef);
-
-        long totalConventions = chefConventions.size();
-        long activeConventions = chefConventions.stream()
-                .filter(c -> "EN COURS".equals(c.getEtat()))
-                .count();
-        long planifiedConventions = chefConventions.stream()
-                .filter(c -> "PLANIFIE".equals(c.getEtat()))
-                .count();
-        long terminatedConventions = chefConventions.stream()
-                .filter(c -> "TERMINE".equals(c.getEtat()))
-                .count();
-        long archivedConventions = chefConventions.stream()
-                .filter(c -> "ARCHIVE".equals(c.getEtat()))
-                .count();
-
-        stats.put("totalConventions", totalConventions);
-        stats.put("activeConventions", activeConventions);
-        stats.put("planifiedConventions", planifiedConventions);
-        stats.put("terminatedConventions", terminatedConventions);
-        stats.put("archivedConventions", archivedConventions);
-        stats.put("conventionCompletionRate",
-                totalConventions > 0 ? ((double) terminatedConventions / totalConventions) * 100 : 0);
-
-        return stats;
-    }
-
-    private Map<String, Object> getFactureStatsForChef(User chef) {
-        Map<String, Object> stats = new HashMap<>();
-        List<Facture> chefFactures = getFacturesForChef(chef);
-
-        long totalFactures = chefFactures.size();
-        long paidFactures = chefFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .count();
-        long unpaidFactures = chefFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) && !f.isEnRetard())
-                .count();
-        long overdueFactures = chefFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .count();
-
-        stats.put("totalFactures", totalFactures);
-        stats.put("paidFactures", paidFactures);
-        stats.put("unpaidFactures", unpaidFactures);
-        stats.put("overdueFactures", overdueFactures);
-        stats.put("paymentRate",
-                totalFactures > 0 ? ((double) paidFactures / totalFactures) * 100 : 0);
+    // ==================== CHEF DE PROJET / COMMERCIAL METHODS ====================
+    // Every figure below comes from grouped scalar queries in StatsRepository; no entity is loaded.
 
-        BigDecimal totalPaidAmount = chefFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalPaidAmount", totalPaidAmount);
+    private record StatsScope(Long chefId, Long commercialId) {
+        static StatsScope chef(User chef) {
+            return new StatsScope(chef.getId(), null);
+        }
 
-        BigDecimal totalUnpaidAmount = chefFactures.stream()
-                .filter(f -> !"PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalUnpaidAmount", totalUnpaidAmount);
+        static StatsScope commercial(User commercial) {
+            return new StatsScope(null, commercial.getId());
+        }
 
-        return stats;
+        boolean isCommercial() {
+            return commercialId != null;
+        }
     }
 
-    private Map<String, Object> getApplicationStatsForChef(User chef) {
-        Map<String, Object> stats = new HashMap<>();
-        List<Application> chefApplications = getApplicationsForChef(chef);
-
-        long totalApplications = chefApplications.size();
-        long activeApplications = chefApplications.stream()
-                .filter(a -> "EN_COURS".equals(a.getStatus()))
-                .count();
-        long plannedApplications = chefApplications.stream()
-                .filter(a -> "PLANIFIE".equals(a.getStatus()))
-                .count();
-        long completedApplications = chefApplications.stream()
-                .filter(a -> "TERMINE".equals(a.getStatus()))
-                .count();
-
-        double avgProgress = chefApplications.stream()
-                .mapToInt(a -> a.getTimeBasedProgress() != null ? a.getTimeBasedProgress() : 0)
-                .average()
-                .orElse(0.0);
-
-        stats.put("totalApplications", totalApplications);
-        stats.put("activeApplications", activeApplications);
-        stats.put("plannedApplications", plannedApplications);
-        stats.put("completedApplications", completedApplications);
-        stats.put("averageProgress", Math.round(avgProgress * 100.0) / 100.0);
-        stats.put("applicationCompletionRate",
-                totalApplications > 0 ? ((double) completedApplications / totalApplications) * 100 : 0);
-
-        return stats;
+    private static long longAt(Object[] row, int index) {
+        return row != null && row[index] != null ? ((Number) row[index]).longValue() : 0L;
     }
 
-    private Map<String, Object> getFinancialStatsForChef(User chef) {
-        Map<String, Object> stats = new HashMap<>();
-
-        List<Facture> chefFactures = getFacturesForChef(chef);
-        List<Convention> chefConventions = getConventionsForChef(chef);
-
-        BigDecimal totalRevenue = chefFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal pendingRevenue = chefFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) || "EN_RETARD".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalContractValue = chefConventions.stream()
-                .map(c -> c.getMontantTTC() != null ? c.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        stats.put("totalRevenue", totalRevenue);
-        stats.put("pendingRevenue", pendingRevenue);
-        stats.put("totalContractValue", totalContractValue);
-
-        return stats;
+    private static BigDecimal amountAt(Object[] row, int index) {
+        if (row == null || row[index] == null) return BigDecimal.ZERO;
+        return row[index] instanceof BigDecimal bd ? bd : new BigDecimal(row[index].toString());
     }
 
-    private Map<String, Object> getRecentActivityForChef(User chef) {
-        Map<String, Object> activity = new HashMap<>();
-
-        List<Application> chefApplications = getApplicationsForChef(chef);
-        List<Convention> chefConventions = getConventionsForChef(chef);
-        List<Facture> chefFactures = getFacturesForChef(chef);
-
-        // Recent Applications
-        List<Map<String, Object>> recentApplications = chefApplications.stream()
-                .sorted(Comparator.comparing(Application::getCreatedAt).reversed())
-                .limit(5)
-                .map(a -> {
-                    Map<String, Object> app = new HashMap<>();
-                    app.put("code", a.getCode());
-                    app.put("name", a.getName());
-                    app.put("clientName", a.getClientName());
-                    app.put("status", a.getStatus());
-                    app.put("progress", a.getTimeBasedProgress());
-                    app.put("createdAt", a.getCreatedAt());
-                    return app;
-                })
-                .collect(Collectors.toList());
-
-        // Recent Conventions
-        List<Map<String, Object>> recentConventions = chefConventions.stream()
-                .sorted(Comparator.comparing(Convention::getCreatedAt).reversed())
-                .limit(5)
-                .map(c -> {
-                    Map<String, Object> conv = new HashMap<>();
-                    conv.put("reference", c.getReferenceConvention());
-                    conv.put("libelle", c.getLibelle());
-                    conv.put("structure", c.getStructureResponsable() != null ? c.getStructureResponsable().getName() : "N/A");
-                    conv.put("etat", c.getEtat() != null ? c.getEtat() : "NO_STATUS");
-                    conv.put("createdAt", c.getCreatedAt());
-                    return conv;
-                })
-                .collect(Collectors.toList());
-
-        // Recent Factures
-        List<Map<String, Object>> recentFactures = chefFactures.stream()
-                .sorted(Comparator.comparing(Facture::getCreatedAt).reversed())
-                .limit(5)
-                .map(f -> {
-                    Map<String, Object> fact = new HashMap<>();
-                    fact.put("numero", f.getNumeroFacture());
-                    fact.put("convention", f.getConvention() != null ? f.getConvention().getReferenceConvention() : "N/A");
-                    fact.put("montant", f.getMontantTTC());
-                    fact.put("statut", f.getStatutPaiement());
-                    fact.put("dateEcheance", f.getDateEcheance());
-                    fact.put("createdAt", f.getCreatedAt());
-                    return fact;
-                })
-                .collect(Collectors.toList());
-
-        activity.put("recentApplications", recentApplications);
-        activity.put("recentConventions", recentConventions);
-        activity.put("recentFactures", recentFactures);
-
-        return activity;
+    private static double doubleAt(Object[] row, int index) {
+        return row != null && row[index] != null ? ((Number) row[index]).doubleValue() : 0.0;
     }
 
-    private Map<String, Object> getMonthlyTrendsForChef(User chef) {
-        Map<String, Object> trends = new HashMap<>();
-
-        List<Application> chefApplications = getApplicationsForChef(chef);
-        List<Convention> chefConventions = getConventionsForChef(chef);
-        List<Facture> chefFactures = getFacturesForChef(chef);
-
-        Map<String, Long> applicationTrends = new LinkedHashMap<>();
-        Map<String, Long> conventionTrends = new LinkedHashMap<>();
-        Map<String, BigDecimal> revenueTrends = new LinkedHashMap<>();
-
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            String monthKey = month.format(DateTimeFormatter.ofPattern("MMM yyyy"));
-
-            long appsCount = chefApplications.stream()
-                    .filter(a -> a.getCreatedAt() != null &&
-                            YearMonth.from(a.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-            applicationTrends.put(monthKey, appsCount);
-
-            long convCount = chefConventions.stream()
-                    .filter(c -> c.getCreatedAt() != null &&
-                            YearMonth.from(c.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-            conventionTrends.put(monthKey, convCount);
-
-            BigDecimal revenue = chefFactures.stream()
-                    .filter(f -> "PAYE".equals(f.getStatutPaiement()) &&
-                            f.getDatePaiement() != null &&
-                            YearMonth.from(f.getDatePaiement()).equals(month))
-                    .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            revenueTrends.put(monthKey, revenue);
+    private static Map<String, Long> roleCounts(List<Object[]> rows) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(String.valueOf(row[0]), longAt(row, 1));
         }
-
-        trends.put("applicationTrends", applicationTrends);
-        trends.put("conventionTrends", conventionTrends);
-        trends.put("revenueTrends", revenueTrends);
-
-        return trends;
+        return counts;
     }
 
-    private Map<String, Object> getConventionDetailedStatsForChef(User chef) {
-        Map<String, Object> stats = new HashMap<>();
-        List<Convention> chefConventions = getConventionsForChef(chef);
-
-        // Status Distribution
-        List<Map<String, Object>> statusDistribution = new ArrayList<>();
-        Map<String, Long> statusCount = chefConventions.stream()
-                .collect(Collectors.groupingBy(
-                        c -> c.getEtat() != null ? c.getEtat() : "NO_STATUS",
-                        Collectors.counting()
-                ));
-
-        List<String> allStatuses = Arrays.asList("PLANIFIE", "EN COURS", "TERMINE", "ARCHIVE");
-        for (String status : allStatuses) {
-            Map<String, Object> statusMap = new HashMap<>();
-            statusMap.put("name", status);
-            statusMap.put("count", statusCount.getOrDefault(status, 0L));
-            statusDistribution.add(statusMap);
-        }
-        stats.put("statusDistribution", statusDistribution);
-
-        // Monthly Conventions
-        Map<String, Long> monthlyConventions = new LinkedHashMap<>();
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            long count = chefConventions.stream()
-                    .filter(c -> c.getCreatedAt() != null &&
-                            YearMonth.from(c.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-            monthlyConventions.put(month.format(DateTimeFormatter.ofPattern("MMM yyyy")), count);
-        }
-        stats.put("monthlyConventions", monthlyConventions);
-
-        // Amount by Status
-        Map<String, BigDecimal> amountByStatus = new HashMap<>();
-        for (Convention convention : chefConventions) {
-            String etat = convention.getEtat() != null ? convention.getEtat() : "NO_STATUS";
-            BigDecimal montant = convention.getMontantTTC() != null ? convention.getMontantTTC() : BigDecimal.ZERO;
-            amountByStatus.merge(etat, montant, BigDecimal::add);
-        }
-        stats.put("amountByStatus", amountByStatus);
-
-        return stats;
+    private static Object[] singleRow(List<Object[]> rows) {
+        return rows.isEmpty() ? null : rows.get(0);
     }
 
-    private Map<String, Object> getFactureDetailedStatsForChef(User chef) {
-        Map<String, Object> stats = new HashMap<>();
-        List<Facture> chefFactures = getFacturesForChef(chef);
-
-        // Payment Status Distribution
-        List<Map<String, Object>> paymentStatus = new ArrayList<>();
-
-        long paidCount = chefFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .count();
-        BigDecimal paidAmount = chefFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        long unpaidCount = chefFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) && !f.isEnRetard())
-                .count();
-        BigDecimal unpaidAmount = chefFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) && !f.isEnRetard())
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        long overdueCount = chefFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .count();
-        BigDecimal overdueAmount = chefFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        Map<String, Object> paidStatus = new HashMap<>();
-        paidStatus.put("status", "PAYE");
-        paidStatus.put("count", paidCount);
-        paidStatus.put("amount", paidAmount);
-        paymentStatus.add(paidStatus);
-
-        Map<String, Object> unpaidStatus = new HashMap<>();
-        unpaidStatus.put("status", "NON_PAYE");
-        unpaidStatus.put("count", unpaidCount);
-        unpaidStatus.put("amount", unpaidAmount);
-        paymentStatus.add(unpaidStatus);
-
-        Map<String, Object> overdueStatus = new HashMap<>();
-        overdueStatus.put("status", "EN_RETARD");
-        overdueStatus.put("count", overdueCount);
-        overdueStatus.put("amount", overdueAmount);
-        paymentStatus.add(overdueStatus);
-
-        stats.put("paymentStatus", paymentStatus);
-
-        // Monthly Invoice Amounts
-        Map<String, Map<String, BigDecimal>> monthlyAmounts = new LinkedHashMap<>();
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            List<Facture> monthFactures = chefFactures.stream()
-                    .filter(f -> f.getDateFacturation() != null &&
-                            YearMonth.from(f.getDateFacturation()).equals(month))
-                    .toList();
-
-            Map<String, BigDecimal> monthStats = new HashMap<>();
-            monthStats.put("total", monthFactures.stream()
-                    .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add));
-            monthStats.put("paid", monthFactures.stream()
-                    .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                    .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add));
-
-            monthlyAmounts.put(month.format(DateTimeFormatter.ofPattern("MMM yyyy")), monthStats);
+    private static Map<String, Long> monthlyCountSeries(List<Object[]> rows) {
+        Map<String, Long> series = new LinkedHashMap<>();
+        Map<YearMonth, Long> byMonth = new HashMap<>();
+        for (Object[] row : rows) {
+            byMonth.put(YearMonth.of((int) longAt(row, 0), (int) longAt(row, 1)), longAt(row, 2));
         }
-        stats.put("monthlyAmounts", monthlyAmounts);
-
-        // Overdue Invoices Details
-        List<Map<String, Object>> overdueDetails = chefFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .sorted(Comparator.comparing(Facture::getDateEcheance))
-                .map(f -> {
-                    Map<String, Object> detail = new HashMap<>();
-                    detail.put("numero", f.getNumeroFacture());
-                    detail.put("convention", f.getConvention() != null ? f.getConvention().getReferenceConvention() : "N/A");
-                    detail.put("montant", f.getMontantTTC());
-                    detail.put("dateEcheance", f.getDateEcheance());
-                    detail.put("joursRetard",
-                            ChronoUnit.DAYS.between(f.getDateEcheance(), LocalDate.now()));
-                    return detail;
-                })
-                .collect(Collectors.toList());
-        stats.put("overdueDetails", overdueDetails);
-
-        return stats;
-    }
-
-    private Map<String, Object> getFinancialDetailedStatsForChef(User chef) {
-        Map<String, Object> stats = new HashMap<>();
-
-        List<Facture> chefFactures = getFacturesForChef(chef);
-        List<Convention> chefConventions = getConventionsForChef(chef);
-
-        BigDecimal totalRevenue = chefFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalRevenue", totalRevenue);
-
-        BigDecimal pendingPayments = chefFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) || "EN_RETARD".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("pendingPayments", pendingPayments);
-
-        BigDecimal overdueAmount = chefFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("overdueAmount", overdueAmount);
-
-        BigDecimal totalContractValue = chefConventions.stream()
-                .map(c -> c.getMontantTTC() != null ? c.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalContractValue", totalContractValue);
-
-        // Revenue by Month
-        Map<String, BigDecimal> revenueByMonth = new LinkedHashMap<>();
         for (int i = 5; i >= 0; i--) {
             YearMonth month = YearMonth.now().minusMonths(i);
-            BigDecimal monthRevenue = chefFactures.stream()
-                    .filter(f -> "PAYE".equals(f.getStatutPaiement()) &&
-                            f.getDatePaiement() != null &&
-                            YearMonth.from(f.getDatePaiement()).equals(month))
-                    .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            revenueByMonth.put(month.format(DateTimeFormatter.ofPattern("MMM yyyy")), monthRevenue);
+            series.put(month.format(MONTH_LABEL), byMonth.getOrDefault(month, 0L));
         }
-        stats.put("revenueByMonth", revenueByMonth);
-
-        // Payment Collection Rate
-        BigDecimal totalInvoiced = chefFactures.stream()
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        double collectionRate = totalInvoiced.compareTo(BigDecimal.ZERO) > 0 ?
-                totalRevenue.divide(totalInvoiced, 4, RoundingMode.HALF_UP).doubleValue() * 100 : 0;
-        stats.put("collectionRate", collectionRate);
-
-        return stats;
+        return series;
     }
 
-    private Map<String, Object> getApplicationDetailedStatsForChef(User chef) {
-        Map<String, Object> stats = new HashMap<>();
-        List<Application> chefApplications = getApplicationsForChef(chef);
-
-        // Status Distribution
-        List<Map<String, Object>> statusDistribution = new ArrayList<>();
-        Map<String, Long> statusCount = chefApplications.stream()
-                .collect(Collectors.groupingBy(
-                        a -> a.getStatus() != null ? a.getStatus() : "NO_STATUS",
-                        Collectors.counting()
-                ));
-
-        List<String> allStatuses = Arrays.asList("PLANIFIE", "EN_COURS", "TERMINE");
-        for (String status : allStatuses) {
-            Map<String, Object> statusMap = new HashMap<>();
-            statusMap.put("name", status);
-            statusMap.put("count", statusCount.getOrDefault(status, 0L));
-            statusDistribution.add(statusMap);
+    private static Map<String, BigDecimal> monthlyAmountSeries(List<Object[]> rows, int amountIndex) {
+        Map<String, BigDecimal> series = new LinkedHashMap<>();
+        Map<YearMonth, BigDecimal> byMonth = new HashMap<>();
+        for (Object[] row : rows) {
+            byMonth.put(YearMonth.of((int) longAt(row, 0), (int) longAt(row, 1)), amountAt(row, amountIndex));
         }
-        stats.put("statusDistribution", statusDistribution);
-
-        // Monthly Applications
-        Map<String, Long> monthlyApplications = new LinkedHashMap<>();
         for (int i = 5; i >= 0; i--) {
             YearMonth month = YearMonth.now().minusMonths(i);
-            long count = chefApplications.stream()
-                    .filter(a -> a.getCreatedAt() != null &&
-                            YearMonth.from(a.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-            monthlyApplications.put(month.format(DateTimeFormatter.ofPattern("MMM yyyy")), count);
+            series.put(month.format(MONTH_LABEL), byMonth.getOrDefault(month, BigDecimal.ZERO));
         }
-        stats.put("monthlyApplications", monthlyApplications);
-
-        // Progress Statistics
-        Map<String, Object> progressStats = new HashMap<>();
-        double avgProgress = chefApplications.stream()
-                .mapToInt(a -> a.getTimeBasedProgress() != null ? a.getTimeBasedProgress() : 0)
-                .average()
-                .orElse(0.0);
-        progressStats.put("averageProgress", Math.round(avgProgress * 100.0) / 100.0);
-
-        long onTrackApplications = chefApplications.stream()
-                .filter(a -> a.getTimeBasedProgress() != null && a.getTimeBasedProgress() >= 70)
-                .count();
-        progressStats.put("onTrackApplications", onTrackApplications);
-
-        long delayedApplications = chefApplications.stream()
-                .filter(a -> a.getDaysRemaining() < 0 && !"TERMINE".equals(a.getStatus()))
-                .count();
-        progressStats.put("delayedApplications", delayedApplications);
-
-        stats.put("progressStats", progressStats);
-
-        return stats;
+        return series;
     }
 
-    private Map<String, Object> getSummaryStatsForChef(User chef) {
-        Map<String, Object> summary = new HashMap<>();
-
-        List<Application> chefApplications = getApplicationsForChef(chef);
-        List<Convention> chefConventions = getConventionsForChef(chef);
-        List<Facture> chefFactures = getFacturesForChef(chef);
-
-        summary.put("totalConventions", chefConventions.size());
-        summary.put("totalFactures", chefFactures.size());
-        summary.put("totalApplications", chefApplications.size());
-
-        LocalDate today = LocalDate.now();
-
-        long conventionsCreatedToday = chefConventions.stream()
-                .filter(c -> c.getCreatedAt() != null &&
-                        c.getCreatedAt().toLocalDate().equals(today))
-                .count();
-
-        long facturesCreatedToday = chefFactures.stream()
-                .filter(f -> f.getCreatedAt() != null &&
-                        f.getCreatedAt().toLocalDate().equals(today))
-                .count();
-
-        long facturesDueToday = chefFactures.stream()
-                .filter(f -> f.getDateEcheance() != null &&
-                        f.getDateEcheance().equals(today))
-                .count();
-
-        long overdueFacturesToday = chefFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .count();
-
-        summary.put("conventionsToday", conventionsCreatedToday);
-        summary.put("facturesToday", facturesCreatedToday);
-        summary.put("dueToday", facturesDueToday);
-        summary.put("overdueToday", overdueFacturesToday);
-
-        BigDecimal todayRevenue = chefFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()) &&
-                        f.getDatePaiement() != null &&
-                        f.getDatePaiement().equals(today))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        summary.put("todayRevenue", todayRevenue);
-
-        return summary;
+    private static LocalDateTime trendWindowStart() {
+        return YearMonth.now().minusMonths(5).atDay(1).atStartOfDay();
     }
 
-    private List<Map<String, Object>> getOverdueAlertsForChef(User chef) {
-        List<Map<String, Object>> alerts = new ArrayList<>();
-
-        List<Facture> chefFactures = getFacturesForChef(chef);
-        List<Application> chefApplications = getApplicationsForChef(chef);
-
-        // Overdue invoices
-        List<Facture> overdueInvoices = chefFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .toList();
-
-        for (Facture invoice : overdueInvoices) {
-            Map<String, Object> alert = new HashMap<>();
-            alert.put("type", "INVOICE_OVERDUE");
-            alert.put("message", String.format("Facture %s en retard de %d jours",
-                    invoice.getNumeroFacture(),
-                    ChronoUnit.DAYS.between(invoice.getDateEcheance(), LocalDate.now())));
-            alert.put("convention", invoice.getConvention() != null ? invoice.getConvention().getReferenceConvention() : "N/A");
-            alert.put("amount", invoice.getMontantTTC());
-            alert.put("dueDate", invoice.getDateEcheance());
-            alert.put("priority", getOverduePriority(invoice));
-            alerts.add(alert);
-        }
-
-        // Delayed applications
-        List<Application> delayedApplications = chefApplications.stream()
-                .filter(a -> a.getDaysRemaining() < 0 && !"TERMINE".equals(a.getStatus()))
-                .toList();
-
-        for (Application app : delayedApplications) {
-            Map<String, Object> alert = new HashMap<>();
-            alert.put("type", "APPLICATION_DELAYED");
-            alert.put("message", String.format("Application %s en retard (échéance dépassée de %d jours)",
-                    app.getName(), Math.abs(app.getDaysRemaining())));
-            alert.put("application", app.getName());
-            alert.put("code", app.getCode());
-            alert.put("progress", app.getTimeBasedProgress());
-            alert.put("endDate", app.getDateFin());
-            alert.put("priority", "HIGH");
-            alerts.add(alert);
-        }
-
-        return alerts;
+    /**
+     * Rebuilds an unmanaged Application carrying only its schedule so that progress and delay
+     * figures keep using the entity's own rules.
+     */
+    private static Application scheduleOf(Object[] row) {
+        Application schedule = new Application();
+        schedule.setCode((String) row[0]);
+        schedule.setName((String) row[1]);
+        schedule.setClientName((String) row[2]);
+        schedule.setStatus((String) row[3]);
+        schedule.setDateDebut((LocalDate) row[4]);
+        schedule.setDateFin((LocalDate) row[5]);
+        schedule.setCreatedAt((LocalDateTime) row[6]);
+        return schedule;
     }
 
-    // ==================== COMMERCIAL METHODS ====================
-
-    private Map<String, Object> getConventionStatsForCommercial(User commercial) {
+    private Map<String, Object> getScopedConventionStats(StatsScope scope) {
         Map<String, Object> stats = new HashMap<>();
-        List<Convention> commercialConventions = getConventionsForCommercial(commercial);
-
-        long totalConventions = commercialConventions.size();
-        long activeConventions = commercialConventions.stream()
-                .filter(c -> "EN COURS".equals(c.getEtat()))
-                .count();
-        long planifiedConventions = commercialConventions.stream()
-                .filter(c -> "PLANIFIE".equals(c.getEtat()))
-                .count();
-        long terminatedConventions = commercialConventions.stream()
-                .filter(c -> "TERMINE".equals(c.getEtat()))
-                .count();
-        long archivedConventions = commercialConventions.stream()
-                .filter(c -> "ARCHIVE".equals(c.getEtat()))
-                .count();
+        Map<String, Long> countByEtat = countByEtat(statsRepository.conventionStatusBreakdown(scope.chefId(), scope.commercialId()));
+
+        long totalConventions = countByEtat.values().stream().mapToLong(Long::longValue).sum();
+        long terminatedConventions = countByEtat.getOrDefault("TERMINE", 0L);
 
         stats.put("totalConventions", totalConventions);
-        stats.put("activeConventions", activeConventions);
-        stats.put("planifiedConventions", planifiedConventions);
+        stats.put("activeConventions", countByEtat.getOrDefault("EN COURS", 0L));
+        stats.put("planifiedConventions", countByEtat.getOrDefault("PLANIFIE", 0L));
         stats.put("terminatedConventions", terminatedConventions);
-        stats.put("archivedConventions", archivedConventions);
+        stats.put("archivedConventions", countByEtat.getOrDefault("ARCHIVE", 0L));
         stats.put("conventionCompletionRate",
                 totalConventions > 0 ? ((double) terminatedConventions / totalConventions) * 100 : 0);
 
         return stats;
     }
 
-    private Map<String, Object> getFactureStatsForCommercial(User commercial) {
+    private Map<String, Object> getScopedFactureStats(StatsScope scope) {
         Map<String, Object> stats = new HashMap<>();
-        List<Facture> commercialFactures = getFacturesForCommercial(commercial);
-
-        long totalFactures = commercialFactures.size();
-        long paidFactures = commercialFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .count();
-        long unpaidFactures = commercialFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) && !f.isEnRetard())
-                .count();
-        long overdueFactures = commercialFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .count();
+        LocalDate today = LocalDate.now();
+
+        List<Object[]> byStatut = statsRepository.factureStatusBreakdown(scope.chefId(), scope.commercialId());
+        Object[] overdue = singleRow(statsRepository.overdueFactureTotals(scope.chefId(), scope.commercialId(), today));
+        Object[] notYetDue = singleRow(statsRepository.notYetDueFactureTotals(scope.chefId(), scope.commercialId(), today));
+
+        long totalFactures = 0;
+        long paidFactures = 0;
+        BigDecimal totalPaidAmount = BigDecimal.ZERO;
+        BigDecimal totalUnpaidAmount = BigDecimal.ZERO;
+        for (Object[] row : byStatut) {
+            totalFactures += longAt(row, 1);
+            if ("PAYE".equals(row[0])) {
+                paidFactures = longAt(row, 1);
+                totalPaidAmount = amountAt(row, 2);
+            } else {
+                totalUnpaidAmount = totalUnpaidAmount.add(amountAt(row, 2));
+            }
+        }
 
         stats.put("totalFactures", totalFactures);
         stats.put("paidFactures", paidFactures);
-        stats.put("unpaidFactures", unpaidFactures);
-        stats.put("overdueFactures", overdueFactures);
+        stats.put("unpaidFactures", longAt(notYetDue, 0));
+        stats.put("overdueFactures", longAt(overdue, 0));
         stats.put("paymentRate",
                 totalFactures > 0 ? ((double) paidFactures / totalFactures) * 100 : 0);
-
-        BigDecimal totalPaidAmount = commercialFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
         stats.put("totalPaidAmount", totalPaidAmount);
-
-        BigDecimal totalUnpaidAmount = commercialFactures.stream()
-                .filter(f -> !"PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
         stats.put("totalUnpaidAmount", totalUnpaidAmount);
 
         return stats;
     }
 
-    private Map<String, Object> getApplicationStatsForCommercial(User commercial) {
+    private Map<String, Object> getScopedApplicationStats(StatsScope scope) {
         Map<String, Object> stats = new HashMap<>();
-        List<Application> commercialApplications = getApplicationsForCommercial(commercial);
-
-        long totalApplications = commercialApplications.size();
-        long activeApplications = commercialApplications.stream()
-                .filter(a -> "EN_COURS".equals(a.getStatus()))
-                .count();
-        long plannedApplications = commercialApplications.stream()
-                .filter(a -> "PLANIFIE".equals(a.getStatus()))
-                .count();
-        long completedApplications = commercialApplications.stream()
-                .filter(a -> "TERMINE".equals(a.getStatus()))
-                .count();
-
-        double avgProgress = commercialApplications.stream()
-                .mapToInt(a -> a.getTimeBasedProgress() != null ? a.getTimeBasedProgress() : 0)
-                .average()
-                .orElse(0.0);
+        Map<String, Long> countByStatus = countByEtat(statsRepository.applicationStatusBreakdown(scope.chefId(), scope.commercialId()));
+
+        long totalApplications = countByStatus.values().stream().mapToLong(Long::longValue).sum();
+        long completedApplications = countByStatus.getOrDefault("TERMINE", 0L);
+
+        double avgProgress = doubleAt(singleRow(statsRepository.applicationProgressSummary(
+                scope.chefId(), scope.commercialId(), LocalDate.now())), 0);
 
         stats.put("totalApplications", totalApplications);
-        stats.put("activeApplications", activeApplications);
-        stats.put("plannedApplications", plannedApplications);
+        stats.put("activeApplications", countByStatus.getOrDefault("EN_COURS", 0L));
+        stats.put("plannedApplications", countByStatus.getOrDefault("PLANIFIE", 0L));
         stats.put("completedApplications", completedApplications);
         stats.put("averageProgress", Math.round(avgProgress * 100.0) / 100.0);
         stats.put("applicationCompletionRate",
@@ -1879,24 +1082,21 @@ public class StatsController {
         return stats;
     }
 
-    private Map<String, Object> getFinancialStatsForCommercial(User commercial) {
+    private Map<String, Object> getScopedFinancialStats(StatsScope scope) {
         Map<String, Object> stats = new HashMap<>();
 
-        List<Facture> commercialFactures = getFacturesForCommercial(commercial);
-        List<Convention> commercialConventions = getConventionsForCommercial(commercial);
-
-        BigDecimal totalRevenue = commercialFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal pendingRevenue = commercialFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) || "EN_RETARD".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        BigDecimal pendingRevenue = BigDecimal.ZERO;
+        for (Object[] row : statsRepository.factureStatusBreakdown(scope.chefId(), scope.commercialId())) {
+            if ("PAYE".equals(row[0])) {
+                totalRevenue = amountAt(row, 2);
+            } else if ("NON_PAYE".equals(row[0]) || "EN_RETARD".equals(row[0])) {
+                pendingRevenue = pendingRevenue.add(amountAt(row, 2));
+            }
+        }
 
-        BigDecimal totalContractValue = commercialConventions.stream()
-                .map(c -> c.getMontantTTC() != null ? c.getMontantTTC() : BigDecimal.ZERO)
+        BigDecimal totalContractValue = amountByEtat(statsRepository.conventionStatusBreakdown(scope.chefId(), scope.commercialId()))
+                .values().stream()
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         stats.put("totalRevenue", totalRevenue);
@@ -1906,17 +1106,13 @@ public class StatsController {
         return stats;
     }
 
-    private Map<String, Object> getRecentActivityForCommercial(User commercial) {
+    private Map<String, Object> getScopedRecentActivity(StatsScope scope) {
         Map<String, Object> activity = new HashMap<>();
-
-        List<Application> commercialApplications = getApplicationsForCommercial(commercial);
-        List<Convention> commercialConventions = getConventionsForCommercial(commercial);
-        List<Facture> commercialFactures = getFacturesForCommercial(commercial);
+        Pageable top5 = PageRequest.of(0, 5);
 
         // Recent Applications
-        List<Map<String, Object>> recentApplications = commercialApplications.stream()
-                .sorted(Comparator.comparing(Application::getCreatedAt).reversed())
-                .limit(5)
+        List<Map<String, Object>> recentApplications = statsRepository.applicationSchedules(scope.chefId(), scope.commercialId(), top5).stream()
+                .map(StatsController::scheduleOf)
                 .map(a -> {
                     Map<String, Object> app = new HashMap<>();
                     app.put("code", a.getCode());
@@ -1930,32 +1126,28 @@ public class StatsController {
                 .collect(Collectors.toList());
 
         // Recent Conventions
-        List<Map<String, Object>> recentConventions = commercialConventions.stream()
-                .sorted(Comparator.comparing(Convention::getCreatedAt).reversed())
-                .limit(5)
-                .map(c -> {
+        List<Map<String, Object>> recentConventions = statsRepository.recentConventions(scope.chefId(), scope.commercialId(), top5).stream()
+                .map(row -> {
                     Map<String, Object> conv = new HashMap<>();
-                    conv.put("reference", c.getReferenceConvention());
-                    conv.put("libelle", c.getLibelle());
-                    conv.put("structure", c.getStructureResponsable() != null ? c.getStructureResponsable().getName() : "N/A");
-                    conv.put("etat", c.getEtat() != null ? c.getEtat() : "NO_STATUS");
-                    conv.put("createdAt", c.getCreatedAt());
+                    conv.put("reference", row[0]);
+                    conv.put("libelle", row[1]);
+                    conv.put("structure", row[2] != null ? row[2] : "N/A");
+                    conv.put("etat", row[3] != null ? row[3] : "NO_STATUS");
+                    conv.put("createdAt", row[4]);
                     return conv;
                 })
                 .collect(Collectors.toList());
 
         // Recent Factures
-        List<Map<String, Object>> recentFactures = commercialFactures.stream()
-                .sorted(Comparator.comparing(Facture::getCreatedAt).reversed())
-                .limit(5)
-                .map(f -> {
+        List<Map<String, Object>> recentFactures = statsRepository.recentFactures(scope.chefId(), scope.commercialId(), top5).stream()
+                .map(row -> {
                     Map<String, Object> fact = new HashMap<>();
-                    fact.put("numero", f.getNumeroFacture());
-                    fact.put("convention", f.getConvention() != null ? f.getConvention().getReferenceConvention() : "N/A");
-                    fact.put("montant", f.getMontantTTC());
-                    fact.put("statut", f.getStatutPaiement());
-                    fact.put("dateEcheance", f.getDateEcheance());
-                    fact.put("createdAt", f.getCreatedAt());
+                    fact.put("numero", row[0]);
+                    fact.put("convention", row[1] != null ? row[1] : "N/A");
+                    fact.put("montant", row[2]);
+                    fact.put("statut", row[3]);
+                    fact.put("dateEcheance", row[4]);
+                    fact.put("createdAt", row[5]);
                     return fact;
                 })
                 .collect(Collectors.toList());
@@ -1967,60 +1159,27 @@ public class StatsController {
         return activity;
     }
 
-    private Map<String, Object> getMonthlyTrendsForCommercial(User commercial) {
+    private Map<String, Object> getScopedMonthlyTrends(StatsScope scope) {
         Map<String, Object> trends = new HashMap<>();
+        LocalDateTime since = trendWindowStart();
 
-        List<Application> commercialApplications = getApplicationsForCommercial(commercial);
-        List<Convention> commercialConventions = getConventionsForCommercial(commercial);
-        List<Facture> commercialFactures = getFacturesForCommercial(commercial);
-
-        Map<String, Long> applicationTrends = new LinkedHashMap<>();
-        Map<String, Long> conventionTrends = new LinkedHashMap<>();
-        Map<String, BigDecimal> revenueTrends = new LinkedHashMap<>();
-
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            String monthKey = month.format(DateTimeFormatter.ofPattern("MMM yyyy"));
-
-            long appsCount = commercialApplications.stream()
-                    .filter(a -> a.getCreatedAt() != null &&
-                            YearMonth.from(a.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-            applicationTrends.put(monthKey, appsCount);
-
-            long convCount = commercialConventions.stream()
-                    .filter(c -> c.getCreatedAt() != null &&
-                            YearMonth.from(c.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-            conventionTrends.put(monthKey, convCount);
-
-            BigDecimal revenue = commercialFactures.stream()
-                    .filter(f -> "PAYE".equals(f.getStatutPaiement()) &&
-                            f.getDatePaiement() != null &&
-                            YearMonth.from(f.getDatePaiement()).equals(month))
-                    .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            revenueTrends.put(monthKey, revenue);
-        }
-
-        trends.put("applicationTrends", applicationTrends);
-        trends.put("conventionTrends", conventionTrends);
-        trends.put("revenueTrends", revenueTrends);
+        trends.put("applicationTrends", monthlyCountSeries(
+                statsRepository.applicationsCreatedByMonth(scope.chefId(), scope.commercialId(), since)));
+        trends.put("conventionTrends", monthlyCountSeries(
+                statsRepository.conventionsCreatedByMonth(scope.chefId(), scope.commercialId(), since)));
+        trends.put("revenueTrends", monthlyAmountSeries(
+                statsRepository.revenueByMonth(scope.chefId(), scope.commercialId(), since.toLocalDate()), 2));
 
         return trends;
     }
 
-    private Map<String, Object> getConventionDetailedStatsForCommercial(User commercial) {
+    private Map<String, Object> getScopedConventionDetailedStats(StatsScope scope) {
         Map<String, Object> stats = new HashMap<>();
-        List<Convention> commercialConventions = getConventionsForCommercial(commercial);
+        List<Object[]> etatRows = statsRepository.conventionStatusBreakdown(scope.chefId(), scope.commercialId());
 
         // Status Distribution
         List<Map<String, Object>> statusDistribution = new ArrayList<>();
-        Map<String, Long> statusCount = commercialConventions.stream()
-                .collect(Collectors.groupingBy(
-                        c -> c.getEtat() != null ? c.getEtat() : "NO_STATUS",
-                        Collectors.counting()
-                ));
+        Map<String, Long> statusCount = countByEtat(etatRows);
 
         List<String> allStatuses = Arrays.asList("PLANIFIE", "EN COURS", "TERMINE", "ARCHIVE");
         for (String status : allStatuses) {
@@ -2032,114 +1191,71 @@ public class StatsController {
         stats.put("statusDistribution", statusDistribution);
 
         // Monthly Conventions
-        Map<String, Long> monthlyConventions = new LinkedHashMap<>();
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            long count = commercialConventions.stream()
-                    .filter(c -> c.getCreatedAt() != null &&
-                            YearMonth.from(c.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-            monthlyConventions.put(month.format(DateTimeFormatter.ofPattern("MMM yyyy")), count);
-        }
-        stats.put("monthlyConventions", monthlyConventions);
+        stats.put("monthlyConventions", monthlyCountSeries(
+                statsRepository.conventionsCreatedByMonth(scope.chefId(), scope.commercialId(), trendWindowStart())));
 
         // Amount by Status
-        Map<String, BigDecimal> amountByStatus = new HashMap<>();
-        for (Convention convention : commercialConventions) {
-            String etat = convention.getEtat() != null ? convention.getEtat() : "NO_STATUS";
-            BigDecimal montant = convention.getMontantTTC() != null ? convention.getMontantTTC() : BigDecimal.ZERO;
-            amountByStatus.merge(etat, montant, BigDecimal::add);
-        }
-        stats.put("amountByStatus", amountByStatus);
+        stats.put("amountByStatus", amountByEtat(etatRows));
 
         return stats;
     }
 
-    private Map<String, Object> getFactureDetailedStatsForCommercial(User commercial) {
+    private Map<String, Object> getScopedFactureDetailedStats(StatsScope scope) {
         Map<String, Object> stats = new HashMap<>();
-        List<Facture> commercialFactures = getFacturesForCommercial(commercial);
+        LocalDate today = LocalDate.now();
 
         // Payment Status Distribution
         List<Map<String, Object>> paymentStatus = new ArrayList<>();
 
-        long paidCount = commercialFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .count();
-        BigDecimal paidAmount = commercialFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        long unpaidCount = commercialFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) && !f.isEnRetard())
-                .count();
-        BigDecimal unpaidAmount = commercialFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) && !f.isEnRetard())
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        long overdueCount = commercialFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .count();
-        BigDecimal overdueAmount = commercialFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Object[] paid = statsRepository.factureStatusBreakdown(scope.chefId(), scope.commercialId()).stream()
+                .filter(row -> "PAYE".equals(row[0]))
+                .findFirst()
+                .orElse(null);
+        Object[] notYetDue = singleRow(statsRepository.notYetDueFactureTotals(scope.chefId(), scope.commercialId(), today));
+        Object[] overdue = singleRow(statsRepository.overdueFactureTotals(scope.chefId(), scope.commercialId(), today));
 
         Map<String, Object> paidStatus = new HashMap<>();
         paidStatus.put("status", "PAYE");
-        paidStatus.put("count", paidCount);
-        paidStatus.put("amount", paidAmount);
+        paidStatus.put("count", longAt(paid, 1));
+        paidStatus.put("amount", amountAt(paid, 2));
         paymentStatus.add(paidStatus);
 
         Map<String, Object> unpaidStatus = new HashMap<>();
         unpaidStatus.put("status", "NON_PAYE");
-        unpaidStatus.put("count", unpaidCount);
-        unpaidStatus.put("amount", unpaidAmount);
+        unpaidStatus.put("count", longAt(notYetDue, 0));
+        unpaidStatus.put("amount", amountAt(notYetDue, 1));
         paymentStatus.add(unpaidStatus);
 
         Map<String, Object> overdueStatus = new HashMap<>();
         overdueStatus.put("status", "EN_RETARD");
-        overdueStatus.put("count", overdueCount);
-        overdueStatus.put("amount", overdueAmount);
+        overdueStatus.put("count", longAt(overdue, 0));
+        overdueStatus.put("amount", amountAt(overdue, 1));
         paymentStatus.add(overdueStatus);
 
         stats.put("paymentStatus", paymentStatus);
 
         // Monthly Invoice Amounts
+        List<Object[]> invoiced = statsRepository.invoicedByMonth(scope.chefId(), scope.commercialId(), trendWindowStart().toLocalDate());
+        Map<String, BigDecimal> totalByMonth = monthlyAmountSeries(invoiced, 2);
+        Map<String, BigDecimal> paidByMonth = monthlyAmountSeries(invoiced, 3);
         Map<String, Map<String, BigDecimal>> monthlyAmounts = new LinkedHashMap<>();
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            List<Facture> monthFactures = commercialFactures.stream()
-                    .filter(f -> f.getDateFacturation() != null &&
-                            YearMonth.from(f.getDateFacturation()).equals(month))
-                    .toList();
-
+        for (String month : totalByMonth.keySet()) {
             Map<String, BigDecimal> monthStats = new HashMap<>();
-            monthStats.put("total", monthFactures.stream()
-                    .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add));
-            monthStats.put("paid", monthFactures.stream()
-                    .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                    .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add));
-
-            monthlyAmounts.put(month.format(DateTimeFormatter.ofPattern("MMM yyyy")), monthStats);
+            monthStats.put("total", totalByMonth.get(month));
+            monthStats.put("paid", paidByMonth.get(month));
+            monthlyAmounts.put(month, monthStats);
         }
         stats.put("monthlyAmounts", monthlyAmounts);
 
         // Overdue Invoices Details
-        List<Map<String, Object>> overdueDetails = commercialFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .sorted(Comparator.comparing(Facture::getDateEcheance))
-                .map(f -> {
+        List<Map<String, Object>> overdueDetails = statsRepository.overdueFactures(scope.chefId(), scope.commercialId(), today).stream()
+                .map(row -> {
                     Map<String, Object> detail = new HashMap<>();
-                    detail.put("numero", f.getNumeroFacture());
-                    detail.put("convention", f.getConvention() != null ? f.getConvention().getReferenceConvention() : "N/A");
-                    detail.put("montant", f.getMontantTTC());
-                    detail.put("dateEcheance", f.getDateEcheance());
-                    detail.put("joursRetard",
-                            ChronoUnit.DAYS.between(f.getDateEcheance(), LocalDate.now()));
+                    detail.put("numero", row[0]);
+                    detail.put("convention", row[1] != null ? row[1] : "N/A");
+                    detail.put("montant", row[2]);
+                    detail.put("dateEcheance", row[3]);
+                    detail.put("joursRetard", ChronoUnit.DAYS.between((LocalDate) row[3], today));
                     return detail;
                 })
                 .collect(Collectors.toList());
@@ -2148,72 +1264,52 @@ public class StatsController {
         return stats;
     }
 
-    private Map<String, Object> getFinancialDetailedStatsForCommercial(User commercial) {
+    private Map<String, Object> getScopedFinancialDetailedStats(StatsScope scope) {
         Map<String, Object> stats = new HashMap<>();
 
-        List<Facture> commercialFactures = getFacturesForCommercial(commercial);
-        List<Convention> commercialConventions = getConventionsForCommercial(commercial);
-
-        BigDecimal totalRevenue = commercialFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        BigDecimal pendingPayments = BigDecimal.ZERO;
+        BigDecimal totalInvoiced = BigDecimal.ZERO;
+        for (Object[] row : statsRepository.factureStatusBreakdown(scope.chefId(), scope.commercialId())) {
+            totalInvoiced = totalInvoiced.add(amountAt(row, 2));
+            if ("PAYE".equals(row[0])) {
+                totalRevenue = amountAt(row, 2);
+            } else if ("NON_PAYE".equals(row[0]) || "EN_RETARD".equals(row[0])) {
+                pendingPayments = pendingPayments.add(amountAt(row, 2));
+            }
+        }
         stats.put("totalRevenue", totalRevenue);
-
-        BigDecimal pendingPayments = commercialFactures.stream()
-                .filter(f -> "NON_PAYE".equals(f.getStatutPaiement()) || "EN_RETARD".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
         stats.put("pendingPayments", pendingPayments);
 
-        BigDecimal overdueAmount = commercialFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("overdueAmount", overdueAmount);
+        Object[] overdue = singleRow(statsRepository.overdueFactureTotals(scope.chefId(), scope.commercialId(), LocalDate.now()));
+        stats.put("overdueAmount", amountAt(overdue, 1));
 
-        BigDecimal totalContractValue = commercialConventions.stream()
-                .map(c -> c.getMontantTTC() != null ? c.getMontantTTC() : BigDecimal.ZERO)
+        BigDecimal totalContractValue = amountByEtat(statsRepository.conventionStatusBreakdown(scope.chefId(), scope.commercialId()))
+                .values().stream()
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         stats.put("totalContractValue", totalContractValue);
 
         // Revenue by Month
-        Map<String, BigDecimal> revenueByMonth = new LinkedHashMap<>();
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            BigDecimal monthRevenue = commercialFactures.stream()
-                    .filter(f -> "PAYE".equals(f.getStatutPaiement()) &&
-                            f.getDatePaiement() != null &&
-                            YearMonth.from(f.getDatePaiement()).equals(month))
-                    .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            revenueByMonth.put(month.format(DateTimeFormatter.ofPattern("MMM yyyy")), monthRevenue);
+        stats.put("revenueByMonth", monthlyAmountSeries(
+                statsRepository.revenueByMonth(scope.chefId(), scope.commercialId(), trendWindowStart().toLocalDate()), 2));
+
+        // Top Earning Conventions (commercial view only)
+        if (scope.isCommercial()) {
+            List<Map<String, Object>> topEarningConventions = statsRepository.topEarningConventions(scope.chefId(), scope.commercialId(), PageRequest.of(0, 5)).stream()
+                    .map(row -> {
+                        Map<String, Object> conventionInfo = new HashMap<>();
+                        conventionInfo.put("reference", row[0]);
+                        conventionInfo.put("libelle", row[1]);
+                        conventionInfo.put("structure", row[2] != null ? row[2] : "N/A");
+                        conventionInfo.put("montantTotal", row[3]);
+                        conventionInfo.put("etat", row[4]);
+                        return conventionInfo;
+                    })
+                    .collect(Collectors.toList());
+            stats.put("topEarningConventions", topEarningConventions);
         }
-        stats.put("revenueByMonth", revenueByMonth);
-
-        // Top Earning Conventions
-        List<Map<String, Object>> topEarningConventions = commercialConventions.stream()
-                .filter(c -> c.getMontantTTC() != null && c.getMontantTTC().compareTo(BigDecimal.ZERO) > 0)
-                .sorted((c1, c2) -> c2.getMontantTTC().compareTo(c1.getMontantTTC()))
-                .limit(5)
-                .map(c -> {
-                    Map<String, Object> conventionInfo = new HashMap<>();
-                    conventionInfo.put("reference", c.getReferenceConvention());
-                    conventionInfo.put("libelle", c.getLibelle());
-                    conventionInfo.put("structure", c.getStructureResponsable() != null ? c.getStructureResponsable().getName() : "N/A");
-                    conventionInfo.put("montantTotal", c.getMontantTTC());
-                    conventionInfo.put("etat", c.getEtat());
-                    return conventionInfo;
-                })
-                .collect(Collectors.toList());
-        stats.put("topEarningConventions", topEarningConventions);
 
         // Payment Collection Rate
-        BigDecimal totalInvoiced = commercialFactures.stream()
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
         double collectionRate = totalInvoiced.compareTo(BigDecimal.ZERO) > 0 ?
                 totalRevenue.divide(totalInvoiced, 4, RoundingMode.HALF_UP).doubleValue() * 100 : 0;
         stats.put("collectionRate", collectionRate);
@@ -2221,17 +1317,12 @@ public class StatsController {
         return stats;
     }
 
-    private Map<String, Object> getApplicationDetailedStatsForCommercial(User commercial) {
+    private Map<String, Object> getScopedApplicationDetailedStats(StatsScope scope) {
         Map<String, Object> stats = new HashMap<>();
-        List<Application> commercialApplications = getApplicationsForCommercial(commercial);
 
         // Status Distribution
         List<Map<String, Object>> statusDistribution = new ArrayList<>();
-        Map<String, Long> statusCount = commercialApplications.stream()
-                .collect(Collectors.groupingBy(
-                        a -> a.getStatus() != null ? a.getStatus() : "NO_STATUS",
-                        Collectors.counting()
-                ));
+        Map<String, Long> statusCount = countByEtat(statsRepository.applicationStatusBreakdown(scope.chefId(), scope.commercialId()));
 
         List<String> allStatuses = Arrays.asList("PLANIFIE", "EN_COURS", "TERMINE");
         for (String status : allStatuses) {
@@ -2243,122 +1334,80 @@ public class StatsController {
         stats.put("statusDistribution", statusDistribution);
 
         // Monthly Applications
-        Map<String, Long> monthlyApplications = new LinkedHashMap<>();
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = YearMonth.now().minusMonths(i);
-            long count = commercialApplications.stream()
-                    .filter(a -> a.getCreatedAt() != null &&
-                            YearMonth.from(a.getCreatedAt().toLocalDate()).equals(month))
-                    .count();
-            monthlyApplications.put(month.format(DateTimeFormatter.ofPattern("MMM yyyy")), count);
-        }
-        stats.put("monthlyApplications", monthlyApplications);
+        stats.put("monthlyApplications", monthlyCountSeries(
+                statsRepository.applicationsCreatedByMonth(scope.chefId(), scope.commercialId(), trendWindowStart())));
 
         // Progress Statistics
         Map<String, Object> progressStats = new HashMap<>();
-        double avgProgress = commercialApplications.stream()
-                .mapToInt(a -> a.getTimeBasedProgress() != null ? a.getTimeBasedProgress() : 0)
-                .average()
-                .orElse(0.0);
-        progressStats.put("averageProgress", Math.round(avgProgress * 100.0) / 100.0);
-
-        long onTrackApplications = commercialApplications.stream()
-                .filter(a -> a.getTimeBasedProgress() != null && a.getTimeBasedProgress() >= 70)
-                .count();
-        progressStats.put("onTrackApplications", onTrackApplications);
-
-        long delayedApplications = commercialApplications.stream()
-                .filter(a -> a.getDaysRemaining() < 0 && !"TERMINE".equals(a.getStatus()))
-                .count();
-        progressStats.put("delayedApplications", delayedApplications);
+        Object[] progress = singleRow(statsRepository.applicationProgressSummary(
+                scope.chefId(), scope.commercialId(), LocalDate.now()));
+        progressStats.put("averageProgress", Math.round(doubleAt(progress, 0) * 100.0) / 100.0);
+        progressStats.put("onTrackApplications", longAt(progress, 1));
+        progressStats.put("delayedApplications", longAt(progress, 2));
 
         stats.put("progressStats", progressStats);
 
         return stats;
     }
 
-    private Map<String, Object> getSummaryStatsForCommercial(User commercial) {
+    private Map<String, Object> getScopedSummaryStats(StatsScope scope) {
         Map<String, Object> summary = new HashMap<>();
+        LocalDate today = LocalDate.now();
+        LocalDateTime startOfDay = today.atStartOfDay();
+        LocalDateTime endOfDay = today.plusDays(1).atStartOfDay();
 
-        List<Application> commercialApplications = getApplicationsForCommercial(commercial);
-        List<Convention> commercialConventions = getConventionsForCommercial(commercial);
-        List<Facture> commercialFactures = getFacturesForCommercial(commercial);
+        long totalConventions = countByEtat(statsRepository.conventionStatusBreakdown(scope.chefId(), scope.commercialId()))
+                .values().stream().mapToLong(Long::longValue).sum();
+        long totalFactures = statsRepository.factureStatusBreakdown(scope.chefId(), scope.commercialId()).stream()
+                .mapToLong(row -> longAt(row, 1))
+                .sum();
 
-        summary.put("totalConventions", commercialConventions.size());
-        summary.put("totalFactures", commercialFactures.size());
-        summary.put("totalApplications", commercialApplications.size());
+        summary.put("totalConventions", totalConventions);
+        summary.put("totalFactures", totalFactures);
+        summary.put("totalApplications", statsRepository.countApplications(scope.chefId(), scope.commercialId()));
 
-        LocalDate today = LocalDate.now();
+        Object[] factureDay = singleRow(statsRepository.factureDaySummary(scope.chefId(), scope.commercialId(), today, startOfDay, endOfDay));
+        Object[] overdue = singleRow(statsRepository.overdueFactureTotals(scope.chefId(), scope.commercialId(), today));
 
-        long conventionsCreatedToday = commercialConventions.stream()
-                .filter(c -> c.getCreatedAt() != null &&
-                        c.getCreatedAt().toLocalDate().equals(today))
-                .count();
-
-        long facturesCreatedToday = commercialFactures.stream()
-                .filter(f -> f.getCreatedAt() != null &&
-                        f.getCreatedAt().toLocalDate().equals(today))
-                .count();
-
-        long facturesDueToday = commercialFactures.stream()
-                .filter(f -> f.getDateEcheance() != null &&
-                        f.getDateEcheance().equals(today))
-                .count();
-
-        long overdueFacturesToday = commercialFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .count();
-
-        summary.put("conventionsToday", conventionsCreatedToday);
-        summary.put("facturesToday", facturesCreatedToday);
-        summary.put("dueToday", facturesDueToday);
-        summary.put("overdueToday", overdueFacturesToday);
-
-        BigDecimal todayRevenue = commercialFactures.stream()
-                .filter(f -> "PAYE".equals(f.getStatutPaiement()) &&
-                        f.getDatePaiement() != null &&
-                        f.getDatePaiement().equals(today))
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        summary.put("todayRevenue", todayRevenue);
+        summary.put("conventionsToday", statsRepository.countConventionsCreatedBetween(scope.chefId(), scope.commercialId(), startOfDay, endOfDay));
+        summary.put("facturesToday", longAt(factureDay, 0));
+        summary.put("dueToday", longAt(factureDay, 1));
+        summary.put("overdueToday", longAt(overdue, 0));
+        summary.put("todayRevenue", amountAt(factureDay, 2));
 
         return summary;
     }
 
-    private List<Map<String, Object>> getOverdueAlertsForCommercial(User commercial) {
+    private List<Map<String, Object>> getScopedOverdueAlerts(StatsScope scope) {
         List<Map<String, Object>> alerts = new ArrayList<>();
-
-        List<Facture> commercialFactures = getFacturesForCommercial(commercial);
-        List<Application> commercialApplications = getApplicationsForCommercial(commercial);
+        LocalDate today = LocalDate.now();
 
         // Overdue invoices
-        List<Facture> overdueInvoices = commercialFactures.stream()
-                .filter(f -> f.isEnRetard() || "EN_RETARD".equals(f.getStatutPaiement()))
-                .toList();
+        for (Object[] row : statsRepository.overdueFactures(scope.chefId(), scope.commercialId(), today)) {
+            LocalDate dueDate = (LocalDate) row[3];
+            long daysOverdue = ChronoUnit.DAYS.between(dueDate, today);
 
-        for (Facture invoice : overdueInvoices) {
             Map<String, Object> alert = new HashMap<>();
             alert.put("type", "INVOICE_OVERDUE");
-            alert.put("message", String.format("Facture %s en retard de %d jours",
-                    invoice.getNumeroFacture(),
-                    ChronoUnit.DAYS.between(invoice.getDateEcheance(), LocalDate.now())));
-            alert.put("convention", invoice.getConvention() != null ? invoice.getConvention().getReferenceConvention() : "N/A");
-            alert.put("amount", invoice.getMontantTTC());
-            alert.put("dueDate", invoice.getDateEcheance());
-            alert.put("priority", getOverduePriority(invoice));
+            alert.put("message", String.format("Facture %s en retard de %d jours", row[0], daysOverdue));
+            alert.put("convention", row[1] != null ? row[1] : "N/A");
+            alert.put("amount", row[2]);
+            alert.put("dueDate", dueDate);
+            alert.put("priority", getOverduePriority(daysOverdue));
             alerts.add(alert);
         }
 
         // Delayed applications
-        List<Application> delayedApplications = commercialApplications.stream()
-                .filter(a -> a.getDaysRemaining() < 0 && !"TERMINE".equals(a.getStatus()))
+        List<Application> delayedApplications = statsRepository.delayedApplicationSchedules(
+                        scope.chefId(), scope.commercialId(), today, PageRequest.of(0, MAX_DELAYED_ALERTS)).stream()
+                .map(StatsController::scheduleOf)
                 .toList();
 
         for (Application app : delayedApplications) {
             Map<String, Object> alert = new HashMap<>();
             alert.put("type", "APPLICATION_DELAYED");
             alert.put("message", String.format("Application %s en retard (échéance dépassée de %d jours)",
-                    app.getName(), Math.abs(app.getDaysRemaining())));
+                    app.getName(), ChronoUnit.DAYS.between(app.getDateFin(), LocalDate.now())));
             alert.put("application", app.getName());
             alert.put("code", app.getCode());
             alert.put("progress", app.getTimeBasedProgress());
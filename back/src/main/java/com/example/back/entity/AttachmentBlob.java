@@ -0,0 +1,44 @@
+package com.example.back.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stored attachment content, shared by every mail and draft attachment with the same bytes.
+ */
+@Entity
+@Table(name = "attachment_blobs",
+        uniqueConstraints = @UniqueConstraint(name = "uk_attachment_blobs_sha256", columnNames = "sha256"),
+        indexes = @Index(name = "idx_attachment_blobs_ref_count", columnList = "ref_count, updated_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class AttachmentBlob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private Long size;
+
+    // Relative to the upload directory
+    @Column(name = "storage_path", nullable = false)
+    private String storagePath;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
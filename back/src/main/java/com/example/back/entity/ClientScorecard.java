@@ -0,0 +1,74 @@
+package com.example.back.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Precomputed rating and payment figures of one client, so the client list can be sorted and
+ * paged in the database. Score, rating and amounts follow the client bilan over non-archived
+ * conventions; late-payment figures include archived conventions, as the poor-payer report does.
+ */
+@Entity
+@Table(name = "client_scorecards",
+        uniqueConstraints = @UniqueConstraint(name = "uk_client_scorecards_client", columnNames = "client_id"),
+        indexes = {
+                @Index(name = "idx_client_scorecards_score", columnList = "overall_score, client_id"),
+                @Index(name = "idx_client_scorecards_late", columnList = "late_payments, max_days_late")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class ClientScorecard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+
+    // Copied from the structure for search
+    @Column(name = "client_code")
+    private String clientCode;
+
+    @Column(name = "client_name")
+    private String clientName;
+
+    @Column(name = "client_email")
+    private String clientEmail;
+
+    @Column(name = "overall_score", nullable = false)
+    private int overallScore;
+
+    @Column(name = "rating", length = 2)
+    private String rating;
+
+    @Column(name = "payment_behavior", length = 20)
+    private String paymentBehavior;
+
+    @Column(name = "total_conventions", nullable = false)
+    private int totalConventions;
+
+    @Column(name = "total_payments", nullable = false)
+    private int totalPayments;
+
+    @Column(name = "late_payments", nullable = false)
+    private int latePayments;
+
+    @Column(name = "max_days_late", nullable = false)
+    private int maxDaysLate;
+
+    @Column(name = "total_outstanding", precision = 15, scale = 2)
+    private BigDecimal totalOutstanding = BigDecimal.ZERO;
+
+    @Column(name = "total_overdue", precision = 15, scale = 2)
+    private BigDecimal totalOverdue = BigDecimal.ZERO;
+
+    @Column(name = "computed_at")
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,48 @@
+package com.example.back.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "daily_metrics",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_metrics_date_type", columnNames = {"metric_date", "metric_type"}),
+        indexes = @Index(name = "idx_daily_metrics_type_date", columnList = "metric_type, metric_date"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyMetric {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "metric_date", nullable = false)
+    private LocalDate metricDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "metric_type", nullable = false, length = 40)
+    private MetricType metricType;
+
+    @Column(name = "metric_count", nullable = false)
+    private Long metricCount = 0L;
+
+    @Column(name = "metric_amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal metricAmount = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.back.entity;
+
+public enum ExportFormat {
+    PDF,
+    EXCEL
+}
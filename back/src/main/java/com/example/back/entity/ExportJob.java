@@ -0,0 +1,75 @@
+package com.example.back.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A bulk bilan export: one rendered file per client ({@link ExportJobItem}), zipped once
+ * every item is done.
+ */
+@Entity
+@Table(name = "export_jobs",
+        indexes = {
+                @Index(name = "idx_export_jobs_requested_by", columnList = "requested_by, created_at"),
+                @Index(name = "idx_export_jobs_status", columnList = "status")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class ExportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "requested_by", nullable = false, length = 100)
+    private String requestedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "format", nullable = false, length = 20)
+    private ExportFormat format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private ExportStatus status = ExportStatus.PENDING;
+
+    @Column(name = "start_date")
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    @Column(name = "total_items", nullable = false)
+    private int totalItems;
+
+    @Column(name = "completed_items", nullable = false)
+    private int completedItems;
+
+    @Column(name = "failed_items", nullable = false)
+    private int failedItems;
+
+    @Column(name = "archive_path", length = 500)
+    private String archivePath;
+
+    @Column(name = "archive_size")
+    private Long archiveSize;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
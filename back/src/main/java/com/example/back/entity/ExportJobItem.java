@@ -0,0 +1,53 @@
+package com.example.back.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "export_job_items",
+        indexes = {
+                @Index(name = "idx_export_job_items_due", columnList = "status, id"),
+                @Index(name = "idx_export_job_items_job", columnList = "job_id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class ExportJobItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    // Plain id: the archive is still built if the client is removed meanwhile, the item then fails
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private ExportStatus status = ExportStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // Name of the rendered file inside the job's work directory and the archive
+    @Column(name = "file_name", length = 255)
+    private String fileName;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public ExportJobItem(Long jobId, Long clientId) {
+        this.jobId = jobId;
+        this.clientId = clientId;
+    }
+}
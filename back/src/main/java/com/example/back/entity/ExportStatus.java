@@ -0,0 +1,8 @@
+package com.example.back.entity;
+
+public enum ExportStatus {
+    PENDING,    // waiting for a worker
+    RUNNING,    // job: items being rendered; item: claimed by a worker
+    COMPLETED,  // job: archive ready; item: file rendered
+    FAILED      // job: archive could not be built; item: gave up after the maximum number of attempts
+}
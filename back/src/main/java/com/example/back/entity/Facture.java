@@ -14,7 +14,8 @@ import java.util.List;
 import java.util.Map;
 
 @Entity
-@Table(name = "factures")
+@Table(name = "factures",
+        indexes = @Index(name = "idx_factures_date_echeance", columnList = "date_echeance"))
 @Getter
 @Setter
 @NoArgsConstructor
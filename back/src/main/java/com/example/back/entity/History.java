@@ -8,7 +8,13 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "history")
+@Table(name = "history",
+        indexes = {
+                @Index(name = "idx_history_timestamp_id", columnList = "timestamp, id"),
+                @Index(name = "idx_history_entity_timestamp_id", columnList = "entity_type, entity_id, timestamp, id"),
+                @Index(name = "idx_history_action_timestamp_id", columnList = "action_type, timestamp, id"),
+                @Index(name = "idx_history_user_timestamp_id", columnList = "user_id, timestamp, id")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -30,6 +30,10 @@ public class MailAttachment {
     @Column(nullable = false)
     private String filePath;
 
+    // SHA-256 of the content in the attachment store, null for files saved before it
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
     private String cloudinaryPublicId; // If using Cloudinary
 
     private Boolean isInline = false; // For inline images in email body
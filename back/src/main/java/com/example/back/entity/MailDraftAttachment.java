@@ -32,5 +32,9 @@ public class MailDraftAttachment {
     @Column(nullable = false)
     private String filePath;
 
+    // SHA-256 of the content in the attachment store, null for files saved before it
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
     private String cloudinaryPublicId;
 }
\ No newline at end of file
@@ -9,7 +9,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "mail_recipients")
+@Table(name = "mail_recipients",
+        indexes = {
+                @Index(name = "idx_mail_recipients_mail_email", columnList = "mail_id, email"),
+                @Index(name = "idx_mail_recipients_email", columnList = "email")
+        })
 @Data
 @NoArgsConstructor
 public class MailRecipient {
@@ -0,0 +1,53 @@
+package com.example.back.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Folder totals of one mailbox (recipient address), kept in step with its mail_recipients rows,
+ * and the number of drafts of the user with that address.
+ */
+@Entity
+@Table(name = "mailbox_counters",
+        uniqueConstraints = @UniqueConstraint(name = "uk_mailbox_counters_email", columnNames = "email"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class MailboxCounter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(name = "inbox_count", nullable = false)
+    private long inboxCount;
+
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+
+    @Column(name = "sent_count", nullable = false)
+    private long sentCount;
+
+    @Column(name = "starred_count", nullable = false)
+    private long starredCount;
+
+    @Column(name = "archived_count", nullable = false)
+    private long archivedCount;
+
+    @Column(name = "trash_count", nullable = false)
+    private long trashCount;
+
+    // The default lets the column be added to a table that already has rows
+    @Column(name = "draft_count", nullable = false, columnDefinition = "bigint default 0")
+    private long draftCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
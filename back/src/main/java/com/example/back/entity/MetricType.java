@@ -0,0 +1,12 @@
+package com.example.back.entity;
+
+public enum MetricType {
+    CONVENTION_CREATED,     // by conventions.created_at, amount = montant_ttc
+    APPLICATION_CREATED,    // by applications.created_at
+    FACTURE_CREATED,        // by factures.created_at
+    FACTURE_ISSUED,         // by factures.date_facturation
+    FACTURE_ISSUED_PAID,    // by factures.date_facturation, paid invoices only
+    FACTURE_PAID,           // by factures.date_paiement
+    FACTURE_DUE,            // by factures.date_echeance
+    FACTURE_OUTSTANDING     // by factures.date_echeance, unpaid invoices only
+}
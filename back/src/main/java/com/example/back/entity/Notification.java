@@ -8,7 +8,8 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications",
+        indexes = @Index(name = "idx_notifications_reference", columnList = "reference_type, reference_id, created_at"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,7 @@
+package com.example.back.entity;
+
+public enum NotificationChannel {
+    WEBSOCKET,  // real-time push to the user's session
+    EMAIL,      // internal mailbox message
+    SMS
+}
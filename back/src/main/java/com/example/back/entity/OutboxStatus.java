@@ -0,0 +1,9 @@
+package com.example.back.entity;
+
+public enum OutboxStatus {
+    PENDING,    // waiting for next_attempt_at
+    SENDING,    // claimed by a worker
+    SENT,
+    FAILED,     // gave up after the maximum number of attempts
+    CANCELLED   // nothing left to send (notification deleted, no phone number, ...)
+}
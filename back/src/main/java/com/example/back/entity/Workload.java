@@ -15,6 +15,14 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Workload {
 
+    // Score = weighted share of each factor against its cap, each share capped at 100%
+    public static final int MAX_APPLICATIONS = 5;
+    public static final double MAX_VALUE = 5000000.0; // 5M TND
+    public static final long MAX_DURATION_DAYS = 730L; // 2 years
+    public static final double COUNT_WEIGHT = 0.4;
+    public static final double VALUE_WEIGHT = 0.4;
+    public static final double DURATION_WEIGHT = 0.2;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -52,6 +60,16 @@ public class Workload {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    public static double score(int apps, double value, long duration) {
+        double countPercentage = Math.min((apps * 100.0) / MAX_APPLICATIONS, 100);
+        double valuePercentage = Math.min((value * 100.0) / MAX_VALUE, 100);
+        double durationPercentage = Math.min((duration * 100.0) / MAX_DURATION_DAYS, 100);
+
+        return (countPercentage * COUNT_WEIGHT) +
+                (valuePercentage * VALUE_WEIGHT) +
+                (durationPercentage * DURATION_WEIGHT);
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,18 @@
+package com.example.back.payload.request;
+
+import com.example.back.entity.ExportFormat;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class ExportJobRequest {
+    // Empty or missing: every client
+    private List<Long> clientIds;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    @NotNull
+    private ExportFormat format;
+}
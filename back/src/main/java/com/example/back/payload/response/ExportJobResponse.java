@@ -0,0 +1,25 @@
+package com.example.back.payload.response;
+
+import com.example.back.entity.ExportFormat;
+import com.example.back.entity.ExportStatus;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+public class ExportJobResponse {
+    private Long id;
+    private ExportFormat format;
+    private ExportStatus status;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private int totalItems;
+    private int completedItems;
+    private int failedItems;
+    private int progressPercentage;
+    private Long archiveSize;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,17 @@
+package com.example.back.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPageResponse {
+    private List<HistoryResponse> items;
+    // Opaque cursor to pass back for the next page, null on the last page
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,18 @@
+package com.example.back.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailBatchActionResponse {
+    private String action;
+    // Distinct mail ids in the request
+    private int requested;
+    // Recipient rows whose state actually changed
+    private int affected;
+    // Caller's unread inbox count after the action
+    private long unreadCount;
+}
@@ -2,11 +2,13 @@ package com.example.back.repository;
 
 import com.example.back.entity.Application;
 import com.example.back.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -65,5 +67,42 @@ public interface ApplicationRepository extends JpaRepository<Application, Long>
     @Query("SELECT a FROM Application a WHERE a.chefDeProjet = :chef AND a.archived = false")
     List<Application> findByChefDeProjetAndArchivedFalse(@Param("chef") User chef);
 
-
-}
\ No newline at end of file
+    // Rows: [day, count, 0], consumed by StatsMetricsService.
+    @Query(value = "SELECT CAST(a.created_at AS date) AS day, COUNT(*), 0 " +
+            "FROM applications a WHERE a.created_at >= :startTime AND a.created_at < :endTime " +
+            "GROUP BY day", nativeQuery = true)
+    List<Object[]> aggregateCreatedByDay(@Param("startTime") LocalDateTime startTime,
+                                         @Param("endTime") LocalDateTime endTime);
+
+    @Query("SELECT COALESCE(a.status, 'NO_STATUS'), COUNT(a) FROM Application a " +
+            "GROUP BY COALESCE(a.status, 'NO_STATUS')")
+    List<Object[]> countByStatus();
+
+    List<Application> findTop5ByOrderByCreatedAtDesc();
+
+    // [chefFirstName, chefLastName, count], busiest chefs first
+    @Query("SELECT ch.firstName, ch.lastName, COUNT(a) FROM Application a JOIN a.chefDeProjet ch " +
+            "GROUP BY ch.id, ch.firstName, ch.lastName ORDER BY COUNT(a) DESC")
+    List<Object[]> countByChef(Pageable pageable);
+
+    long countByChefDeProjetIsNull();
+
+    // [averageProgress, onTrackCount], progress follows Application#getTimeBasedProgress
+    @Query(value = "SELECT COALESCE(AVG(p.progress), 0), COUNT(*) FILTER (WHERE p.progress >= 70) FROM (" +
+            "SELECT CASE WHEN a.date_debut IS NULL OR a.date_fin IS NULL " +
+            "OR a.date_fin - a.date_debut + 1 = 0 THEN 0 " +
+            "WHEN CAST(:today AS date) < a.date_debut THEN 0 " +
+            "WHEN CAST(:today AS date) > a.date_fin THEN 100 " +
+            "ELSE (CAST(:today AS date) - a.date_debut + 1) * 100 / (a.date_fin - a.date_debut + 1) END AS progress " +
+            "FROM applications a) p", nativeQuery = true)
+    List<Object[]> progressSummary(@Param("today") LocalDate today);
+
+    @Query("SELECT a FROM Application a WHERE a.dateFin < :today " +
+            "AND (a.status IS NULL OR a.status <> 'TERMINE')")
+    List<Application> findDelayed(@Param("today") LocalDate today);
+
+    @Query("SELECT COUNT(a) FROM Application a WHERE a.dateFin < :today " +
+            "AND (a.status IS NULL OR a.status <> 'TERMINE')")
+    long countDelayed(@Param("today") LocalDate today);
+
+}
@@ -0,0 +1,60 @@
+package com.example.back.repository;
+
+import com.example.back.entity.AttachmentBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AttachmentBlobRepository extends JpaRepository<AttachmentBlob, Long> {
+
+    /**
+     * Adds a reference to the blob, registering it on first use. Runs in the caller's
+     * transaction and locks the row until it ends, which keeps the garbage collector away.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO attachment_blobs (sha256, size, storage_path, ref_count, created_at, updated_at) " +
+            "VALUES (:sha256, :size, :storagePath, 1, NOW(), NOW()) " +
+            "ON CONFLICT (sha256) DO UPDATE SET " +
+            "ref_count = attachment_blobs.ref_count + 1, " +
+            "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    void acquire(@Param("sha256") String sha256, @Param("size") long size, @Param("storagePath") String storagePath);
+
+    /**
+     * Registers a stored file that ended up without a reference, so the garbage collector
+     * deletes it after the grace period unless an upload references it first. Leaves an
+     * existing row untouched. Runs in its own transaction, for callers whose transaction
+     * has already rolled back.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "INSERT INTO attachment_blobs (sha256, size, storage_path, ref_count, created_at, updated_at) " +
+            "VALUES (:sha256, :size, :storagePath, 0, NOW(), NOW()) " +
+            "ON CONFLICT (sha256) DO NOTHING", nativeQuery = true)
+    void registerUnreferenced(@Param("sha256") String sha256, @Param("size") long size,
+                              @Param("storagePath") String storagePath);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE attachment_blobs SET ref_count = ref_count - 1, updated_at = NOW() " +
+            "WHERE sha256 = :sha256 AND ref_count > 0", nativeQuery = true)
+    int release(@Param("sha256") String sha256);
+
+    @Query("SELECT b FROM AttachmentBlob b WHERE b.refCount <= 0 AND b.updatedAt < :cutoff ORDER BY b.updatedAt")
+    List<AttachmentBlob> findUnreferencedSince(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // 0 when the blob was referenced again in the meantime
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM attachment_blobs WHERE sha256 = :sha256 AND ref_count <= 0", nativeQuery = true)
+    int deleteIfUnreferenced(@Param("sha256") String sha256);
+}
@@ -0,0 +1,43 @@
+package com.example.back.repository;
+
+import com.example.back.entity.ClientScorecard;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ClientScorecardRepository extends JpaRepository<ClientScorecard, Long> {
+
+    List<ClientScorecard> findByClientIdIn(Collection<Long> clientIds);
+
+    @Query("SELECT s FROM ClientScorecard s ORDER BY s.overallScore DESC, s.clientId")
+    Page<ClientScorecard> findAllByScore(Pageable pageable);
+
+    // searchTerm is expected in lower case
+    @Query("SELECT s FROM ClientScorecard s " +
+            "WHERE LOWER(s.clientName) LIKE CONCAT('%', :searchTerm, '%') " +
+            "OR LOWER(s.clientCode) LIKE CONCAT('%', :searchTerm, '%') " +
+            "OR LOWER(s.clientEmail) LIKE CONCAT('%', :searchTerm, '%') " +
+            "ORDER BY s.overallScore DESC, s.clientId")
+    Page<ClientScorecard> searchByScore(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query("SELECT s FROM ClientScorecard s " +
+            "WHERE s.latePayments >= :minLatePayments AND s.maxDaysLate >= :minDaysLate " +
+            "ORDER BY s.latePayments DESC, s.clientId")
+    List<ClientScorecard> findPoorPayers(@Param("minLatePayments") int minLatePayments,
+                                         @Param("minDaysLate") int minDaysLate);
+
+    @Query("SELECT s.clientId FROM ClientScorecard s")
+    List<Long> findAllClientIds();
+
+    @Modifying
+    @Query("DELETE FROM ClientScorecard s WHERE s.clientId IN :clientIds")
+    int deleteByClientIdIn(@Param("clientIds") Collection<Long> clientIds);
+}
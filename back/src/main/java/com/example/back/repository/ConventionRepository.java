@@ -4,12 +4,16 @@ import com.example.back.entity.Application;
 import com.example.back.entity.Convention;
 import com.example.back.entity.Structure;
 import com.example.back.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -63,6 +67,47 @@ public interface ConventionRepository extends JpaRepository<Convention, Long> {
 
     List<Convention> findByDateDebutBetween(LocalDate startDate, LocalDate endDate);
 
+    // Rows: [day, count, sum(montant_ttc)], consumed by StatsMetricsService.
+    @Query(value = "SELECT CAST(c.created_at AS date) AS day, COUNT(*), COALESCE(SUM(c.montant_ttc), 0) " +
+            "FROM conventions c WHERE c.created_at >= :startTime AND c.created_at < :endTime " +
+            "GROUP BY day", nativeQuery = true)
+    List<Object[]> aggregateCreatedByDay(@Param("startTime") LocalDateTime startTime,
+                                         @Param("endTime") LocalDateTime endTime);
 
+    @Query("SELECT COALESCE(c.etat, 'NO_STATUS'), COUNT(c), COALESCE(SUM(c.montantTTC), 0) FROM Convention c " +
+            "GROUP BY COALESCE(c.etat, 'NO_STATUS')")
+    List<Object[]> countAndSumByEtat();
 
-}
\ No newline at end of file
+    @Query("SELECT s.name, COUNT(c) FROM Convention c JOIN c.structureResponsable s " +
+            "GROUP BY s.id, s.name ORDER BY COUNT(c) DESC")
+    List<Object[]> findTopStructuresByConventionCount(Pageable pageable);
+
+    List<Convention> findTop5ByMontantTTCGreaterThanOrderByMontantTTCDesc(BigDecimal montantTTC);
+
+    List<Convention> findTop5ByOrderByCreatedAtDesc();
+
+    // Rows: [clientId, count], consumed by InvoiceRiskAIModel.
+    @Query("SELECT c.structureBeneficiel.id, COUNT(c) FROM Convention c GROUP BY c.structureBeneficiel.id")
+    List<Object[]> countConventionsByClient();
+
+    @Query("SELECT c.structureBeneficiel.id, COUNT(c) FROM Convention c " +
+            "WHERE c.structureBeneficiel.id IN :clientIds GROUP BY c.structureBeneficiel.id")
+    List<Object[]> countConventionsForClients(@Param("clientIds") Collection<Long> clientIds);
+
+    @Query("SELECT COALESCE(SUM(c.montantTTC), 0) FROM Convention c " +
+            "WHERE c.application.id = :applicationId AND c.archived = false")
+    BigDecimal sumActiveMontantTTCByApplicationId(@Param("applicationId") Long applicationId);
+
+    // [clientId, conventionId, etat, archived, montantTTC, dateDebut, dateFin, applicationId, applicationName]
+    String PORTFOLIO_ROWS = "SELECT s.id, c.id, c.etat, c.archived, c.montantTTC, c.dateDebut, c.dateFin, a.id, a.name " +
+            "FROM Convention c JOIN c.structureBeneficiel s LEFT JOIN c.application a " +
+            "WHERE (:includeArchived = true OR c.archived = false) ";
+
+    @Query(PORTFOLIO_ROWS + "AND s.typeStructure = :typeStructure ORDER BY c.id")
+    List<Object[]> findPortfolioRows(@Param("typeStructure") String typeStructure,
+                                     @Param("includeArchived") boolean includeArchived);
+
+    @Query(PORTFOLIO_ROWS + "AND s.id IN :clientIds ORDER BY c.id")
+    List<Object[]> findPortfolioRowsForClients(@Param("clientIds") Collection<Long> clientIds,
+                                               @Param("includeArchived") boolean includeArchived);
+}
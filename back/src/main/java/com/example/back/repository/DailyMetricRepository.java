@@ -0,0 +1,45 @@
+package com.example.back.repository;
+
+import com.example.back.entity.DailyMetric;
+import com.example.back.entity.MetricType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyMetricRepository extends JpaRepository<DailyMetric, Long> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO daily_metrics (metric_date, metric_type, metric_count, metric_amount, updated_at) " +
+            "VALUES (:metricDate, :metricType, :metricCount, :metricAmount, NOW()) " +
+            "ON CONFLICT (metric_date, metric_type) DO UPDATE SET " +
+            "metric_count = EXCLUDED.metric_count, " +
+            "metric_amount = EXCLUDED.metric_amount, " +
+            "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    void upsert(@Param("metricDate") LocalDate metricDate,
+                @Param("metricType") String metricType,
+                @Param("metricCount") long metricCount,
+                @Param("metricAmount") BigDecimal metricAmount);
+
+    @Query("SELECT COALESCE(SUM(m.metricCount), 0), COALESCE(SUM(m.metricAmount), 0) FROM DailyMetric m " +
+            "WHERE m.metricType = :type AND m.metricDate BETWEEN :startDate AND :endDate")
+    List<Object[]> sumBetween(@Param("type") MetricType type,
+                              @Param("startDate") LocalDate startDate,
+                              @Param("endDate") LocalDate endDate);
+
+    @Query(value = "SELECT CAST(date_trunc('month', m.metric_date) AS date) AS month_start, " +
+            "SUM(m.metric_count), SUM(m.metric_amount) FROM daily_metrics m " +
+            "WHERE m.metric_type = :type AND m.metric_date BETWEEN :startDate AND :endDate " +
+            "GROUP BY month_start ORDER BY month_start", nativeQuery = true)
+    List<Object[]> sumByMonth(@Param("type") String type,
+                              @Param("startDate") LocalDate startDate,
+                              @Param("endDate") LocalDate endDate);
+}
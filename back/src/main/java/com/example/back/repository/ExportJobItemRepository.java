@@ -0,0 +1,49 @@
+package com.example.back.repository;
+
+import com.example.back.entity.ExportJobItem;
+import com.example.back.entity.ExportStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ExportJobItemRepository extends JpaRepository<ExportJobItem, Long> {
+
+    @Query("SELECT i FROM ExportJobItem i WHERE i.status = com.example.back.entity.ExportStatus.PENDING ORDER BY i.id")
+    List<ExportJobItem> findPending(Pageable pageable);
+
+    List<ExportJobItem> findByJobIdAndStatusOrderByIdAsc(Long jobId, ExportStatus status);
+
+    // Items left RUNNING by a worker that never reported back (e.g. the application stopped)
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExportJobItem i SET i.status = com.example.back.entity.ExportStatus.PENDING, i.claimedAt = null " +
+            "WHERE i.status = com.example.back.entity.ExportStatus.RUNNING AND i.claimedAt < :cutoff")
+    int requeueStale(@Param("cutoff") LocalDateTime cutoff);
+
+    // A worker's report only applies while its claim is the current one: an item requeued as stale
+    // and claimed again must not be counted once per worker that rendered it
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExportJobItem i SET i.status = :status, i.fileName = :fileName, i.attempts = :attempts, " +
+            "i.lastError = :lastError, i.claimedAt = null " +
+            "WHERE i.id = :id AND i.status = com.example.back.entity.ExportStatus.RUNNING AND i.claimedAt = :claimedAt")
+    int reportClaim(@Param("id") Long id,
+                    @Param("claimedAt") LocalDateTime claimedAt,
+                    @Param("status") ExportStatus status,
+                    @Param("fileName") String fileName,
+                    @Param("attempts") int attempts,
+                    @Param("lastError") String lastError);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ExportJobItem i WHERE i.jobId = :jobId")
+    int deleteByJobId(@Param("jobId") Long jobId);
+}
@@ -0,0 +1,44 @@
+package com.example.back.repository;
+
+import com.example.back.entity.ExportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ExportJobRepository extends JpaRepository<ExportJob, Long> {
+
+    List<ExportJob> findTop50ByRequestedByOrderByCreatedAtDesc(String requestedBy);
+
+    // Jobs whose items have all been rendered or given up on, waiting for their archive
+    @Query("SELECT j FROM ExportJob j WHERE j.status = com.example.back.entity.ExportStatus.RUNNING " +
+            "AND j.completedItems + j.failedItems >= j.totalItems ORDER BY j.id")
+    List<ExportJob> findReadyToAssemble();
+
+    @Query("SELECT j FROM ExportJob j WHERE j.finishedAt < :cutoff")
+    List<ExportJob> findFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExportJob j SET j.status = com.example.back.entity.ExportStatus.RUNNING " +
+            "WHERE j.id IN :ids AND j.status = com.example.back.entity.ExportStatus.PENDING")
+    int markRunning(@Param("ids") Collection<Long> ids);
+
+    // Counters are bumped in place, several workers report on the same job concurrently
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExportJob j SET j.completedItems = j.completedItems + 1 WHERE j.id = :id")
+    int incrementCompleted(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExportJob j SET j.failedItems = j.failedItems + 1 WHERE j.id = :id")
+    int incrementFailed(@Param("id") Long id);
+}
@@ -2,12 +2,15 @@ package com.example.back.repository;
 
 import com.example.back.entity.Facture;
 import com.example.back.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,6 +41,24 @@ public interface FactureRepository extends JpaRepository<Facture, Long> {
 
     List<Facture> findByStatutPaiement(String statutPaiement);
 
+    String NOTIFIABLE_DUE_BETWEEN = "SELECT DISTINCT f FROM Facture f " +
+            "JOIN FETCH f.convention c " +
+            "LEFT JOIN FETCH c.application a " +
+            "LEFT JOIN FETCH a.chefDeProjet " +
+            "LEFT JOIN FETCH c.createdBy " +
+            "WHERE f.dateEcheance BETWEEN :from AND :to " +
+            "AND f.statutPaiement IN ('NON_PAYE', 'EN_RETARD')";
+
+    // Unpaid invoices due in [from, to], with the users to notify
+    @Query(NOTIFIABLE_DUE_BETWEEN)
+    List<Facture> findNotifiableDueBetween(@Param("from") LocalDate from,
+                                           @Param("to") LocalDate to);
+
+    @Query(NOTIFIABLE_DUE_BETWEEN + " AND f.updatedAt >= :changedSince")
+    List<Facture> findNotifiableDueBetweenChangedSince(@Param("from") LocalDate from,
+                                                       @Param("to") LocalDate to,
+                                                       @Param("changedSince") LocalDateTime changedSince);
+
     List<Facture> findByConventionIdOrderByDateFacturationAsc(Long conventionId);
 
 
@@ -84,6 +105,39 @@ public interface FactureRepository extends JpaRepository<Facture, Long> {
             "WHERE f.id = :id")
     Optional<Facture> findByIdWithAllRelations(@Param("id") Long id);
 
+    // For batch risk scoring
+    @Query("SELECT DISTINCT f FROM Facture f " +
+            "LEFT JOIN FETCH f.convention c " +
+            "LEFT JOIN FETCH c.structureBeneficiel " +
+            "LEFT JOIN FETCH c.structureResponsable " +
+            "LEFT JOIN FETCH c.application " +
+            "WHERE f.id IN :ids")
+    List<Facture> findAllByIdWithAllRelations(@Param("ids") Collection<Long> ids);
+
+    // Unpaid invoices due on or before the given date (overdue included)
+    @Query("SELECT DISTINCT f FROM Facture f " +
+            "LEFT JOIN FETCH f.convention c " +
+            "LEFT JOIN FETCH c.structureBeneficiel " +
+            "LEFT JOIN FETCH c.structureResponsable " +
+            "WHERE (f.statutPaiement IS NULL OR f.statutPaiement <> 'PAYE') AND f.dateEcheance <= :dueBy")
+    List<Facture> findOpenDueByWithRelations(@Param("dueBy") LocalDate dueBy);
+
+    @Query("SELECT f.id FROM Facture f WHERE f.convention.structureBeneficiel.id = :clientId " +
+            "AND (f.statutPaiement IS NULL OR f.statutPaiement <> 'PAYE')")
+    List<Long> findOpenIdsByClientId(@Param("clientId") Long clientId);
+
+    // Clients with an unpaid invoice that fell due in the given range
+    @Query("SELECT DISTINCT f.convention.structureBeneficiel.id FROM Facture f " +
+            "WHERE (f.statutPaiement IS NULL OR f.statutPaiement <> 'PAYE') " +
+            "AND f.dateEcheance BETWEEN :from AND :to")
+    List<Long> findClientIdsWithOpenInvoicesDueBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Rows: [factureId, clientId, clientCode, clientName, montantTTC, dateEcheance] of unpaid invoices
+    @Query("SELECT f.id, sb.id, sb.code, sb.name, f.montantTTC, f.dateEcheance FROM Facture f " +
+            "JOIN f.convention c JOIN c.structureBeneficiel sb " +
+            "WHERE f.statutPaiement IS NULL OR f.statutPaiement <> 'PAYE'")
+    List<Object[]> findOpenInvoicesWithClient();
+
     // For training data loading - THIS IS WHAT YOU NEED
     @Query("SELECT DISTINCT f FROM Facture f " +
             "LEFT JOIN FETCH f.convention c " +
@@ -99,5 +153,110 @@ public interface FactureRepository extends JpaRepository<Facture, Long> {
             "LEFT JOIN FETCH c.structureResponsable sr")
     List<Facture> findAllWithAllRelations();
 
+    // For incremental retraining: invoices marked paid since the last training checkpoint
+    @Query("SELECT DISTINCT f FROM Facture f " +
+            "LEFT JOIN FETCH f.convention c " +
+            "LEFT JOIN FETCH c.structureBeneficiel sb " +
+            "LEFT JOIN FETCH c.structureResponsable sr " +
+            "WHERE f.statutPaiement = 'PAYE' AND f.updatedAt > :since")
+    List<Facture> findPaidSinceWithRelations(@Param("since") LocalDateTime since);
+
+    // ==================== DAILY METRIC AGGREGATES ====================
+    // Rows: [day, count, sum(montant_ttc)], consumed by StatsMetricsService.
+
+    @Query(value = "SELECT CAST(f.created_at AS date) AS day, COUNT(*), COALESCE(SUM(f.montant_ttc), 0) " +
+            "FROM factures f WHERE f.created_at >= :startTime AND f.created_at < :endTime " +
+            "GROUP BY day", nativeQuery = true)
+    List<Object[]> aggregateCreatedByDay(@Param("startTime") LocalDateTime startTime,
+                                         @Param("endTime") LocalDateTime endTime);
+
+    @Query(value = "SELECT f.date_facturation AS day, COUNT(*), COALESCE(SUM(f.montant_ttc), 0) " +
+            "FROM factures f WHERE f.date_facturation BETWEEN :startDate AND :endDate " +
+            "GROUP BY day", nativeQuery = true)
+    List<Object[]> aggregateIssuedByDay(@Param("startDate") LocalDate startDate,
+                                        @Param("endDate") LocalDate endDate);
+
+    @Query(value = "SELECT f.date_facturation AS day, COUNT(*), COALESCE(SUM(f.montant_ttc), 0) " +
+            "FROM factures f WHERE f.statut_paiement = 'PAYE' AND f.date_facturation BETWEEN :startDate AND :endDate " +
+            "GROUP BY day", nativeQuery = true)
+    List<Object[]> aggregateIssuedPaidByDay(@Param("startDate") LocalDate startDate,
+                                            @Param("endDate") LocalDate endDate);
+
+    @Query(value = "SELECT f.date_paiement AS day, COUNT(*), COALESCE(SUM(f.montant_ttc), 0) " +
+            "FROM factures f WHERE f.statut_paiement = 'PAYE' AND f.date_paiement BETWEEN :startDate AND :endDate " +
+            "GROUP BY day", nativeQuery = true)
+    List<Object[]> aggregatePaidByDay(@Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
+
+    @Query(value = "SELECT f.date_echeance AS day, COUNT(*), COALESCE(SUM(f.montant_ttc), 0) " +
+            "FROM factures f WHERE f.date_echeance BETWEEN :startDate AND :endDate " +
+            "GROUP BY day", nativeQuery = true)
+    List<Object[]> aggregateDueByDay(@Param("startDate") LocalDate startDate,
+                                     @Param("endDate") LocalDate endDate);
+
+    @Query(value = "SELECT f.date_echeance AS day, COUNT(*), COALESCE(SUM(f.montant_ttc), 0) " +
+            "FROM factures f WHERE (f.statut_paiement IS NULL OR f.statut_paiement <> 'PAYE') " +
+            "AND f.date_echeance BETWEEN :startDate AND :endDate " +
+            "GROUP BY day", nativeQuery = true)
+    List<Object[]> aggregateOutstandingByDay(@Param("startDate") LocalDate startDate,
+                                             @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT f FROM Facture f LEFT JOIN FETCH f.convention c LEFT JOIN FETCH c.application " +
+            "WHERE (f.statutPaiement IS NULL OR f.statutPaiement <> 'PAYE') AND f.dateEcheance < :today " +
+            "ORDER BY f.dateEcheance")
+    List<Facture> findOverdueWithConvention(@Param("today") LocalDate today);
+
+    @Query("SELECT c.referenceConvention, COALESCE(SUM(f.montantTTC), 0), c.etat FROM Facture f JOIN f.convention c " +
+            "GROUP BY c.id, c.referenceConvention, c.etat ORDER BY COALESCE(SUM(f.montantTTC), 0) DESC")
+    List<Object[]> findTopConventionsByInvoicedAmount(Pageable pageable);
+
+    @Query("SELECT f FROM Facture f LEFT JOIN FETCH f.convention ORDER BY f.createdAt DESC")
+    List<Facture> findRecentWithConvention(Pageable pageable);
+
+    // ==================== RISK MODEL FEATURES ====================
+    // Rows: [clientId, paidCount, onTimeCount, lateCount, lateDaysTotal], consumed by InvoiceRiskAIModel.
+
+    @Query(value = "SELECT c.structure_beneficiel_id, COUNT(*), " +
+            "SUM(CASE WHEN f.date_paiement IS NOT NULL AND f.date_paiement <= f.date_echeance THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN f.date_paiement > f.date_echeance THEN 1 ELSE 0 END), " +
+            "COALESCE(SUM(CASE WHEN f.date_paiement > f.date_echeance THEN f.date_paiement - f.date_echeance ELSE 0 END), 0) " +
+            "FROM factures f JOIN conventions c ON c.id = f.convention_id " +
+            "WHERE f.statut_paiement = 'PAYE' " +
+            "GROUP BY c.structure_beneficiel_id", nativeQuery = true)
+    List<Object[]> aggregatePaymentHistoryByClient();
+
+    @Query(value = "SELECT c.structure_beneficiel_id, COUNT(*), " +
+            "SUM(CASE WHEN f.date_paiement IS NOT NULL AND f.date_paiement <= f.date_echeance THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN f.date_paiement > f.date_echeance THEN 1 ELSE 0 END), " +
+            "COALESCE(SUM(CASE WHEN f.date_paiement > f.date_echeance THEN f.date_paiement - f.date_echeance ELSE 0 END), 0) " +
+            "FROM factures f JOIN conventions c ON c.id = f.convention_id " +
+            "WHERE f.statut_paiement = 'PAYE' AND c.structure_beneficiel_id IN (:clientIds) " +
+            "GROUP BY c.structure_beneficiel_id", nativeQuery = true)
+    List<Object[]> aggregatePaymentHistoryForClients(@Param("clientIds") Collection<Long> clientIds);
+
+    // [conventionId, paid amount, unpaid amount, overdue amount, paid count, paid-early count, paid-late count,
+    //  max days late] per convention of the selected clients
+    String INVOICE_TOTALS_BY_CONVENTION = "SELECT f.convention_id, " +
+            "COALESCE(SUM(CASE WHEN f.statut_paiement = 'PAYE' THEN f.montant_ttc ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN f.statut_paiement = 'PAYE' THEN 0 ELSE f.montant_ttc END), 0), " +
+            "COALESCE(SUM(CASE WHEN f.statut_paiement = 'PAYE' THEN 0 WHEN f.date_echeance < :today THEN f.montant_ttc ELSE 0 END), 0), " +
+            "SUM(CASE WHEN f.statut_paiement = 'PAYE' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN f.statut_paiement = 'PAYE' AND f.date_paiement < f.date_echeance THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN f.statut_paiement = 'PAYE' AND f.date_paiement > f.date_echeance THEN 1 ELSE 0 END), " +
+            "COALESCE(MAX(CASE WHEN f.statut_paiement = 'PAYE' AND f.date_paiement > f.date_echeance " +
+            "THEN f.date_paiement - f.date_echeance END), 0) " +
+            "FROM factures f JOIN conventions c ON c.id = f.convention_id ";
+
+    @Query(value = INVOICE_TOTALS_BY_CONVENTION +
+            "JOIN structures s ON s.id = c.structure_beneficiel_id " +
+            "WHERE s.type_structure = :typeStructure " +
+            "GROUP BY f.convention_id", nativeQuery = true)
+    List<Object[]> aggregateInvoicesByConventionForStructureType(@Param("typeStructure") String typeStructure,
+                                                                  @Param("today") LocalDate today);
 
-}
\ No newline at end of file
+    @Query(value = INVOICE_TOTALS_BY_CONVENTION +
+            "WHERE c.structure_beneficiel_id IN (:clientIds) " +
+            "GROUP BY f.convention_id", nativeQuery = true)
+    List<Object[]> aggregateInvoicesByConventionForClients(@Param("clientIds") Collection<Long> clientIds,
+                                                           @Param("today") LocalDate today);
+}
@@ -1,40 +1,47 @@
 package com.example.back.repository;
 
 import com.example.back.entity.History;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import java.time.LocalDate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface HistoryRepository extends JpaRepository<History, Long> {
-
-    List<History> findByUserIdOrderByTimestampDesc(Long userId);
-
-    List<History> findByEntityTypeAndEntityIdOrderByTimestampDesc(String entityType, Long entityId);
-
-    @Query("SELECT h FROM History h WHERE DATE(h.timestamp) = :date ORDER BY h.timestamp DESC")
-    List<History> findByDate(@Param("date") LocalDate date);
-
-    @Query("SELECT DISTINCT DATE(h.timestamp) FROM History h ORDER BY DATE(h.timestamp) DESC")
-    List<LocalDate> findDistinctDates();
-
-    @Query("SELECT h FROM History h ORDER BY h.timestamp DESC")
-    List<History> findRecent(Pageable pageable);
-
-    @Query("SELECT h FROM History h WHERE " +
-            "(:entityType IS NULL OR h.entityType = :entityType) AND " +
-            "(:actionType IS NULL OR h.actionType = :actionType) AND " +
-            "(:userId IS NULL OR h.user.id = :userId) AND " +
-            "(:date IS NULL OR DATE(h.timestamp) = :date) " +
-            "ORDER BY h.timestamp DESC")
-    List<History> searchHistory(
-            @Param("entityType") String entityType,
-            @Param("actionType") String actionType,
-            @Param("userId") Long userId,
-            @Param("date") LocalDate date
-    );
-}
\ No newline at end of file
+public interface HistoryRepository extends JpaRepository<History, Long>, HistoryRepositoryCustom {
+
+    // The latest :perDay entries of each day in [from, to), newest first
+    @Query(value = "SELECT * FROM (SELECT h.*, ROW_NUMBER() OVER (" +
+            "PARTITION BY CAST(h.timestamp AS DATE) ORDER BY h.timestamp DESC, h.id DESC) AS day_rank " +
+            "FROM history h WHERE h.timestamp >= :from AND h.timestamp < :to) ranked " +
+            "WHERE ranked.day_rank <= :perDay " +
+            "ORDER BY ranked.timestamp DESC, ranked.id DESC", nativeQuery = true)
+    List<History> findLatestPerDay(@Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to,
+                                   @Param("perDay") int perDay);
+
+    @Query("SELECT MIN(h.timestamp) FROM History h")
+    LocalDateTime findOldestTimestamp();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM History h WHERE h.timestamp >= :from AND h.timestamp < :to")
+    int deleteByTimestampRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // [actionType, count]
+    @Query("SELECT h.actionType, COUNT(h) FROM History h GROUP BY h.actionType")
+    List<Object[]> countByActionType();
+
+    // [entityType, count]
+    @Query("SELECT h.entityType, COUNT(h) FROM History h GROUP BY h.entityType")
+    List<Object[]> countByEntityType();
+
+    // [firstName, lastName, count]
+    @Query("SELECT u.firstName, u.lastName, COUNT(h) FROM History h JOIN h.user u " +
+            "GROUP BY u.id, u.firstName, u.lastName")
+    List<Object[]> countByUser();
+}
@@ -0,0 +1,24 @@
+package com.example.back.repository;
+
+import com.example.back.entity.History;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HistoryRepositoryCustom {
+
+    /**
+     * Keyset page of history entries, newest first. Every filter is optional; pass the
+     * (timestamp, id) of the last entry of the previous page as cursor, or nulls for the first page.
+     */
+    List<History> findPage(String entityType,
+                           Long entityId,
+                           String actionType,
+                           Long userId,
+                           LocalDateTime from,
+                           LocalDateTime to,
+                           LocalDateTime cursorTimestamp,
+                           Long cursorId,
+                           Pageable pageable);
+}
@@ -0,0 +1,61 @@
+package com.example.back.repository;
+
+import com.example.back.entity.History;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Writes only the filters that are set, so each combination is a plain conjunction that
+ * matches one of the history indexes, and compares the cursor as a row value, which
+ * PostgreSQL reads as a single range on (timestamp, id).
+ */
+class HistoryRepositoryCustomImpl implements HistoryRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    HistoryRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<History> findPage(String entityType, Long entityId, String actionType, Long userId,
+                                  LocalDateTime from, LocalDateTime to,
+                                  LocalDateTime cursorTimestamp, Long cursorId, Pageable pageable) {
+        StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        filter(where, parameters, "h.entityType = :entityType", "entityType", entityType);
+        filter(where, parameters, "h.entityId = :entityId", "entityId", entityId);
+        filter(where, parameters, "h.actionType = :actionType", "actionType", actionType);
+        filter(where, parameters, "h.user.id = :userId", "userId", userId);
+        filter(where, parameters, "h.timestamp >= :from", "from", from);
+        filter(where, parameters, "h.timestamp < :to", "to", to);
+        if (cursorTimestamp != null && cursorId != null) {
+            where.add("(h.timestamp, h.id) < (:cursorTimestamp, :cursorId)");
+            parameters.put("cursorTimestamp", cursorTimestamp);
+            parameters.put("cursorId", cursorId);
+        }
+
+        TypedQuery<History> query = entityManager.createQuery(
+                "SELECT h FROM History h" + where + " ORDER BY h.timestamp DESC, h.id DESC", History.class);
+        parameters.forEach(query::setParameter);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList();
+    }
+
+    private static void filter(StringJoiner where, Map<String, Object> parameters,
+                               String condition, String name, Object value) {
+        if (value == null) return;
+        where.add(condition);
+        parameters.put(name, value);
+    }
+}
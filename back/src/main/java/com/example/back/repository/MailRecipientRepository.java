@@ -7,6 +7,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface MailRecipientRepository extends JpaRepository<MailRecipient, Long> {
@@ -14,4 +17,38 @@ public interface MailRecipientRepository extends JpaRepository<MailRecipient, Lo
     @Modifying
     @Query("UPDATE MailRecipient r SET r.isArchived = :archived WHERE r.email = :email AND r.mail.id = :mailId")
     void setArchived(@Param("email") String email, @Param("mailId") Long mailId, @Param("archived") boolean archived);
-}
\ No newline at end of file
+
+    /**
+     * The state of the user's recipient rows among the given mails:
+     * [mailId, type, isRead, isStarred, isArchived, isDeleted].
+     */
+    @Query("SELECT r.mail.id, r.type, r.isRead, r.isStarred, r.isArchived, r.isDeleted FROM MailRecipient r " +
+            "WHERE r.email = :email AND r.mail.id IN :mailIds")
+    List<Object[]> findStatesByEmailAndMailIds(@Param("email") String email, @Param("mailIds") Collection<Long> mailIds);
+
+    // The bulk updates below only touch rows whose flag actually changes, and return their number
+
+    @Modifying
+    @Query("UPDATE MailRecipient r SET r.isRead = :read, r.readAt = :readAt, r.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE r.email = :email AND r.mail.id IN :mailIds AND (r.isRead IS NULL OR r.isRead <> :read)")
+    int bulkSetRead(@Param("email") String email, @Param("mailIds") Collection<Long> mailIds,
+                    @Param("read") boolean read, @Param("readAt") LocalDateTime readAt);
+
+    @Modifying
+    @Query("UPDATE MailRecipient r SET r.isStarred = :starred, r.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE r.email = :email AND r.mail.id IN :mailIds AND (r.isStarred IS NULL OR r.isStarred <> :starred)")
+    int bulkSetStarred(@Param("email") String email, @Param("mailIds") Collection<Long> mailIds,
+                       @Param("starred") boolean starred);
+
+    @Modifying
+    @Query("UPDATE MailRecipient r SET r.isArchived = :archived, r.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE r.email = :email AND r.mail.id IN :mailIds AND (r.isArchived IS NULL OR r.isArchived <> :archived)")
+    int bulkSetArchived(@Param("email") String email, @Param("mailIds") Collection<Long> mailIds,
+                        @Param("archived") boolean archived);
+
+    @Modifying
+    @Query("UPDATE MailRecipient r SET r.isDeleted = :deleted, r.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE r.email = :email AND r.mail.id IN :mailIds AND (r.isDeleted IS NULL OR r.isDeleted <> :deleted)")
+    int bulkSetDeleted(@Param("email") String email, @Param("mailIds") Collection<Long> mailIds,
+                       @Param("deleted") boolean deleted);
+}
@@ -9,6 +9,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface MailRepository extends JpaRepository<Mail, Long> {
 
@@ -28,8 +31,20 @@ public interface MailRepository extends JpaRepository<Mail, Long> {
     @Query("SELECT DISTINCT m FROM Mail m JOIN m.recipients r WHERE r.email = :email AND r.isArchived = true AND r.isDeleted = false ORDER BY m.sentAt DESC")
     Page<Mail> findArchivedByUserEmail(@Param("email") String email, Pageable pageable);
 
-    @Query("SELECT DISTINCT m FROM Mail m JOIN m.recipients r WHERE r.email = :email AND r.isDeleted = false AND (LOWER(m.subject) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(m.content) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) ORDER BY m.sentAt DESC")
-    Page<Mail> searchByUserEmail(@Param("email") String email, @Param("searchTerm") String searchTerm, Pageable pageable);
+    /**
+     * Full-text search over subject and body through the GIN-indexed {@code search_vector}
+     * column (see {@code MailSearchIndexInitializer}), limited to mails the user has a live
+     * recipient row for. Best matches first, subject hits weighing more than body hits.
+     *
+     * @param tsQuery a {@code to_tsquery} expression, e.g. {@code facture:* & mars:*}
+     */
+    @Query(value = "SELECT m.* FROM mails m WHERE m.search_vector @@ to_tsquery('french', :tsQuery) " +
+            "AND EXISTS (SELECT 1 FROM mail_recipients r WHERE r.mail_id = m.id AND r.email = :email AND r.is_deleted = false) " +
+            "ORDER BY ts_rank_cd(m.search_vector, to_tsquery('french', :tsQuery)) DESC, m.sent_at DESC, m.id DESC",
+            countQuery = "SELECT COUNT(*) FROM mails m WHERE m.search_vector @@ to_tsquery('french', :tsQuery) " +
+                    "AND EXISTS (SELECT 1 FROM mail_recipients r WHERE r.mail_id = m.id AND r.email = :email AND r.is_deleted = false)",
+            nativeQuery = true)
+    Page<Mail> searchByUserEmail(@Param("email") String email, @Param("tsQuery") String tsQuery, Pageable pageable);
 
     @Query("SELECT COUNT(DISTINCT m) FROM Mail m JOIN m.recipients r WHERE r.email = :email AND r.isRead = false AND r.isDeleted = false AND r.isArchived = false AND r.type != 'FROM'")
     long countUnreadByRecipientEmail(@Param("email") String email);
@@ -52,6 +67,14 @@ public interface MailRepository extends JpaRepository<Mail, Long> {
     @Query("SELECT COUNT(DISTINCT m) FROM Mail m JOIN m.recipients r WHERE r.email = :groupIdentifier AND r.user = :user AND r.isRead = false AND r.isDeleted = false")
     long countUnreadMailsByGroupForUser(@Param("groupIdentifier") String groupIdentifier, @Param("user") User user);
 
+    // [groupIdentifier, mailCount, unreadCountForUser], one row per group that received mail
+    @Query("SELECT r.email, COUNT(DISTINCT m), " +
+            "COUNT(DISTINCT CASE WHEN r.user.id = :userId AND r.isRead = false THEN m.id END) " +
+            "FROM Mail m JOIN m.recipients r WHERE r.email IN :groupIdentifiers AND r.isDeleted = false " +
+            "GROUP BY r.email")
+    List<Object[]> countMailsByGroupRecipients(@Param("groupIdentifiers") Collection<String> groupIdentifiers,
+                                               @Param("userId") Long userId);
+
     @Query("SELECT COUNT(DISTINCT m) FROM Mail m JOIN m.recipients r WHERE r.email LIKE 'GROUP:%' AND (m.sender = :user OR r.user = :user) AND r.isDeleted = false")
     long countAllGroupMailsForUser(@Param("user") User user);
 
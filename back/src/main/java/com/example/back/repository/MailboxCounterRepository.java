@@ -0,0 +1,109 @@
+package com.example.back.repository;
+
+import com.example.back.entity.MailboxCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface MailboxCounterRepository extends JpaRepository<MailboxCounter, Long> {
+
+    Optional<MailboxCounter> findByEmail(String email);
+
+    /**
+     * Adds the deltas to the mailbox's counters in one statement, creating the row on first use.
+     * Runs in the caller's transaction, so the counters commit or roll back with the flag change.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO mailbox_counters (email, inbox_count, unread_count, sent_count, starred_count, " +
+            "archived_count, trash_count, draft_count, updated_at) " +
+            "VALUES (:email, :inbox, :unread, :sent, :starred, :archived, :trash, 0, NOW()) " +
+            "ON CONFLICT (email) DO UPDATE SET " +
+            "inbox_count = mailbox_counters.inbox_count + EXCLUDED.inbox_count, " +
+            "unread_count = mailbox_counters.unread_count + EXCLUDED.unread_count, " +
+            "sent_count = mailbox_counters.sent_count + EXCLUDED.sent_count, " +
+            "starred_count = mailbox_counters.starred_count + EXCLUDED.starred_count, " +
+            "archived_count = mailbox_counters.archived_count + EXCLUDED.archived_count, " +
+            "trash_count = mailbox_counters.trash_count + EXCLUDED.trash_count, " +
+            "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    void addDeltas(@Param("email") String email,
+                   @Param("inbox") long inbox,
+                   @Param("unread") long unread,
+                   @Param("sent") long sent,
+                   @Param("starred") long starred,
+                   @Param("archived") long archived,
+                   @Param("trash") long trash);
+
+    /**
+     * Adds {@code delta} to the draft count of the mailbox, creating the row on first use.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO mailbox_counters (email, inbox_count, unread_count, sent_count, starred_count, " +
+            "archived_count, trash_count, draft_count, updated_at) " +
+            "VALUES (:email, 0, 0, 0, 0, 0, 0, :delta, NOW()) " +
+            "ON CONFLICT (email) DO UPDATE SET " +
+            "draft_count = mailbox_counters.draft_count + EXCLUDED.draft_count, " +
+            "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    void addDraftDelta(@Param("email") String email, @Param("delta") long delta);
+
+    /**
+     * Recomputes every mailbox's counters from mail_recipients, with the same folder rules as
+     * {@code MailRepository}'s listings: a mail counts once per folder, however many of the
+     * mailbox's rows put it there.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO mailbox_counters (email, inbox_count, unread_count, sent_count, starred_count, " +
+            "archived_count, trash_count, draft_count, updated_at) " +
+            "SELECT r.email, " +
+            "COUNT(DISTINCT r.mail_id) FILTER (WHERE r.type <> 'FROM' AND NOT COALESCE(r.is_deleted, false) " +
+            "AND NOT COALESCE(r.is_archived, false)), " +
+            "COUNT(DISTINCT r.mail_id) FILTER (WHERE r.type <> 'FROM' AND NOT COALESCE(r.is_deleted, false) " +
+            "AND NOT COALESCE(r.is_archived, false) AND NOT COALESCE(r.is_read, false)), " +
+            "COUNT(DISTINCT r.mail_id) FILTER (WHERE r.type = 'FROM' AND NOT COALESCE(r.is_deleted, false)), " +
+            "COUNT(DISTINCT r.mail_id) FILTER (WHERE COALESCE(r.is_starred, false) AND NOT COALESCE(r.is_deleted, false)), " +
+            "COUNT(DISTINCT r.mail_id) FILTER (WHERE COALESCE(r.is_archived, false) AND NOT COALESCE(r.is_deleted, false)), " +
+            "COUNT(DISTINCT r.mail_id) FILTER (WHERE COALESCE(r.is_deleted, false)), " +
+            "0, NOW() FROM mail_recipients r GROUP BY r.email " +
+            "ON CONFLICT (email) DO UPDATE SET " +
+            "inbox_count = EXCLUDED.inbox_count, " +
+            "unread_count = EXCLUDED.unread_count, " +
+            "sent_count = EXCLUDED.sent_count, " +
+            "starred_count = EXCLUDED.starred_count, " +
+            "archived_count = EXCLUDED.archived_count, " +
+            "trash_count = EXCLUDED.trash_count, " +
+            "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int rebuildAll();
+
+    /**
+     * Recomputes every mailbox's draft count from mail_drafts, zeroing mailboxes left without drafts.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "WITH drafts AS (SELECT u.email, COUNT(d.id) AS total FROM mail_drafts d " +
+            "JOIN users u ON u.id = d.user_id GROUP BY u.email), " +
+            "emptied AS (UPDATE mailbox_counters c SET draft_count = 0, updated_at = NOW() " +
+            "WHERE c.draft_count <> 0 AND c.email NOT IN (SELECT email FROM drafts)) " +
+            "INSERT INTO mailbox_counters (email, inbox_count, unread_count, sent_count, starred_count, " +
+            "archived_count, trash_count, draft_count, updated_at) " +
+            "SELECT email, 0, 0, 0, 0, 0, 0, total, NOW() FROM drafts " +
+            "ON CONFLICT (email) DO UPDATE SET draft_count = EXCLUDED.draft_count, " +
+            "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int rebuildDraftCounts();
+
+    // Mailboxes whose last recipient row and last draft are gone
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM mailbox_counters c WHERE NOT EXISTS " +
+            "(SELECT 1 FROM mail_recipients r WHERE r.email = c.email) " +
+            "AND NOT EXISTS (SELECT 1 FROM mail_drafts d JOIN users u ON u.id = d.user_id " +
+            "WHERE u.email = c.email)", nativeQuery = true)
+    int deleteOrphans();
+}
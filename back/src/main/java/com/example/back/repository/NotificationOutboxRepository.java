@@ -0,0 +1,34 @@
+package com.example.back.repository;
+
+import com.example.back.entity.NotificationChannel;
+import com.example.back.entity.NotificationOutbox;
+import com.example.back.entity.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.status = com.example.back.entity.OutboxStatus.PENDING " +
+            "AND o.channel = :channel AND o.nextAttemptAt <= :now ORDER BY o.nextAttemptAt")
+    List<NotificationOutbox> findDue(@Param("channel") NotificationChannel channel,
+                                     @Param("now") LocalDateTime now,
+                                     Pageable pageable);
+
+    // Entries left in SENDING by a worker that never reported back (e.g. the application stopped)
+    @Transactional
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.status = com.example.back.entity.OutboxStatus.PENDING, o.claimedAt = null " +
+            "WHERE o.status = com.example.back.entity.OutboxStatus.SENDING AND o.claimedAt < :cutoff")
+    int requeueStale(@Param("cutoff") LocalDateTime cutoff);
+
+    long countByStatus(OutboxStatus status);
+}
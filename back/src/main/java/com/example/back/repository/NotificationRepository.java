@@ -9,8 +9,10 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +23,9 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     long countByUserAndIsReadFalse(User user);
 
+    @Query("SELECT n FROM Notification n JOIN FETCH n.user WHERE n.id = :id")
+    Optional<Notification> findByIdWithUser(@Param("id") Long id);
+
     List<Notification> findByReferenceIdAndReferenceType(Long referenceId, String referenceType);
 
     Optional<Notification> findFirstByReferenceIdAndReferenceTypeAndDaysUntilDueOrderByCreatedAtDesc(
@@ -32,10 +37,33 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     List<Notification> findByIsSentFalseAndCreatedAtBefore(LocalDateTime cutoff);
 
+    /**
+     * Flags the email of a notification as sent without writing its other columns, which the
+     * user may have changed (read state) since the notification was loaded.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.emailSent = true, n.emailSentAt = :now, n.isSent = true, " +
+            "n.sentAt = COALESCE(n.sentAt, :now) WHERE n.id = :id")
+    int markEmailSent(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // SMS counterpart of markEmailSent
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.smsSent = true, n.smsSentAt = :now, n.isSent = true, " +
+            "n.sentAt = COALESCE(n.sentAt, :now) WHERE n.id = :id")
+    int markSmsSent(@Param("id") Long id, @Param("now") LocalDateTime now);
+
     @Modifying
     @Query("DELETE FROM Notification n WHERE n.isRead = true AND n.createdAt < :cutoff")
     int deleteOldReadNotifications(@Param("cutoff") LocalDateTime cutoff);
 
+    // [referenceId, daysUntilDue] of the invoice notifications created since :since
+    @Query("SELECT DISTINCT n.referenceId, n.daysUntilDue FROM Notification n " +
+            "WHERE n.referenceType = 'FACTURE' AND n.referenceId IN :factureIds AND n.createdAt >= :since")
+    List<Object[]> findFactureNotificationKeysSince(@Param("factureIds") Collection<Long> factureIds,
+                                                    @Param("since") LocalDateTime since);
+
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.referenceId = :referenceId AND n.referenceType = :referenceType")
     int countByReferenceIdAndReferenceType(@Param("referenceId") Long referenceId,
                                            @Param("referenceType") String referenceType);
@@ -0,0 +1,204 @@
+package com.example.back.repository;
+
+import com.example.back.entity.Convention;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Grouped, scalar-only statistics queries scoped to a chef de projet or a commercial.
+ *
+ * Every query takes both {@code chefId} and {@code commercialId}; pass the id of the scope
+ * and {@code null} for the other one. A chef sees conventions/invoices of the applications
+ * they lead, a commercial sees the conventions they created and their invoices.
+ */
+@Repository
+public interface StatsRepository extends org.springframework.data.repository.Repository<Convention, Long> {
+
+    String CONVENTION_SCOPE = "(:chefId IS NULL OR a.chefDeProjet.id = :chefId) " +
+            "AND (:commercialId IS NULL OR c.createdBy.id = :commercialId)";
+
+    String APPLICATION_SCOPE = "(:chefId IS NULL OR a.chefDeProjet.id = :chefId) " +
+            "AND (:commercialId IS NULL OR EXISTS (SELECT 1 FROM Convention sc " +
+            "WHERE sc.application = a AND sc.createdBy.id = :commercialId))";
+
+    // APPLICATION_SCOPE for native queries; the casts type the parameters when they are null
+    String NATIVE_APPLICATION_SCOPE = "(CAST(:chefId AS bigint) IS NULL OR a.chef_de_projet_id = :chefId) " +
+            "AND (CAST(:commercialId AS bigint) IS NULL OR EXISTS (SELECT 1 FROM conventions sc " +
+            "WHERE sc.application_id = a.id AND sc.created_by_user_id = :commercialId))";
+
+    // ==================== CONVENTIONS ====================
+
+    // [etat, count, sum(montantTTC)]
+    @Query("SELECT COALESCE(c.etat, 'NO_STATUS'), COUNT(c), COALESCE(SUM(c.montantTTC), 0) " +
+            "FROM Convention c LEFT JOIN c.application a WHERE " + CONVENTION_SCOPE +
+            " GROUP BY COALESCE(c.etat, 'NO_STATUS')")
+    List<Object[]> conventionStatusBreakdown(@Param("chefId") Long chefId,
+                                             @Param("commercialId") Long commercialId);
+
+    // [year, month, count]
+    @Query("SELECT EXTRACT(YEAR FROM c.createdAt), EXTRACT(MONTH FROM c.createdAt), COUNT(c) " +
+            "FROM Convention c LEFT JOIN c.application a WHERE " + CONVENTION_SCOPE +
+            " AND c.createdAt >= :since " +
+            "GROUP BY EXTRACT(YEAR FROM c.createdAt), EXTRACT(MONTH FROM c.createdAt)")
+    List<Object[]> conventionsCreatedByMonth(@Param("chefId") Long chefId,
+                                             @Param("commercialId") Long commercialId,
+                                             @Param("since") LocalDateTime since);
+
+    @Query("SELECT COUNT(c) FROM Convention c LEFT JOIN c.application a WHERE " + CONVENTION_SCOPE +
+            " AND c.createdAt >= :start AND c.createdAt < :end")
+    long countConventionsCreatedBetween(@Param("chefId") Long chefId,
+                                        @Param("commercialId") Long commercialId,
+                                        @Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end);
+
+    // [reference, libelle, structureResponsable, etat, createdAt]
+    @Query("SELECT c.referenceConvention, c.libelle, sr.name, c.etat, c.createdAt " +
+            "FROM Convention c LEFT JOIN c.application a LEFT JOIN c.structureResponsable sr WHERE " + CONVENTION_SCOPE +
+            " ORDER BY c.createdAt DESC")
+    List<Object[]> recentConventions(@Param("chefId") Long chefId,
+                                     @Param("commercialId") Long commercialId,
+                                     Pageable pageable);
+
+    // [reference, libelle, structureResponsable, montantTTC, etat]
+    @Query("SELECT c.referenceConvention, c.libelle, sr.name, c.montantTTC, c.etat " +
+            "FROM Convention c LEFT JOIN c.application a LEFT JOIN c.structureResponsable sr WHERE " + CONVENTION_SCOPE +
+            " AND c.montantTTC > 0 ORDER BY c.montantTTC DESC")
+    List<Object[]> topEarningConventions(@Param("chefId") Long chefId,
+                                         @Param("commercialId") Long commercialId,
+                                         Pageable pageable);
+
+    // ==================== FACTURES ====================
+
+    // [statutPaiement, count, sum(montantTTC)]
+    @Query("SELECT COALESCE(f.statutPaiement, 'NON_PAYE'), COUNT(f), COALESCE(SUM(f.montantTTC), 0) " +
+            "FROM Facture f JOIN f.convention c LEFT JOIN c.application a WHERE " + CONVENTION_SCOPE +
+            " GROUP BY COALESCE(f.statutPaiement, 'NON_PAYE')")
+    List<Object[]> factureStatusBreakdown(@Param("chefId") Long chefId,
+                                          @Param("commercialId") Long commercialId);
+
+    // [count, sum(montantTTC)] of unpaid invoices past due date or flagged EN_RETARD
+    @Query("SELECT COUNT(f), COALESCE(SUM(f.montantTTC), 0) " +
+            "FROM Facture f JOIN f.convention c LEFT JOIN c.application a WHERE " + CONVENTION_SCOPE +
+            " AND (f.statutPaiement IS NULL OR f.statutPaiement <> 'PAYE') " +
+            "AND (f.dateEcheance < :today OR f.statutPaiement = 'EN_RETARD')")
+    List<Object[]> overdueFactureTotals(@Param("chefId") Long chefId,
+                                        @Param("commercialId") Long commercialId,
+                                        @Param("today") LocalDate today);
+
+    // [count, sum(montantTTC)] of NON_PAYE invoices not yet due
+    @Query("SELECT COUNT(f), COALESCE(SUM(f.montantTTC), 0) " +
+            "FROM Facture f JOIN f.convention c LEFT JOIN c.application a WHERE " + CONVENTION_SCOPE +
+            " AND f.statutPaiement = 'NON_PAYE' AND f.dateEcheance >= :today")
+    List<Object[]> notYetDueFactureTotals(@Param("chefId") Long chefId,
+                                          @Param("commercialId") Long commercialId,
+                                          @Param("today") LocalDate today);
+
+    // [year, month, sum(montantTTC)] of payments by payment date
+    @Query("SELECT EXTRACT(YEAR FROM f.datePaiement), EXTRACT(MONTH FROM f.datePaiement), COALESCE(SUM(f.montantTTC), 0) " +
+            "FROM Facture f JOIN f.convention c LEFT JOIN c.application a WHERE " + CONVENTION_SCOPE +
+            " AND f.statutPaiement = 'PAYE' AND f.datePaiement >= :since " +
+            "GROUP BY EXTRACT(YEAR FROM f.datePaiement), EXTRACT(MONTH FROM f.datePaiement)")
+    List<Object[]> revenueByMonth(@Param("chefId") Long chefId,
+                                  @Param("commercialId") Long commercialId,
+                                  @Param("since") LocalDate since);
+
+    // [year, month, sum(montantTTC), sum(montantTTC of paid)] by invoice date
+    @Query("SELECT EXTRACT(YEAR FROM f.dateFacturation), EXTRACT(MONTH FROM f.dateFacturation), " +
+            "COALESCE(SUM(f.montantTTC), 0), " +
+            "COALESCE(SUM(CASE WHEN f.statutPaiement = 'PAYE' THEN f.montantTTC ELSE 0 END), 0) " +
+            "FROM Facture f JOIN f.convention c LEFT JOIN c.application a WHERE " + CONVENTION_SCOPE +
+            " AND f.dateFacturation >= :since " +
+            "GROUP BY EXTRACT(YEAR FROM f.dateFacturation), EXTRACT(MONTH FROM f.dateFacturation)")
+    List<Object[]> invoicedByMonth(@Param("chefId") Long chefId,
+                                   @Param("commercialId") Long commercialId,
+                                   @Param("since") LocalDate since);
+
+    // [createdToday, dueToday, revenueToday]
+    @Query("SELECT " +
+            "COALESCE(SUM(CASE WHEN f.createdAt >= :start AND f.createdAt < :end THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN f.dateEcheance = :today THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN f.statutPaiement = 'PAYE' AND f.datePaiement = :today THEN f.montantTTC ELSE 0 END), 0) " +
+            "FROM Facture f JOIN f.convention c LEFT JOIN c.application a WHERE " + CONVENTION_SCOPE)
+    List<Object[]> factureDaySummary(@Param("chefId") Long chefId,
+                                     @Param("commercialId") Long commercialId,
+                                     @Param("today") LocalDate today,
+                                     @Param("start") LocalDateTime start,
+                                     @Param("end") LocalDateTime end);
+
+    // [numero, conventionReference, montantTTC, statutPaiement, dateEcheance, createdAt]
+    @Query("SELECT f.numeroFacture, c.referenceConvention, f.montantTTC, f.statutPaiement, f.dateEcheance, f.createdAt " +
+            "FROM Facture f JOIN f.convention c LEFT JOIN c.application a WHERE " + CONVENTION_SCOPE +
+            " ORDER BY f.createdAt DESC")
+    List<Object[]> recentFactures(@Param("chefId") Long chefId,
+                                  @Param("commercialId") Long commercialId,
+                                  Pageable pageable);
+
+    // [numero, conventionReference, montantTTC, dateEcheance]
+    @Query("SELECT f.numeroFacture, c.referenceConvention, f.montantTTC, f.dateEcheance " +
+            "FROM Facture f JOIN f.convention c LEFT JOIN c.application a WHERE " + CONVENTION_SCOPE +
+            " AND (f.statutPaiement IS NULL OR f.statutPaiement <> 'PAYE') " +
+            "AND (f.dateEcheance < :today OR f.statutPaiement = 'EN_RETARD') " +
+            "ORDER BY f.dateEcheance")
+    List<Object[]> overdueFactures(@Param("chefId") Long chefId,
+                                   @Param("commercialId") Long commercialId,
+                                   @Param("today") LocalDate today);
+
+    // ==================== APPLICATIONS ====================
+
+    // [status, count]
+    @Query("SELECT COALESCE(a.status, 'NO_STATUS'), COUNT(a) FROM Application a WHERE " + APPLICATION_SCOPE +
+            " GROUP BY COALESCE(a.status, 'NO_STATUS')")
+    List<Object[]> applicationStatusBreakdown(@Param("chefId") Long chefId,
+                                              @Param("commercialId") Long commercialId);
+
+    // [year, month, count]
+    @Query("SELECT EXTRACT(YEAR FROM a.createdAt), EXTRACT(MONTH FROM a.createdAt), COUNT(a) " +
+            "FROM Application a WHERE " + APPLICATION_SCOPE +
+            " AND a.createdAt >= :since " +
+            "GROUP BY EXTRACT(YEAR FROM a.createdAt), EXTRACT(MONTH FROM a.createdAt)")
+    List<Object[]> applicationsCreatedByMonth(@Param("chefId") Long chefId,
+                                              @Param("commercialId") Long commercialId,
+                                              @Param("since") LocalDateTime since);
+
+    @Query("SELECT COUNT(a) FROM Application a WHERE " + APPLICATION_SCOPE)
+    long countApplications(@Param("chefId") Long chefId,
+                           @Param("commercialId") Long commercialId);
+
+    // [code, name, clientName, status, dateDebut, dateFin, createdAt]
+    @Query("SELECT a.code, a.name, a.clientName, a.status, a.dateDebut, a.dateFin, a.createdAt " +
+            "FROM Application a WHERE " + APPLICATION_SCOPE +
+            " ORDER BY a.createdAt DESC")
+    List<Object[]> applicationSchedules(@Param("chefId") Long chefId,
+                                        @Param("commercialId") Long commercialId,
+                                        Pageable pageable);
+
+    // [averageProgress, onTrackCount, delayedCount], progress follows Application#getTimeBasedProgress
+    @Query(value = "SELECT COALESCE(AVG(p.progress), 0), COUNT(*) FILTER (WHERE p.progress >= 70), " +
+            "COUNT(*) FILTER (WHERE p.delayed) FROM (" +
+            "SELECT CASE WHEN a.date_debut IS NULL OR a.date_fin IS NULL " +
+            "OR a.date_fin - a.date_debut + 1 = 0 THEN 0 " +
+            "WHEN CAST(:today AS date) < a.date_debut THEN 0 " +
+            "WHEN CAST(:today AS date) > a.date_fin THEN 100 " +
+            "ELSE (CAST(:today AS date) - a.date_debut + 1) * 100 / (a.date_fin - a.date_debut + 1) END AS progress, " +
+            "(a.date_fin < CAST(:today AS date) AND (a.status IS NULL OR a.status <> 'TERMINE')) AS delayed " +
+            "FROM applications a WHERE " + NATIVE_APPLICATION_SCOPE + ") p", nativeQuery = true)
+    List<Object[]> applicationProgressSummary(@Param("chefId") Long chefId,
+                                              @Param("commercialId") Long commercialId,
+                                              @Param("today") LocalDate today);
+
+    // Same columns as applicationSchedules, most overdue first
+    @Query("SELECT a.code, a.name, a.clientName, a.status, a.dateDebut, a.dateFin, a.createdAt " +
+            "FROM Application a WHERE " + APPLICATION_SCOPE +
+            " AND a.dateFin < :today AND (a.status IS NULL OR a.status <> 'TERMINE')" +
+            " ORDER BY a.dateFin ASC")
+    List<Object[]> delayedApplicationSchedules(@Param("chefId") Long chefId,
+                                               @Param("commercialId") Long commercialId,
+                                               @Param("today") LocalDate today,
+                                               Pageable pageable);
+}
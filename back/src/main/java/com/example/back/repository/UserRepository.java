@@ -1,5 +1,6 @@
 package com.example.back.repository;
 
+import com.example.back.entity.ERole;
 import com.example.back.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -31,5 +32,27 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u JOIN u.roles r WHERE r.name = :roleName")
     List<User> findByRoleName(@Param("roleName") String roleName);
 
+    long countByEnabledTrue();
+
+    // [role, count]
+    @Query("SELECT r.name, COUNT(u) FROM User u JOIN u.roles r GROUP BY r.name")
+    List<Object[]> countUsersByRole();
+
+    // [role, count] over users that do not hold the excluded role
+    @Query("SELECT r.name, COUNT(u) FROM User u JOIN u.roles r WHERE NOT EXISTS " +
+            "(SELECT 1 FROM User eu JOIN eu.roles er WHERE eu.id = u.id AND er.name = :excluded) " +
+            "GROUP BY r.name")
+    List<Object[]> countUsersByRoleExcluding(@Param("excluded") ERole excluded);
+
+    // [total, active, locked, inactive] over users that do not hold the excluded role
+    @Query("SELECT COUNT(u), " +
+            "COALESCE(SUM(CASE WHEN u.enabled = true THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN u.lockedByAdmin = true OR u.accountLockedUntil > :now THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN u.lastLogin < :inactiveBefore THEN 1 ELSE 0 END), 0) " +
+            "FROM User u WHERE NOT EXISTS " +
+            "(SELECT 1 FROM User eu JOIN eu.roles er WHERE eu.id = u.id AND er.name = :excluded)")
+    List<Object[]> activitySummaryExcluding(@Param("excluded") ERole excluded,
+                                            @Param("now") LocalDateTime now,
+                                            @Param("inactiveBefore") LocalDateTime inactiveBefore);
 
 }
\ No newline at end of file
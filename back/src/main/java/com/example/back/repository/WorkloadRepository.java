@@ -3,18 +3,72 @@ package com.example.back.repository;
 import com.example.back.entity.User;
 import com.example.back.entity.Workload;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface WorkloadRepository extends JpaRepository<Workload, Long> {
 
+    // Same formula as Workload.score, over the row's own totals
+    String SCORE_SQL = "LEAST(current_applications_count * 100.0 / " + Workload.MAX_APPLICATIONS + ", 100) * " + Workload.COUNT_WEIGHT +
+            " + LEAST(total_applications_value * 100.0 / " + Workload.MAX_VALUE + ", 100) * " + Workload.VALUE_WEIGHT +
+            " + LEAST(total_applications_duration * 100.0 / " + Workload.MAX_DURATION_DAYS + ", 100) * " + Workload.DURATION_WEIGHT;
+
     Optional<Workload> findByChefDeProjet(User chefDeProjet);
 
+    Optional<Workload> findByChefDeProjetId(Long chefDeProjetId);
+
     @Query("SELECT w FROM Workload w ORDER BY w.currentWorkloadScore DESC")
     List<Workload> findAllOrderedByWorkload();
 
-}
\ No newline at end of file
+    @Query("SELECT w FROM Workload w JOIN FETCH w.chefDeProjet")
+    List<Workload> findAllWithChef();
+
+    @Query("SELECT w FROM Workload w JOIN FETCH w.chefDeProjet c WHERE c.id IN :chefIds")
+    List<Workload> findAllWithChefByChefIds(@Param("chefIds") Collection<Long> chefIds);
+
+    @Query(value = "SELECT current_workload_score FROM workloads WHERE chef_de_projet_id = :chefId", nativeQuery = true)
+    Double findScoreByChefId(@Param("chefId") Long chefId);
+
+    // Atomic increment of a chef's totals; creates the row the first time
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO workloads (chef_de_projet_id, current_workload_score, current_applications_count, " +
+            "total_applications_value, total_applications_duration, critical_threshold, high_threshold, " +
+            "last_calculated_at, created_at, updated_at) " +
+            "VALUES (:chefId, 0, :apps, :value, :duration, 75.0, 45.0, NOW(), NOW(), NOW()) " +
+            "ON CONFLICT (chef_de_projet_id) DO UPDATE SET " +
+            "current_applications_count = workloads.current_applications_count + EXCLUDED.current_applications_count, " +
+            "total_applications_value = workloads.total_applications_value + EXCLUDED.total_applications_value, " +
+            "total_applications_duration = workloads.total_applications_duration + EXCLUDED.total_applications_duration, " +
+            "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    void addDeltas(@Param("chefId") Long chefId,
+                   @Param("apps") int apps,
+                   @Param("value") double value,
+                   @Param("duration") long duration);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE workloads SET current_workload_score = " + SCORE_SQL + ", last_calculated_at = NOW() " +
+            "WHERE chef_de_projet_id = :chefId", nativeQuery = true)
+    void refreshScore(@Param("chefId") Long chefId);
+
+    // [chefId, applications, value of non-archived conventions, duration in days], from the source tables
+    @Query(value = "SELECT a.chef_de_projet_id, COUNT(*), COALESCE(SUM(v.total), 0), " +
+            "COALESCE(SUM(CASE WHEN a.date_debut IS NOT NULL AND a.date_fin IS NOT NULL " +
+            "THEN a.date_fin - a.date_debut ELSE 0 END), 0) " +
+            "FROM applications a " +
+            "LEFT JOIN (SELECT application_id, SUM(montant_ttc) AS total FROM conventions " +
+            "WHERE archived = false GROUP BY application_id) v ON v.application_id = a.id " +
+            "WHERE a.chef_de_projet_id IS NOT NULL " +
+            "GROUP BY a.chef_de_projet_id", nativeQuery = true)
+    List<Object[]> computeTotalsByChef();
+
+}
@@ -1,6 +1,7 @@
 package com.example.back.security.jwt;
 
 
+import com.example.back.security.services.PrincipalCache;
 import com.example.back.security.services.UserDetailsServiceImpl;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -28,6 +29,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     private static final Logger logg = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
@@ -40,7 +44,12 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
                 String username = jwtUtils.getUserNameFromJwtToken(jwt);
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = principalCache.get(username);
+                if (userDetails == null) {
+                    long loadedAt = principalCache.generation();
+                    userDetails = userDetailsService.loadUserByUsername(username);
+                    principalCache.put(username, userDetails, loadedAt);
+                }
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails,
                                 null,
@@ -0,0 +1,116 @@
+package com.example.back.security.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived cache of the principals built by {@link UserDetailsServiceImpl}, keyed by the
+ * JWT subject (the username), so an authenticated request costs a map lookup instead of a
+ * user + roles query.
+ *
+ * Entries live {@code ttlSeconds} at most, which also bounds how long a temporary lock
+ * ({@code accountLockedUntil}) evaluated at build time can be stale. Lock, unlock and role
+ * changes must call {@link #evict(String)} so they apply on the very next request. Called
+ * inside a transaction, eviction happens again after the commit: a request served before
+ * it still read the old row and may have cached it.
+ */
+@Component
+public class PrincipalCache {
+
+    private record Entry(UserDetails userDetails, long expiresAt) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction; a principal loaded before an eviction is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    @Value("${app.security.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${app.security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    public UserDetails get(String username) {
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(username, entry);
+            return null;
+        }
+        return entry.userDetails();
+    }
+
+    /**
+     * Stamp to take before loading a principal and hand back to {@link #put}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches a principal unless an eviction happened since {@code loadedAt} was taken,
+     * in which case it may already be outdated.
+     */
+    public void put(String username, UserDetails userDetails, long loadedAt) {
+        if (username == null || userDetails == null || ttlSeconds <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxSize) {
+            entries.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (entries.size() >= maxSize) {
+                entries.clear();
+            }
+        }
+        entries.put(username, new Entry(userDetails, now + ttlSeconds * 1000));
+        if (generation.get() != loadedAt) {
+            entries.remove(username);
+        }
+    }
+
+    public void evict(String username) {
+        evictNow(username);
+        afterCommit(() -> evictNow(username));
+    }
+
+    public void evictAll() {
+        evictAllNow();
+        afterCommit(this::evictAllNow);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictNow(String username) {
+        generation.incrementAndGet();
+        if (username != null) {
+            entries.remove(username);
+        }
+    }
+
+    private void evictAllNow() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -2,6 +2,7 @@ package com.example.back.service;
 
 import com.example.back.entity.User;
 import com.example.back.repository.UserRepository;
+import com.example.back.security.services.PrincipalCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -16,8 +17,11 @@ public class AccountUnlockScheduler {
 
     private final UserRepository userRepository;
 
-    public AccountUnlockScheduler(UserRepository userRepository) {
+    private final PrincipalCache principalCache;
+
+    public AccountUnlockScheduler(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @Scheduled(cron = "0 */5 * * * *")  // Every 5 minutes (more efficient)
@@ -35,6 +39,7 @@ public class AccountUnlockScheduler {
             }
 
             userRepository.saveAll(lockedUsers);
+            lockedUsers.forEach(user -> principalCache.evict(user.getUsername()));
 
             if (!lockedUsers.isEmpty()) {
                 log.info("Auto-unlocked {} user accounts", lockedUsers.size());
@@ -39,7 +39,13 @@ public class ApplicationService {
 
     private final WorkloadService workloadService;
 
-    public ApplicationService(EntitySyncService entitySyncService, ApplicationRepository applicationRepository, UserRepository userRepository, StructureRepository structureRepository, ConventionRepository conventionRepository, ApplicationMapper applicationMapper, HistoryService historyService , WorkloadService workloadService) {
+    private final StatsMetricsService statsMetricsService;
+
+    private final WorkloadLedgerService workloadLedger;
+
+    private final ClientScorecardService clientScorecardService;
+
+    public ApplicationService(EntitySyncService entitySyncService, ApplicationRepository applicationRepository, UserRepository userRepository, StructureRepository structureRepository, ConventionRepository conventionRepository, ApplicationMapper applicationMapper, HistoryService historyService , WorkloadService workloadService, StatsMetricsService statsMetricsService, WorkloadLedgerService workloadLedger, ClientScorecardService clientScorecardService) {
         this.entitySyncService = entitySyncService;
         this.applicationRepository = applicationRepository;
         this.userRepository = userRepository;
@@ -48,6 +54,9 @@ public class ApplicationService {
         this.applicationMapper = applicationMapper;
         this.historyService = historyService;
         this.workloadService = workloadService;
+        this.statsMetricsService = statsMetricsService;
+        this.workloadLedger = workloadLedger;
+        this.clientScorecardService = clientScorecardService;
     }
 
 
@@ -102,6 +111,8 @@ public class ApplicationService {
             application.setCreatedBy(currentUser);
 
             Application savedApplication = applicationRepository.save(application);
+            statsMetricsService.markDirty(savedApplication);
+            workloadLedger.recordApplicationChange(WorkloadLedgerService.Share.NONE, savedApplication);
             log.info("Application created successfully: {}", savedApplication.getCode());
 
             // LOG HISTORY: Application creation (use the same currentUser)
@@ -151,6 +162,7 @@ public class ApplicationService {
 
             // Store old values for history
             Application oldApplication = cloneApplication(application);
+            WorkloadLedgerService.Share workloadBefore = WorkloadLedgerService.Share.of(application);
 
             // Track if chef changed
             Long oldChefId = application.getChefDeProjet() != null ?
@@ -228,6 +240,7 @@ public class ApplicationService {
             }
 
             Application updatedApplication = applicationRepository.save(application);
+            workloadLedger.recordApplicationChange(workloadBefore, updatedApplication);
             log.info("Application updated successfully: {}", updatedApplication.getCode());
 
 
@@ -322,7 +335,10 @@ public class ApplicationService {
             User currentUser = getCurrentUser();
             historyService.logApplicationDelete(application, currentUser);
 
+            WorkloadLedgerService.Share workloadBefore = WorkloadLedgerService.Share.of(application);
             applicationRepository.delete(application);
+            statsMetricsService.markDirty(application);
+            workloadLedger.recordApplicationChange(workloadBefore, null);
             log.info("Application deleted successfully: {}", application.getCode());
 
         } catch (RuntimeException e) {
@@ -342,6 +358,7 @@ public class ApplicationService {
 
         LocalDate oldStart = application.getDateDebut();
         LocalDate oldEnd = application.getDateFin();
+        WorkloadLedgerService.Share workloadBefore = WorkloadLedgerService.Share.of(application);
 
         boolean datesChanged = false;
 
@@ -365,6 +382,7 @@ public class ApplicationService {
 
         if (datesChanged) {
             applicationRepository.save(application);
+            workloadLedger.recordApplicationChange(workloadBefore, application);
             log.info("Application {} dates updated successfully from convention", application.getCode());
 
             // LOG HISTORY: Dates sync
@@ -671,7 +689,9 @@ public class ApplicationService {
             newStructure.setPhone(application.getClientPhone());
             newStructure.setTypeStructure("Client");
 
-            return structureRepository.save(newStructure);
+            Structure saved = structureRepository.save(newStructure);
+            clientScorecardService.markDirty(saved.getId());
+            return saved;
 
         } catch (Exception e) {
             log.error("Error getting/creating structure for application: {}", e.getMessage(), e);
@@ -767,6 +787,7 @@ public class ApplicationService {
 
         // Get the most recent convention
         Convention mostRecentConvention = conventions.get(0);
+        WorkloadLedgerService.Share workloadBefore = WorkloadLedgerService.Share.of(application);
 
         boolean datesChanged = false;
 
@@ -787,6 +808,7 @@ public class ApplicationService {
 
         if (datesChanged) {
             applicationRepository.save(application);
+            workloadLedger.recordApplicationChange(workloadBefore, application);
             log.info("Application {} dates synced with most recent convention {}",
                     application.getCode(), mostRecentConvention.getReferenceConvention());
         }
@@ -0,0 +1,119 @@
+package com.example.back.service;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Per-executor counters for the asynchronous channels: queue depth, time spent waiting in
+ * the queue and running, rejections and what happened to the rejected tasks.
+ */
+@Component
+public class AsyncTaskMetrics {
+
+    private static final class Stats {
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong resubmitted = new AtomicLong();
+        final AtomicLong callerRuns = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong totalRunNanos = new AtomicLong();
+        final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        final LongAccumulator maxRunNanos = new LongAccumulator(Math::max, 0);
+    }
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    private final Map<String, ThreadPoolTaskExecutor> executors = new ConcurrentHashMap<>();
+
+    public void register(String name, ThreadPoolTaskExecutor executor) {
+        executors.put(name, executor);
+        stats(name);
+    }
+
+    /**
+     * Wraps each task submitted to the named executor to time its wait and its run.
+     */
+    public TaskDecorator decorator(String name) {
+        Stats s = stats(name);
+        return task -> {
+            long submittedAt = System.nanoTime();
+            s.submitted.incrementAndGet();
+            return () -> {
+                long startedAt = System.nanoTime();
+                long wait = startedAt - submittedAt;
+                s.totalWaitNanos.addAndGet(wait);
+                s.maxWaitNanos.accumulate(wait);
+                try {
+                    task.run();
+                } finally {
+                    long run = System.nanoTime() - startedAt;
+                    s.totalRunNanos.addAndGet(run);
+                    s.maxRunNanos.accumulate(run);
+                    s.completed.incrementAndGet();
+                }
+            };
+        };
+    }
+
+    public void recordRejected(String name) {
+        stats(name).rejected.incrementAndGet();
+    }
+
+    public void recordResubmitted(String name) {
+        stats(name).resubmitted.incrementAndGet();
+    }
+
+    public void recordCallerRuns(String name) {
+        stats(name).callerRuns.incrementAndGet();
+    }
+
+    public void recordDropped(String name) {
+        stats(name).dropped.incrementAndGet();
+    }
+
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new LinkedHashMap<>();
+        stats.keySet().stream().sorted().forEach(name -> {
+            Stats s = stats.get(name);
+            Map<String, Object> values = new LinkedHashMap<>();
+            ThreadPoolTaskExecutor executor = executors.get(name);
+            if (executor != null) {
+                values.put("poolSize", executor.getPoolSize());
+                values.put("activeCount", executor.getActiveCount());
+                values.put("queueDepth", executor.getQueueSize());
+                values.put("queueCapacity", executor.getQueueCapacity());
+            }
+            long completed = s.completed.get();
+            values.put("submitted", s.submitted.get());
+            values.put("completed", completed);
+            values.put("rejected", s.rejected.get());
+            values.put("resubmitted", s.resubmitted.get());
+            values.put("callerRuns", s.callerRuns.get());
+            values.put("dropped", s.dropped.get());
+            values.put("avgWaitMs", completed > 0 ? toMillis(s.totalWaitNanos.get() / completed) : 0L);
+            values.put("maxWaitMs", toMillis(s.maxWaitNanos.get()));
+            values.put("avgRunMs", completed > 0 ? toMillis(s.totalRunNanos.get() / completed) : 0L);
+            values.put("maxRunMs", toMillis(s.maxRunNanos.get()));
+            snapshot.put(name, values);
+        });
+        return snapshot;
+    }
+
+    private Stats stats(String name) {
+        return stats.computeIfAbsent(name, n -> new Stats());
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.back.service;
+
+import com.example.back.entity.AttachmentBlob;
+import com.example.back.repository.AttachmentBlobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Content-addressed store for mail and draft attachments.
+ *
+ * An upload is streamed once to a temporary file while its SHA-256 is computed, then kept
+ * under {@code <uploadDir>/blobs/<first two hex digits>/<sha256>} unless identical bytes are
+ * already stored. Each attachment row holds one reference on its blob; blobs left without
+ * references are removed by {@link #collectGarbage()} after a grace period. A file stored by
+ * a transaction that rolls back is registered without reference, so the collector finds it.
+ */
+@Service
+@Slf4j
+public class AttachmentStorageService {
+
+    private static final String BLOB_DIR = "blobs";
+    private static final Duration GC_GRACE = Duration.ofMinutes(10);
+    private static final int GC_BATCH = 200;
+
+    private final AttachmentBlobRepository blobRepository;
+
+    @Value("${app.upload.dir:${user.home}/uploads/mails}")
+    private String uploadDir;
+
+    public record StoredBlob(String sha256, long size, Path path) {
+    }
+
+    public AttachmentStorageService(AttachmentBlobRepository blobRepository) {
+        this.blobRepository = blobRepository;
+    }
+
+    /**
+     * Stores the upload (or finds its identical copy) and adds one reference to it,
+     * within the caller's transaction. If that transaction rolls back, the reference goes
+     * with it and a file this call created is left to the garbage collector.
+     */
+    public StoredBlob store(MultipartFile file) throws IOException {
+        Path root = Paths.get(uploadDir);
+        Path tmpDir = root.resolve(BLOB_DIR).resolve("tmp");
+        Files.createDirectories(tmpDir);
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            MessageDigest digest = newDigest();
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                size = Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            String relativePath = BLOB_DIR + "/" + sha256.substring(0, 2) + "/" + sha256;
+
+            // Reference first: from here the collector cannot remove the blob under us
+            blobRepository.acquire(sha256, size, relativePath);
+
+            Path target = root.resolve(relativePath);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                collectOnRollback(sha256, size, relativePath);
+            }
+            return new StoredBlob(sha256, size, target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Drops one reference; the blob itself is collected later if nothing else uses it.
+     */
+    public void release(String sha256) {
+        if (sha256 == null) return;
+        if (blobRepository.release(sha256) == 0) {
+            log.warn("Released attachment blob {} had no reference left", sha256);
+        }
+    }
+
+    @Scheduled(cron = "${app.mail.blobs.gc-cron:0 20 * * * *}")
+    @Transactional
+    public int collectGarbage() {
+        List<AttachmentBlob> candidates = blobRepository.findUnreferencedSince(
+                LocalDateTime.now().minus(GC_GRACE), PageRequest.of(0, GC_BATCH));
+        int removed = 0;
+        for (AttachmentBlob blob : candidates) {
+            // The row stays locked until commit, so a concurrent upload of the same bytes
+            // waits and then stores the file again instead of losing it
+            if (blobRepository.deleteIfUnreferenced(blob.getSha256()) == 0) continue;
+            try {
+                Files.deleteIfExists(Paths.get(uploadDir).resolve(blob.getStoragePath()));
+                removed++;
+            } catch (IOException e) {
+                log.warn("Could not delete attachment blob {}: {}", blob.getStoragePath(), e.getMessage());
+            }
+        }
+        if (removed > 0) {
+            log.info("🧹 Removed {} unreferenced attachment blobs", removed);
+        }
+        return removed;
+    }
+
+    /**
+     * The blob row of a rolled back upload is gone while its file stays, out of the collector's
+     * sight. Registering it unreferenced hands the file back to the collector, whose row lock
+     * and grace period protect a concurrent upload of the same bytes.
+     */
+    private void collectOnRollback(String sha256, long size, String relativePath) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) return;
+                try {
+                    blobRepository.registerUnreferenced(sha256, size, relativePath);
+                } catch (Exception e) {
+                    log.error("❌ Could not register attachment blob {} of a rolled back upload: {}",
+                            relativePath, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.back.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind writer for the history (audit) table.
+ *
+ * {@link #append(AuditEvent)} only offers the event to a bounded queue, so business calls
+ * (login, invoice generation, ...) do not wait for the insert. A single background thread
+ * drains the queue and writes the events with JDBC batch inserts, as soon as
+ * {@code batchSize} events are waiting or {@code flushIntervalMs} after the first one.
+ * When the queue is full the caller writes its event itself, so nothing is dropped under
+ * load; whatever is still queued at shutdown is flushed before the datasource goes away.
+ *
+ * Events appended inside a transaction are only queued once it commits, so an action that
+ * is rolled back leaves no history row.
+ */
+@Component
+@Slf4j
+public class AuditLogWriter {
+
+    static final String INSERT_SQL = "INSERT INTO history (timestamp, action_type, entity_type, entity_id, entity_code, " +
+            "entity_name, user_id, description, old_values, new_values, ip_address, user_agent) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int[] INSERT_TYPES = {
+            Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.VARCHAR,
+            Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR
+    };
+
+    /**
+     * Immutable snapshot of one history row; values are captured (and serialized) on the
+     * calling thread, where the request and the entities are still available.
+     */
+    public record AuditEvent(LocalDateTime timestamp, String actionType, String entityType, Long entityId,
+                             String entityCode, String entityName, Long userId, String description,
+                             String oldValues, String newValues, String ipAddress, String userAgent) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ChatQueryCache chatQueryCache;
+
+    @Value("${app.history.audit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.history.audit.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.history.audit.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    private BlockingQueue<AuditEvent> queue;
+
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audit-log-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean running;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate, ChatQueryCache chatQueryCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chatQueryCache = chatQueryCache;
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        running = true;
+        flusher.execute(this::runFlushLoop);
+    }
+
+    public void append(AuditEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    private void enqueue(AuditEvent event) {
+        if (running && queue.offer(event)) {
+            return;
+        }
+        // Queue full (or writer stopped): fall back to a synchronous insert rather than lose the entry
+        overflows.increment();
+        write(List.of(event));
+    }
+
+    /**
+     * Writes everything currently queued on the calling thread.
+     *
+     * @return the number of events written
+     */
+    public int flush() {
+        int total = 0;
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            total += write(batch);
+            batch.clear();
+        }
+        return total;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("capacity", queueCapacity);
+        stats.put("written", written.sum());
+        stats.put("batches", batches.sum());
+        stats.put("overflows", overflows.sum());
+        stats.put("failures", failures.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        flusher.shutdownNow();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = flush();
+        if (remaining > 0) {
+            log.info("Flushed {} pending history entries on shutdown", remaining);
+        }
+    }
+
+    private void runFlushLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AuditEvent first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long waitNanos = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || waitNanos <= 0) {
+                        break;
+                    }
+                    AuditEvent next = queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // Shutdown: events already taken from the queue are written before leaving
+                write(batch);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private int write(List<AuditEvent> events) {
+        if (events.isEmpty()) return 0;
+        List<Object[]> rows = events.stream().map(AuditLogWriter::toRow).toList();
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows, INSERT_TYPES);
+            written.add(events.size());
+            batches.increment();
+            // Auto-committed outside any transaction, and unseen by the chat cache's entity events
+            chatQueryCache.invalidateTable("history");
+            return events.size();
+        } catch (Exception e) {
+            if (events.size() == 1) {
+                lost(events.get(0), e);
+                return 0;
+            }
+            log.warn("⚠️ Failed to write {} history entries as a batch ({}), retrying them one by one",
+                    events.size(), e.getMessage());
+            return writeOneByOne(events, rows);
+        }
+    }
+
+    /**
+     * A failed batch is rolled back as a whole (PostgreSQL runs an auto-commit batch as one
+     * implicit transaction), so every row is retried. Entries from unrelated callers share a
+     * batch: one bad row, e.g. a user_id whose transaction rolled back, only loses itself.
+     */
+    private int writeOneByOne(List<AuditEvent> events, List<Object[]> rows) {
+        int count = 0;
+        for (int i = 0; i < events.size(); i++) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, rows.get(i), INSERT_TYPES);
+                written.increment();
+                count++;
+            } catch (Exception e) {
+                lost(events.get(i), e);
+            }
+        }
+        if (count > 0) {
+            chatQueryCache.invalidateTable("history");
+        }
+        return count;
+    }
+
+    private void lost(AuditEvent event, Exception e) {
+        failures.increment();
+        log.error("❌ Lost history entry: {} - {} - {} ({}): {}",
+                event.actionType(), event.entityType(), event.entityCode(), event.description(), e.getMessage());
+    }
+
+    private static Object[] toRow(AuditEvent event) {
+        return new Object[]{
+                Timestamp.valueOf(event.timestamp()), event.actionType(), event.entityType(), event.entityId(),
+                event.entityCode(), event.entityName(), event.userId(), event.description(),
+                event.oldValues(), event.newValues(), event.ipAddress(), event.userAgent()
+        };
+    }
+}
@@ -49,14 +49,8 @@ public class ChatAIService {
     private final Map<String, Long> lastRequestTime = new ConcurrentHashMap<>();
 
 
-    // Cache pour les requêtes SQL (clé = question, valeur = SQL généré)
-    private final Map<String, String> sqlCache = new ConcurrentHashMap<>();
-
-    // Cache pour les réponses complètes (clé = question, valeur = réponse formatée)
-    private final Map<String, String> answerCache = new ConcurrentHashMap<>();
-
-    // Cache pour les résultats de requêtes (clé = SQL hash, valeur = résultats)
-    private final Map<String, List<Map<String, Object>>> queryResultCache = new ConcurrentHashMap<>();
+    // SQL généré, réponses et résultats de requêtes (bornés, invalidés par table)
+    private final ChatQueryCache chatQueryCache;
 
     private final List<String> models = Arrays.asList(
             "gemini-2.0-flash",
@@ -66,9 +60,10 @@ public class ChatAIService {
             "gemini-1.5-pro"
     );
 
-    public ChatAIService(UserRepository userRepository, JdbcTemplate jdbcTemplate) {
+    public ChatAIService(UserRepository userRepository, JdbcTemplate jdbcTemplate, ChatQueryCache chatQueryCache) {
         this.userRepository = userRepository;
         this.jdbcTemplate = jdbcTemplate;
+        this.chatQueryCache = chatQueryCache;
     }
 
     @PostConstruct
@@ -177,10 +172,10 @@ public class ChatAIService {
     }
 
     private String generateSQLWithGemini(String userQuestion) {
-        String cacheKey = normalizeQuestion(userQuestion);
-        if (sqlCache.containsKey(cacheKey)) {
+        String cachedSql = chatQueryCache.getSql(userQuestion);
+        if (cachedSql != null) {
             log.info("📦 [SQL CACHE HIT] Using cached SQL for: {}", userQuestion);
-            return sqlCache.get(cacheKey);
+            return cachedSql;
         }
 
         String prompt = String.format("""
@@ -275,7 +270,7 @@ public class ChatAIService {
                 log.warn("Generated SQL is invalid, using fallback pattern");
                 String patternSQL = generatePatternSQL(userQuestion);
                 if (patternSQL != null) {
-                    sqlCache.put(cacheKey, patternSQL);
+                    chatQueryCache.putSql(userQuestion, patternSQL);
                     return patternSQL;
                 }
                 return null;
@@ -289,7 +284,7 @@ public class ChatAIService {
             }
 
             // Mettre en cache SQL
-            sqlCache.put(cacheKey, fixedQuery);
+            chatQueryCache.putSql(userQuestion, fixedQuery);
             log.info("💾 SQL cached for question: {}", userQuestion);
 
             return fixedQuery;
@@ -301,43 +296,19 @@ public class ChatAIService {
     }
 
 
-    private String normalizeQuestion(String question) {
-        return question.toLowerCase().trim().replaceAll("\\s+", " ");
-    }
-
-
     private String getCachedAnswer(String question) {
-        String cacheKey = normalizeQuestion(question);
-        if (answerCache.containsKey(cacheKey)) {
+        String answer = chatQueryCache.getAnswer(question);
+        if (answer != null) {
             log.info("📦 [ANSWER CACHE HIT] Returning cached answer for: {}", question);
-            return answerCache.get(cacheKey);
         }
-        return null;
+        return answer;
     }
 
-    private void cacheAnswer(String question, String answer) {
-        String cacheKey = normalizeQuestion(question);
-        answerCache.put(cacheKey, answer);
+    private void cacheAnswer(String question, String answer, Map<String, Long> tableVersions) {
+        chatQueryCache.putAnswer(question, answer, tableVersions);
         log.info("💾 Answer cached for question: {}", question);
     }
 
-
-    private List<Map<String, Object>> getCachedQueryResult(String sqlQuery) {
-        String cacheKey = String.valueOf(sqlQuery.hashCode());
-        if (queryResultCache.containsKey(cacheKey)) {
-            log.info("📦 [QUERY RESULT CACHE HIT] Using cached results for SQL: {}", sqlQuery);
-            return queryResultCache.get(cacheKey);
-        }
-        return Collections.emptyList();
-    }
-
-
-    private void cacheQueryResult(String sqlQuery, List<Map<String, Object>> results) {
-        String cacheKey = String.valueOf(sqlQuery.hashCode());
-        queryResultCache.put(cacheKey, results);
-        log.info("💾 Query results cached for SQL hash: {}", cacheKey);
-    }
-
     private String generatePatternSQL(String userQuestion) {
         String q = userQuestion.toLowerCase();
 
@@ -404,11 +375,12 @@ public class ChatAIService {
         """;
     }
 
-    private List<Map<String, Object>> executeSQL(String sqlQuery) {
+    private List<Map<String, Object>> executeSQL(String sqlQuery, Map<String, Long> tableVersions) {
         try {
             // Vérifier le cache des résultats de requête
-            List<Map<String, Object>> cachedResults = getCachedQueryResult(sqlQuery);
+            List<Map<String, Object>> cachedResults = chatQueryCache.getResult(sqlQuery);
             if (cachedResults != null) {
+                log.info("📦 [QUERY RESULT CACHE HIT] Using cached results for SQL: {}", sqlQuery);
                 return cachedResults;
             }
 
@@ -417,7 +389,7 @@ public class ChatAIService {
             log.info("📊 Résultats: {} ligne(s)", results.size());
 
             // Mettre en cache les résultats
-            cacheQueryResult(sqlQuery, results);
+            chatQueryCache.putResult(sqlQuery, results, tableVersions);
 
             return results;
         } catch (Exception e) {
@@ -609,27 +581,24 @@ public class ChatAIService {
     }
 
 
-    public Map<String, Integer> getCacheStats() {
-        Map<String, Integer> stats = new HashMap<>();
-        stats.put("sqlCacheSize", sqlCache.size());
-        stats.put("answerCacheSize", answerCache.size());
-        stats.put("queryResultCacheSize", queryResultCache.size());
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("sqlCacheSize", chatQueryCache.sqlSize());
+        stats.put("answerCacheSize", chatQueryCache.answerSize());
+        stats.put("queryResultCacheSize", chatQueryCache.resultSize());
+        stats.put("tiers", chatQueryCache.getStats());
         return stats;
     }
 
 
     public void clearCache() {
-        sqlCache.clear();
-        answerCache.clear();
-        queryResultCache.clear();
+        chatQueryCache.clear();
         log.info("🗑️ All caches cleared");
     }
 
 
     public void clearCacheForQuestion(String question) {
-        String cacheKey = normalizeQuestion(question);
-        sqlCache.remove(cacheKey);
-        answerCache.remove(cacheKey);
+        chatQueryCache.removeQuestion(question);
         log.info("🗑️ Cache cleared for question: {}", question);
     }
 
@@ -673,18 +642,20 @@ public class ChatAIService {
         if (sqlQuery == null) {
             log.info("📝 No SQL generated, showing help");
             String helpMessage = getHelpMessage();
-            cacheAnswer(question, helpMessage);
+            cacheAnswer(question, helpMessage, Map.of());
             addDelay(startTime);
             return helpMessage;
         }
 
         try {
             log.info("📝 SQL exécuté: {}", sqlQuery);
-            List<Map<String, Object>> results = executeSQL(sqlQuery);
+            // Versions des tables lues, prises avant l'exécution
+            Map<String, Long> tableVersions = chatQueryCache.snapshot(sqlQuery);
+            List<Map<String, Object>> results = executeSQL(sqlQuery, tableVersions);
             String answer = formatResults(results, question);
 
             // Mettre en cache la réponse
-            cacheAnswer(question, answer);
+            cacheAnswer(question, answer, tableVersions);
 
             if (!patternUsed) {
                 log.info("✅ Réponse générée par GEMINI AI et mise en cache");
@@ -859,18 +830,13 @@ public class ChatAIService {
     }
 
 
-    @Scheduled(fixedRate = 3600000) // Clear cache every hour
+    // Les entrées pleines sont évincées au fil de l'eau (LRU); ici seules les entrées expirées ou périmées partent
+    @Scheduled(fixedDelayString = "${app.chat.cache.purge-ms:600000}")
     public void cleanExpiredCache() {
-        int sqlSize = sqlCache.size();
-        int answerSize = answerCache.size();
-        int querySize = queryResultCache.size();
-
-        sqlCache.clear();
-        answerCache.clear();
-        queryResultCache.clear();
-
-        log.info("🧹 Cache cleared - SQL: {}, Answers: {}, Query Results: {}",
-                sqlSize, answerSize, querySize);
+        int removed = chatQueryCache.purgeExpired();
+        if (removed > 0) {
+            log.info("🧹 Cache purged - {} expired or outdated entries removed", removed);
+        }
     }
 
 }
\ No newline at end of file
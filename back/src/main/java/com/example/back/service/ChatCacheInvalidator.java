@@ -0,0 +1,159 @@
+package com.example.back.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Table;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.persister.entity.Joinable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Bumps the chat cache version of a table once a change to it is committed.
+ *
+ * Hooked into Hibernate's post-commit entity events and its collection events, so entity
+ * writes and join tables such as user_roles are covered without touching the write paths.
+ * Bulk JPQL or native statements and JdbcTemplate writes bypass those events: their callers
+ * report the table with {@link #invalidateAfterCommit(String)}. Bulk writes not reported
+ * there (mail flags, notification flags, job bookkeeping) rely on the answer and result
+ * tiers' TTL.
+ */
+@Component
+@Slf4j
+public class ChatCacheInvalidator implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+        PostCollectionRemoveEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ChatQueryCache chatQueryCache;
+
+    public ChatCacheInvalidator(EntityManagerFactory entityManagerFactory, ChatQueryCache chatQueryCache) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.chatQueryCache = chatQueryCache;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+        log.info("Chat cache invalidation registered on entity commits");
+    }
+
+    /**
+     * For writes the entity events do not see: bumps the table's version once the current
+     * transaction commits, or right away outside a transaction. A table reported several times
+     * in one transaction is bumped once.
+     */
+    @SuppressWarnings("unchecked")
+    public void invalidateAfterCommit(String table) {
+        if (table == null) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            chatQueryCache.invalidateTable(table);
+            return;
+        }
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<String> tables = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, tables);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tables.forEach(chatQueryCache::invalidateTable);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChatCacheInvalidator.this);
+                }
+            });
+            pending = tables;
+        }
+        pending.add(table);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        invalidate(event.getPersister());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        invalidate(event.getPersister());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        invalidate(event.getPersister());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        invalidateAfterCommit(collectionTable(event));
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        invalidateAfterCommit(collectionTable(event));
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        invalidateAfterCommit(collectionTable(event));
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+
+    private void invalidate(EntityPersister persister) {
+        chatQueryCache.invalidateTable(tableName(persister.getMappedClass()));
+    }
+
+    // Collection events fire at flush, hence the after-commit bump
+    private static String collectionTable(AbstractCollectionEvent event) {
+        CollectionPersister persister = event.getSession().getFactory().getMappingMetamodel()
+                .getCollectionDescriptor(event.getCollection().getRole());
+        if (!(persister instanceof Joinable joinable)) return null;
+        String table = joinable.getTableName();
+        return table.substring(table.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    static String tableName(Class<?> entityClass) {
+        Table table = entityClass.getAnnotation(Table.class);
+        if (table != null && !table.name().isEmpty()) {
+            return table.name().toLowerCase(Locale.ROOT);
+        }
+        return entityClass.getSimpleName().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.back.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded caches of the chat assistant, in three tiers:
+ * <ul>
+ *     <li>generated SQL, keyed by the normalized question;</li>
+ *     <li>formatted answers, keyed by the normalized question;</li>
+ *     <li>query results, keyed by the SQL text.</li>
+ * </ul>
+ * Each tier evicts least-recently-used entries once full and expires them after its TTL.
+ *
+ * Answers and results also remember the version of every table their SQL reads. Committed
+ * entity changes bump the version of their table (see {@link ChatCacheInvalidator}), so an
+ * entry read from a table changed since it was cached counts as a miss.
+ */
+@Component
+public class ChatQueryCache {
+
+    // Tag of the entries whose SQL names no known table; bumped by every change
+    static final String ANY_TABLE = "*";
+
+    private static final Pattern TABLE_REFERENCE =
+            Pattern.compile("\\b(?:from|join)\\s+([a-z_][a-z0-9_]*)", Pattern.CASE_INSENSITIVE);
+
+    // Only sentence punctuation at the end: operators, signs and decimal separators change the answer
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s?!.]+$");
+
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+
+    private final Tier<String> sqlTier;
+
+    private final Tier<String> answerTier;
+
+    private final Tier<List<Map<String, Object>>> resultTier;
+
+    // Larger results are not worth the memory they would hold
+    private final int maxResultRows;
+
+    public ChatQueryCache(@Value("${app.chat.cache.sql.max-size:500}") int sqlMaxSize,
+                          @Value("${app.chat.cache.sql.ttl-minutes:1440}") long sqlTtlMinutes,
+                          @Value("${app.chat.cache.answer.max-size:1000}") int answerMaxSize,
+                          @Value("${app.chat.cache.answer.ttl-minutes:30}") long answerTtlMinutes,
+                          @Value("${app.chat.cache.result.max-size:200}") int resultMaxSize,
+                          @Value("${app.chat.cache.result.ttl-minutes:30}") long resultTtlMinutes,
+                          @Value("${app.chat.cache.result.max-rows:1000}") int maxResultRows) {
+        this.sqlTier = new Tier<>(sqlMaxSize, sqlTtlMinutes);
+        this.answerTier = new Tier<>(answerMaxSize, answerTtlMinutes);
+        this.resultTier = new Tier<>(resultMaxSize, resultTtlMinutes);
+        this.maxResultRows = maxResultRows;
+    }
+
+    // ==================== KEYS ====================
+
+    /**
+     * Case, accents, spacing and a closing "?", "!" or "." do not change the question:
+     * "Factures impayées ?" and "factures impayees" share their entries, while
+     * "montant > 5000" and "montant < 5000" do not.
+     */
+    public static String normalizeQuestion(String question) {
+        if (question == null) return "";
+        String key = Normalizer.normalize(question.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "");
+        key = TRAILING_PUNCTUATION.matcher(key.trim()).replaceAll("");
+        return key.replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Tables read by the query, lower-cased; {@link #ANY_TABLE} when none can be told.
+     */
+    public static Set<String> tablesOf(String sql) {
+        Set<String> tables = new TreeSet<>();
+        Matcher matcher = TABLE_REFERENCE.matcher(sql);
+        while (matcher.find()) {
+            tables.add(matcher.group(1).toLowerCase(Locale.ROOT));
+        }
+        if (tables.isEmpty()) {
+            tables.add(ANY_TABLE);
+        }
+        return tables;
+    }
+
+    // ==================== TABLE VERSIONS ====================
+
+    /**
+     * Current versions of the tables read by {@code sql}. Take it before running the query
+     * and hand it back when caching what was derived from the result.
+     */
+    public Map<String, Long> snapshot(String sql) {
+        Map<String, Long> versions = new HashMap<>();
+        for (String table : tablesOf(sql)) {
+            versions.put(table, version(table));
+        }
+        return versions;
+    }
+
+    public void invalidateTable(String table) {
+        if (table == null) return;
+        tableVersions.computeIfAbsent(table.toLowerCase(Locale.ROOT), t -> new AtomicLong()).incrementAndGet();
+        tableVersions.computeIfAbsent(ANY_TABLE, t -> new AtomicLong()).incrementAndGet();
+    }
+
+    private long version(String table) {
+        AtomicLong version = tableVersions.get(table);
+        return version != null ? version.get() : 0L;
+    }
+
+    private boolean isCurrent(Map<String, Long> versions) {
+        for (Map.Entry<String, Long> entry : versions.entrySet()) {
+            if (version(entry.getKey()) != entry.getValue()) return false;
+        }
+        return true;
+    }
+
+    // ==================== TIERS ====================
+
+    public String getSql(String question) {
+        return sqlTier.get(normalizeQuestion(question));
+    }
+
+    public void putSql(String question, String sql) {
+        sqlTier.put(normalizeQuestion(question), sql, Map.of());
+    }
+
+    public String getAnswer(String question) {
+        return answerTier.get(normalizeQuestion(question));
+    }
+
+    /**
+     * @param versions the {@link #snapshot} taken before running the answer's query, empty
+     *                 for answers that do not depend on the data
+     */
+    public void putAnswer(String question, String answer, Map<String, Long> versions) {
+        answerTier.put(normalizeQuestion(question), answer, versions);
+    }
+
+    public List<Map<String, Object>> getResult(String sql) {
+        return resultTier.get(sql.trim());
+    }
+
+    public void putResult(String sql, List<Map<String, Object>> rows, Map<String, Long> versions) {
+        if (rows.size() > maxResultRows) return;
+        resultTier.put(sql.trim(), List.copyOf(rows), versions);
+    }
+
+    public void removeQuestion(String question) {
+        String key = normalizeQuestion(question);
+        sqlTier.remove(key);
+        answerTier.remove(key);
+    }
+
+    public void clear() {
+        sqlTier.clear();
+        answerTier.clear();
+        resultTier.clear();
+    }
+
+    /**
+     * Drops expired and outdated entries so they do not hold memory until their next lookup.
+     *
+     * @return the number of entries removed
+     */
+    public int purgeExpired() {
+        return sqlTier.purge() + answerTier.purge() + resultTier.purge();
+    }
+
+    public int sqlSize() {
+        return sqlTier.size();
+    }
+
+    public int answerSize() {
+        return answerTier.size();
+    }
+
+    public int resultSize() {
+        return resultTier.size();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sql", sqlTier.getStats());
+        stats.put("answer", answerTier.getStats());
+        stats.put("queryResult", resultTier.getStats());
+        return stats;
+    }
+
+    /**
+     * One LRU tier; entries carry the table versions they were derived from.
+     */
+    private final class Tier<V> {
+
+        private record Entry<V>(V value, Map<String, Long> versions, long expiresAt) {
+        }
+
+        private final int maxSize;
+
+        private final long ttlMinutes;
+
+        private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder expirations = new LongAdder();
+        private final LongAdder invalidations = new LongAdder();
+
+        private Tier(int maxSize, long ttlMinutes) {
+            this.maxSize = maxSize;
+            this.ttlMinutes = ttlMinutes;
+        }
+
+        synchronized V get(String key) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (System.currentTimeMillis() >= entry.expiresAt()) {
+                entries.remove(key);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            if (!isCurrent(entry.versions())) {
+                entries.remove(key);
+                invalidations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value();
+        }
+
+        synchronized void put(String key, V value, Map<String, Long> versions) {
+            if (key == null || value == null || maxSize <= 0) return;
+            entries.put(key, new Entry<>(value, Map.copyOf(versions),
+                    System.currentTimeMillis() + ttlMinutes * 60_000L));
+            while (entries.size() > maxSize) {
+                entries.remove(entries.keySet().iterator().next());
+                evictions.increment();
+            }
+        }
+
+        synchronized void remove(String key) {
+            entries.remove(key);
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int purge() {
+            long now = System.currentTimeMillis();
+            int removed = 0;
+            Iterator<Entry<V>> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry<V> entry = it.next();
+                if (now >= entry.expiresAt()) {
+                    it.remove();
+                    expirations.increment();
+                    removed++;
+                } else if (!isCurrent(entry.versions())) {
+                    it.remove();
+                    invalidations.increment();
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized Map<String, Object> getStats() {
+            long hitCount = hits.sum();
+            long lookups = hitCount + misses.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("size", entries.size());
+            stats.put("maxSize", maxSize);
+            stats.put("ttlMinutes", ttlMinutes);
+            stats.put("hits", hitCount);
+            stats.put("misses", misses.sum());
+            stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+            stats.put("evictions", evictions.sum());
+            stats.put("expirations", expirations.sum());
+            stats.put("invalidations", invalidations.sum());
+            return stats;
+        }
+    }
+}
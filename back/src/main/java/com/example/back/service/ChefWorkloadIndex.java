@@ -0,0 +1,159 @@
+package com.example.back.service;
+
+import com.example.back.entity.User;
+import com.example.back.entity.Workload;
+import com.example.back.repository.WorkloadRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory ranking of chefs de projet by current workload, used to suggest alternative
+ * chefs during assignment checks without scoring every chef on each call.
+ *
+ * Adding an application never lowers a score, so a chef's projected workload is at least
+ * its current one. {@link #topCandidates} therefore walks the chefs from the least loaded
+ * up and stops as soon as the current score alone rules out the remaining ones, which
+ * leaves only a few entries to score for the usual small {@code k}.
+ *
+ * The ledger marks chefs dirty once its transaction has completed; they are reloaded on
+ * the next query. Reconciliation invalidates the whole index.
+ */
+@Component
+@Slf4j
+public class ChefWorkloadIndex {
+
+    /**
+     * Snapshot of one chef's workload row; {@code score} is always {@link Workload#score}
+     * of the totals, so ordering and projections use the same formula.
+     */
+    public record Entry(Long chefId, String chefName, int apps, double value, long duration, double score) {
+
+        static Entry of(Workload workload) {
+            User chef = workload.getChefDeProjet();
+            return new Entry(chef.getId(), chef.getFirstName() + " " + chef.getLastName(),
+                    workload.getCurrentApplicationsCount(), workload.getTotalApplicationsValue(),
+                    workload.getTotalApplicationsDuration(),
+                    Workload.score(workload.getCurrentApplicationsCount(), workload.getTotalApplicationsValue(),
+                            workload.getTotalApplicationsDuration()));
+        }
+
+        public double projected(double addedValue, long addedDuration) {
+            return Workload.score(apps + 1, value + addedValue, duration + addedDuration);
+        }
+    }
+
+    public record Candidate(Entry entry, double projectedWorkload) {
+    }
+
+    private static final Comparator<Entry> BY_SCORE = Comparator.comparingDouble(Entry::score)
+            .thenComparing(Entry::chefId);
+
+    private final WorkloadRepository workloadRepository;
+
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(BY_SCORE);
+
+    private final Map<Long, Entry> byChef = new ConcurrentHashMap<>();
+
+    private final Set<Long> dirtyChefs = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loaded;
+
+    public ChefWorkloadIndex(WorkloadRepository workloadRepository) {
+        this.workloadRepository = workloadRepository;
+    }
+
+    /**
+     * The {@code k} chefs (other than {@code excludedChefId}) whose workload after taking an
+     * application of the given value and duration is lowest and at most {@code maxProjected},
+     * least loaded first.
+     */
+    public List<Candidate> topCandidates(Long excludedChefId, double value, long duration, int k, double maxProjected) {
+        refresh();
+        if (k <= 0) return List.of();
+
+        // Scores only grow with the added application when its value and duration are not negative
+        boolean monotonic = value >= 0 && duration >= 0;
+        PriorityQueue<Candidate> best = new PriorityQueue<>(
+                Comparator.comparingDouble(Candidate::projectedWorkload).reversed());
+
+        for (Entry entry : ranking) {
+            if (monotonic && entry.score() > maxProjected) break;
+            if (monotonic && best.size() == k && entry.score() >= best.peek().projectedWorkload()) break;
+            if (entry.chefId().equals(excludedChefId)) continue;
+
+            double projected = entry.projected(value, duration);
+            if (projected > maxProjected) continue;
+            best.offer(new Candidate(entry, projected));
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+
+        List<Candidate> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Candidate::projectedWorkload));
+        return result;
+    }
+
+    /**
+     * Schedules a reload of the chef's entry, after the current transaction completes.
+     */
+    public void markDirty(Long chefId) {
+        if (chefId == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    dirtyChefs.add(chefId);
+                }
+            });
+        } else {
+            dirtyChefs.add(chefId);
+        }
+    }
+
+    public void invalidate() {
+        loaded = false;
+    }
+
+    public int size() {
+        return byChef.size();
+    }
+
+    synchronized void refresh() {
+        if (!loaded) {
+            dirtyChefs.clear();
+            ranking.clear();
+            byChef.clear();
+            workloadRepository.findAllWithChef().forEach(this::put);
+            loaded = true;
+            log.debug("Loaded {} chefs into the workload index", byChef.size());
+            return;
+        }
+        if (dirtyChefs.isEmpty()) return;
+
+        List<Long> pending = new ArrayList<>(dirtyChefs);
+        dirtyChefs.removeAll(pending);
+        pending.forEach(this::remove);
+        workloadRepository.findAllWithChefByChefIds(pending).forEach(this::put);
+    }
+
+    private void put(Workload workload) {
+        Entry entry = Entry.of(workload);
+        remove(entry.chefId());
+        byChef.put(entry.chefId(), entry);
+        ranking.add(entry);
+    }
+
+    private void remove(Long chefId) {
+        Entry previous = byChef.remove(chefId);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+}
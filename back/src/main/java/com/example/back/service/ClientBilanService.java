@@ -17,18 +17,23 @@ import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.LineSeparator;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.sql.Date;
@@ -37,6 +42,8 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 @Service
@@ -49,6 +56,85 @@ public class ClientBilanService {
     private final FactureRepository factureRepository;
     private final ApplicationRepository applicationRepository;
     private final HistoryService historyService;
+    private final ClientScorecardRepository clientScorecardRepository;
+
+    private static final String CLIENT_TYPE = "Client";
+
+    // Up to this many clients, the portfolio queries are restricted to their ids
+    private static final int PORTFOLIO_SCOPED_LIMIT = 500;
+
+    // Rates the clients of a portfolio bilan; the work is CPU-only once the aggregates are loaded
+    private final ForkJoinPool portfolioPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    // Rows of each Excel sheet kept in memory while exporting
+    @Value("${app.export.excel.row-window:100}")
+    private int excelRowWindow;
+
+    /**
+     * What a convention adds to its client's summary, payment stats and financial summary, either
+     * computed from its invoices or read from the portfolio aggregates.
+     */
+    private record ConventionFigures(String etat, Boolean archived, BigDecimal montantTTC, LocalDate dateDebut,
+                                     Long applicationId, String applicationName,
+                                     BigDecimal paidAmount, BigDecimal unpaidAmount, BigDecimal overdueAmount,
+                                     int paidCount, int advanceCount, int lateCount, int maxDaysLate) {
+
+        static ConventionFigures of(Convention convention, List<Facture> factures) {
+            BigDecimal paid = BigDecimal.ZERO;
+            BigDecimal unpaid = BigDecimal.ZERO;
+            BigDecimal overdue = BigDecimal.ZERO;
+            int paidCount = 0;
+            int advance = 0;
+            int late = 0;
+            int maxDaysLate = 0;
+            for (Facture f : factures) {
+                BigDecimal amount = f.getMontantTTC();
+                if ("PAYE".equals(f.getStatutPaiement())) {
+                    if (amount != null) paid = paid.add(amount);
+                    paidCount++;
+                    if (f.getDatePaiement() != null && f.getDateEcheance() != null) {
+                        long daysDiff = ChronoUnit.DAYS.between(f.getDateEcheance(), f.getDatePaiement());
+                        if (daysDiff < 0) advance++;
+                        else if (daysDiff > 0) {
+                            late++;
+                            maxDaysLate = Math.max(maxDaysLate, (int) daysDiff);
+                        }
+                    }
+                } else if (amount != null) {
+                    unpaid = unpaid.add(amount);
+                }
+                if (f.isEnRetard() && amount != null) overdue = overdue.add(amount);
+            }
+            Application application = convention.getApplication();
+            return new ConventionFigures(convention.getEtat(), convention.getArchived(), convention.getMontantTTC(),
+                    convention.getDateDebut(), application != null ? application.getId() : null,
+                    application != null ? application.getName() : null,
+                    paid, unpaid, overdue, paidCount, advance, late, maxDaysLate);
+        }
+
+        /**
+         * From a {@link ConventionRepository#findPortfolioRows} row and its
+         * {@link FactureRepository#aggregateInvoicesByConventionForStructureType} row, if it has invoices.
+         */
+        static ConventionFigures of(Object[] convention, Object[] invoices) {
+            return new ConventionFigures((String) convention[2], (Boolean) convention[3], (BigDecimal) convention[4],
+                    (LocalDate) convention[5], (Long) convention[7], (String) convention[8],
+                    invoices != null ? decimal(invoices[1]) : BigDecimal.ZERO,
+                    invoices != null ? decimal(invoices[2]) : BigDecimal.ZERO,
+                    invoices != null ? decimal(invoices[3]) : BigDecimal.ZERO,
+                    invoices != null ? ((Number) invoices[4]).intValue() : 0,
+                    invoices != null ? ((Number) invoices[5]).intValue() : 0,
+                    invoices != null ? ((Number) invoices[6]).intValue() : 0,
+                    invoices != null ? ((Number) invoices[7]).intValue() : 0);
+        }
+
+        private static BigDecimal decimal(Object value) {
+            return value instanceof BigDecimal d ? d : new BigDecimal(value.toString());
+        }
+    }
+
+    private record PortfolioEntry(ClientBilanResponse bilan, int maxDaysLate) {
+    }
 
     // ============ MAIN PUBLIC METHODS ============
 
@@ -82,30 +168,16 @@ public class ClientBilanService {
                     .collect(Collectors.toList());
         }
 
-        ClientBilanResponse response = new ClientBilanResponse();
-
-        response.setClientId(client.getId());
-        response.setClientCode(client.getCode());
-        response.setClientName(client.getName());
-        response.setClientEmail(client.getEmail());
-        response.setClientPhone(client.getPhone());
-        response.setClientType(client.getTypeStructure());
-        response.setBilanStartDate(request.getDateStart());
-        response.setBilanEndDate(request.getDateEnd());
-        response.setGeneratedAt(LocalDate.now());
-        response.setSummary(buildSummaryStats(conventions));
-
         List<ClientBilanResponse.ConventionBilan> conventionBilans = new ArrayList<>();
+        List<ConventionFigures> figures = new ArrayList<>();
         for (Convention convention : conventions) {
-            conventionBilans.add(buildConventionBilan(convention));
+            List<Facture> factures = factureRepository.findByConventionId(convention.getId());
+            conventionBilans.add(buildConventionBilan(convention, factures));
+            figures.add(ConventionFigures.of(convention, factures));
         }
-        response.setConventions(conventionBilans);
-        response.setPaymentStats(buildPaymentStats(conventions));
-        response.setFinancialSummary(buildFinancialSummary(conventions));
 
-        ClientBilanResponse.ClientRating rating = calculateClientRating(response);
-        response.setRating(rating);
-        response.setRecommendations(generateRecommendations(rating, response));
+        ClientBilanResponse response = assembleBilan(client, request.getDateStart(), request.getDateEnd(),
+                figures, conventionBilans);
 
         try {
             logBilanGeneration(client);
@@ -116,68 +188,33 @@ public class ClientBilanService {
         return response;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<ClientBilanResponse> generateAllClientsBilan(LocalDate startDate, LocalDate endDate) {
-        List<Structure> clients = structureRepository.findByTypeStructure("Client");
+        List<Structure> clients = structureRepository.findByTypeStructure(CLIENT_TYPE);
         log.info("Found {} clients to generate bilans for", clients.size());
 
-        List<ClientBilanResponse> bilans = new ArrayList<>();
-
-        for (Structure client : clients) {
-            ClientBilanRequest request = new ClientBilanRequest();
-            request.setStructureBeneficielId(client.getId());
-            request.setDateStart(startDate);
-            request.setDateEnd(endDate);
-            request.setIncludeArchived(false);
-
-            try {
-                bilans.add(generateClientBilan(request));
-            } catch (Exception e) {
-                log.error("Failed to generate bilan for client {} ({}): {}",
-                        client.getId(), client.getName(), e.getMessage());
-            }
-        }
+        List<ClientBilanResponse> bilans = buildPortfolio(clients, false, startDate, endDate).stream()
+                .map(PortfolioEntry::bilan)
+                .collect(Collectors.toList());
 
         bilans.sort((a, b) -> Integer.compare(b.getRating().getOverallScore(), a.getRating().getOverallScore()));
         return bilans;
     }
 
-    @Transactional
+    /**
+     * One page of client bilans, best score first. The page is selected on the client scorecards,
+     * so only its clients' bilans are computed.
+     */
+    @Transactional(readOnly = true)
     public Page<ClientBilanResponse> getPaginatedClientBilans(Pageable pageable, String searchTerm) {
-        List<Structure> clients = structureRepository.findByTypeStructure("Client");
-
-        if (searchTerm != null && !searchTerm.isEmpty()) {
-            String searchLower = searchTerm.toLowerCase();
-            clients = clients.stream()
-                    .filter(c -> c.getName().toLowerCase().contains(searchLower) ||
-                            c.getCode().toLowerCase().contains(searchLower) ||
-                            (c.getEmail() != null && c.getEmail().toLowerCase().contains(searchLower)))
-                    .collect(Collectors.toList());
-        }
-
-        List<ClientBilanResponse> bilans = new ArrayList<>();
-        for (Structure client : clients) {
-            ClientBilanRequest request = new ClientBilanRequest();
-            request.setStructureBeneficielId(client.getId());
-            request.setIncludeArchived(false);
-
-            try {
-                bilans.add(generateClientBilan(request));
-            } catch (Exception e) {
-                log.error("Failed to generate bilan for client {}: {}", client.getId(), e.getMessage());
-            }
-        }
-
-        bilans.sort((a, b) -> Integer.compare(b.getRating().getOverallScore(), a.getRating().getOverallScore()));
-
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), bilans.size());
-
-        if (start > bilans.size()) {
-            return new PageImpl<>(new ArrayList<>(), pageable, bilans.size());
-        }
-
-        return new PageImpl<>(bilans.subList(start, end), pageable, bilans.size());
+        // Always ordered by score, whatever sort the caller asked for
+        Pageable byScore = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Page<ClientScorecard> scorecards = searchTerm != null && !searchTerm.isEmpty()
+                ? clientScorecardRepository.searchByScore(searchTerm.toLowerCase(), byScore)
+                : clientScorecardRepository.findAllByScore(byScore);
+
+        List<ClientBilanResponse> bilans = bilansInScorecardOrder(scorecards.getContent(), false);
+        return new PageImpl<>(bilans, pageable, scorecards.getTotalElements());
     }
 
     @Transactional
@@ -197,42 +234,57 @@ public class ClientBilanService {
         return bilan.getPaymentStats();
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<ClientBilanResponse> getClientsWithPoorPayment(int minLatePayments, int minDaysLate) {
-        List<Structure> clients = structureRepository.findByTypeStructure("Client");
-        List<ClientBilanResponse> poorPayers = new ArrayList<>();
-
-        for (Structure client : clients) {
-            ClientBilanRequest request = new ClientBilanRequest();
-            request.setStructureBeneficielId(client.getId());
-            request.setIncludeArchived(true);
-
-            ClientBilanResponse bilan = generateClientBilan(request);
-            ClientBilanResponse.PaymentStats stats = bilan.getPaymentStats();
-
-            if (stats.getLatePayments() >= minLatePayments) {
-                boolean hasLongLate = false;
-                for (ClientBilanResponse.ConventionBilan conv : bilan.getConventions()) {
-                    if (conv.getLatePaymentDetails() != null &&
-                            conv.getLatePaymentDetails().getMaxDaysLate() >= minDaysLate) {
-                        hasLongLate = true;
-                        break;
-                    }
-                }
+        List<ClientScorecard> poorPayers = clientScorecardRepository.findPoorPayers(minLatePayments, minDaysLate);
+        return bilansInScorecardOrder(poorPayers, true).stream()
+                .filter(bilan -> bilan.getSummary().getTotalConventions() > 0)
+                .collect(Collectors.toList());
+    }
 
-                if (hasLongLate) {
-                    poorPayers.add(bilan);
-                }
-            }
+    /**
+     * Fresh scorecards of the given clients, not yet saved.
+     */
+    @Transactional(readOnly = true)
+    public List<ClientScorecard> computeScorecards(List<Structure> clients) {
+        Map<Long, PortfolioEntry> withArchived = buildPortfolio(clients, true, null, null).stream()
+                .collect(Collectors.toMap(entry -> entry.bilan().getClientId(), entry -> entry));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ClientScorecard> scorecards = new ArrayList<>();
+        for (PortfolioEntry entry : buildPortfolio(clients, false, null, null)) {
+            ClientBilanResponse bilan = entry.bilan();
+            PortfolioEntry all = withArchived.get(bilan.getClientId());
+
+            ClientScorecard scorecard = new ClientScorecard();
+            scorecard.setClientId(bilan.getClientId());
+            scorecard.setClientCode(bilan.getClientCode());
+            scorecard.setClientName(bilan.getClientName());
+            scorecard.setClientEmail(bilan.getClientEmail());
+            scorecard.setOverallScore(bilan.getRating().getOverallScore());
+            scorecard.setRating(bilan.getRating().getRating());
+            scorecard.setPaymentBehavior(bilan.getPaymentStats().getPaymentBehavior());
+            scorecard.setTotalConventions(bilan.getSummary().getTotalConventions());
+            scorecard.setTotalPayments(all.bilan().getPaymentStats().getTotalPayments());
+            scorecard.setLatePayments(all.bilan().getPaymentStats().getLatePayments());
+            scorecard.setMaxDaysLate(all.maxDaysLate());
+            scorecard.setTotalOutstanding(bilan.getFinancialSummary().getTotalUnpaid());
+            scorecard.setTotalOverdue(bilan.getFinancialSummary().getTotalOverdue());
+            scorecard.setComputedAt(now);
+            scorecards.add(scorecard);
         }
+        return scorecards;
+    }
 
-        poorPayers.sort((a, b) -> Integer.compare(b.getPaymentStats().getLatePayments(),
-                a.getPaymentStats().getLatePayments()));
-
-        return poorPayers;
+    /**
+     * A client bilan ready to be rendered, computed before the response starts so that an
+     * unknown client is still reported as an error rather than as a truncated download.
+     */
+    public record BilanExport(ClientBilanResponse bilan, Structure client) {
     }
 
-    public byte[] exportBilanToPdf(Long clientId, LocalDate startDate, LocalDate endDate) {
+    @Transactional(readOnly = true)
+    public BilanExport prepareBilanExport(Long clientId, LocalDate startDate, LocalDate endDate) {
         Structure client = structureRepository.findById(clientId)
                 .orElseThrow(() -> new RuntimeException("Client not found"));
 
@@ -245,47 +297,135 @@ public class ClientBilanService {
         request.setDateStart(startDate);
         request.setDateEnd(endDate);
 
-        ClientBilanResponse bilan = generateClientBilan(request);
-        return generatePdfFromBilan(bilan, client);
+        return new BilanExport(generateClientBilan(request), client);
     }
 
-    public byte[] exportBilanToExcel(Long clientId, LocalDate startDate, LocalDate endDate) {
-        Structure client = structureRepository.findById(clientId)
-                .orElseThrow(() -> new RuntimeException("Client not found"));
+    /**
+     * Renders the bilan as PDF straight into {@code out}, which is left open.
+     */
+    public void writeBilanPdf(BilanExport export, OutputStream out) throws IOException {
+        generatePdfFromBilan(export.bilan(), export.client(), out);
+    }
 
-        if (!"Client".equalsIgnoreCase(client.getTypeStructure())) {
-            throw new RuntimeException("Structure is not a client");
+    /**
+     * Renders the bilan as an Excel workbook straight into {@code out}, which is left open.
+     */
+    public void writeBilanExcel(BilanExport export, OutputStream out) throws IOException {
+        generateExcelFromBilan(export.bilan(), export.client(), out);
+    }
+
+    // ============ PORTFOLIO ============
+
+    /**
+     * Bilans of many clients at once: every convention and the invoice totals of every convention
+     * are read with two grouped queries, then each client is rated on {@link #portfolioPool}.
+     * The per-convention detail is left out; {@link #generateClientBilan} still provides it.
+     */
+    private List<PortfolioEntry> buildPortfolio(List<Structure> clients, boolean includeArchived,
+                                                LocalDate startDate, LocalDate endDate) {
+        if (clients.isEmpty()) return new ArrayList<>();
+        boolean scoped = clients.size() <= PORTFOLIO_SCOPED_LIMIT;
+        List<Long> clientIds = clients.stream().map(Structure::getId).collect(Collectors.toList());
+
+        Map<Long, Object[]> invoicesByConvention = new HashMap<>();
+        List<Object[]> invoiceRows = scoped
+                ? factureRepository.aggregateInvoicesByConventionForClients(clientIds, LocalDate.now())
+                : factureRepository.aggregateInvoicesByConventionForStructureType(CLIENT_TYPE, LocalDate.now());
+        for (Object[] row : invoiceRows) {
+            invoicesByConvention.put(((Number) row[0]).longValue(), row);
         }
 
-        ClientBilanRequest request = new ClientBilanRequest();
-        request.setStructureBeneficielId(clientId);
-        request.setDateStart(startDate);
-        request.setDateEnd(endDate);
+        Map<Long, List<ConventionFigures>> figuresByClient = new HashMap<>();
+        List<Object[]> conventionRows = scoped
+                ? conventionRepository.findPortfolioRowsForClients(clientIds, includeArchived)
+                : conventionRepository.findPortfolioRows(CLIENT_TYPE, includeArchived);
+        for (Object[] row : conventionRows) {
+            LocalDate dateDebut = (LocalDate) row[5];
+            LocalDate dateFin = (LocalDate) row[6];
+            if (startDate != null && dateDebut != null && dateDebut.isBefore(startDate)) continue;
+            if (endDate != null && dateFin != null && dateFin.isAfter(endDate)) continue;
+            figuresByClient.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                    .add(ConventionFigures.of(row, invoicesByConvention.get((Long) row[1])));
+        }
 
-        ClientBilanResponse bilan = generateClientBilan(request);
-        return generateExcelFromBilan(bilan, client);
+        try {
+            List<PortfolioEntry> entries = portfolioPool.submit(() -> clients.parallelStream()
+                    .map(client -> {
+                        List<ConventionFigures> figures = figuresByClient.getOrDefault(client.getId(), List.of());
+                        ClientBilanResponse bilan = assembleBilan(client, startDate, endDate, figures, new ArrayList<>());
+                        int maxDaysLate = figures.stream().mapToInt(ConventionFigures::maxDaysLate).max().orElse(0);
+                        return new PortfolioEntry(bilan, maxDaysLate);
+                    })
+                    .collect(Collectors.toList())).get();
+            log.info("Portfolio bilan computed for {} clients", entries.size());
+            return entries;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Portfolio bilan interrupted");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to compute portfolio bilan: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private List<ClientBilanResponse> bilansInScorecardOrder(List<ClientScorecard> scorecards, boolean includeArchived) {
+        List<Long> clientIds = scorecards.stream().map(ClientScorecard::getClientId).collect(Collectors.toList());
+        Map<Long, ClientBilanResponse> bilans = buildPortfolio(structureRepository.findAllById(clientIds), includeArchived, null, null)
+                .stream()
+                .collect(Collectors.toMap(entry -> entry.bilan().getClientId(), PortfolioEntry::bilan));
+        return clientIds.stream()
+                .map(bilans::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    public void shutdownPortfolioPool() {
+        portfolioPool.shutdown();
     }
 
     // ============ PRIVATE HELPER METHODS ============
 
-    private ClientBilanResponse.SummaryStats buildSummaryStats(List<Convention> conventions) {
+    private ClientBilanResponse assembleBilan(Structure client, LocalDate startDate, LocalDate endDate,
+                                              List<ConventionFigures> figures,
+                                              List<ClientBilanResponse.ConventionBilan> conventionBilans) {
+        ClientBilanResponse response = new ClientBilanResponse();
+
+        response.setClientId(client.getId());
+        response.setClientCode(client.getCode());
+        response.setClientName(client.getName());
+        response.setClientEmail(client.getEmail());
+        response.setClientPhone(client.getPhone());
+        response.setClientType(client.getTypeStructure());
+        response.setBilanStartDate(startDate);
+        response.setBilanEndDate(endDate);
+        response.setGeneratedAt(LocalDate.now());
+        response.setSummary(buildSummaryStats(figures));
+        response.setConventions(conventionBilans);
+        response.setPaymentStats(buildPaymentStats(figures));
+        response.setFinancialSummary(buildFinancialSummary(figures));
+
+        ClientBilanResponse.ClientRating rating = calculateClientRating(response);
+        response.setRating(rating);
+        response.setRecommendations(generateRecommendations(rating, response));
+        return response;
+    }
+
+    private ClientBilanResponse.SummaryStats buildSummaryStats(List<ConventionFigures> conventions) {
         ClientBilanResponse.SummaryStats stats = new ClientBilanResponse.SummaryStats();
         stats.setTotalConventions(conventions.size());
-        stats.setActiveConventions((int) conventions.stream().filter(c -> "EN COURS".equals(c.getEtat())).count());
-        stats.setTerminatedConventions((int) conventions.stream().filter(c -> "TERMINE".equals(c.getEtat())).count());
-        stats.setArchivedConventions((int) conventions.stream().filter(c -> Boolean.TRUE.equals(c.getArchived())).count());
+        stats.setActiveConventions((int) conventions.stream().filter(c -> "EN COURS".equals(c.etat())).count());
+        stats.setTerminatedConventions((int) conventions.stream().filter(c -> "TERMINE".equals(c.etat())).count());
+        stats.setArchivedConventions((int) conventions.stream().filter(c -> Boolean.TRUE.equals(c.archived())).count());
 
         Set<Long> appIds = conventions.stream()
-                .map(Convention::getApplication)
+                .map(ConventionFigures::applicationId)
                 .filter(Objects::nonNull)
-                .map(Application::getId)
                 .collect(Collectors.toSet());
         stats.setTotalApplications(appIds.size());
 
         List<String> appNames = conventions.stream()
-                .map(Convention::getApplication)
-                .filter(Objects::nonNull)
-                .map(Application::getName)
+                .filter(c -> c.applicationId() != null)
+                .map(ConventionFigures::applicationName)
                 .distinct()
                 .collect(Collectors.toList());
         stats.setApplicationNames(appNames);
@@ -293,7 +433,7 @@ public class ClientBilanService {
         return stats;
     }
 
-    private ClientBilanResponse.ConventionBilan buildConventionBilan(Convention convention) {
+    private ClientBilanResponse.ConventionBilan buildConventionBilan(Convention convention, List<Facture> factures) {
         ClientBilanResponse.ConventionBilan bilan = new ClientBilanResponse.ConventionBilan();
         bilan.setConventionId(convention.getId());
         bilan.setReferenceConvention(convention.getReferenceConvention());
@@ -311,7 +451,6 @@ public class ClientBilanService {
             bilan.setApplicationCode(convention.getApplication().getCode());
         }
 
-        List<Facture> factures = factureRepository.findByConventionId(convention.getId());
         bilan.setInvoiceStats(buildInvoiceStats(factures, convention.getMontantTTC()));
         bilan.setPaymentHistory(buildPaymentHistory(factures));
         bilan.setLatePaymentDetails(buildLatePaymentDetails(factures, convention));
@@ -464,29 +603,19 @@ public class ClientBilanService {
         return details;
     }
 
-    private ClientBilanResponse.PaymentStats buildPaymentStats(List<Convention> conventions) {
+    private ClientBilanResponse.PaymentStats buildPaymentStats(List<ConventionFigures> conventions) {
         ClientBilanResponse.PaymentStats stats = new ClientBilanResponse.PaymentStats();
         int totalPayments = 0;
-        int onTime = 0;
         int late = 0;
         int advance = 0;
 
-        for (Convention convention : conventions) {
-            List<Facture> factures = factureRepository.findByConventionId(convention.getId());
-            for (Facture facture : factures) {
-                if ("PAYE".equals(facture.getStatutPaiement())) {
-                    totalPayments++;
-                    if (facture.getDatePaiement() != null && facture.getDateEcheance() != null) {
-                        long daysDiff = ChronoUnit.DAYS.between(facture.getDateEcheance(), facture.getDatePaiement());
-                        if (daysDiff < 0) advance++;
-                        else if (daysDiff == 0) onTime++;
-                        else late++;
-                    } else {
-                        onTime++;
-                    }
-                }
-            }
+        for (ConventionFigures convention : conventions) {
+            totalPayments += convention.paidCount();
+            late += convention.lateCount();
+            advance += convention.advanceCount();
         }
+        // Payments without a payment date count as on time
+        int onTime = totalPayments - late - advance;
 
         stats.setTotalPayments(totalPayments);
         stats.setOnTimePayments(onTime);
@@ -526,7 +655,7 @@ public class ClientBilanService {
         return stats;
     }
 
-    private ClientBilanResponse.FinancialSummary buildFinancialSummary(List<Convention> conventions) {
+    private ClientBilanResponse.FinancialSummary buildFinancialSummary(List<ConventionFigures> conventions) {
         ClientBilanResponse.FinancialSummary summary = new ClientBilanResponse.FinancialSummary();
         BigDecimal totalContractValue = BigDecimal.ZERO;
         BigDecimal totalPaid = BigDecimal.ZERO;
@@ -536,21 +665,20 @@ public class ClientBilanService {
         Map<Integer, BigDecimal> yearlyPaid = new TreeMap<>();
         Map<Integer, BigDecimal> yearlyUnpaid = new TreeMap<>();
 
-        for (Convention convention : conventions) {
-            BigDecimal contractValue = convention.getMontantTTC() != null ? convention.getMontantTTC() : BigDecimal.ZERO;
+        for (ConventionFigures convention : conventions) {
+            BigDecimal contractValue = convention.montantTTC() != null ? convention.montantTTC() : BigDecimal.ZERO;
             totalContractValue = totalContractValue.add(contractValue);
 
-            List<Facture> factures = factureRepository.findByConventionId(convention.getId());
-            BigDecimal paidAmount = factures.stream().filter(f -> "PAYE".equals(f.getStatutPaiement())).map(Facture::getMontantTTC).filter(Objects::nonNull).reduce(BigDecimal.ZERO, BigDecimal::add);
-            BigDecimal unpaidAmount = factures.stream().filter(f -> !"PAYE".equals(f.getStatutPaiement())).map(Facture::getMontantTTC).filter(Objects::nonNull).reduce(BigDecimal.ZERO, BigDecimal::add);
-            BigDecimal overdueAmount = factures.stream().filter(Facture::isEnRetard).map(Facture::getMontantTTC).filter(Objects::nonNull).reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal paidAmount = convention.paidAmount();
+            BigDecimal unpaidAmount = convention.unpaidAmount();
+            BigDecimal overdueAmount = convention.overdueAmount();
 
             totalPaid = totalPaid.add(paidAmount);
             totalUnpaid = totalUnpaid.add(unpaidAmount);
             totalOverdue = totalOverdue.add(overdueAmount);
 
-            if (convention.getDateDebut() != null) {
-                int year = convention.getDateDebut().getYear();
+            if (convention.dateDebut() != null) {
+                int year = convention.dateDebut().getYear();
                 yearlyTotal.merge(year, contractValue, BigDecimal::add);
                 yearlyPaid.merge(year, paidAmount, BigDecimal::add);
                 yearlyUnpaid.merge(year, unpaidAmount, BigDecimal::add);
@@ -710,11 +838,12 @@ public class ClientBilanService {
 
     // ============ PDF GENERATION ============
 
-    private byte[] generatePdfFromBilan(ClientBilanResponse bilan, Structure client) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfWriter writer = new PdfWriter(baos);
-            PdfDocument pdfDoc = new PdfDocument(writer);
-            Document document = new Document(pdfDoc, PageSize.A4);
+    private void generatePdfFromBilan(ClientBilanResponse bilan, Structure client, OutputStream out) throws IOException {
+        PdfWriter writer = new PdfWriter(out);
+        // The caller owns the stream (HTTP response or archive entry)
+        writer.setCloseStream(false);
+        // Elements are flushed to the writer as soon as they are added
+        try (Document document = new Document(new PdfDocument(writer), PageSize.A4, true)) {
             document.setMargins(50, 50, 50, 50);
 
             PdfFont boldFont = PdfFontFactory.createFont();
@@ -784,12 +913,9 @@ public class ClientBilanService {
             // Footer
             document.add(new Paragraph("Document généré automatiquement le " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy à HH:mm:ss")))
                     .setFontSize(8).setTextAlignment(TextAlignment.CENTER).setMarginTop(30));
-
-            document.close();
-            return baos.toByteArray();
-        } catch (Exception e) {
+        } catch (IOException e) {
             log.error("Error generating PDF: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to generate PDF: " + e.getMessage());
+            throw e;
         }
     }
 
@@ -805,14 +931,18 @@ public class ClientBilanService {
 
     // ============ EXCEL GENERATION ============
 
-    private byte[] generateExcelFromBilan(ClientBilanResponse bilan, Structure client) {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+    private void generateExcelFromBilan(ClientBilanResponse bilan, Structure client, OutputStream out) throws IOException {
+        // Only the last excelRowWindow rows of each sheet stay in memory, older ones go to a temp file
+        SXSSFWorkbook workbook = new SXSSFWorkbook(excelRowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
             CellStyle headerStyle = createExcelHeaderStyle(workbook);
             CellStyle titleStyle = createExcelTitleStyle(workbook);
             CellStyle boldStyle = createExcelBoldStyle(workbook);
 
             // Sheet 1: Client Info
-            Sheet infoSheet = workbook.createSheet("Informations Client");
+            SXSSFSheet infoSheet = workbook.createSheet("Informations Client");
+            infoSheet.trackAllColumnsForAutoSizing();
             int rowNum = 0;
             Row titleRow = infoSheet.createRow(rowNum++);
             org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
@@ -862,7 +992,8 @@ public class ClientBilanService {
             addExcelRow(infoSheet, rowNum++, "Applications concernées:", String.valueOf(bilan.getSummary().getTotalApplications()), boldStyle);
 
             // Sheet 2: Conventions
-            Sheet convSheet = workbook.createSheet("Conventions");
+            SXSSFSheet convSheet = workbook.createSheet("Conventions");
+            convSheet.trackAllColumnsForAutoSizing();
             rowNum = 0;
             Row convHeaderRow = convSheet.createRow(rowNum++);
             String[] convHeaders = {"Référence", "Libellé", "Application", "Date Début", "Date Fin", "Statut", "Montant TTC", "Périodicité", "Factures", "Montant Payé"};
@@ -888,7 +1019,8 @@ public class ClientBilanService {
             }
 
             // Sheet 3: Financial Summary
-            Sheet financialSheet = workbook.createSheet("Résumé Financier");
+            SXSSFSheet financialSheet = workbook.createSheet("Résumé Financier");
+            financialSheet.trackAllColumnsForAutoSizing();
             rowNum = 0;
             Row financialTitleRow = financialSheet.createRow(rowNum++);
             org.apache.poi.ss.usermodel.Cell financialTitleCell = financialTitleRow.createCell(0);
@@ -917,7 +1049,8 @@ public class ClientBilanService {
             addExcelRow(financialSheet, rowNum++, "Comportement:", bilan.getPaymentStats().getBehaviorDescription(), boldStyle);
 
             // Sheet 4: Rating
-            Sheet ratingSheet = workbook.createSheet("Évaluation");
+            SXSSFSheet ratingSheet = workbook.createSheet("Évaluation");
+            ratingSheet.trackAllColumnsForAutoSizing();
             rowNum = 0;
             Row ratingTitleRow = ratingSheet.createRow(rowNum++);
             org.apache.poi.ss.usermodel.Cell ratingTitleCell = ratingTitleRow.createCell(0);
@@ -983,11 +1116,13 @@ public class ClientBilanService {
             for (int i = 0; i < 2; i++) financialSheet.autoSizeColumn(i);
             for (int i = 0; i < 2; i++) ratingSheet.autoSizeColumn(i);
 
-            workbook.write(baos);
-            return baos.toByteArray();
-        } catch (Exception e) {
+            workbook.write(out);
+        } catch (IOException e) {
             log.error("Error generating Excel: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to generate Excel: " + e.getMessage());
+            throw e;
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
     }
 
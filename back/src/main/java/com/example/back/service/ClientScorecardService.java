@@ -0,0 +1,188 @@
+package com.example.back.service;
+
+import com.example.back.entity.ClientScorecard;
+import com.example.back.entity.Convention;
+import com.example.back.entity.Facture;
+import com.example.back.entity.Structure;
+import com.example.back.repository.ClientScorecardRepository;
+import com.example.back.repository.FactureRepository;
+import com.example.back.repository.StructureRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the client scorecards (one row per client, see {@link ClientScorecard}) in step with
+ * the invoices.
+ *
+ * Invoice, convention and client structure write paths call {@code markDirty(...)}; the marked
+ * clients are recomputed on the next refresh pass. Invoices that fall overdue are picked up by a daily pass over the due
+ * dates that went by, and a nightly rebuild recomputes every client to catch any drift.
+ */
+@Service
+@Slf4j
+public class ClientScorecardService {
+
+    private static final String CLIENT_TYPE = "Client";
+
+    private final ClientScorecardRepository clientScorecardRepository;
+
+    private final ClientBilanService clientBilanService;
+
+    private final StructureRepository structureRepository;
+
+    private final FactureRepository factureRepository;
+
+    private final ChatCacheInvalidator chatCacheInvalidator;
+
+    private final Set<Long> dirtyClients = ConcurrentHashMap.newKeySet();
+
+    // Latest due date whose invoices are counted as overdue in the stored scorecards
+    private volatile LocalDate overdueScannedThrough;
+
+    public ClientScorecardService(ClientScorecardRepository clientScorecardRepository, ClientBilanService clientBilanService, StructureRepository structureRepository, FactureRepository factureRepository, ChatCacheInvalidator chatCacheInvalidator) {
+        this.clientScorecardRepository = clientScorecardRepository;
+        this.clientBilanService = clientBilanService;
+        this.structureRepository = structureRepository;
+        this.factureRepository = factureRepository;
+        this.chatCacheInvalidator = chatCacheInvalidator;
+    }
+
+    // ==================== WRITE SIDE ====================
+
+    public void markDirty(Facture facture) {
+        if (facture == null) return;
+        markDirty(facture.getConvention());
+    }
+
+    public void markDirty(Convention convention) {
+        if (convention == null || convention.getStructureBeneficiel() == null) return;
+        markDirty(convention.getStructureBeneficiel().getId());
+    }
+
+    /**
+     * The client is only published once the writing transaction has completed, otherwise a
+     * concurrent refresh could recompute it from not-yet-committed data and drop the mark.
+     */
+    public void markDirty(Long clientId) {
+        if (clientId == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    dirtyClients.add(clientId);
+                }
+            });
+        } else {
+            dirtyClients.add(clientId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.scorecards.refresh-ms:60000}")
+    @Transactional
+    public int refreshDirty() {
+        if (dirtyClients.isEmpty()) return 0;
+        List<Long> clientIds = new ArrayList<>(dirtyClients);
+        dirtyClients.removeAll(clientIds);
+        try {
+            return refreshClients(clientIds);
+        } catch (RuntimeException e) {
+            dirtyClients.addAll(clientIds);
+            log.error("❌ Failed to refresh {} client scorecards: {}", clientIds.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Recomputes the clients owning an unpaid invoice that fell due since the last pass,
+     * since those invoices now count as overdue.
+     */
+    @Scheduled(cron = "${app.scorecards.overdue-cron:0 5 0 * * *}")
+    @Transactional
+    public int refreshNewlyOverdue() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate from = overdueScannedThrough != null ? overdueScannedThrough.plusDays(1) : yesterday;
+        if (from.isAfter(yesterday)) return 0;
+
+        List<Long> clientIds = factureRepository.findClientIdsWithOpenInvoicesDueBetween(from, yesterday);
+        int refreshed = refreshClients(clientIds);
+        overdueScannedThrough = yesterday;
+        log.info("Client scorecards refreshed for {} clients with invoices due {} to {}", refreshed, from, yesterday);
+        return refreshed;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initializeScorecards() {
+        rebuildAll();
+    }
+
+    @Scheduled(cron = "${app.scorecards.rebuild-cron:0 40 2 * * *}")
+    @Transactional
+    public void rebuildAll() {
+        try {
+            LocalDate scannedThrough = LocalDate.now().minusDays(1);
+            List<Structure> clients = structureRepository.findByTypeStructure(CLIENT_TYPE);
+            Set<Long> clientIds = clients.stream().map(Structure::getId).collect(Collectors.toSet());
+
+            List<Long> removed = clientScorecardRepository.findAllClientIds().stream()
+                    .filter(id -> !clientIds.contains(id))
+                    .collect(Collectors.toList());
+            if (!removed.isEmpty()) {
+                clientScorecardRepository.deleteByClientIdIn(removed);
+                chatCacheInvalidator.invalidateAfterCommit("client_scorecards");
+            }
+
+            save(clientBilanService.computeScorecards(clients), clientScorecardRepository.findAll());
+            overdueScannedThrough = scannedThrough;
+            log.info("Client scorecards rebuilt for {} clients ({} removed clients dropped)", clients.size(), removed.size());
+        } catch (Exception e) {
+            log.error("❌ Failed to rebuild client scorecards: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes the scorecards of the given clients; ids that no longer belong to a client
+     * structure lose their scorecard.
+     *
+     * @return the number of scorecards written
+     */
+    @Transactional
+    public int refreshClients(Collection<Long> clientIds) {
+        if (clientIds == null || clientIds.isEmpty()) return 0;
+        List<Structure> clients = structureRepository.findAllById(clientIds).stream()
+                .filter(structure -> CLIENT_TYPE.equals(structure.getTypeStructure()))
+                .collect(Collectors.toList());
+
+        Set<Long> gone = new HashSet<>(clientIds);
+        clients.forEach(client -> gone.remove(client.getId()));
+        if (!gone.isEmpty()) {
+            clientScorecardRepository.deleteByClientIdIn(gone);
+            chatCacheInvalidator.invalidateAfterCommit("client_scorecards");
+        }
+        if (clients.isEmpty()) return 0;
+
+        List<Long> ids = clients.stream().map(Structure::getId).collect(Collectors.toList());
+        List<ClientScorecard> scorecards = clientBilanService.computeScorecards(clients);
+        save(scorecards, clientScorecardRepository.findByClientIdIn(ids));
+        return scorecards.size();
+    }
+
+    // Reuses the existing row of each client so the unique client_id constraint holds
+    private void save(List<ClientScorecard> scorecards, List<ClientScorecard> existing) {
+        Map<Long, Long> idByClient = existing.stream()
+                .collect(Collectors.toMap(ClientScorecard::getClientId, ClientScorecard::getId));
+        scorecards.forEach(scorecard -> scorecard.setId(idByClient.get(scorecard.getClientId())));
+        clientScorecardRepository.saveAll(scorecards);
+    }
+}
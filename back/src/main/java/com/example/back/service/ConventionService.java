@@ -4,6 +4,7 @@ import com.example.back.entity.*;
 import com.example.back.payload.request.ConventionRequest;
 import com.example.back.payload.request.RenewalRequestDTO;
 import com.example.back.repository.*;
+import com.example.back.service.ai.RiskPredictionCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -48,7 +49,17 @@ public class ConventionService {
 
     private final WorkloadService workloadService;
 
-    public ConventionService(StructureRepository structureRepository, EntitySyncService entitySyncService, ConventionRepository conventionRepository, FactureRepository factureRepository, OldFactureRepository oldFactureRepository, WorkloadService workloadService, ApplicationRepository applicationRepository, ApplicationService applicationService, HistoryService historyService, UserRepository userRepository, NotificationService notificationService,OldConventionRepository oldConventionRepository, RequestService requestService) {
+    private final StatsMetricsService statsMetricsService;
+
+    private final RiskPredictionCache riskPredictionCache;
+
+    private final WorkloadLedgerService workloadLedger;
+
+    private final ClientScorecardService clientScorecardService;
+
+    private final ChatCacheInvalidator chatCacheInvalidator;
+
+    public ConventionService(StructureRepository structureRepository, EntitySyncService entitySyncService, ConventionRepository conventionRepository, FactureRepository factureRepository, OldFactureRepository oldFactureRepository, WorkloadService workloadService, ApplicationRepository applicationRepository, ApplicationService applicationService, HistoryService historyService, UserRepository userRepository, NotificationService notificationService,OldConventionRepository oldConventionRepository, RequestService requestService, StatsMetricsService statsMetricsService, RiskPredictionCache riskPredictionCache, WorkloadLedgerService workloadLedger, ClientScorecardService clientScorecardService, ChatCacheInvalidator chatCacheInvalidator) {
         this.structureRepository = structureRepository;
         this.entitySyncService = entitySyncService;
         this.conventionRepository = conventionRepository;
@@ -62,6 +73,11 @@ public class ConventionService {
         this.notificationService = notificationService;
         this.oldConventionRepository = oldConventionRepository;
         this.requestService = requestService;
+        this.statsMetricsService = statsMetricsService;
+        this.riskPredictionCache = riskPredictionCache;
+        this.workloadLedger = workloadLedger;
+        this.clientScorecardService = clientScorecardService;
+        this.chatCacheInvalidator = chatCacheInvalidator;
     }
 
 
@@ -210,6 +226,9 @@ public void generateInvoicesForConvention(Convention convention) {
         // Delete all existing invoices to start fresh
         for (Facture invoice : existingInvoices) {
             factureRepository.delete(invoice);
+            statsMetricsService.markDirty(invoice);
+            clientScorecardService.markDirty(invoice);
+            riskPredictionCache.evict(invoice);
             log.info("Deleted existing invoice: {}", invoice.getNumeroFacture());
         }
         factureRepository.flush();
@@ -268,6 +287,9 @@ public void generateInvoicesForConvention(Convention convention) {
                 sequenceNumber, totalPeriods, convention.getReferenceConvention()));
 
         Facture savedFacture = factureRepository.save(facture);
+        statsMetricsService.markDirty(savedFacture);
+        clientScorecardService.markDirty(savedFacture);
+        riskPredictionCache.evict(savedFacture);
         log.info("ADDED new invoice {}: {} TND, date {}", 
                 savedFacture.getNumeroFacture(), amount, invoiceDate);
 
@@ -463,6 +485,9 @@ public void generateInvoicesForConvention(Convention convention) {
                     convention.getFactures().remove(toDelete);
                 }
                 factureRepository.delete(toDelete);
+                statsMetricsService.markDirty(toDelete);
+                clientScorecardService.markDirty(toDelete);
+                riskPredictionCache.evict(toDelete);
             }
             factureRepository.flush();
 
@@ -509,6 +534,9 @@ public void generateInvoicesForConvention(Convention convention) {
             String newInvoiceNumber = generateFormattedInvoiceNumber(convention, sequenceNumber);
 
             // Update invoice
+            statsMetricsService.markDirty(invoice);
+            clientScorecardService.markDirty(invoice);
+            riskPredictionCache.evict(invoice);
             invoice.setNumeroFacture(newInvoiceNumber);
             invoice.setDateFacturation(newInvoiceDate);
             invoice.setDateEcheance(newDueDate);
@@ -519,6 +547,9 @@ public void generateInvoicesForConvention(Convention convention) {
                     sequenceNumber, newTotalPeriods, convention.getReferenceConvention()));
 
             Facture updated = factureRepository.save(invoice);
+            statsMetricsService.markDirty(updated);
+            clientScorecardService.markDirty(updated);
+            riskPredictionCache.evict(updated);
             modifiedInvoices.add(updated);
 
             // LOG HISTORY: Modification if anything changed
@@ -589,6 +620,9 @@ public void generateInvoicesForConvention(Convention convention) {
                         sequenceNumber, newTotalPeriods, convention.getReferenceConvention()));
 
                 Facture saved = factureRepository.save(newFacture);
+                statsMetricsService.markDirty(saved);
+                clientScorecardService.markDirty(saved);
+                riskPredictionCache.evict(saved);
                 unpaidInvoices.add(saved);
 
                 // LOG HISTORY: Creation
@@ -706,6 +740,10 @@ private String generateFormattedInvoiceNumber(Convention convention, int sequenc
 
         // Save convention
         Convention savedConvention = conventionRepository.save(convention);
+        statsMetricsService.markDirty(savedConvention);
+        clientScorecardService.markDirty(savedConvention);
+        riskPredictionCache.evict(savedConvention);
+        workloadLedger.recordConventionChange(WorkloadLedgerService.Share.NONE, savedConvention);
         log.info("Convention saved with ID: {}, TTC: {}, NbUsers: {}",
                 savedConvention.getId(), savedConvention.getMontantTTC(), savedConvention.getNbUsers());
 
@@ -745,6 +783,7 @@ private String generateFormattedInvoiceNumber(Convention convention, int sequenc
 
         // Store old values for comparison
         Convention oldConvention = cloneConvention(convention);
+        WorkloadLedgerService.Share workloadBefore = WorkloadLedgerService.Share.of(convention);
         BigDecimal oldMontantHT = convention.getMontantHT();
         BigDecimal oldMontantTTC = convention.getMontantTTC();
         Long oldNbUsers = convention.getNbUsers();
@@ -827,6 +866,12 @@ private String generateFormattedInvoiceNumber(Convention convention, int sequenc
 
         // Save convention
         Convention updatedConvention = conventionRepository.save(convention);
+        statsMetricsService.markDirty(updatedConvention);
+        clientScorecardService.markDirty(updatedConvention);
+        // The client may have changed; the previous one loses these invoices
+        clientScorecardService.markDirty(oldConvention);
+        riskPredictionCache.evict(updatedConvention);
+        workloadLedger.recordConventionChange(workloadBefore, updatedConvention);
 
 
         // ===== SYNC: Propagate changes to related entities =====
@@ -1098,6 +1143,7 @@ private String generateFormattedInvoiceNumber(Convention convention, int sequenc
 
         // 1. CREATE DEEP COPY of OLD state BEFORE any changes
         Convention oldState = cloneConvention(convention);
+        WorkloadLedgerService.Share workloadBefore = WorkloadLedgerService.Share.of(convention);
 
         // 2. Get and archive OLD invoices BEFORE updating
         List<Facture> oldFactures = factureRepository.findByConventionId(convention.getId());
@@ -1121,6 +1167,10 @@ private String generateFormattedInvoiceNumber(Convention convention, int sequenc
             archiveCurrentFactures(oldState, currentUser, updatedConvention, oldFactures);
             factureRepository.deleteByConventionId(conventionId);
             factureRepository.flush();
+            chatCacheInvalidator.invalidateAfterCommit("factures");
+            oldFactures.forEach(statsMetricsService::markDirty);
+            oldFactures.forEach(clientScorecardService::markDirty);
+            oldFactures.forEach(riskPredictionCache::evict);
             log.info("Force deleted {} factures from main table", oldFactures.size());
         }
 
@@ -1133,6 +1183,10 @@ private String generateFormattedInvoiceNumber(Convention convention, int sequenc
 
         // 10. Save again with correct status
         updatedConvention = conventionRepository.save(updatedConvention);
+        statsMetricsService.markDirty(updatedConvention);
+        clientScorecardService.markDirty(updatedConvention);
+        riskPredictionCache.evict(updatedConvention);
+        workloadLedger.recordConventionChange(workloadBefore, updatedConvention);
         log.info("Convention renewed with status: {}", newStatus);
 
         // 11. Update application dates
@@ -1259,6 +1313,9 @@ private String generateFormattedInvoiceNumber(Convention convention, int sequenc
         // CRITICAL: Delete the original factures from the main table
         factureRepository.deleteAll(oldFactures);
         factureRepository.flush();
+        oldFactures.forEach(statsMetricsService::markDirty);
+        oldFactures.forEach(clientScorecardService::markDirty);
+        oldFactures.forEach(riskPredictionCache::evict);
 
         log.info("Archived and deleted {} factures successfully", oldFactures.size());
     }
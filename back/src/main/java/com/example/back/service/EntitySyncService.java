@@ -24,12 +24,15 @@ public class EntitySyncService {
 
     private final StructureRepository structureRepository;
 
+    private final WorkloadLedgerService workloadLedger;
 
-    public EntitySyncService(ApplicationRepository applicationRepository, ConventionRepository conventionRepository, FactureRepository factureRepository, StructureRepository structureRepository) {
+
+    public EntitySyncService(ApplicationRepository applicationRepository, ConventionRepository conventionRepository, FactureRepository factureRepository, StructureRepository structureRepository, WorkloadLedgerService workloadLedger) {
         this.applicationRepository = applicationRepository;
         this.conventionRepository = conventionRepository;
         this.factureRepository = factureRepository;
         this.structureRepository = structureRepository;
+        this.workloadLedger = workloadLedger;
     }
 
 
@@ -141,9 +144,11 @@ public class EntitySyncService {
                 }
             }
 
+            WorkloadLedgerService.Share workloadBefore = WorkloadLedgerService.Share.of(app);
             app.setDateDebut(earliestStart);
             app.setDateFin(latestEnd);
             applicationRepository.save(app);
+            workloadLedger.recordApplicationChange(workloadBefore, app);
             log.info("✅ Updated application dates: {} to {}", earliestStart, latestEnd);
         }
 
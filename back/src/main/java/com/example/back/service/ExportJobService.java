@@ -0,0 +1,445 @@
+package com.example.back.service;
+
+import com.example.back.config.AsyncConfig;
+import com.example.back.entity.*;
+import com.example.back.payload.request.ExportJobRequest;
+import com.example.back.payload.response.ExportJobResponse;
+import com.example.back.repository.ExportJobItemRepository;
+import com.example.back.repository.ExportJobRepository;
+import com.example.back.repository.StructureRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Bulk bilan exports rendered in the background.
+ *
+ * {@link #submit} stores the job with one item per client. A poller claims pending items and
+ * hands them to the export executor (see {@link AsyncConfig}); each worker renders its
+ * client's bilan into {@code <jobsDir>/<jobId>/}. Once every item of a job is rendered or
+ * given up on, the files are zipped into {@code <jobsDir>/export-<jobId>.zip}. Progress is
+ * published on {@code /topic/export-jobs/<jobId>}.
+ *
+ * Jobs and items live in the database and rendered files stay on disk, so after a restart
+ * the items left in progress are claimed again and finished files are not rendered twice.
+ */
+@Service
+@Slf4j
+public class ExportJobService {
+
+    private static final String CLIENT_TYPE = "Client";
+
+    private static final String TOPIC_PREFIX = "/topic/export-jobs/";
+
+    private static final String ERRORS_ENTRY = "erreurs.txt";
+
+    // Claims older than this are considered abandoned and handed out again
+    private static final Duration STALE_CLAIM = Duration.ofMinutes(30);
+
+    private final ExportJobRepository jobRepository;
+
+    private final ExportJobItemRepository itemRepository;
+
+    private final StructureRepository structureRepository;
+
+    private final ClientBilanService clientBilanService;
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final Executor exportExecutor;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Jobs whose archive is being built on the export executor
+    private final Set<Long> assembling = ConcurrentHashMap.newKeySet();
+
+    // Claims made before this instant belong to a previous run
+    private final LocalDateTime startedAt = LocalDateTime.now();
+
+    @Value("${app.export.jobs.dir:./exports/jobs}")
+    private String jobsDir;
+
+    @Value("${app.export.jobs.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.export.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.export.jobs.retention-days:7}")
+    private int retentionDays;
+
+    public ExportJobService(ExportJobRepository jobRepository, ExportJobItemRepository itemRepository, StructureRepository structureRepository, ClientBilanService clientBilanService, SimpMessagingTemplate messagingTemplate,
+                            @Qualifier(AsyncConfig.EXPORT_EXECUTOR) Executor exportExecutor) {
+        this.jobRepository = jobRepository;
+        this.itemRepository = itemRepository;
+        this.structureRepository = structureRepository;
+        this.clientBilanService = clientBilanService;
+        this.messagingTemplate = messagingTemplate;
+        this.exportExecutor = exportExecutor;
+    }
+
+    // ==================== SUBMISSION ====================
+
+    @Transactional
+    public ExportJobResponse submit(ExportJobRequest request, String requestedBy) {
+        if (request.getFormat() == null) {
+            throw new IllegalArgumentException("Export format is required");
+        }
+        if (request.getStartDate() != null && request.getEndDate() != null
+                && request.getEndDate().isBefore(request.getStartDate())) {
+            throw new IllegalArgumentException("End date is before start date");
+        }
+
+        List<Long> clientIds;
+        if (request.getClientIds() == null || request.getClientIds().isEmpty()) {
+            clientIds = structureRepository.findByTypeStructure(CLIENT_TYPE).stream()
+                    .map(Structure::getId)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } else {
+            Set<Long> requested = new LinkedHashSet<>(request.getClientIds());
+            List<Long> found = structureRepository.findAllById(requested).stream()
+                    .filter(structure -> CLIENT_TYPE.equalsIgnoreCase(structure.getTypeStructure()))
+                    .map(Structure::getId)
+                    .sorted()
+                    .collect(Collectors.toList());
+            if (found.size() != requested.size()) {
+                throw new IllegalArgumentException("Unknown clients: " + requested.stream()
+                        .filter(id -> !found.contains(id))
+                        .map(String::valueOf)
+                        .collect(Collectors.joining(", ")));
+            }
+            clientIds = found;
+        }
+        if (clientIds.isEmpty()) {
+            throw new IllegalArgumentException("No client to export");
+        }
+
+        ExportJob job = new ExportJob();
+        job.setRequestedBy(requestedBy);
+        job.setFormat(request.getFormat());
+        job.setStartDate(request.getStartDate());
+        job.setEndDate(request.getEndDate());
+        job.setTotalItems(clientIds.size());
+        ExportJob saved = jobRepository.save(job);
+
+        itemRepository.saveAll(clientIds.stream()
+                .map(clientId -> new ExportJobItem(saved.getId(), clientId))
+                .collect(Collectors.toList()));
+
+        log.info("Export job {} queued by {}: {} {} bilans", saved.getId(), requestedBy, clientIds.size(), saved.getFormat());
+        return toResponse(saved);
+    }
+
+    // ==================== READ SIDE ====================
+
+    public List<ExportJobResponse> getJobs(String requestedBy) {
+        return jobRepository.findTop50ByRequestedByOrderByCreatedAtDesc(requestedBy).stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    public Optional<ExportJob> findJob(Long jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    /**
+     * The archive of a completed job, or empty while it is not ready (or no longer on disk).
+     */
+    public Optional<Path> getArchive(ExportJob job) {
+        if (job.getStatus() != ExportStatus.COMPLETED || job.getArchivePath() == null) {
+            return Optional.empty();
+        }
+        Path archive = Paths.get(job.getArchivePath());
+        return Files.isRegularFile(archive) ? Optional.of(archive) : Optional.empty();
+    }
+
+    public ExportJobResponse toResponse(ExportJob job) {
+        ExportJobResponse response = new ExportJobResponse();
+        response.setId(job.getId());
+        response.setFormat(job.getFormat());
+        response.setStatus(job.getStatus());
+        response.setStartDate(job.getStartDate());
+        response.setEndDate(job.getEndDate());
+        response.setTotalItems(job.getTotalItems());
+        response.setCompletedItems(job.getCompletedItems());
+        response.setFailedItems(job.getFailedItems());
+        int done = job.getCompletedItems() + job.getFailedItems();
+        response.setProgressPercentage(job.getTotalItems() > 0 ? Math.min(100, done * 100 / job.getTotalItems()) : 100);
+        response.setArchiveSize(job.getArchiveSize());
+        response.setLastError(job.getLastError());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setFinishedAt(job.getFinishedAt());
+        return response;
+    }
+
+    // ==================== DISPATCH ====================
+
+    /**
+     * Items still marked in progress at startup belong to the previous run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        int requeued = itemRepository.requeueStale(startedAt);
+        if (requeued > 0) {
+            log.info("Resuming {} export items interrupted by the last shutdown", requeued);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.export.jobs.poll-ms:2000}", scheduler = AsyncConfig.POLLER_SCHEDULER)
+    public void dispatchPending() {
+        assembleReadyJobs();
+
+        int capacity = batchSize - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+        List<ExportJobItem> batch = itemRepository.findPending(PageRequest.of(0, capacity));
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Workers report against their claim time, so keep it at a precision the database stores as is
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        for (ExportJobItem item : batch) {
+            item.setStatus(ExportStatus.RUNNING);
+            item.setClaimedAt(now);
+        }
+        // Claims are committed before any worker can report back on them
+        itemRepository.saveAll(batch);
+        jobRepository.markRunning(batch.stream().map(ExportJobItem::getJobId).collect(Collectors.toSet()));
+
+        Map<Long, ExportJob> jobs = jobRepository.findAllById(batch.stream().map(ExportJobItem::getJobId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(ExportJob::getId, job -> job));
+        for (ExportJobItem item : batch) {
+            ExportJob job = jobs.get(item.getJobId());
+            if (job == null) {
+                itemRepository.delete(item);
+                continue;
+            }
+            inFlight.incrementAndGet();
+            exportExecutor.execute(() -> {
+                try {
+                    render(job, item);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.export.jobs.stale-check-ms:600000}")
+    public int requeueStaleClaims() {
+        int requeued = itemRepository.requeueStale(LocalDateTime.now().minus(STALE_CLAIM));
+        if (requeued > 0) {
+            log.warn("Requeued {} export items left in progress", requeued);
+        }
+        return requeued;
+    }
+
+    void render(ExportJob job, ExportJobItem item) {
+        LocalDateTime claim = item.getClaimedAt();
+        try {
+            Path workDir = workDir(job.getId());
+            Files.createDirectories(workDir);
+            ClientBilanService.BilanExport export = clientBilanService.prepareBilanExport(
+                    item.getClientId(), job.getStartDate(), job.getEndDate());
+            String fileName = fileName(export.client(), job.getFormat());
+
+            // Written aside and moved into place, so a file in the work directory is always complete
+            Path part = workDir.resolve(fileName + ".part");
+            try (OutputStream out = Files.newOutputStream(part)) {
+                if (job.getFormat() == ExportFormat.PDF) {
+                    clientBilanService.writeBilanPdf(export, out);
+                } else {
+                    clientBilanService.writeBilanExcel(export, out);
+                }
+            }
+            Files.move(part, workDir.resolve(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            item.setFileName(fileName);
+            item.setStatus(ExportStatus.COMPLETED);
+            item.setAttempts(item.getAttempts() + 1);
+            item.setLastError(null);
+            if (!report(job, item, claim)) return;
+            jobRepository.incrementCompleted(job.getId());
+        } catch (Exception e) {
+            int attempts = item.getAttempts() + 1;
+            item.setAttempts(attempts);
+            item.setLastError(truncate(e.getMessage()));
+            if (attempts >= maxAttempts) {
+                item.setStatus(ExportStatus.FAILED);
+                if (!report(job, item, claim)) return;
+                jobRepository.incrementFailed(job.getId());
+                log.error("❌ Giving up export of client {} in job {} after {} attempts: {}",
+                        item.getClientId(), job.getId(), attempts, e.getMessage());
+            } else {
+                item.setStatus(ExportStatus.PENDING);
+                if (!report(job, item, claim)) return;
+                log.warn("⚠️ Export of client {} in job {} failed (attempt {}): {}",
+                        item.getClientId(), job.getId(), attempts, e.getMessage());
+                return;
+            }
+        }
+        jobRepository.findById(job.getId()).ifPresent(this::publish);
+    }
+
+    /**
+     * Stores the outcome of a render unless the claim was requeued as stale in the meantime; the
+     * worker holding the newer claim reports instead, so the job counters move once per item.
+     */
+    private boolean report(ExportJob job, ExportJobItem item, LocalDateTime claim) {
+        item.setClaimedAt(null);
+        int updated = itemRepository.reportClaim(item.getId(), claim, item.getStatus(), item.getFileName(),
+                item.getAttempts(), item.getLastError());
+        if (updated == 0) {
+            log.warn("⚠️ Dropping the report of client {} in job {}: its claim of {} was handed out again",
+                    item.getClientId(), job.getId(), claim);
+            return false;
+        }
+        return true;
+    }
+
+    // ==================== ARCHIVE ====================
+
+    /**
+     * Hands each job whose items are all done to the export executor, so zipping large archives
+     * does not hold up the poller.
+     */
+    void assembleReadyJobs() {
+        for (ExportJob job : jobRepository.findReadyToAssemble()) {
+            if (!assembling.add(job.getId())) continue;
+            exportExecutor.execute(() -> {
+                try {
+                    finish(job);
+                } finally {
+                    assembling.remove(job.getId());
+                }
+            });
+        }
+    }
+
+    private void finish(ExportJob job) {
+        try {
+            Path archive = assemble(job);
+            job.setArchivePath(archive.toString());
+            job.setArchiveSize(Files.size(archive));
+            job.setStatus(ExportStatus.COMPLETED);
+            log.info("Export job {} ready: {} bilans, {} failed", job.getId(), job.getCompletedItems(), job.getFailedItems());
+        } catch (Exception e) {
+            job.setStatus(ExportStatus.FAILED);
+            job.setLastError(truncate(e.getMessage()));
+            log.error("❌ Failed to build the archive of export job {}: {}", job.getId(), e.getMessage());
+        }
+        job.setFinishedAt(LocalDateTime.now());
+        publish(jobRepository.save(job));
+    }
+
+    /**
+     * Zips the job's rendered files, one at a time, and drops the work directory.
+     */
+    Path assemble(ExportJob job) throws IOException {
+        Path workDir = workDir(job.getId());
+        Path archive = Paths.get(jobsDir).resolve("export-" + job.getId() + ".zip");
+        Path part = Paths.get(jobsDir).resolve("export-" + job.getId() + ".zip.part");
+        Files.createDirectories(archive.getParent());
+
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(part))) {
+            for (ExportJobItem item : itemRepository.findByJobIdAndStatusOrderByIdAsc(job.getId(), ExportStatus.COMPLETED)) {
+                zip.putNextEntry(new ZipEntry(item.getFileName()));
+                Files.copy(workDir.resolve(item.getFileName()), zip);
+                zip.closeEntry();
+            }
+            List<ExportJobItem> failed = itemRepository.findByJobIdAndStatusOrderByIdAsc(job.getId(), ExportStatus.FAILED);
+            if (!failed.isEmpty()) {
+                zip.putNextEntry(new ZipEntry(ERRORS_ENTRY));
+                for (ExportJobItem item : failed) {
+                    zip.write(("Client " + item.getClientId() + ": " + item.getLastError() + System.lineSeparator())
+                            .getBytes(StandardCharsets.UTF_8));
+                }
+                zip.closeEntry();
+            }
+        }
+        Files.move(part, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deleteRecursively(workDir);
+        return archive;
+    }
+
+    @Scheduled(cron = "${app.export.jobs.cleanup-cron:0 50 3 * * *}")
+    public int purgeExpiredJobs() {
+        int purged = 0;
+        for (ExportJob job : jobRepository.findFinishedBefore(LocalDateTime.now().minusDays(retentionDays))) {
+            try {
+                if (job.getArchivePath() != null) {
+                    Files.deleteIfExists(Paths.get(job.getArchivePath()));
+                }
+                deleteRecursively(workDir(job.getId()));
+                itemRepository.deleteByJobId(job.getId());
+                jobRepository.delete(job);
+                purged++;
+            } catch (Exception e) {
+                log.error("❌ Failed to purge export job {}: {}", job.getId(), e.getMessage());
+            }
+        }
+        if (purged > 0) {
+            log.info("Purged {} export jobs older than {} days", purged, retentionDays);
+        }
+        return purged;
+    }
+
+    private void publish(ExportJob job) {
+        try {
+            messagingTemplate.convertAndSend(TOPIC_PREFIX + job.getId(), toResponse(job));
+        } catch (Exception e) {
+            log.warn("⚠️ Could not publish progress of export job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private Path workDir(Long jobId) {
+        return Paths.get(jobsDir).resolve(String.valueOf(jobId));
+    }
+
+    private static String fileName(Structure client, ExportFormat format) {
+        String code = client.getCode() != null ? client.getCode() : String.valueOf(client.getId());
+        String safe = code.replaceAll("[^A-Za-z0-9._-]", "_");
+        return "bilan-" + safe + "-" + client.getId() + (format == ExportFormat.PDF ? ".pdf" : ".xlsx");
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return null;
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
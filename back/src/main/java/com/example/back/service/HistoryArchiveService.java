@@ -0,0 +1,292 @@
+package com.example.back.service;
+
+import com.example.back.entity.History;
+import com.example.back.entity.User;
+import com.example.back.payload.response.HistoryPageResponse;
+import com.example.back.payload.response.HistoryResponse;
+import com.example.back.repository.HistoryRepository;
+import com.example.back.service.mapper.HistoryMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Monthly retention for the history table.
+ *
+ * History is handled in calendar-month partitions: once a month is older than
+ * {@code retentionMonths}, its rows are written, newest first, to
+ * {@code <archiveDir>/history-YYYY-MM.jsonl.gz} and deleted from the table, so the live
+ * queries only ever see the recent months. Archived months stay readable on demand
+ * through {@link #readMonth}.
+ */
+@Service
+@Slf4j
+public class HistoryArchiveService {
+
+    private static final String FILE_PREFIX = "history-";
+    private static final String FILE_SUFFIX = ".jsonl.gz";
+    private static final int EXPORT_CHUNK = 1000;
+
+    private final HistoryRepository historyRepository;
+
+    private final HistoryMapper historyMapper;
+
+    private final ChatCacheInvalidator chatCacheInvalidator;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.history.archive.retention-months:12}")
+    private int retentionMonths;
+
+    @Value("${app.history.archive.dir:./archive/history}")
+    private String archiveDir;
+
+    /**
+     * One archived line: the history row plus the few user fields the listing shows.
+     */
+    record ArchivedHistory(Long id, LocalDateTime timestamp, String actionType, String entityType, Long entityId,
+                           String entityCode, String entityName, Long userId, String username,
+                           String userFirstName, String userLastName, String description,
+                           String oldValues, String newValues, String ipAddress, String userAgent) {
+    }
+
+    public HistoryArchiveService(HistoryRepository historyRepository, HistoryMapper historyMapper,
+                                 ChatCacheInvalidator chatCacheInvalidator) {
+        this.historyRepository = historyRepository;
+        this.historyMapper = historyMapper;
+        this.chatCacheInvalidator = chatCacheInvalidator;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    // ==================== ARCHIVING ====================
+
+    /**
+     * First month that stays in the live table.
+     */
+    public YearMonth getRetentionStart() {
+        return YearMonth.now().minusMonths(retentionMonths);
+    }
+
+    @Scheduled(cron = "${app.history.archive.cron:0 15 3 * * *}")
+    public void archiveExpiredMonths() {
+        YearMonth retentionStart = getRetentionStart();
+        LocalDateTime oldest = historyRepository.findOldestTimestamp();
+        if (oldest == null || !YearMonth.from(oldest).isBefore(retentionStart)) {
+            return;
+        }
+        for (YearMonth month = YearMonth.from(oldest); month.isBefore(retentionStart); month = month.plusMonths(1)) {
+            try {
+                int archived = archiveMonth(month);
+                if (archived > 0) {
+                    log.info("📦 Archived {} history entries of {}", archived, month);
+                }
+            } catch (IOException e) {
+                // Rows stay in the table, the next run tries again
+                log.error("❌ Failed to archive history of {}: {}", month, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the month's rows to its archive file, then removes them from the table.
+     *
+     * The file is rebuilt each time: the rows still in the table first, then the entries already
+     * archived whose id is not among them. A run that crashed after replacing the file but before
+     * the delete therefore rewrites the same rows once instead of appending them a second time.
+     *
+     * @return the number of rows archived
+     */
+    int archiveMonth(YearMonth month) throws IOException {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        Path target = monthFile(month);
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        Set<Long> liveIds = new HashSet<>();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(tmp)), StandardCharsets.UTF_8))) {
+            List<History> chunk = historyRepository.findPage(null, null, null, null, from, to,
+                    null, null, PageRequest.of(0, EXPORT_CHUNK));
+            while (!chunk.isEmpty()) {
+                for (History history : chunk) {
+                    writer.write(objectMapper.writeValueAsString(toArchived(history)));
+                    writer.write('\n');
+                    liveIds.add(history.getId());
+                }
+                History last = chunk.get(chunk.size() - 1);
+                chunk = historyRepository.findPage(null, null, null, null, from, to,
+                        last.getTimestamp(), last.getId(), PageRequest.of(0, EXPORT_CHUNK));
+            }
+            if (!liveIds.isEmpty() && Files.exists(target)) {
+                copyArchivedExcept(target, liveIds, writer);
+            }
+        }
+
+        if (liveIds.isEmpty()) {
+            Files.deleteIfExists(tmp);
+            return 0;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        historyRepository.deleteByTimestampRange(from, to);
+        chatCacheInvalidator.invalidateAfterCommit("history");
+        return liveIds.size();
+    }
+
+    private void copyArchivedExcept(Path file, Set<Long> skippedIds, Writer writer) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                if (skippedIds.contains(objectMapper.readValue(line, ArchivedHistory.class).id())) continue;
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+    }
+
+    // ==================== READING ====================
+
+    /**
+     * Archived months, newest first, with their file size in bytes.
+     */
+    public List<Map<String, Object>> listArchivedMonths() throws IOException {
+        Path dir = Paths.get(archiveDir);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        List<Map<String, Object>> months = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                String name = file.getFileName().toString();
+                if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX)) continue;
+                Map<String, Object> month = new LinkedHashMap<>();
+                month.put("month", name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+                month.put("sizeBytes", Files.size(file));
+                months.add(month);
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Reads one archived month, applying the same optional filters as the live search.
+     * The cursor is the number of matching entries already returned.
+     */
+    public HistoryPageResponse readMonth(String month, String entityType, Long entityId, String actionType,
+                                         Long userId, String cursor, int limit) throws IOException {
+        Path file = monthFile(parseMonth(month));
+        if (!Files.exists(file)) {
+            throw new IllegalArgumentException("No archive for " + month);
+        }
+        int offset = parseOffset(cursor);
+        int pageSize = limit <= 0 ? HistoryService.DEFAULT_PAGE_SIZE : Math.min(limit, HistoryService.MAX_PAGE_SIZE);
+
+        List<HistoryResponse> items = new ArrayList<>();
+        boolean hasMore = false;
+        int matched = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                ArchivedHistory entry = objectMapper.readValue(line, ArchivedHistory.class);
+                if (!matches(entry, entityType, entityId, actionType, userId)) continue;
+                if (matched++ < offset) continue;
+                if (items.size() == pageSize) {
+                    hasMore = true;
+                    break;
+                }
+                items.add(historyMapper.toResponse(toHistory(entry)));
+            }
+        }
+        return new HistoryPageResponse(items, hasMore ? String.valueOf(offset + pageSize) : null, hasMore);
+    }
+
+    // ==================== HELPERS ====================
+
+    private Path monthFile(YearMonth month) {
+        return Paths.get(archiveDir).resolve(FILE_PREFIX + month + FILE_SUFFIX);
+    }
+
+    private static YearMonth parseMonth(String month) {
+        try {
+            return YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid month, expected yyyy-MM");
+        }
+    }
+
+    private static int parseOffset(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0;
+        try {
+            return Math.max(0, Integer.parseInt(cursor));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static boolean matches(ArchivedHistory entry, String entityType, Long entityId,
+                                   String actionType, Long userId) {
+        return (entityType == null || entityType.equals(entry.entityType()))
+                && (entityId == null || entityId.equals(entry.entityId()))
+                && (actionType == null || actionType.equals(entry.actionType()))
+                && (userId == null || userId.equals(entry.userId()));
+    }
+
+    private static ArchivedHistory toArchived(History history) {
+        User user = history.getUser();
+        return new ArchivedHistory(history.getId(), history.getTimestamp(), history.getActionType(),
+                history.getEntityType(), history.getEntityId(), history.getEntityCode(), history.getEntityName(),
+                user != null ? user.getId() : null, user != null ? user.getUsername() : null,
+                user != null ? user.getFirstName() : null, user != null ? user.getLastName() : null,
+                history.getDescription(), history.getOldValues(), history.getNewValues(),
+                history.getIpAddress(), history.getUserAgent());
+    }
+
+    private static History toHistory(ArchivedHistory entry) {
+        History history = new History();
+        history.setId(entry.id());
+        history.setTimestamp(entry.timestamp());
+        history.setActionType(entry.actionType());
+        history.setEntityType(entry.entityType());
+        history.setEntityId(entry.entityId());
+        history.setEntityCode(entry.entityCode());
+        history.setEntityName(entry.entityName());
+        if (entry.userId() != null) {
+            User user = new User();
+            user.setId(entry.userId());
+            user.setUsername(entry.username());
+            user.setFirstName(entry.userFirstName());
+            user.setLastName(entry.userLastName());
+            history.setUser(user);
+        }
+        history.setDescription(entry.description());
+        history.setOldValues(entry.oldValues());
+        history.setNewValues(entry.newValues());
+        history.setIpAddress(entry.ipAddress());
+        history.setUserAgent(entry.userAgent());
+        return history;
+    }
+}
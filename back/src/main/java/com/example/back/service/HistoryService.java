@@ -2,6 +2,7 @@ package com.example.back.service;
 
 import com.example.back.entity.*;
 import com.example.back.payload.history.*;
+import com.example.back.payload.response.HistoryPageResponse;
 import com.example.back.payload.response.HistoryResponse;
 import com.example.back.repository.HistoryRepository;
 import com.example.back.repository.UserRepository;
@@ -12,7 +13,6 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -20,6 +20,7 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -36,14 +37,17 @@ public class HistoryService {
 
     private final HistoryMapper historyMapper;
 
+    private final AuditLogWriter auditLogWriter;
+
     private final ObjectMapper objectMapper;
 
-    public HistoryService(HistoryRepository historyRepository, UserRepository userRepository, HistoryMapper historyMapper) {
+    public HistoryService(HistoryRepository historyRepository, UserRepository userRepository, HistoryMapper historyMapper, AuditLogWriter auditLogWriter) {
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
         this.historyRepository = historyRepository;
         this.userRepository = userRepository;
         this.historyMapper = historyMapper;
+        this.auditLogWriter = auditLogWriter;
     }
 
     // ==================== CONVERSION METHODS ====================
@@ -812,27 +816,14 @@ public class HistoryService {
                                String entityCode, String entityName, String description,
                                Object oldObject, Object newObject, User user) {
         try {
-            History history = new History();
-            history.setActionType(actionType);
-            history.setEntityType(entityType);
-            history.setEntityId(entityId);
-            history.setEntityCode(entityCode);
-            history.setEntityName(entityName);
-            history.setUser(user);
-            history.setDescription(description);
-            history.setIpAddress(getClientIpAddress());
-            history.setUserAgent(getUserAgent());
-
-            // Convert objects to JSON using the safe DTOs or Maps
-            if (oldObject != null) {
-                history.setOldValues(objectMapper.writeValueAsString(oldObject));
-            }
-            if (newObject != null) {
-                history.setNewValues(objectMapper.writeValueAsString(newObject));
-            }
-
-            historyRepository.save(history);
-            log.info("History created: {} - {} - {}", actionType, entityType, entityCode);
+            // Serialized here: the snapshot must not change once the caller carries on
+            String oldValues = oldObject != null ? objectMapper.writeValueAsString(oldObject) : null;
+            String newValues = newObject != null ? objectMapper.writeValueAsString(newObject) : null;
+
+            auditLogWriter.append(new AuditLogWriter.AuditEvent(LocalDateTime.now(), actionType, entityType,
+                    entityId, entityCode, entityName, user != null ? user.getId() : null, description,
+                    oldValues, newValues, getClientIpAddress(), getUserAgent()));
+            log.debug("History queued: {} - {} - {}", actionType, entityType, entityCode);
         } catch (JsonProcessingException e) {
             log.error("Error serializing objects for history", e);
         }
@@ -921,52 +912,131 @@ public class HistoryService {
 
     // ==================== HISTORY RETRIEVAL METHODS ====================
 
-    public List<HistoryResponse> getAllHistory() {
-        return historyRepository.findAll().stream()
-                .map(historyMapper::toResponse)
-                .collect(Collectors.toList());
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int MAX_GROUPED_DAYS = 366;
+
+    public HistoryPageResponse getAllHistory(String cursor, int limit) {
+        return findPage(null, null, null, null, null, null, cursor, limit);
     }
 
     public List<HistoryResponse> getRecentHistory(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return historyRepository.findRecent(pageable).stream()
-                .map(historyMapper::toResponse)
-                .collect(Collectors.toList());
+        return findPage(null, null, null, null, null, null, null, limit).getItems();
     }
 
-    public List<HistoryResponse> getHistoryByUser(Long userId) {
-        return historyRepository.findByUserIdOrderByTimestampDesc(userId).stream()
-                .map(historyMapper::toResponse)
-                .collect(Collectors.toList());
+    public HistoryPageResponse getHistoryByUser(Long userId, String cursor, int limit) {
+        return findPage(null, null, null, userId, null, null, cursor, limit);
     }
 
-    public List<HistoryResponse> getHistoryByEntity(String entityType, Long entityId) {
-        return historyRepository.findByEntityTypeAndEntityIdOrderByTimestampDesc(entityType, entityId).stream()
-                .map(historyMapper::toResponse)
-                .collect(Collectors.toList());
+    public HistoryPageResponse getHistoryByEntity(String entityType, Long entityId, String cursor, int limit) {
+        return findPage(entityType, entityId, null, null, null, null, cursor, limit);
     }
 
-    public List<HistoryResponse> getHistoryByDate(LocalDate date) {
-        return historyRepository.findByDate(date).stream()
-                .map(historyMapper::toResponse)
-                .collect(Collectors.toList());
+    public HistoryPageResponse getHistoryByDate(LocalDate date, String cursor, int limit) {
+        return findPage(null, null, null, null, date, date, cursor, limit);
     }
 
-    public Map<LocalDate, List<HistoryResponse>> getHistoryGroupedByDay() {
-        List<LocalDate> dates = historyRepository.findDistinctDates();
-        Map<LocalDate, List<HistoryResponse>> grouped = new HashMap<>();
+    public HistoryPageResponse searchHistory(String entityType, String actionType, Long userId, LocalDate date,
+                                             String cursor, int limit) {
+        return findPage(entityType, null, actionType, userId, date, date, cursor, limit);
+    }
 
-        for (LocalDate date : dates) {
-            grouped.put(date, getHistoryByDate(date));
+    /**
+     * Entries of the days in [from, to], newest day first, keeping the latest {@code perDay}
+     * entries of each day. One windowed query over the range.
+     */
+    public Map<LocalDate, List<HistoryResponse>> getHistoryGroupedByDay(LocalDate from, LocalDate to, int perDay) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (from.plusDays(MAX_GROUPED_DAYS).isBefore(to)) {
+            throw new IllegalArgumentException("Date range cannot exceed " + MAX_GROUPED_DAYS + " days");
         }
 
+        Map<LocalDate, List<HistoryResponse>> grouped = new LinkedHashMap<>();
+        for (History history : historyRepository.findLatestPerDay(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay(), clampLimit(perDay))) {
+            grouped.computeIfAbsent(history.getTimestamp().toLocalDate(), date -> new ArrayList<>())
+                    .add(historyMapper.toResponse(history));
+        }
         return grouped;
     }
 
-    public List<HistoryResponse> searchHistory(String entityType, String actionType, Long userId, LocalDate date) {
-        return historyRepository.searchHistory(entityType, actionType, userId, date).stream()
+    /**
+     * Entry counts by action type, entity type and user, computed in the database.
+     */
+    public Map<String, Object> getHistoryStats() {
+        Map<String, Long> actionTypeStats = new HashMap<>();
+        long totalEntries = 0;
+        for (Object[] row : historyRepository.countByActionType()) {
+            long count = ((Number) row[1]).longValue();
+            actionTypeStats.merge(historyMapper.getActionTypeLabel((String) row[0]), count, Long::sum);
+            totalEntries += count;
+        }
+
+        Map<String, Long> entityTypeStats = new HashMap<>();
+        for (Object[] row : historyRepository.countByEntityType()) {
+            entityTypeStats.merge(historyMapper.getEntityTypeLabel((String) row[0]), ((Number) row[1]).longValue(), Long::sum);
+        }
+
+        Map<String, Long> userStats = new HashMap<>();
+        for (Object[] row : historyRepository.countByUser()) {
+            userStats.merge(row[0] + " " + row[1], ((Number) row[2]).longValue(), Long::sum);
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalEntries", totalEntries);
+        stats.put("byActionType", actionTypeStats);
+        stats.put("byEntityType", entityTypeStats);
+        stats.put("byUser", userStats);
+        stats.put("auditWriter", auditLogWriter.getStats());
+        return stats;
+    }
+
+    private HistoryPageResponse findPage(String entityType, Long entityId, String actionType, Long userId,
+                                         LocalDate fromDate, LocalDate toDate, String cursor, int limit) {
+        int pageSize = clampLimit(limit);
+        HistoryCursor after = cursor != null && !cursor.isBlank() ? decodeCursor(cursor) : null;
+
+        // One extra row tells whether there is a next page
+        List<History> rows = historyRepository.findPage(entityType, entityId, actionType, userId,
+                fromDate != null ? fromDate.atStartOfDay() : null,
+                toDate != null ? toDate.plusDays(1).atStartOfDay() : null,
+                after != null ? after.timestamp() : null, after != null ? after.id() : null,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<History> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+
+        List<HistoryResponse> items = page.stream()
                 .map(historyMapper::toResponse)
                 .collect(Collectors.toList());
+        return new HistoryPageResponse(items, nextCursor, hasMore);
+    }
+
+    private static int clampLimit(int limit) {
+        if (limit <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static String encodeCursor(History history) {
+        String raw = history.getTimestamp() + "_" + history.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static HistoryCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('_');
+            return new HistoryCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private record HistoryCursor(LocalDateTime timestamp, Long id) {
     }
 
     // In HistoryService.java - Add this method
@@ -2,6 +2,7 @@ package com.example.back.service;
 
 import com.example.back.entity.User;
 import com.example.back.repository.UserRepository;
+import com.example.back.security.services.PrincipalCache;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -13,12 +14,15 @@ public class LoginAttemptService {
 
     private final EmailService emailService;
 
+    private final PrincipalCache principalCache;
+
     private static final int MAX_FAILED_ATTEMPTS = 3;
     private static final int LOCK_TIME_MINUTES = 15;
 
-    public LoginAttemptService(UserRepository userRepository, EmailService emailService) {
+    public LoginAttemptService(UserRepository userRepository, EmailService emailService, PrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.emailService = emailService;
+        this.principalCache = principalCache;
     }
 
     public void loginFailed(String usernameOrEmail) {
@@ -53,6 +57,9 @@ public class LoginAttemptService {
             }
 
             userRepository.save(user);
+            if (failedAttempts >= MAX_FAILED_ATTEMPTS) {
+                principalCache.evict(user.getUsername());
+            }
         }
     }
 
@@ -62,6 +69,7 @@ public class LoginAttemptService {
             user.setFailedLoginAttempts(0);
             user.setAccountLockedUntil(null);
             userRepository.save(user);
+            principalCache.evict(user.getUsername());
         }
     }
 
@@ -12,7 +12,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.example.back.payload.response.MailStatsResponse.GroupMailStats;
@@ -305,9 +307,23 @@ public class MailGroupService {
     }
 
 
+    /**
+     * Mail counts of every group the user can see, read for all the groups in one grouped query.
+     */
     public List<GroupMailStats> getGroupMailStats(User user) {
         List<MailGroup> groups = findGroupsForUserWithAccess(user);
         List<GroupMailStats> stats = new ArrayList<>();
+        if (groups.isEmpty()) {
+            return stats;
+        }
+
+        // [mailCount, unreadCountForUser] by group identifier
+        Map<String, long[]> countsByIdentifier = new HashMap<>();
+        List<String> identifiers = groups.stream().map(group -> "GROUP:" + group.getName()).toList();
+        for (Object[] row : mailRepository.countMailsByGroupRecipients(identifiers, user.getId())) {
+            countsByIdentifier.put((String) row[0],
+                    new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+        }
 
         for (MailGroup group : groups) {
             GroupMailStats groupStat = new GroupMailStats();
@@ -316,15 +332,9 @@ public class MailGroupService {
             groupStat.setSystem(group.getIsSystem());
             groupStat.setMembersCount(group.getMembers().size());
 
-            String groupIdentifier = "GROUP:" + group.getName();
-
-            // Count total mails sent to this group
-            long totalMails = mailRepository.countMailsByGroupRecipient(groupIdentifier);
-            groupStat.setTotalMails(totalMails);
-
-            // Count unread mails for this user in this group
-            long unreadMails = mailRepository.countUnreadMailsByGroupForUser(groupIdentifier, user);
-            groupStat.setUnreadMails(unreadMails);
+            long[] counts = countsByIdentifier.getOrDefault("GROUP:" + group.getName(), new long[2]);
+            groupStat.setTotalMails(counts[0]);
+            groupStat.setUnreadMails(counts[1]);
 
             stats.add(groupStat);
         }
@@ -4,6 +4,7 @@ import com.example.back.entity.*;
 import com.example.back.payload.request.MailActionRequest;
 import com.example.back.payload.request.MailDraftRequest;
 import com.example.back.payload.request.MailRequest;
+import com.example.back.payload.response.MailBatchActionResponse;
 import com.example.back.payload.response.MailDraftResponse;
 import com.example.back.payload.response.MailResponse;
 import com.example.back.payload.response.MailStatsResponse;
@@ -13,7 +14,6 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -23,11 +23,11 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -55,10 +55,14 @@ public class MailService {
 
     private final MailGroupRepository groupRepository;
 
-    @Value("${app.upload.dir:${user.home}/uploads/mails}")
-    private String uploadDir;
+    private final MailboxCounterService counterService;
 
-    public MailService(MailAttachmentRepository attachmentRepository, MailRepository mailRepository, MailRecipientRepository recipientRepository, MailDraftRepository draftRepository, MailGroupRepository groupRepository, UserRepository userRepository, MailDraftAttachmentRepository draftAttachmentRepository, ObjectMapper objectMapper, MailFolderService folderService, MailMapper mailMapper, MailGroupService groupService) {
+    private final AttachmentStorageService attachmentStorage;
+
+    // Mail ids per bulk UPDATE, keeps the IN list well below driver parameter limits
+    static final int BATCH_CHUNK_SIZE = 500;
+
+    public MailService(MailAttachmentRepository attachmentRepository, MailRepository mailRepository, MailRecipientRepository recipientRepository, MailDraftRepository draftRepository, MailGroupRepository groupRepository, UserRepository userRepository, MailDraftAttachmentRepository draftAttachmentRepository, ObjectMapper objectMapper, MailFolderService folderService, MailMapper mailMapper, MailGroupService groupService, MailboxCounterService counterService, AttachmentStorageService attachmentStorage) {
         this.attachmentRepository = attachmentRepository;
         this.mailRepository = mailRepository;
         this.recipientRepository = recipientRepository;
@@ -70,6 +74,8 @@ public class MailService {
         this.folderService = folderService;
         this.mailMapper = mailMapper;
         this.groupService = groupService;
+        this.counterService = counterService;
+        this.attachmentStorage = attachmentStorage;
     }
 
     // ============= SEND EMAIL =============
@@ -146,6 +152,7 @@ public class MailService {
 
         log.info("Total recipients to save: {}", allRecipients.size());
         recipientRepository.saveAll(allRecipients);
+        counterService.recordAdded(allRecipients);
         log.info("Recipients saved successfully");
 
         savedMail.setRecipients(allRecipients);
@@ -468,29 +475,18 @@ public class MailService {
     private List<MailAttachment> saveAttachments(Mail mail, List<MultipartFile> files) throws IOException {
         List<MailAttachment> attachments = new ArrayList<>();
 
-        // Create upload directory if it doesn't exist
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-
         for (MultipartFile file : files) {
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String filename = UUID.randomUUID().toString() + extension;
-
-            // Save file
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath);
+            // Identical content is stored once and shared
+            AttachmentStorageService.StoredBlob blob = attachmentStorage.store(file);
 
             // Create attachment entity
             MailAttachment attachment = new MailAttachment();
             attachment.setMail(mail);
-            attachment.setFileName(originalFilename);
+            attachment.setFileName(file.getOriginalFilename());
             attachment.setFileType(file.getContentType());
-            attachment.setFileSize(file.getSize());
-            attachment.setFilePath(filePath.toString());
+            attachment.setFileSize(blob.size());
+            attachment.setFilePath(blob.path().toString());
+            attachment.setBlobHash(blob.sha256());
 
             attachments.add(attachment);
         }
@@ -502,9 +498,14 @@ public class MailService {
 
     @Transactional
     public MailDraft saveDraft(MailDraft draft, User user) {
+        boolean created = draft.getId() == null;
         draft.setUser(user);
         draft.setLastSavedAt(LocalDateTime.now());
-        return draftRepository.save(draft);
+        MailDraft savedDraft = draftRepository.save(draft);
+        if (created) {
+            counterService.recordDrafts(user.getEmail(), 1);
+        }
+        return savedDraft;
     }
 
     // ============= GET INBOX =============
@@ -571,13 +572,18 @@ public class MailService {
         }
 
         // Mark as read if user is recipient
-        mail.getRecipients().stream()
-                .filter(r -> r.getEmail() != null && r.getEmail().equals(userEmail) && !r.getIsRead())
+        List<MailRecipient> mailboxRows = mail.getRecipients().stream()
+                .filter(r -> r.getEmail() != null && r.getEmail().equals(userEmail))
+                .toList();
+        mailboxRows.stream()
+                .filter(r -> !r.getIsRead())
                 .findFirst()
                 .ifPresent(recipient -> {
+                    MailboxCounterService.Contribution before = MailboxCounterService.Contribution.of(mailboxRows);
                     recipient.setIsRead(true);
                     recipient.setReadAt(LocalDateTime.now());
                     recipientRepository.save(recipient);
+                    counterService.recordChange(userEmail, before, MailboxCounterService.Contribution.of(mailboxRows));
                 });
 
         return mailMapper.toResponse(mail, userEmail);
@@ -586,133 +592,149 @@ public class MailService {
     // ============= SEARCH MAILS =============
 
     public Page<MailResponse> searchMails(String userEmail, String searchTerm, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("sentAt").descending());
-        Page<Mail> mails = mailRepository.searchByUserEmail(userEmail, searchTerm, pageable);
+        // The query orders by relevance itself, so the page carries no sort
+        Pageable pageable = PageRequest.of(page, size);
+        String tsQuery = toPrefixTsQuery(searchTerm);
+        if (tsQuery == null) {
+            return Page.empty(pageable);
+        }
+        Page<Mail> mails = mailRepository.searchByUserEmail(userEmail, tsQuery, pageable);
         return mails.map(mail -> mailMapper.toResponse(mail, userEmail));
     }
 
+    /**
+     * Turns free text into a {@code to_tsquery} expression where every word must match as a
+     * prefix ("fact mars" becomes {@code fact:* & mars:*}), so partial words still find mails
+     * as they did with the former LIKE search. Operators typed by the user are dropped.
+     *
+     * @return null when the text holds no searchable word
+     */
+    static String toPrefixTsQuery(String searchTerm) {
+        if (searchTerm == null) return null;
+        StringJoiner query = new StringJoiner(" & ");
+        for (String word : searchTerm.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                query.add(word + ":*");
+            }
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+
     // ============= BATCH ACTIONS =============
 
+    /**
+     * Applies one action to all the selected mails with set-based updates of the caller's
+     * recipient rows, {@value #BATCH_CHUNK_SIZE} mails per statement, and adjusts the mailbox
+     * counters by the rows that actually changed.
+     */
     @Transactional
-    public void performBatchAction(MailActionRequest request, String userEmail) {
-        for (Long mailId : request.getMailIds()) {
+    public MailBatchActionResponse performBatchAction(MailActionRequest request, String userEmail) {
+        String action = request.getAction() != null ? request.getAction().toUpperCase(Locale.ROOT) : null;
+        Consumer<MailRecipient> change = batchChange(action);
+        if (change == null) {
+            throw new IllegalArgumentException("Unknown action: " + request.getAction());
+        }
 
-            switch (request.getAction()) {
-                case "READ":
-                    markAsRead(mailId, userEmail);
-                    break;
-                case "UNREAD":
-                    markAsUnread(mailId, userEmail);
-                    break;
-                case "STAR":
-                    setStarred(mailId, userEmail, true);
-                    break;
-                case "UNSTAR":
-                    setStarred(mailId, userEmail, false);
-                    break;
-                case "ARCHIVE":
-                    setArchived(mailId, userEmail, true);
-                    break;
-                case "UNARCHIVE":
-                    setArchived(mailId, userEmail, false);
-                    break;
-                case "DELETE":
-                    moveToTrash(mailId, userEmail);
-                    break;
-                case "RESTORE":
-                    restoreFromTrash(mailId, userEmail);
-                    break;
-                default:
-                    log.warn("Unknown action: {}", request.getAction());
-            }
+        List<Long> mailIds = request.getMailIds() == null ? List.of()
+                : request.getMailIds().stream().filter(Objects::nonNull).distinct().toList();
+        LocalDateTime now = LocalDateTime.now();
+        int affected = 0;
+        for (int from = 0; from < mailIds.size(); from += BATCH_CHUNK_SIZE) {
+            List<Long> chunk = mailIds.subList(from, Math.min(from + BATCH_CHUNK_SIZE, mailIds.size()));
+            List<Object[]> states = recipientRepository.findStatesByEmailAndMailIds(userEmail, chunk);
+            if (states.isEmpty()) continue;
+
+            affected += switch (action) {
+                case "READ" -> recipientRepository.bulkSetRead(userEmail, chunk, true, now);
+                case "UNREAD" -> recipientRepository.bulkSetRead(userEmail, chunk, false, null);
+                case "STAR" -> recipientRepository.bulkSetStarred(userEmail, chunk, true);
+                case "UNSTAR" -> recipientRepository.bulkSetStarred(userEmail, chunk, false);
+                case "ARCHIVE" -> recipientRepository.bulkSetArchived(userEmail, chunk, true);
+                case "UNARCHIVE" -> recipientRepository.bulkSetArchived(userEmail, chunk, false);
+                case "DELETE" -> recipientRepository.bulkSetDeleted(userEmail, chunk, true);
+                case "RESTORE" -> recipientRepository.bulkSetDeleted(userEmail, chunk, false);
+                default -> 0;
+            };
+            counterService.recordBulkChange(userEmail, states, change);
         }
+
+        log.info("Batch action {} on {} mails changed {} rows for {}", action, mailIds.size(), affected, userEmail);
+        return new MailBatchActionResponse(action, mailIds.size(), affected,
+                counterService.getCounters(userEmail).getUnreadCount());
+    }
+
+    // The flag change each batch action makes, as applied to a single recipient row
+    private static Consumer<MailRecipient> batchChange(String action) {
+        if (action == null) return null;
+        return switch (action) {
+            case "READ" -> r -> r.setIsRead(true);
+            case "UNREAD" -> r -> r.setIsRead(false);
+            case "STAR" -> r -> r.setIsStarred(true);
+            case "UNSTAR" -> r -> r.setIsStarred(false);
+            case "ARCHIVE" -> r -> r.setIsArchived(true);
+            case "UNARCHIVE" -> r -> r.setIsArchived(false);
+            case "DELETE" -> r -> r.setIsDeleted(true);
+            case "RESTORE" -> r -> r.setIsDeleted(false);
+            default -> null;
+        };
     }
 
     // ============= INDIVIDUAL ACTIONS =============
 
     @Transactional
     public void markAsRead(Long mailId, String userEmail) {
-        Mail mail = mailRepository.findById(mailId)
-                .orElseThrow(() -> new RuntimeException("Mail not found"));
-
-        mail.getRecipients().stream()
-                .filter(r -> r.getEmail().equals(userEmail))
-                .findFirst()
-                .ifPresent(recipient -> {
-                    recipient.setIsRead(true);
-                    recipient.setReadAt(LocalDateTime.now());
-                    recipientRepository.save(recipient);
-                });
+        updateRecipient(mailId, userEmail, recipient -> {
+            recipient.setIsRead(true);
+            recipient.setReadAt(LocalDateTime.now());
+        });
     }
 
     @Transactional
     public void markAsUnread(Long mailId, String userEmail) {
-        Mail mail = mailRepository.findById(mailId)
-                .orElseThrow(() -> new RuntimeException("Mail not found"));
-
-        mail.getRecipients().stream()
-                .filter(r -> r.getEmail().equals(userEmail))
-                .findFirst()
-                .ifPresent(recipient -> {
-                    recipient.setIsRead(false);
-                    recipient.setReadAt(null);
-                    recipientRepository.save(recipient);
-                });
+        updateRecipient(mailId, userEmail, recipient -> {
+            recipient.setIsRead(false);
+            recipient.setReadAt(null);
+        });
     }
 
     @Transactional
     public void setStarred(Long mailId, String userEmail, boolean starred) {
-        Mail mail = mailRepository.findById(mailId)
-                .orElseThrow(() -> new RuntimeException("Mail not found"));
-
-        mail.getRecipients().stream()
-                .filter(r -> r.getEmail().equals(userEmail))
-                .findFirst()
-                .ifPresent(recipient -> {
-                    recipient.setIsStarred(starred);
-                    recipientRepository.save(recipient);
-                });
+        updateRecipient(mailId, userEmail, recipient -> recipient.setIsStarred(starred));
     }
 
     @Transactional
     public void setArchived(Long mailId, String userEmail, boolean archived) {
-        Mail mail = mailRepository.findById(mailId)
-                .orElseThrow(() -> new RuntimeException("Mail not found"));
-
-        mail.getRecipients().stream()
-                .filter(r -> r.getEmail().equals(userEmail))
-                .findFirst()
-                .ifPresent(recipient -> {
-                    recipient.setIsArchived(archived);
-                    recipientRepository.save(recipient);
-                });
+        updateRecipient(mailId, userEmail, recipient -> recipient.setIsArchived(archived));
     }
 
     @Transactional
     public void moveToTrash(Long mailId, String userEmail) {
-        Mail mail = mailRepository.findById(mailId)
-                .orElseThrow(() -> new RuntimeException("Mail not found"));
-
-        mail.getRecipients().stream()
-                .filter(r -> r.getEmail().equals(userEmail))
-                .findFirst()
-                .ifPresent(recipient -> {
-                    recipient.setIsDeleted(true);
-                    recipientRepository.save(recipient);
-                });
+        updateRecipient(mailId, userEmail, recipient -> recipient.setIsDeleted(true));
     }
 
     @Transactional
     public void restoreFromTrash(Long mailId, String userEmail) {
+        updateRecipient(mailId, userEmail, recipient -> recipient.setIsDeleted(false));
+    }
+
+    /**
+     * Applies a flag change to the user's recipient row of the mail and to their mailbox counters,
+     * which weigh it against the user's other rows of the same mail.
+     */
+    private void updateRecipient(Long mailId, String userEmail, Consumer<MailRecipient> change) {
         Mail mail = mailRepository.findById(mailId)
                 .orElseThrow(() -> new RuntimeException("Mail not found"));
 
-        mail.getRecipients().stream()
+        List<MailRecipient> mailboxRows = mail.getRecipients().stream()
                 .filter(r -> r.getEmail().equals(userEmail))
+                .toList();
+        mailboxRows.stream()
                 .findFirst()
                 .ifPresent(recipient -> {
-                    recipient.setIsDeleted(false);
+                    MailboxCounterService.Contribution before = MailboxCounterService.Contribution.of(mailboxRows);
+                    change.accept(recipient);
                     recipientRepository.save(recipient);
+                    counterService.recordChange(userEmail, before, MailboxCounterService.Contribution.of(mailboxRows));
                 });
     }
 
@@ -728,18 +750,19 @@ public class MailService {
                 .orElseThrow(() -> new RuntimeException("Mail not found"));
 
         // Remove this recipient's association
-        mail.getRecipients().removeIf(r -> r.getEmail().equals(userEmail));
+        List<MailRecipient> removed = mail.getRecipients().stream()
+                .filter(r -> r.getEmail().equals(userEmail))
+                .toList();
+        mail.getRecipients().removeAll(removed);
+        recipientRepository.deleteAll(removed);
+        counterService.recordRemoved(removed);
 
         // If no recipients left, delete the mail entirely
         if (mail.getRecipients().isEmpty()) {
             // Delete attachments
             if (mail.getAttachments() != null) {
                 for (MailAttachment attachment : mail.getAttachments()) {
-                    try {
-                        Files.deleteIfExists(Paths.get(attachment.getFilePath()));
-                    } catch (IOException e) {
-                        log.error("Failed to delete attachment file: {}", attachment.getFilePath(), e);
-                    }
+                    releaseAttachmentFile(attachment.getBlobHash(), attachment.getFilePath());
                 }
             }
             mailRepository.delete(mail);
@@ -775,6 +798,7 @@ public class MailService {
 
         // Save draft first
         MailDraft savedDraft = draftRepository.save(draft);
+        counterService.recordDrafts(user.getEmail(), 1);
 
         // Handle attachments
         if (files != null && !files.isEmpty()) {
@@ -790,29 +814,17 @@ public class MailService {
     private List<MailDraftAttachment> saveDraftAttachments(MailDraft draft, List<MultipartFile> files) throws IOException {
         List<MailDraftAttachment> attachments = new ArrayList<>();
 
-        // Create upload directory if it doesn't exist
-        Path uploadPath = Paths.get(uploadDir + "/drafts");
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-
         for (MultipartFile file : files) {
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String filename = "draft_" + UUID.randomUUID().toString() + extension;
-
-            // Save file
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath);
+            AttachmentStorageService.StoredBlob blob = attachmentStorage.store(file);
 
             // Create attachment entity
             MailDraftAttachment attachment = new MailDraftAttachment();
             attachment.setDraft(draft);
-            attachment.setFileName(originalFilename);
+            attachment.setFileName(file.getOriginalFilename());
             attachment.setFileType(file.getContentType());
-            attachment.setFileSize(file.getSize());
-            attachment.setFilePath(filePath.toString());
+            attachment.setFileSize(blob.size());
+            attachment.setFilePath(blob.path().toString());
+            attachment.setBlobHash(blob.sha256());
 
             attachments.add(attachment);
         }
@@ -876,15 +888,28 @@ public class MailService {
         // Delete physical files
         if (draft.getAttachments() != null) {
             for (MailDraftAttachment attachment : draft.getAttachments()) {
-                try {
-                    Files.deleteIfExists(Paths.get(attachment.getFilePath()));
-                } catch (IOException e) {
-                    log.error("Failed to delete draft attachment: {}", attachment.getFilePath(), e);
-                }
+                releaseAttachmentFile(attachment.getBlobHash(), attachment.getFilePath());
             }
         }
 
         draftRepository.delete(draft);
+        counterService.recordDrafts(user.getEmail(), -1);
+    }
+
+    /**
+     * Stored attachments give back their blob reference; files saved before the
+     * attachment store belong to a single row and are deleted directly.
+     */
+    private void releaseAttachmentFile(String blobHash, String filePath) {
+        if (blobHash != null) {
+            attachmentStorage.release(blobHash);
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(filePath));
+        } catch (IOException e) {
+            log.error("Failed to delete attachment file: {}", filePath, e);
+        }
     }
 
     // ============= GET DRAFTS WITH RECIPIENTS PARSED =============
@@ -971,6 +996,11 @@ public class MailService {
         return folderService.getMailsForGroup(groupId, user, page, size);
     }
 
+    /**
+     * Folder and draft counts are the mailbox's counter row. Group statistics depend on group
+     * membership, which the counters do not follow, so they are still counted on each call:
+     * two totals for the user and one grouped query over their groups.
+     */
     public MailStatsResponse getStats(String userEmail) {
         MailStatsResponse stats = new MailStatsResponse();
 
@@ -978,14 +1008,14 @@ public class MailService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         // Regular mail stats
-        stats.setInboxCount(mailRepository.findInboxByRecipientEmail(userEmail, Pageable.unpaged()).getTotalElements());
-        stats.setUnreadCount(mailRepository.countUnreadByRecipientEmail(userEmail));
-        stats.setSentCount(mailRepository.findBySenderEmailAndIsDeletedFalseOrderBySentAtDesc(userEmail, Pageable.unpaged()).getTotalElements());
-        stats.setStarredCount(mailRepository.findStarredByUserEmail(userEmail, Pageable.unpaged()).getTotalElements());
-        stats.setArchivedCount(mailRepository.findArchivedByUserEmail(userEmail, Pageable.unpaged()).getTotalElements());
-        stats.setTrashCount(mailRepository.findTrashByUserEmail(userEmail, Pageable.unpaged()).getTotalElements());
-
-        stats.setDraftCount(draftRepository.countByUser(user));
+        MailboxCounter counters = counterService.getCounters(userEmail);
+        stats.setInboxCount(counters.getInboxCount());
+        stats.setUnreadCount(counters.getUnreadCount());
+        stats.setSentCount(counters.getSentCount());
+        stats.setStarredCount(counters.getStarredCount());
+        stats.setArchivedCount(counters.getArchivedCount());
+        stats.setTrashCount(counters.getTrashCount());
+        stats.setDraftCount(counters.getDraftCount());
 
         // Group statistics (counts of groups)
         long systemGroupsCount = groupRepository.countByIsSystemTrue();
@@ -1001,7 +1031,7 @@ public class MailService {
         stats.setGroupMailsCount(totalGroupMails);
         stats.setUnreadGroupMailsCount(unreadGroupMails);
 
-        // Detailed per-group statistics (optional)
+        // Detailed per-group statistics
         List<MailStatsResponse.GroupMailStats> groupStats = groupService.getGroupMailStats(user);
         stats.setGroupStats(groupStats);
 
@@ -0,0 +1,198 @@
+package com.example.back.service;
+
+import com.example.back.entity.MailRecipient;
+import com.example.back.entity.MailboxCounter;
+import com.example.back.repository.MailboxCounterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Per-mailbox folder counters (inbox, unread, sent, starred, archived, trash) and draft counts.
+ *
+ * Every change to a recipient row goes through {@link #recordChange}, {@link #recordAdded} or
+ * {@link #recordRemoved}, and every draft created or deleted through {@link #recordDrafts},
+ * which apply the difference with an atomic upsert in the caller's transaction. Like the
+ * listings, a folder counts a mail once even when several of the mailbox's rows put it there
+ * (an address in both To and Cc, a mail sent to oneself). A nightly rebuild from
+ * mail_recipients and mail_drafts corrects any drift, and fills the table the first time the
+ * application starts with it empty.
+ */
+@Service
+@Slf4j
+public class MailboxCounterService {
+
+    private final MailboxCounterRepository counterRepository;
+
+    private final ChatCacheInvalidator chatCacheInvalidator;
+
+    public MailboxCounterService(MailboxCounterRepository counterRepository, ChatCacheInvalidator chatCacheInvalidator) {
+        this.counterRepository = counterRepository;
+        this.chatCacheInvalidator = chatCacheInvalidator;
+    }
+
+    /**
+     * What one recipient row contributes to its mailbox's counters, each 0 or 1.
+     * Mirrors the folder rules of {@code MailRepository}.
+     */
+    public record Contribution(int inbox, int unread, int sent, int starred, int archived, int trash) {
+
+        static final Contribution NONE = new Contribution(0, 0, 0, 0, 0, 0);
+
+        /**
+         * What a mailbox's rows of one mail contribute together: each folder lists the mail once.
+         */
+        public static Contribution of(Collection<MailRecipient> rows) {
+            Contribution total = NONE;
+            for (MailRecipient row : rows) {
+                total = total.max(of(row));
+            }
+            return total;
+        }
+
+        public static Contribution of(MailRecipient recipient) {
+            boolean deleted = Boolean.TRUE.equals(recipient.getIsDeleted());
+            boolean archived = Boolean.TRUE.equals(recipient.getIsArchived());
+            boolean sentCopy = "FROM".equals(recipient.getType());
+            boolean inInbox = !sentCopy && !deleted && !archived;
+            return new Contribution(
+                    inInbox ? 1 : 0,
+                    inInbox && !Boolean.TRUE.equals(recipient.getIsRead()) ? 1 : 0,
+                    sentCopy && !deleted ? 1 : 0,
+                    Boolean.TRUE.equals(recipient.getIsStarred()) && !deleted ? 1 : 0,
+                    archived && !deleted ? 1 : 0,
+                    deleted ? 1 : 0);
+        }
+
+        Contribution max(Contribution other) {
+            return new Contribution(Math.max(inbox, other.inbox), Math.max(unread, other.unread),
+                    Math.max(sent, other.sent), Math.max(starred, other.starred),
+                    Math.max(archived, other.archived), Math.max(trash, other.trash));
+        }
+
+        Contribution plus(Contribution other) {
+            return new Contribution(inbox + other.inbox, unread + other.unread, sent + other.sent,
+                    starred + other.starred, archived + other.archived, trash + other.trash);
+        }
+
+        Contribution minus(Contribution other) {
+            return new Contribution(inbox - other.inbox, unread - other.unread, sent - other.sent,
+                    starred - other.starred, archived - other.archived, trash - other.trash);
+        }
+    }
+
+    /**
+     * Applies a flag change to a mailbox's rows of one mail; {@code before} and {@code after}
+     * are {@link Contribution#of(Collection)} of those rows around the change.
+     */
+    public void recordChange(String email, Contribution before, Contribution after) {
+        apply(email, after.minus(before));
+    }
+
+    /**
+     * Counts the newly created recipient rows of one mail, one upsert per mailbox.
+     */
+    public void recordAdded(Collection<MailRecipient> recipients) {
+        byEmail(recipients).forEach((email, rows) -> apply(email, Contribution.of(rows)));
+    }
+
+    /**
+     * Uncounts removed recipient rows of one mail; each mailbox must lose all its rows of the mail.
+     */
+    public void recordRemoved(Collection<MailRecipient> recipients) {
+        byEmail(recipients).forEach((email, rows) -> apply(email, Contribution.NONE.minus(Contribution.of(rows))));
+    }
+
+    /**
+     * Applies a set-based change to many recipient rows of one mailbox.
+     *
+     * @param states the rows' state before the change, as returned by
+     *               {@code MailRecipientRepository.findStatesByEmailAndMailIds}
+     * @param change the flag change the bulk update applies to each row
+     */
+    public void recordBulkChange(String email, List<Object[]> states, Consumer<MailRecipient> change) {
+        Map<Long, List<MailRecipient>> rowsByMail = new LinkedHashMap<>();
+        for (Object[] state : states) {
+            MailRecipient row = new MailRecipient();
+            row.setType((String) state[1]);
+            row.setIsRead((Boolean) state[2]);
+            row.setIsStarred((Boolean) state[3]);
+            row.setIsArchived((Boolean) state[4]);
+            row.setIsDeleted((Boolean) state[5]);
+            rowsByMail.computeIfAbsent((Long) state[0], id -> new ArrayList<>()).add(row);
+        }
+
+        Contribution delta = Contribution.NONE;
+        for (List<MailRecipient> rows : rowsByMail.values()) {
+            Contribution before = Contribution.of(rows);
+            rows.forEach(change);
+            delta = delta.plus(Contribution.of(rows).minus(before));
+        }
+        apply(email, delta);
+    }
+
+    /**
+     * Counts drafts created ({@code delta > 0}) or deleted ({@code delta < 0}) by the mailbox's user.
+     */
+    public void recordDrafts(String email, long delta) {
+        if (email == null || delta == 0) return;
+        counterRepository.addDraftDelta(email, delta);
+        chatCacheInvalidator.invalidateAfterCommit("mailbox_counters");
+    }
+
+    /**
+     * The mailbox's counters; an address that never received anything reads as all zeros.
+     */
+    public MailboxCounter getCounters(String email) {
+        return counterRepository.findByEmail(email).orElseGet(() -> {
+            MailboxCounter empty = new MailboxCounter();
+            empty.setEmail(email);
+            return empty;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeCounters() {
+        if (counterRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(cron = "${app.mail.counters.rebuild-cron:0 45 2 * * *}")
+    public void rebuild() {
+        try {
+            int mailboxes = counterRepository.rebuildAll();
+            int withDrafts = counterRepository.rebuildDraftCounts();
+            int orphans = counterRepository.deleteOrphans();
+            chatCacheInvalidator.invalidateAfterCommit("mailbox_counters");
+            log.info("Mailbox counters rebuilt for {} mailboxes and {} with drafts ({} emptied mailboxes removed)",
+                    mailboxes, withDrafts, orphans);
+        } catch (Exception e) {
+            log.error("❌ Failed to rebuild mailbox counters: {}", e.getMessage());
+        }
+    }
+
+    private static Map<String, List<MailRecipient>> byEmail(Collection<MailRecipient> recipients) {
+        Map<String, List<MailRecipient>> byEmail = new LinkedHashMap<>();
+        for (MailRecipient recipient : recipients) {
+            byEmail.computeIfAbsent(recipient.getEmail(), e -> new ArrayList<>()).add(recipient);
+        }
+        return byEmail;
+    }
+
+    private void apply(String email, Contribution delta) {
+        if (email == null || delta.equals(Contribution.NONE)) return;
+        counterRepository.addDeltas(email, delta.inbox(), delta.unread(), delta.sent(),
+                delta.starred(), delta.archived(), delta.trash());
+        chatCacheInvalidator.invalidateAfterCommit("mailbox_counters");
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.back.service;
+
+import com.example.back.config.AsyncConfig;
+import com.example.back.entity.*;
+import com.example.back.repository.FactureRepository;
+import com.example.back.repository.NotificationOutboxRepository;
+import com.example.back.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent outbox for notification delivery (WebSocket push, internal mail, SMS).
+ *
+ * {@link #enqueue(Notification)} writes one entry per channel in the caller's transaction.
+ * A poller claims due entries in batches per channel and hands them to that channel's
+ * executor (see {@link AsyncConfig}), whose pool size is the channel's concurrency limit. Delivery runs outside any transaction;
+ * failures are retried with exponential backoff until {@code maxAttempts} is reached.
+ */
+@Service
+@Slf4j
+public class NotificationOutboxService {
+
+    // Claims older than this are considered abandoned and handed out again
+    private static final Duration STALE_CLAIM = Duration.ofMinutes(30);
+
+    private final NotificationOutboxRepository outboxRepository;
+
+    private final NotificationRepository notificationRepository;
+
+    private final FactureRepository factureRepository;
+
+    private final MailService mailService;
+
+    private final SmsService smsService;
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Value("${app.notifications.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.notifications.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.notifications.outbox.backoff-seconds:30}")
+    private long backoffSeconds;
+
+    @Value("${app.notifications.outbox.max-backoff-minutes:60}")
+    private long maxBackoffMinutes;
+
+    // Pause before each SMS, the provider throttles bursts
+    @Value("${app.notifications.outbox.sms.interval-ms:9000}")
+    private long smsIntervalMs;
+
+    private final Map<NotificationChannel, Executor> workers = new EnumMap<>(NotificationChannel.class);
+
+    private final Map<NotificationChannel, AtomicInteger> inFlight = new EnumMap<>(NotificationChannel.class);
+
+    public NotificationOutboxService(NotificationOutboxRepository outboxRepository, NotificationRepository notificationRepository, FactureRepository factureRepository, MailService mailService, SmsService smsService, SimpMessagingTemplate messagingTemplate,
+                                     @Qualifier(AsyncConfig.WEBSOCKET_EXECUTOR) Executor websocketExecutor,
+                                     @Qualifier(AsyncConfig.EMAIL_EXECUTOR) Executor emailExecutor,
+                                     @Qualifier(AsyncConfig.SMS_EXECUTOR) Executor smsExecutor) {
+        this.outboxRepository = outboxRepository;
+        this.notificationRepository = notificationRepository;
+        this.factureRepository = factureRepository;
+        this.mailService = mailService;
+        this.smsService = smsService;
+        this.messagingTemplate = messagingTemplate;
+        workers.put(NotificationChannel.WEBSOCKET, websocketExecutor);
+        workers.put(NotificationChannel.EMAIL, emailExecutor);
+        workers.put(NotificationChannel.SMS, smsExecutor);
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            inFlight.put(channel, new AtomicInteger());
+        }
+    }
+
+    // ==================== WRITE SIDE ====================
+
+    /**
+     * Queues the real-time push and the channels the recipient opted into.
+     */
+    public void enqueue(Notification notification) {
+        List<NotificationOutbox> entries = new ArrayList<>();
+        entries.add(new NotificationOutbox(notification.getId(), NotificationChannel.WEBSOCKET));
+
+        String notifMode = notification.getUser() != null ? notification.getUser().getNotifMode() : null;
+        if ("email".equals(notifMode) || "both".equals(notifMode)) {
+            entries.add(new NotificationOutbox(notification.getId(), NotificationChannel.EMAIL));
+        }
+        if ("sms".equals(notifMode) || "both".equals(notifMode)) {
+            entries.add(new NotificationOutbox(notification.getId(), NotificationChannel.SMS));
+        }
+        outboxRepository.saveAll(entries);
+    }
+
+    // ==================== DISPATCH ====================
+
+    @Scheduled(fixedDelayString = "${app.notifications.outbox.poll-ms:5000}", scheduler = AsyncConfig.POLLER_SCHEDULER)
+    public void dispatchDue() {
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            int capacity = batchSize - inFlight.get(channel).get();
+            if (capacity <= 0) {
+                continue;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationOutbox> batch = outboxRepository.findDue(channel, now, PageRequest.of(0, capacity));
+            if (batch.isEmpty()) {
+                continue;
+            }
+            for (NotificationOutbox entry : batch) {
+                entry.setStatus(OutboxStatus.SENDING);
+                entry.setClaimedAt(now);
+            }
+            // Claims are committed before any worker can report back on them
+            outboxRepository.saveAll(batch);
+
+            log.debug("Dispatching {} {} notifications", batch.size(), channel);
+            for (NotificationOutbox entry : batch) {
+                inFlight.get(channel).incrementAndGet();
+                workers.get(channel).execute(() -> {
+                    try {
+                        process(entry);
+                    } finally {
+                        inFlight.get(channel).decrementAndGet();
+                    }
+                });
+            }
+        }
+    }
+
+    void process(NotificationOutbox entry) {
+        try {
+            Optional<Notification> notification = notificationRepository.findByIdWithUser(entry.getNotificationId());
+            if (notification.isEmpty()) {
+                finish(entry, OutboxStatus.CANCELLED, "Notification no longer exists");
+                return;
+            }
+            boolean delivered = deliver(entry.getChannel(), notification.get());
+            finish(entry, delivered ? OutboxStatus.SENT : OutboxStatus.CANCELLED,
+                    delivered ? null : "Nothing to send on this channel");
+        } catch (Exception e) {
+            reschedule(entry, e);
+        }
+    }
+
+    /**
+     * @return false when there is nothing to deliver on this channel
+     */
+    boolean deliver(NotificationChannel channel, Notification notification) throws InterruptedException {
+        switch (channel) {
+            case WEBSOCKET -> {
+                messagingTemplate.convertAndSendToUser(notification.getUser().getUsername(),
+                        "/queue/notifications", toRealtimePayload(notification));
+                return true;
+            }
+            case EMAIL -> {
+                Optional<Facture> facture = findFacture(notification);
+                if (facture.isEmpty()) return false;
+                mailService.sendFactureDueNotification(notification.getUser(), facture.get(), notification.getDaysUntilDue());
+                notificationRepository.markEmailSent(notification.getId(), LocalDateTime.now());
+                return true;
+            }
+            case SMS -> {
+                Optional<Facture> facture = findFacture(notification);
+                if (facture.isEmpty()) return false;
+                if (smsIntervalMs > 0) {
+                    Thread.sleep(smsIntervalMs);
+                }
+                return smsService.deliverNotificationSms(notification, facture.get(), notification.getDaysUntilDue());
+            }
+            default -> throw new IllegalArgumentException("Unknown channel " + channel);
+        }
+    }
+
+    /**
+     * Hands out again the entries whose worker never reported back.
+     */
+    public int requeueStaleClaims() {
+        int requeued = outboxRepository.requeueStale(LocalDateTime.now().minus(STALE_CLAIM));
+        if (requeued > 0) {
+            log.warn("Requeued {} notification deliveries left in progress", requeued);
+        }
+        return requeued;
+    }
+
+    public long countFailed() {
+        return outboxRepository.countByStatus(OutboxStatus.FAILED);
+    }
+
+    private void finish(NotificationOutbox entry, OutboxStatus status, String reason) {
+        entry.setStatus(status);
+        entry.setAttempts(entry.getAttempts() + 1);
+        entry.setLastError(reason);
+        entry.setClaimedAt(null);
+        if (status == OutboxStatus.SENT) {
+            entry.setSentAt(LocalDateTime.now());
+        }
+        outboxRepository.save(entry);
+    }
+
+    private void reschedule(NotificationOutbox entry, Exception error) {
+        if (error instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        entry.setClaimedAt(null);
+        entry.setLastError(truncate(error.getMessage()));
+        if (attempts >= maxAttempts) {
+            entry.setStatus(OutboxStatus.FAILED);
+            log.error("❌ Giving up {} delivery of notification {} after {} attempts: {}",
+                    entry.getChannel(), entry.getNotificationId(), attempts, error.getMessage());
+        } else {
+            entry.setStatus(OutboxStatus.PENDING);
+            entry.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+            log.warn("⚠️ {} delivery of notification {} failed (attempt {}), retrying at {}: {}",
+                    entry.getChannel(), entry.getNotificationId(), attempts, entry.getNextAttemptAt(), error.getMessage());
+        }
+        outboxRepository.save(entry);
+    }
+
+    Duration backoff(int attempts) {
+        long seconds = backoffSeconds << Math.min(attempts - 1, 20);
+        return Duration.ofSeconds(Math.min(seconds, maxBackoffMinutes * 60));
+    }
+
+    private Optional<Facture> findFacture(Notification notification) {
+        if (!notification.isFactureNotification() || notification.getDaysUntilDue() == null) {
+            return Optional.empty();
+        }
+        return factureRepository.findByIdWithAllRelations(notification.getReferenceId());
+    }
+
+    private Map<String, Object> toRealtimePayload(Notification notification) {
+        Map<String, Object> notificationDTO = new HashMap<>();
+        notificationDTO.put("id", notification.getId());
+        notificationDTO.put("title", notification.getTitle());
+        notificationDTO.put("message", notification.getMessage());
+        notificationDTO.put("type", notification.getType());
+        notificationDTO.put("notificationType", notification.getNotificationType());
+        notificationDTO.put("referenceId", notification.getReferenceId());
+        notificationDTO.put("referenceCode", notification.getReferenceCode());
+        notificationDTO.put("daysUntilDue", notification.getDaysUntilDue());
+        notificationDTO.put("createdAt", notification.getCreatedAt().toString());
+        notificationDTO.put("isRead", notification.getIsRead());
+        return notificationDTO;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return null;
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
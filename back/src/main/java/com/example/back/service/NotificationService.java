@@ -7,7 +7,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,19 +26,25 @@ public class NotificationService {
 
     private final FactureRepository factureRepository;
 
-    private final MailService mailService;
+    private final NotificationOutboxService outboxService;
 
-    private final SmsService smsService;
+    // Invoices are notified from NOTIFICATION_WINDOW_DAYS before their due date until as many days after it
+    static final int NOTIFICATION_WINDOW_DAYS = 5;
 
+    // Rescans within the same day overlap the previous one so no concurrent commit is missed
+    private static final long RESCAN_OVERLAP_SECONDS = 60;
 
-    private final SimpMessagingTemplate messagingTemplate; // For WebSocket real-time updates
+    private volatile LocalDate lastProcessedDay;
 
-    public NotificationService(NotificationRepository notificationRepository, FactureRepository factureRepository, MailService mailService, SmsService smsService, SimpMessagingTemplate messagingTemplate) {
+    private volatile LocalDateTime lastScanStartedAt;
+
+    record NotificationKey(Long factureId, int daysUntilDue) {
+    }
+
+    public NotificationService(NotificationRepository notificationRepository, FactureRepository factureRepository, NotificationOutboxService outboxService) {
         this.notificationRepository = notificationRepository;
         this.factureRepository = factureRepository;
-        this.mailService = mailService;
-        this.smsService = smsService;
-        this.messagingTemplate = messagingTemplate;
+        this.outboxService = outboxService;
     }
 
 
@@ -61,6 +66,10 @@ public class NotificationService {
             return existing.get();  // ← Ne crée pas de doublon
         }
 
+        return notifyRecipients(facture, daysUntilDue);
+    }
+
+    private Notification notifyRecipients(Facture facture, int daysUntilDue) {
         // Get the users who should receive this notification
         List<User> recipients = getFactureRecipients(facture);
 
@@ -116,11 +125,8 @@ public class NotificationService {
 
             log.info("Created notification ID {} for user {}", saved.getId(), user.getUsername());
 
-            // Send real-time notification via WebSocket
-            sendRealtimeNotification(saved);
-
-            // Send email/SMS based on user preferences
-            sendNotificationViaChannels(saved, facture, daysUntilDue);
+            // WebSocket push and email/SMS (based on user preferences) are delivered from the outbox
+            outboxService.enqueue(saved);
         }
 
         return firstNotification;
@@ -187,167 +193,77 @@ public class NotificationService {
     }
 
 
-    public void sendNotificationViaChannels(Notification notification, Facture facture, int daysUntilDue) {
-        User user = notification.getUser();
-        String notifMode = user.getNotifMode();
-
-        // Collecter tous les SMS à envoyer pour éviter les conflits
-        List<User> smsRecipients = new ArrayList<>();
-
-        if (notifMode.equals("sms") || notifMode.equals("both")) {
-            smsRecipients.add(user);
-        }
-
-        // Envoyer les emails immédiatement
-        if (notifMode.equals("email") || notifMode.equals("both")) {
-            try {
-                mailService.sendFactureDueNotification(user, facture, daysUntilDue);
-                notification.setEmailSent(true);
-                notification.setEmailSentAt(LocalDateTime.now());
-                log.info("✅ Email sent to {}", user.getEmail());
-            } catch (Exception e) {
-                log.error("❌ Failed to send email", e);
-            }
-        }
-
-        for (User smsUser : smsRecipients) {
-            try {
-                Thread.sleep(9000);
-                smsService.sendNotificationSms(notification, facture, daysUntilDue);
-                log.info("✅ SMS sent to {}", smsUser.getPhone());
-            } catch (Exception e) {
-                log.error("❌ Failed to send SMS", e);
-            }
-        }
-
-        notificationRepository.save(notification);
-    }
-
-    private void sendRealtimeNotification(Notification notification) {
-        try {
-            // Create a DTO for frontend
-            Map<String, Object> notificationDTO = new HashMap<>();
-            notificationDTO.put("id", notification.getId());
-            notificationDTO.put("title", notification.getTitle());
-            notificationDTO.put("message", notification.getMessage());
-            notificationDTO.put("type", notification.getType());
-            notificationDTO.put("notificationType", notification.getNotificationType());
-            notificationDTO.put("referenceId", notification.getReferenceId());
-            notificationDTO.put("referenceCode", notification.getReferenceCode());
-            notificationDTO.put("daysUntilDue", notification.getDaysUntilDue());
-            notificationDTO.put("createdAt", notification.getCreatedAt().toString());
-            notificationDTO.put("isRead", notification.getIsRead());
-
-            // Send to specific user
-            messagingTemplate.convertAndSendToUser(
-                    notification.getUser().getUsername(),
-                    "/queue/notifications",
-                    notificationDTO
-            );
-
-            log.info("Real-time notification sent to user {}", notification.getUser().getUsername());
-        } catch (Exception e) {
-            log.error("Failed to send real-time notification: {}", e.getMessage());
-        }
-    }
-
-
+    /**
+     * Notifies unpaid invoices whose due date is within the notification window, once per
+     * invoice and day. The first run of a day scans the whole window; later runs of the same
+     * day only look at invoices changed since the previous run.
+     */
     @Scheduled(cron = "0 * * * * *")  // Toutes les minutes
     @Transactional
     public void checkUnpaidInvoices() {
         LocalDateTime start = LocalDateTime.now();
-        log.info("🕐 [SCHEDULER] Starting unpaid invoices check at {}", start);
+        LocalDate today = start.toLocalDate();
+        LocalDate from = today.minusDays(NOTIFICATION_WINDOW_DAYS);
+        LocalDate to = today.plusDays(NOTIFICATION_WINDOW_DAYS);
 
-        LocalDate today = LocalDate.now();
-
-        // Get all unpaid invoices using individual calls
-        List<Facture> unpaidInvoices = new ArrayList<>();
-        unpaidInvoices.addAll(factureRepository.findByStatutPaiement("NON_PAYE"));
-        unpaidInvoices.addAll(factureRepository.findByStatutPaiement("EN_RETARD"));
-
-        if (unpaidInvoices.isEmpty()) {
-            log.info("📭 No unpaid invoices found");
-            return;
-        }
-
-        log.info("📊 Found {} unpaid invoices to check", unpaidInvoices.size());
+        boolean fullScan = !today.equals(lastProcessedDay);
+        List<Facture> dueInvoices = fullScan
+                ? factureRepository.findNotifiableDueBetween(from, to)
+                : factureRepository.findNotifiableDueBetweenChangedSince(from, to,
+                        lastScanStartedAt.minusSeconds(RESCAN_OVERLAP_SECONDS));
 
         int notificationsCreated = 0;
         int notificationsSkipped = 0;
 
-        for (Facture facture : unpaidInvoices) {
-            long daysUntilDue = ChronoUnit.DAYS.between(today, facture.getDateEcheance());
-
-            // Log pour debug
-            log.debug("Facture {}: échéance {}, jours restants: {}",
-                    facture.getNumeroFacture(), facture.getDateEcheance(), daysUntilDue);
-
-            // Appel à processInvoiceDueDate qui retourne void maintenant
-            int beforeCount = notificationRepository.countByReferenceIdAndReferenceType(
-                    facture.getId(), "FACTURE"
-            );
+        if (!dueInvoices.isEmpty()) {
+            Set<NotificationKey> notifiedToday = findNotifiedToday(dueInvoices, today);
 
-            processInvoiceDueDate(facture, today);
-
-            int afterCount = notificationRepository.countByReferenceIdAndReferenceType(
-                    facture.getId(), "FACTURE"
-            );
+            for (Facture facture : dueInvoices) {
+                int daysUntilDue = (int) ChronoUnit.DAYS.between(today, facture.getDateEcheance());
+                if (notifiedToday.contains(new NotificationKey(facture.getId(), daysUntilDue))) {
+                    notificationsSkipped++;
+                    continue;
+                }
 
-            if (afterCount > beforeCount) {
-                notificationsCreated++;
-            } else {
-                notificationsSkipped++;
+                log.debug("Facture {}: échéance {}, jours restants: {}",
+                        facture.getNumeroFacture(), facture.getDateEcheance(), daysUntilDue);
+                if (notifyRecipients(facture, daysUntilDue) != null) {
+                    notificationsCreated++;
+                } else {
+                    notificationsSkipped++;
+                }
             }
         }
 
-        LocalDateTime end = LocalDateTime.now();
-        long duration = ChronoUnit.MILLIS.between(start, end);
+        lastProcessedDay = today;
+        lastScanStartedAt = start;
 
-        log.info("✅ [SCHEDULER] Completed in {}ms - Created: {}, Skipped: {}",
-                duration, notificationsCreated, notificationsSkipped);
-    }
-
-    private void processInvoiceDueDate(Facture facture, LocalDate today) {
-        if (facture.getDateEcheance() == null) {
-            return;
+        if (fullScan || notificationsCreated > 0) {
+            log.info("✅ [SCHEDULER] Due-date scan ({}) completed in {}ms - Checked: {}, Created: {}, Skipped: {}",
+                    fullScan ? "full" : "incremental", ChronoUnit.MILLIS.between(start, LocalDateTime.now()),
+                    dueInvoices.size(), notificationsCreated, notificationsSkipped);
         }
+    }
 
-        long daysUntilDue = java.time.temporal.ChronoUnit.DAYS.between(today, facture.getDateEcheance());
-
-        // Check if invoice is due within 5 days or overdue
-        if (daysUntilDue <= 5 && daysUntilDue >= 0) {
-            // Invoice due in 0-5 days
-            int days = (int) daysUntilDue;
-            log.info("Invoice {} due in {} days", facture.getNumeroFacture(), days);
-
-            // Create notification for each day (5,4,3,2,1,0)
-            createFactureDueNotification(facture, days);
-
-        } else if (daysUntilDue < 0) {
-            // Invoice is overdue
-            int daysOverdue = (int) Math.abs(daysUntilDue);
-            log.info("Invoice {} is overdue by {} days", facture.getNumeroFacture(), daysOverdue);
-
-            // Create overdue notification (send once per day for first 5 days of overdue)
-            if (daysOverdue <= 5) {
-                createFactureDueNotification(facture, (int) daysUntilDue); // Negative value indicates overdue
+    private Set<NotificationKey> findNotifiedToday(List<Facture> factures, LocalDate today) {
+        List<Long> factureIds = factures.stream().map(Facture::getId).toList();
+        Set<NotificationKey> keys = new HashSet<>();
+        for (Object[] row : notificationRepository.findFactureNotificationKeysSince(factureIds, today.atStartOfDay())) {
+            if (row[1] != null) {
+                keys.add(new NotificationKey((Long) row[0], (Integer) row[1]));
             }
         }
+        return keys;
     }
 
     @Scheduled(cron = "0 0 * * * *") // Every hour
-    @Transactional
     public void retryFailedNotifications() {
-        LocalDateTime oneHourAgo = LocalDateTime.now().minusHours(1);
-        List<Notification> unsent = notificationRepository.findByIsSentFalseAndCreatedAtBefore(oneHourAgo);
-
-        for (Notification notification : unsent) {
-            if (notification.isFactureNotification()) {
-                Optional<Facture> facture = factureRepository.findById(notification.getReferenceId());
-                if (facture.isPresent() && notification.getDaysUntilDue() != null) {
-                    sendNotificationViaChannels(notification, facture.get(), notification.getDaysUntilDue());
-                }
-            }
+        // Failed deliveries are retried by the outbox itself; only abandoned claims need a nudge
+        outboxService.requeueStaleClaims();
+
+        long failed = outboxService.countFailed();
+        if (failed > 0) {
+            log.warn("{} notification deliveries gave up after the maximum number of attempts", failed);
         }
     }
 
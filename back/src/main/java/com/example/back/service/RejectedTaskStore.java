@@ -0,0 +1,96 @@
+package com.example.back.service;
+
+import com.example.back.config.AsyncConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the tasks a channel executor turned away because its queue was full, and hands
+ * them back to the same executor on the next pass instead of running them on the caller's
+ * thread.
+ *
+ * The store is bounded and in memory. Once it holds {@code capacity} tasks, further
+ * rejected tasks run on the submitting thread, which slows the producer down rather than
+ * losing work. Tasks are only discarded when their executor is shutting down.
+ */
+@Component
+@Slf4j
+public class RejectedTaskStore {
+
+    private record Spilled(String executorName, ThreadPoolExecutor executor, Runnable task) {
+    }
+
+    private final AsyncTaskMetrics metrics;
+
+    private final Queue<Spilled> spilled = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Value("${app.async.retry.capacity:1000}")
+    private int capacity;
+
+    public RejectedTaskStore(AsyncTaskMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Rejection policy of the named executor.
+     */
+    public RejectedExecutionHandler handlerFor(String executorName) {
+        return (task, executor) -> spill(executorName, executor, task);
+    }
+
+    void spill(String executorName, ThreadPoolExecutor executor, Runnable task) {
+        metrics.recordRejected(executorName);
+        if (executor.isShutdown()) {
+            metrics.recordDropped(executorName);
+            log.warn("⚠️ {} is shutting down, task discarded", executorName);
+            return;
+        }
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            metrics.recordCallerRuns(executorName);
+            log.error("❌ {} queue is full and the retry store holds {} tasks, running on {}",
+                    executorName, capacity, Thread.currentThread().getName());
+            task.run();
+            return;
+        }
+        spilled.add(new Spilled(executorName, executor, task));
+        log.warn("⚠️ {} queue is full, task kept for retry ({} pending)", executorName, size.get());
+    }
+
+    /**
+     * Resubmits the stored tasks; the ones rejected again come back to the store.
+     *
+     * @return the number of tasks handed back to their executor
+     */
+    @Scheduled(fixedDelayString = "${app.async.retry.interval-ms:5000}", scheduler = AsyncConfig.POLLER_SCHEDULER)
+    public int resubmitPending() {
+        int pending = size.get();
+        int resubmitted = 0;
+        for (int i = 0; i < pending; i++) {
+            Spilled entry = spilled.poll();
+            if (entry == null) break;
+            size.decrementAndGet();
+            metrics.recordResubmitted(entry.executorName());
+            entry.executor().execute(entry.task());
+            resubmitted++;
+        }
+        if (resubmitted > 0) {
+            log.info("Resubmitted {} rejected async tasks", resubmitted);
+        }
+        return resubmitted;
+    }
+
+    public int size() {
+        return size.get();
+    }
+}
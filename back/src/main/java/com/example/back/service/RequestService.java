@@ -32,7 +32,9 @@ public class RequestService {
 
     private final HistoryService historyService;
 
-    public RequestService(RequestRepository requestRepository, UserRepository userRepository, ApplicationRepository applicationRepository, WorkloadService workloadService, MailService mailService, RequestMapper requestMapper, HistoryService historyService) {
+    private final WorkloadLedgerService workloadLedger;
+
+    public RequestService(RequestRepository requestRepository, UserRepository userRepository, ApplicationRepository applicationRepository, WorkloadService workloadService, MailService mailService, RequestMapper requestMapper, HistoryService historyService, WorkloadLedgerService workloadLedger) {
         this.requestRepository = requestRepository;
         this.userRepository = userRepository;
         this.applicationRepository = applicationRepository;
@@ -40,6 +42,7 @@ public class RequestService {
         this.mailService = mailService;
         this.requestMapper = requestMapper;
         this.historyService = historyService;
+        this.workloadLedger = workloadLedger;
     }
 
 
@@ -225,10 +228,12 @@ else {
             // Update application with new chef
             Application app = request.getApplication();
             User oldChef = app.getChefDeProjet();
+            WorkloadLedgerService.Share workloadBefore = WorkloadLedgerService.Share.of(app);
 
 
             app.setChefDeProjet(recommendedChef);
             applicationRepository.save(app);
+            workloadLedger.recordApplicationChange(workloadBefore, app);
 
             historyService.logChefReassignment(app, oldChef, recommendedChef, processor,
                     request.getReason() + (request.getRecommendations() != null ? " - " + request.getRecommendations() : ""));
@@ -480,8 +485,10 @@ else {
                     oldChef != null ? oldChef.getUsername() : "none",
                     recommendedChef.getUsername());
 
+            WorkloadLedgerService.Share workloadBefore = WorkloadLedgerService.Share.of(app);
             app.setChefDeProjet(recommendedChef);
             applicationRepository.save(app);
+            workloadLedger.recordApplicationChange(workloadBefore, app);
             log.info("✅ Application updated with new chef");
 
 
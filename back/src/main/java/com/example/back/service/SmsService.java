@@ -1,5 +1,6 @@
 package com.example.back.service;
 
+import com.example.back.config.AsyncConfig;
 import com.example.back.entity.Facture;
 import com.example.back.entity.Notification;
 import com.example.back.entity.User;
@@ -56,12 +57,27 @@ public class SmsService {
     }
 
 
-    @Async
+    @Async(AsyncConfig.SMS_EXECUTOR)
     public void sendNotificationSms(Notification notification, Facture facture, int daysUntilDue) {
+        try {
+            deliverNotificationSms(notification, facture, daysUntilDue);
+        } catch (Exception e) {
+            log.error("❌ Failed to send SMS notification {}: {}",
+                    notification.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sends the SMS of a notification on the calling thread and flags the notification as sent.
+     *
+     * @return false when there is nothing to send (SMS disabled or no phone number)
+     * @throws IllegalStateException when the provider did not accept the message
+     */
+    public boolean deliverNotificationSms(Notification notification, Facture facture, int daysUntilDue) {
         log.info("📱 [Notification ID: {}] Starting SMS process...", notification.getId());
 
         if (!smsEnabled) {
-            return;
+            return false;
         }
 
         User user = notification.getUser();
@@ -73,50 +89,38 @@ public class SmsService {
 
         if (originalPhone == null || originalPhone.isEmpty()) {
             log.warn("⚠️ User {} has no phone number, cannot send SMS", user.getUsername());
-            return;
+            return false;
         }
 
-        try {
-            // Log chaque étape du formatage
-            log.info("📱 Step 1 - Raw number from DB: '{}'", originalPhone);
-
-            String cleaned = cleanPhoneNumber(originalPhone);
-            log.info("📱 Step 2 - After cleaning: '{}'", cleaned);
+        // Log chaque étape du formatage
+        log.info("📱 Step 1 - Raw number from DB: '{}'", originalPhone);
 
-            String formatted = formatPhoneNumber(originalPhone);
-            log.info("📱 Step 3 - After formatting: '{}'", formatted);
+        String cleaned = cleanPhoneNumber(originalPhone);
+        log.info("📱 Step 2 - After cleaning: '{}'", cleaned);
 
-            log.info("📱 Step 4 - Validation result: {}", isValidPhoneNumber(originalPhone));
-            log.info("📱 Step 5 - Final number to use: '{}'", formatted);
+        String formatted = formatPhoneNumber(originalPhone);
+        log.info("📱 Step 3 - After formatting: '{}'", formatted);
 
-            String message = buildNotificationMessage(notification, facture, daysUntilDue);
-            log.info("📱 Message content: '{}'", message);
+        log.info("📱 Step 4 - Validation result: {}", isValidPhoneNumber(originalPhone));
+        log.info("📱 Step 5 - Final number to use: '{}'", formatted);
 
-            boolean sent = sendViaProvider(formatted, message);
+        String message = buildNotificationMessage(notification, facture, daysUntilDue);
+        log.info("📱 Message content: '{}'", message);
 
-            if (sent) {
-                notification.setSmsSent(true);
-                notification.setSmsSentAt(LocalDateTime.now());
-                notification.setIsSent(notification.getEmailSent() || notification.getSmsSent());
-                if (notification.getIsSent() && notification.getSentAt() == null) {
-                    notification.setSentAt(LocalDateTime.now());
-                }
-                notificationRepository.save(notification);
-                log.info("✅ SMS notification {} sent to user {}",
-                        notification.getId(), user.getUsername());
-            } else {
-                log.error("❌ Failed to send SMS notification {}", notification.getId());
-            }
-        } catch (Exception e) {
-            log.error("❌ Failed to send SMS notification {}: {}",
-                    notification.getId(), e.getMessage(), e);
+        if (!sendViaProvider(formatted, message)) {
+            throw new IllegalStateException("SMS provider did not accept notification " + notification.getId());
         }
+
+        notificationRepository.markSmsSent(notification.getId(), LocalDateTime.now());
+        log.info("✅ SMS notification {} sent to user {}",
+                notification.getId(), user.getUsername());
+        return true;
     }
 
     /**
      * Send test SMS (for debugging)
      */
-    @Async
+    @Async(AsyncConfig.SMS_EXECUTOR)
     public void sendTestSms(String phoneNumber, String message) {
 
         if (!smsEnabled) {
@@ -366,7 +370,7 @@ public class SmsService {
     }
 
 
-    @Async
+    @Async(AsyncConfig.SMS_EXECUTOR)
     public void sendDirectSms(String phoneNumber, String message) {
         log.info("📱 ===== DIRECT SMS =====");
         log.info("📱 Original phone: '{}'", phoneNumber);
@@ -0,0 +1,246 @@
+package com.example.back.service;
+
+import com.example.back.entity.*;
+import com.example.back.repository.ApplicationRepository;
+import com.example.back.repository.ConventionRepository;
+import com.example.back.repository.DailyMetricRepository;
+import com.example.back.repository.FactureRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Materialized per-day aggregates backing the dashboard statistics.
+ *
+ * Write paths call {@code markDirty(...)} with the entity before and after a change; the
+ * days it touches are recomputed from the source tables (one grouped query per day) the
+ * next time statistics are read. A nightly job rebuilds everything to catch any drift.
+ */
+@Service
+@Slf4j
+public class StatsMetricsService {
+
+    static final LocalDate MIN_DATE = LocalDate.of(1970, 1, 1);
+    static final LocalDate MAX_DATE = LocalDate.of(2999, 12, 31);
+
+    private final DailyMetricRepository dailyMetricRepository;
+
+    private final FactureRepository factureRepository;
+
+    private final ConventionRepository conventionRepository;
+
+    private final ApplicationRepository applicationRepository;
+
+    private final ChatCacheInvalidator chatCacheInvalidator;
+
+    private final Set<DirtyDay> dirtyDays = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean initialized = new AtomicBoolean(false);
+
+    public StatsMetricsService(DailyMetricRepository dailyMetricRepository, FactureRepository factureRepository, ConventionRepository conventionRepository, ApplicationRepository applicationRepository, ChatCacheInvalidator chatCacheInvalidator) {
+        this.dailyMetricRepository = dailyMetricRepository;
+        this.factureRepository = factureRepository;
+        this.conventionRepository = conventionRepository;
+        this.applicationRepository = applicationRepository;
+        this.chatCacheInvalidator = chatCacheInvalidator;
+    }
+
+    record DirtyDay(MetricType type, LocalDate date) {
+    }
+
+    public record MetricTotal(long count, BigDecimal amount) {
+        public static final MetricTotal ZERO = new MetricTotal(0L, BigDecimal.ZERO);
+    }
+
+    // ==================== WRITE SIDE ====================
+
+    public void markDirty(Facture facture) {
+        if (facture == null) return;
+        List<DirtyDay> days = new ArrayList<>();
+        if (facture.getCreatedAt() != null) {
+            days.add(new DirtyDay(MetricType.FACTURE_CREATED, facture.getCreatedAt().toLocalDate()));
+        }
+        if (facture.getDateFacturation() != null) {
+            days.add(new DirtyDay(MetricType.FACTURE_ISSUED, facture.getDateFacturation()));
+            days.add(new DirtyDay(MetricType.FACTURE_ISSUED_PAID, facture.getDateFacturation()));
+        }
+        if (facture.getDatePaiement() != null) {
+            days.add(new DirtyDay(MetricType.FACTURE_PAID, facture.getDatePaiement()));
+        }
+        if (facture.getDateEcheance() != null) {
+            days.add(new DirtyDay(MetricType.FACTURE_DUE, facture.getDateEcheance()));
+            days.add(new DirtyDay(MetricType.FACTURE_OUTSTANDING, facture.getDateEcheance()));
+        }
+        enqueue(days);
+    }
+
+    public void markDirty(Convention convention) {
+        if (convention == null || convention.getCreatedAt() == null) return;
+        enqueue(List.of(new DirtyDay(MetricType.CONVENTION_CREATED, convention.getCreatedAt().toLocalDate())));
+    }
+
+    public void markDirty(Application application) {
+        if (application == null || application.getCreatedAt() == null) return;
+        enqueue(List.of(new DirtyDay(MetricType.APPLICATION_CREATED, application.getCreatedAt().toLocalDate())));
+    }
+
+    /**
+     * Dirty days are only published once the writing transaction has completed, otherwise a
+     * concurrent refresh could recompute the day from not-yet-committed data and drop the mark.
+     */
+    private void enqueue(List<DirtyDay> days) {
+        if (days.isEmpty()) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    dirtyDays.addAll(days);
+                }
+            });
+        } else {
+            dirtyDays.addAll(days);
+        }
+    }
+
+    // ==================== READ SIDE ====================
+
+    public MetricTotal total(MetricType type) {
+        return total(type, MIN_DATE, MAX_DATE);
+    }
+
+    public MetricTotal total(MetricType type, LocalDate startDate, LocalDate endDate) {
+        refresh();
+        List<Object[]> rows = dailyMetricRepository.sumBetween(type, startDate, endDate);
+        if (rows.isEmpty() || rows.get(0) == null) {
+            return MetricTotal.ZERO;
+        }
+        return toTotal(rows.get(0)[0], rows.get(0)[1]);
+    }
+
+    /** Total over every day strictly before {@code date}. */
+    public MetricTotal totalBefore(MetricType type, LocalDate date) {
+        return total(type, MIN_DATE, date.minusDays(1));
+    }
+
+    /** Total over {@code date} and every day after it. */
+    public MetricTotal totalFrom(MetricType type, LocalDate date) {
+        return total(type, date, MAX_DATE);
+    }
+
+    /**
+     * Month-by-month totals for the last {@code months} months (current month included),
+     * oldest first, with empty months reported as zero.
+     */
+    public Map<YearMonth, MetricTotal> monthly(MetricType type, int months) {
+        refresh();
+        YearMonth current = YearMonth.now();
+        YearMonth first = current.minusMonths(months - 1L);
+
+        Map<YearMonth, MetricTotal> result = new LinkedHashMap<>();
+        for (int i = 0; i < months; i++) {
+            result.put(first.plusMonths(i), MetricTotal.ZERO);
+        }
+
+        List<Object[]> rows = dailyMetricRepository.sumByMonth(type.name(), first.atDay(1), current.atEndOfMonth());
+        for (Object[] row : rows) {
+            result.put(YearMonth.from(toLocalDate(row[0])), toTotal(row[1], row[2]));
+        }
+        return result;
+    }
+
+    /**
+     * Recomputes every day marked dirty since the last call. Cheap when nothing changed.
+     */
+    public synchronized void refresh() {
+        if (initialized.compareAndSet(false, true) && dailyMetricRepository.count() == 0) {
+            rebuildAll();
+            return;
+        }
+        if (dirtyDays.isEmpty()) return;
+
+        List<DirtyDay> pending = new ArrayList<>(dirtyDays);
+        dirtyDays.removeAll(pending);
+
+        try {
+            for (DirtyDay day : pending) {
+                List<Object[]> rows = aggregate(day.type(), day.date(), day.date());
+                MetricTotal value = rows.isEmpty() ? MetricTotal.ZERO : toTotal(rows.get(0)[1], rows.get(0)[2]);
+                dailyMetricRepository.upsert(day.date(), day.type().name(), value.count(), value.amount());
+            }
+            chatCacheInvalidator.invalidateAfterCommit("daily_metrics");
+        } catch (RuntimeException e) {
+            // Keep the days for the next read instead of serving stale aggregates until the nightly rebuild
+            dirtyDays.addAll(pending);
+            log.error("❌ Failed to refresh {} dirty metric days: {}", pending.size(), e.getMessage());
+            return;
+        }
+        log.debug("Refreshed {} dirty metric days", pending.size());
+    }
+
+    /**
+     * Nightly reconciliation: rebuilds all daily aggregates from the source tables.
+     */
+    @Scheduled(cron = "0 30 2 * * *")
+    @Transactional
+    public synchronized void rebuildAll() {
+        log.info("Rebuilding daily statistics aggregates");
+        initialized.set(true);
+        dailyMetricRepository.deleteAllInBatch();
+        chatCacheInvalidator.invalidateAfterCommit("daily_metrics");
+
+        List<DailyMetric> metrics = new ArrayList<>();
+        for (MetricType type : MetricType.values()) {
+            for (Object[] row : aggregate(type, MIN_DATE, MAX_DATE)) {
+                MetricTotal value = toTotal(row[1], row[2]);
+                DailyMetric metric = new DailyMetric();
+                metric.setMetricDate(toLocalDate(row[0]));
+                metric.setMetricType(type);
+                metric.setMetricCount(value.count());
+                metric.setMetricAmount(value.amount());
+                metrics.add(metric);
+            }
+        }
+        dailyMetricRepository.saveAll(metrics);
+        log.info("Rebuilt {} daily statistics rows", metrics.size());
+    }
+
+    private List<Object[]> aggregate(MetricType type, LocalDate startDate, LocalDate endDate) {
+        LocalDateTime startTime = startDate.atStartOfDay();
+        LocalDateTime endTime = endDate.plusDays(1).atStartOfDay();
+        return switch (type) {
+            case CONVENTION_CREATED -> conventionRepository.aggregateCreatedByDay(startTime, endTime);
+            case APPLICATION_CREATED -> applicationRepository.aggregateCreatedByDay(startTime, endTime);
+            case FACTURE_CREATED -> factureRepository.aggregateCreatedByDay(startTime, endTime);
+            case FACTURE_ISSUED -> factureRepository.aggregateIssuedByDay(startDate, endDate);
+            case FACTURE_ISSUED_PAID -> factureRepository.aggregateIssuedPaidByDay(startDate, endDate);
+            case FACTURE_PAID -> factureRepository.aggregatePaidByDay(startDate, endDate);
+            case FACTURE_DUE -> factureRepository.aggregateDueByDay(startDate, endDate);
+            case FACTURE_OUTSTANDING -> factureRepository.aggregateOutstandingByDay(startDate, endDate);
+        };
+    }
+
+    private static MetricTotal toTotal(Object count, Object amount) {
+        long c = count != null ? ((Number) count).longValue() : 0L;
+        BigDecimal a = amount instanceof BigDecimal bd ? bd
+                : amount != null ? new BigDecimal(amount.toString()) : BigDecimal.ZERO;
+        return new MetricTotal(c, a);
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate date) return date;
+        if (value instanceof java.sql.Date date) return date.toLocalDate();
+        if (value instanceof LocalDateTime dateTime) return dateTime.toLocalDate();
+        return LocalDate.parse(value.toString().substring(0, 10));
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.back.service;
+
+import com.example.back.entity.Application;
+import com.example.back.entity.Convention;
+import com.example.back.entity.User;
+import com.example.back.entity.Workload;
+import com.example.back.repository.ConventionRepository;
+import com.example.back.repository.UserRepository;
+import com.example.back.repository.WorkloadRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps each chef de projet's {@link Workload} row up to date as applications and
+ * conventions change, so the dashboard and assignment checks read precomputed scores.
+ *
+ * Callers take a {@link Share} before modifying an application or a convention and hand it
+ * back with the new state; the difference is added to the chef's totals with an atomic
+ * upsert in the caller's transaction. A periodic reconciliation recomputes every chef from
+ * the applications and conventions tables and repairs (and logs) any drift.
+ */
+@Service
+@Slf4j
+public class WorkloadLedgerService {
+
+    private static final double VALUE_TOLERANCE = 0.005;
+
+    private final WorkloadRepository workloadRepository;
+
+    private final ConventionRepository conventionRepository;
+
+    private final UserRepository userRepository;
+
+    private final ChefWorkloadIndex chefWorkloadIndex;
+
+    private final ChatCacheInvalidator chatCacheInvalidator;
+
+    public WorkloadLedgerService(WorkloadRepository workloadRepository, ConventionRepository conventionRepository, UserRepository userRepository, ChefWorkloadIndex chefWorkloadIndex, ChatCacheInvalidator chatCacheInvalidator) {
+        this.workloadRepository = workloadRepository;
+        this.conventionRepository = conventionRepository;
+        this.userRepository = userRepository;
+        this.chefWorkloadIndex = chefWorkloadIndex;
+        this.chatCacheInvalidator = chatCacheInvalidator;
+    }
+
+    /**
+     * What an application or a convention adds to its chef's totals.
+     * Mirrors the rules of {@code WorkloadService.initializeWorkload}.
+     */
+    public record Share(Long chefId, int applications, double value, long duration) {
+
+        static final Share NONE = new Share(null, 0, 0.0, 0L);
+
+        /**
+         * Count and duration of an application; the value of its conventions is carried by
+         * {@link #of(Convention)} and only moved along when the chef changes.
+         */
+        public static Share of(Application application) {
+            if (application == null || application.getChefDeProjet() == null) return NONE;
+            long duration = application.getDateDebut() != null && application.getDateFin() != null
+                    ? ChronoUnit.DAYS.between(application.getDateDebut(), application.getDateFin())
+                    : 0L;
+            return new Share(application.getChefDeProjet().getId(), 1, 0.0, duration);
+        }
+
+        /**
+         * Amount of a convention, counted while it is not archived.
+         */
+        public static Share of(Convention convention) {
+            if (convention == null || convention.getApplication() == null
+                    || convention.getApplication().getChefDeProjet() == null) return NONE;
+            boolean counted = !Boolean.TRUE.equals(convention.getArchived()) && convention.getMontantTTC() != null;
+            return new Share(convention.getApplication().getChefDeProjet().getId(), 0,
+                    counted ? convention.getMontantTTC().doubleValue() : 0.0, 0L);
+        }
+
+        Share withValue(double value) {
+            return new Share(chefId, applications, value, duration);
+        }
+    }
+
+    /**
+     * Applies an application change (creation, chef assignment, date change or deletion).
+     *
+     * @param before the application's share taken before it was modified, {@link Share#NONE} for a new one
+     * @param after  the saved application, or {@code null} once deleted
+     */
+    public void recordApplicationChange(Share before, Application after) {
+        Share next = Share.of(after);
+        if (!Objects.equals(before.chefId(), next.chefId()) && after != null && after.getId() != null) {
+            // The application's conventions follow it to its new chef
+            BigDecimal value = conventionRepository.sumActiveMontantTTCByApplicationId(after.getId());
+            double amount = value != null ? value.doubleValue() : 0.0;
+            before = before.withValue(amount);
+            next = next.withValue(amount);
+        }
+        recordChange(before, next);
+    }
+
+    /**
+     * Applies a convention change (creation, amount update, archive, restore or deletion).
+     *
+     * @param before the convention's share taken before it was modified, {@link Share#NONE} for a new one
+     * @param after  the saved convention, or {@code null} once deleted
+     */
+    public void recordConventionChange(Share before, Convention after) {
+        recordChange(before, Share.of(after));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeLedger() {
+        reconcile();
+    }
+
+    /**
+     * Recomputes every chef's totals from the source tables, repairs the rows that drifted
+     * and creates the missing ones.
+     *
+     * @return the number of rows that had drifted
+     */
+    @Scheduled(cron = "${app.workload.reconcile-cron:0 30 * * * *}")
+    public int reconcile() {
+        try {
+            Map<Long, Object[]> totalsByChef = new HashMap<>();
+            for (Object[] row : workloadRepository.computeTotalsByChef()) {
+                totalsByChef.put(((Number) row[0]).longValue(), row);
+            }
+            Map<Long, Workload> workloadsByChef = new HashMap<>();
+            for (Workload workload : workloadRepository.findAll()) {
+                workloadsByChef.put(workload.getChefDeProjet().getId(), workload);
+            }
+
+            int drifted = 0;
+            int created = 0;
+            List<User> chefs = userRepository.findByRoleName("ROLE_CHEF_PROJET");
+            for (User chef : chefs) {
+                Object[] totals = totalsByChef.get(chef.getId());
+                int apps = totals != null ? ((Number) totals[1]).intValue() : 0;
+                double value = totals != null ? ((Number) totals[2]).doubleValue() : 0.0;
+                long duration = totals != null ? ((Number) totals[3]).longValue() : 0L;
+
+                Workload workload = workloadsByChef.get(chef.getId());
+                if (workload == null) {
+                    workload = new Workload();
+                    workload.setChefDeProjet(chef);
+                    created++;
+                } else if (workload.getCurrentApplicationsCount() == apps
+                        && Math.abs(workload.getTotalApplicationsValue() - value) < VALUE_TOLERANCE
+                        && workload.getTotalApplicationsDuration() == duration) {
+                    continue;
+                } else {
+                    drifted++;
+                    log.warn("Workload drift for chef {}: ledger {} apps / {} TND / {} days, actual {} / {} / {}",
+                            chef.getUsername(), workload.getCurrentApplicationsCount(),
+                            workload.getTotalApplicationsValue(), workload.getTotalApplicationsDuration(),
+                            apps, value, duration);
+                }
+                workload.setCurrentApplicationsCount(apps);
+                workload.setTotalApplicationsValue(value);
+                workload.setTotalApplicationsDuration(duration);
+                workload.setCurrentWorkloadScore(Workload.score(apps, value, duration));
+                workload.setLastCalculatedAt(LocalDateTime.now());
+                workloadRepository.save(workload);
+            }
+
+            chefWorkloadIndex.invalidate();
+            if (drifted > 0 || created > 0) {
+                log.info("Workload ledger reconciled: {} chefs, {} repaired, {} created", chefs.size(), drifted, created);
+            }
+            return drifted;
+        } catch (Exception e) {
+            log.error("❌ Failed to reconcile workloads: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private void recordChange(Share before, Share after) {
+        if (Objects.equals(before.chefId(), after.chefId())) {
+            apply(after.chefId(), after.applications() - before.applications(),
+                    after.value() - before.value(), after.duration() - before.duration());
+        } else {
+            apply(before.chefId(), -before.applications(), -before.value(), -before.duration());
+            apply(after.chefId(), after.applications(), after.value(), after.duration());
+        }
+    }
+
+    private void apply(Long chefId, int apps, double value, long duration) {
+        if (chefId == null || (apps == 0 && value == 0.0 && duration == 0L)) return;
+        workloadRepository.addDeltas(chefId, apps, value, duration);
+        workloadRepository.refreshScore(chefId);
+        chefWorkloadIndex.markDirty(chefId);
+        chatCacheInvalidator.invalidateAfterCommit("workloads");
+    }
+}
@@ -32,18 +32,25 @@ public class WorkloadService {
 
     private final HistoryService historyService;
 
+    private final WorkloadLedgerService workloadLedger;
+
+    private final ChefWorkloadIndex chefWorkloadIndex;
+
     // ============= THRESHOLDS =============
     private static final double BLOCK_THRESHOLD = 75.0;    // >80% = BLOCKED
     private static final double WARNING_THRESHOLD = 45.0;  // 70-80% = WARNING
     private static final double MEDIUM_THRESHOLD = 45.0;   // For UI display only
+    private static final int MAX_ALTERNATIVES = 3;
 
-    public WorkloadService(WorkloadRepository workloadRepository, ApplicationRepository applicationRepository, UserRepository userRepository,MailService mailService, SmsService smsService, HistoryService historyService) {
+    public WorkloadService(WorkloadRepository workloadRepository, ApplicationRepository applicationRepository, UserRepository userRepository,MailService mailService, SmsService smsService, HistoryService historyService, WorkloadLedgerService workloadLedger, ChefWorkloadIndex chefWorkloadIndex) {
         this.workloadRepository = workloadRepository;
         this.applicationRepository = applicationRepository;
         this.userRepository = userRepository;
         this.mailService = mailService;
         this.smsService = smsService;
         this.historyService = historyService;
+        this.workloadLedger = workloadLedger;
+        this.chefWorkloadIndex = chefWorkloadIndex;
     }
 
     /**
@@ -111,6 +118,7 @@ public class WorkloadService {
         workload.setLastCalculatedAt(LocalDateTime.now());
 
         Workload saved = workloadRepository.save(workload);
+        chefWorkloadIndex.markDirty(chefId);
 
         log.info("WORKLOAD UPDATED for {}: {}% ({} apps, {} TND, {} days)",
                 chef.getUsername(),
@@ -157,8 +165,9 @@ public class WorkloadService {
     public AssignmentCheck checkAssignment(Long chefId, Long applicationId) {
         log.info("Checking if chef {} can be assigned to application {}", chefId, applicationId);
 
-        // Ensure workload is up to date
-        Workload workload = initializeWorkload(chefId);
+        // Totals are kept up to date by the workload ledger; only a chef without a row yet is computed here
+        Workload workload = workloadRepository.findByChefDeProjetId(chefId)
+                .orElseGet(() -> initializeWorkload(chefId));
 
         Application application = applicationRepository.findById(applicationId)
                 .orElseThrow(() -> new RuntimeException("Application not found"));
@@ -226,38 +235,27 @@ public class WorkloadService {
             check.setMessage("Chef disponible - Charge de travail faible (" + String.format("%.1f", projectedWorkload) + "%)");
         }
 
-        // Find alternative chefs (with better availability)
-        List<Workload> allChefs = workloadRepository.findAll();
-        List<AlternativeChef> alternatives = allChefs.stream()
-                .filter(w -> !w.getChefDeProjet().getId().equals(chefId))
-                .map(w -> {
-                    int altProjectedApps = w.getCurrentApplicationsCount() + 1;
-                    double altProjectedValue = w.getTotalApplicationsValue() + newAppValue;
-                    long altProjectedDuration = w.getTotalApplicationsDuration() + newAppDuration;
-
-                    double altProjectedWorkload = calculateWorkloadPercentage(
-                            altProjectedApps,
-                            altProjectedValue,
-                            altProjectedDuration
-                    );
+        // Find alternative chefs (with better availability) from the workload index
+        List<AlternativeChef> alternatives = chefWorkloadIndex
+                .topCandidates(chefId, newAppValue, newAppDuration, MAX_ALTERNATIVES, BLOCK_THRESHOLD)
+                .stream()
+                .map(candidate -> {
+                    ChefWorkloadIndex.Entry entry = candidate.entry();
 
                     AlternativeChef alt = new AlternativeChef();
-                    alt.setChefId(w.getChefDeProjet().getId());
-                    alt.setChefName(w.getChefDeProjet().getFirstName() + " " + w.getChefDeProjet().getLastName());
-                    alt.setCurrentWorkload(w.getCurrentWorkloadScore());
-                    alt.setProjectedWorkload(altProjectedWorkload);
+                    alt.setChefId(entry.chefId());
+                    alt.setChefName(entry.chefName());
+                    alt.setCurrentWorkload(entry.score());
+                    alt.setProjectedWorkload(candidate.projectedWorkload());
 
                     // Alternative chef can accept if projected workload <= 75%
-                    alt.setCanAccept(altProjectedWorkload <= 75.0);
+                    alt.setCanAccept(true);
 
                     // Calculate workload increase
-                    alt.setWorkloadIncrease(altProjectedWorkload - w.getCurrentWorkloadScore());
+                    alt.setWorkloadIncrease(candidate.projectedWorkload() - entry.score());
 
                     return alt;
                 })
-                .filter(AlternativeChef::isCanAccept)
-                .sorted((a1, a2) -> Double.compare(a1.getProjectedWorkload(), a2.getProjectedWorkload()))
-                .limit(3)
                 .collect(Collectors.toList());
 
         check.setAlternativeChefs(alternatives);
@@ -269,25 +267,7 @@ public class WorkloadService {
      * Helper method to calculate workload percentage
      */
     private double calculateWorkloadPercentage(int apps, double value, long duration) {
-        // Weight factors
-        double countWeight = 0.4;
-        double valueWeight = 0.4;
-        double durationWeight = 0.2;
-
-        // Max limits
-        int maxApps = 5;
-        double maxValue = 5000000.0; // 5M TND
-        long maxDuration = 730L; // 2 years
-
-        // Calculate individual percentages (cap at 100%)
-        double countPercentage = Math.min((apps * 100.0) / maxApps, 100);
-        double valuePercentage = Math.min((value * 100.0) / maxValue, 100);
-        double durationPercentage = Math.min((duration * 100.0) / maxDuration, 100);
-
-        // Calculate weighted average
-        return (countPercentage * countWeight) +
-                (valuePercentage * valueWeight) +
-                (durationPercentage * durationWeight);
+        return Workload.score(apps, value, duration);
     }
 
     /**
@@ -323,15 +303,20 @@ public class WorkloadService {
                 .orElseThrow(() -> new RuntimeException("Chef not found"));
 
         User oldChef = application.getChefDeProjet();
+        WorkloadLedgerService.Share before = WorkloadLedgerService.Share.of(application);
 
         // Update application
         application.setChefDeProjet(chef);
         Application updatedApplication = applicationRepository.save(application);
         log.info("Application updated in database");
 
-        // Recalculate workload
-        Workload updatedWorkload = initializeWorkload(chefId);
-        log.info("Workload recalculated: {}%", updatedWorkload.getCurrentWorkloadScore());
+        // Move the application's share to the new chef
+        workloadLedger.recordApplicationChange(before, updatedApplication);
+        Double updatedWorkload = workloadRepository.findScoreByChefId(chefId);
+        if (updatedWorkload == null) {
+            updatedWorkload = projectedWorkload;
+        }
+        log.info("Workload updated: {}%", updatedWorkload);
 
         // LOG HISTORY: Assign chef de projet
         try {
@@ -375,12 +360,12 @@ public class WorkloadService {
                     String.format("%.1f", projectedWorkload) + "%");
         }
 
-        result.setUpdatedWorkload(updatedWorkload.getCurrentWorkloadScore());
+        result.setUpdatedWorkload(updatedWorkload);
 
         log.info("Application {} assigned to {}. New workload: {}%",
                 application.getCode(),
                 chef.getUsername(),
-                String.format("%.1f", updatedWorkload.getCurrentWorkloadScore()));
+                String.format("%.1f", updatedWorkload));
         log.info("========== ASSIGN APPLICATION COMPLETED ==========");
 
         return result;
@@ -390,16 +375,7 @@ public class WorkloadService {
      * Get workload dashboard
      */
     public WorkloadDashboard getWorkloadDashboard() {
-        // Ensure all workloads are up to date
-        List<User> allChefs = userRepository.findAll().stream()
-                .filter(u -> u.getRoles().stream()
-                        .anyMatch(r -> r.getName().name().equals("ROLE_CHEF_PROJET")))
-                .toList();
-
-        for (User chef : allChefs) {
-            initializeWorkload(chef.getId());
-        }
-
+        // Scores are maintained by the workload ledger and its periodic reconciliation
         List<Workload> allWorkloads = workloadRepository.findAllOrderedByWorkload();
 
         WorkloadDashboard dashboard = new WorkloadDashboard();
@@ -773,11 +749,15 @@ public class WorkloadService {
         private boolean canAccept;
 
         // Getters and setters
+        public Long getChefId() { return chefId; }
         public void setChefId(Long chefId) { this.chefId = chefId; }
+        public String getChefName() { return chefName; }
         public void setChefName(String chefName) { this.chefName = chefName; }
+        public Double getCurrentWorkload() { return currentWorkload; }
         public void setCurrentWorkload(Double currentWorkload) { this.currentWorkload = currentWorkload; }
         public Double getProjectedWorkload() { return projectedWorkload; }
         public void setProjectedWorkload(Double projectedWorkload) { this.projectedWorkload = projectedWorkload; }
+        public Double getWorkloadIncrease() { return workloadIncrease; }
         public void setWorkloadIncrease(Double workloadIncrease) { this.workloadIncrease = workloadIncrease; }
         public boolean isCanAccept() { return canAccept; }
         public void setCanAccept(boolean canAccept) { this.canAccept = canAccept; }
@@ -18,16 +18,26 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.learning.config.Adam;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,12 +48,53 @@ public class InvoiceRiskAIModel {
     private final ConventionRepository conventionRepository;
     private final StructureRepository structureRepository;
     private final TrainingDataRepository trainingDataRepository;
+    private final ModelSnapshotStore snapshotStore;
+    private final RiskPredictionCache predictionCache;
 
-    private MultiLayerNetwork neuralNetwork;
-    private MultiLayerNetwork riskLevelClassifier;
+    static final int FEATURE_COUNT = 15;
 
-    private Map<String, Double> featureImportance = new ConcurrentHashMap<>();
-    private final Map<Long, RiskPrediction> predictionCache = new ConcurrentHashMap<>();
+    // Invoices loaded and scored per query and forward pass
+    static final int PREDICTION_CHUNK = 500;
+
+    // Warm-start fits on newly paid invoices; a full retrain only when loss on them drifts.
+    static final int INCREMENTAL_REGRESSION_EPOCHS = 20;
+    static final int INCREMENTAL_CLASSIFIER_EPOCHS = 15;
+    static final double DRIFT_TOLERANCE = 1.5;
+    static final double MIN_BASELINE_LOSS = 1e-3;
+
+    /**
+     * The regression network and the risk level classifier, trained together. Training always
+     * works on a separate pair and swaps it in once trained, so predictions keep using the
+     * previous pair meanwhile and never see one that is being fitted.
+     */
+    record Networks(MultiLayerNetwork regression, MultiLayerNetwork classifier) {
+
+        Networks copy() {
+            return new Networks(regression.clone(), classifier.clone());
+        }
+    }
+
+    // Null until the first training or snapshot restore; predictions fall back to defaults meanwhile.
+    private volatile Networks networks;
+
+    private volatile Map<String, Double> featureImportance = new ConcurrentHashMap<>();
+
+    // Training runs here, never on the shared (single-threaded) scheduler.
+    private final ExecutorService trainingExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ai-model-training");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean trainingInProgress = new AtomicBoolean(false);
+
+    // Last time the model saw the data; invoices paid after it feed the next incremental run.
+    private volatile LocalDateTime trainingCheckpoint;
+    // Regression loss measured after the last full training, reference for drift detection.
+    private volatile double baselineLoss = Double.NaN;
+    private volatile String activeSnapshot;
+
+    @Value("${app.ai.snapshot.rollback-timeout-seconds:60}")
+    private long rollbackTimeoutSeconds;
 
     // Risk levels for classification
     public enum RiskLevel {
@@ -85,6 +136,7 @@ public class InvoiceRiskAIModel {
         private double probability;
         private double confidence;
         private int predictedDelayDays;
+        private double riskScore;
         private Map<String, Double> featureContributions;
         private List<String> recommendations;
         private LocalDate predictionDate;
@@ -98,6 +150,8 @@ public class InvoiceRiskAIModel {
         public void setConfidence(double confidence) { this.confidence = confidence; }
         public int getPredictedDelayDays() { return predictedDelayDays; }
         public void setPredictedDelayDays(int predictedDelayDays) { this.predictedDelayDays = predictedDelayDays; }
+        public double getRiskScore() { return riskScore; }
+        public void setRiskScore(double riskScore) { this.riskScore = riskScore; }
         public Map<String, Double> getFeatureContributions() { return featureContributions; }
         public void setFeatureContributions(Map<String, Double> featureContributions) { this.featureContributions = featureContributions; }
         public List<String> getRecommendations() { return recommendations; }
@@ -111,19 +165,41 @@ public class InvoiceRiskAIModel {
     public InvoiceRiskAIModel(FactureRepository factureRepository,
                               ConventionRepository conventionRepository,
                               StructureRepository structureRepository,
-                              TrainingDataRepository trainingDataRepository) {
+                              TrainingDataRepository trainingDataRepository,
+                              ModelSnapshotStore snapshotStore,
+                              RiskPredictionCache predictionCache) {
         this.factureRepository = factureRepository;
         this.conventionRepository = conventionRepository;
         this.structureRepository = structureRepository;
         this.trainingDataRepository = trainingDataRepository;
+        this.snapshotStore = snapshotStore;
+        this.predictionCache = predictionCache;
     }
 
 
+    /**
+     * Restores the latest snapshot when there is one and catches up on new payments in the
+     * background; otherwise the initial training runs in the background. Startup never waits
+     * for training.
+     */
     @PostConstruct
     public void initialize() {
         log.info("Initializing AI Risk Model...");
+        Optional<ModelSnapshotStore.Snapshot> snapshot = snapshotStore.loadActive();
+        if (snapshot.isPresent() && snapshot.get().metadata().featureCount() == FEATURE_COUNT) {
+            installSnapshot(snapshot.get());
+            log.info("AI Risk Model restored from snapshot {}", activeSnapshot);
+            scheduleRetrain();
+            return;
+        }
+
+        submitTraining("initial training", this::trainFromScratch);
+    }
+
+    private void trainFromScratch() {
         try {
-            buildNeuralNetwork();
+            LocalDateTime startedAt = LocalDateTime.now();
+            Networks candidate = buildNetworks();
 
             List<HistoricalPaymentData> trainingData = new ArrayList<>();
 
@@ -135,8 +211,7 @@ public class InvoiceRiskAIModel {
             int fallbackCount = 0;
             int validCount = 0;
 
-            for (Facture facture : allFactures) {
-                HistoricalPaymentData data = extractFeaturesFromFacture(facture);
+            for (HistoricalPaymentData data : extractFeaturesBatch(allFactures)) {
                 // Count how many are using fallback vs real data
                 if (data.riskScore == 50 && data.paymentOnTimeRate == 0 && data.latePaymentRate == 0) {
                     fallbackCount++;
@@ -152,11 +227,17 @@ public class InvoiceRiskAIModel {
             trainingData.addAll(generateBalancedSyntheticData());
 
             if (!trainingData.isEmpty()) {
-                trainModelWithCalculatedRisks(trainingData);
+                trainModelWithCalculatedRisks(candidate, trainingData);
             } else {
                 simulateEnhancedTrainingData();
-                trainModel();
+                if (!trainModel(candidate)) {
+                    initializeFallbackModel();
+                    return;
+                }
             }
+            networks = candidate;
+            trainingCheckpoint = startedAt;
+            saveSnapshot("initial training");
 
             log.info("AI Risk Model initialized successfully!");
         } catch (Exception e) {
@@ -165,28 +246,19 @@ public class InvoiceRiskAIModel {
         }
     }
 
-    private void trainModelWithCalculatedRisks(List<HistoricalPaymentData> trainingData) {
+    private void trainModelWithCalculatedRisks(Networks candidate, List<HistoricalPaymentData> trainingData) {
         log.info("Training model with {} records using CALCULATED risk scores", trainingData.size());
 
-        INDArray features = Nd4j.create(trainingData.size(), 15);
-        INDArray labels = Nd4j.create(trainingData.size(), 2);
-
-        for (int i = 0; i < trainingData.size(); i++) {
-            HistoricalPaymentData data = trainingData.get(i);
-            features.putRow(i, extractFeatureVector(data));
-            labels.putRow(i, Nd4j.create(new double[]{
-                    data.riskScore / 100.0,  // Target: 0.0 to 1.0 (85 -> 0.85)
-                    Math.min(Math.max(data.delayDays, 0), 90) / 90.0
-            }));
-        }
+        INDArray features = buildFeatureMatrix(trainingData);
+        INDArray labels = buildRegressionLabels(trainingData);
 
         // INCREASE epochs significantly
         log.info("Starting regression training...");
         for (int epoch = 0; epoch < 500; epoch++) {  // Increased from 200 to 500
-            neuralNetwork.fit(features, labels);
+            candidate.regression().fit(features, labels);
             if (epoch % 100 == 0) {
                 // Calculate and log current loss/mse
-                INDArray predictions = neuralNetwork.output(features);
+                INDArray predictions = candidate.regression().output(features);
                 INDArray diff = predictions.sub(labels);
                 double mse = diff.mul(diff).meanNumber().doubleValue();
                 log.info("Epoch {} - MSE: {:.6f}", epoch, mse);
@@ -195,17 +267,13 @@ public class InvoiceRiskAIModel {
 
         // Train classifier - also increase epochs
         log.info("Starting classifier training...");
-        INDArray classifierLabels = Nd4j.create(trainingData.size(), 6);
-        for (int i = 0; i < trainingData.size(); i++) {
-            int levelCode = trainingData.get(i).riskLevel;
-            classifierLabels.putRow(i, oneHotEncode(levelCode, 6));
-        }
+        INDArray classifierLabels = buildClassifierLabels(trainingData);
 
         for (int epoch = 0; epoch < 300; epoch++) {  // Increased from 150 to 300
-            riskLevelClassifier.fit(features, classifierLabels);
+            candidate.classifier().fit(features, classifierLabels);
             if (epoch % 100 == 0) {
                 // Calculate accuracy
-                INDArray outputs = riskLevelClassifier.output(features);
+                INDArray outputs = candidate.classifier().output(features);
                 int correct = 0;
                 for (int i = 0; i < trainingData.size(); i++) {
                     int predicted = argMax(outputs.getRow(i));
@@ -217,6 +285,7 @@ public class InvoiceRiskAIModel {
             }
         }
 
+        baselineLoss = regressionLoss(candidate.regression(), features, labels);
         log.info("Model training with calculated risks completed!");
     }
     /**
@@ -445,7 +514,7 @@ public class InvoiceRiskAIModel {
     /**
      * Train model with real data (implementation needed)
      */
-    private void trainModelWithRealData(List<HistoricalPaymentData> realData) {
+    private void trainModelWithRealData(Networks candidate, List<HistoricalPaymentData> realData) {
         log.info("Training model with {} real records", realData.size());
 
         // Combine real data with balanced synthetic data
@@ -457,41 +526,29 @@ public class InvoiceRiskAIModel {
                 trainingData.size(), realData.size(), balancedData.size());
 
         // Prepare training data
-        INDArray features = Nd4j.create(trainingData.size(), 15);
-        INDArray labels = Nd4j.create(trainingData.size(), 2);
-
-        for (int i = 0; i < trainingData.size(); i++) {
-            HistoricalPaymentData data = trainingData.get(i);
-            features.putRow(i, extractFeatureVector(data));
-            labels.putRow(i, Nd4j.create(new double[]{
-                    data.riskScore / 100.0,
-                    Math.min(Math.max(data.delayDays, 0), 90) / 90.0
-            }));
-        }
+        INDArray features = buildFeatureMatrix(trainingData);
+        INDArray labels = buildRegressionLabels(trainingData);
 
         // Train the neural network
         for (int epoch = 0; epoch < 150; epoch++) {
-            neuralNetwork.fit(features, labels);
+            candidate.regression().fit(features, labels);
         }
 
         // Train classifier
-        INDArray classifierLabels = Nd4j.create(trainingData.size(), 6);
-        for (int i = 0; i < trainingData.size(); i++) {
-            int levelCode = trainingData.get(i).riskLevel;
-            classifierLabels.putRow(i, oneHotEncode(levelCode, 6));
-        }
+        INDArray classifierLabels = buildClassifierLabels(trainingData);
 
         for (int epoch = 0; epoch < 100; epoch++) {
-            riskLevelClassifier.fit(features, classifierLabels);
+            candidate.classifier().fit(features, classifierLabels);
         }
 
-        calculateFeatureImportance();
+        calculateFeatureImportance(candidate);
+        baselineLoss = regressionLoss(candidate.regression(), features, labels);
         log.info("Model training with real data completed!");
     }
 
 
 
-    private void buildNeuralNetwork() {
+    Networks buildNetworks() {
         MultiLayerConfiguration config = new NeuralNetConfiguration.Builder()
                 .seed(12345)
                 .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT)
@@ -524,9 +581,9 @@ public class InvoiceRiskAIModel {
                 .backpropType(BackpropType.Standard)
                 .build();
 
-        neuralNetwork = new MultiLayerNetwork(config);
-        neuralNetwork.init();
-        neuralNetwork.setListeners(new ScoreIterationListener(100));
+        MultiLayerNetwork regression = new MultiLayerNetwork(config);
+        regression.init();
+        regression.setListeners(new ScoreIterationListener(100));
 
         // Also update classifier with more neurons
         MultiLayerConfiguration classifierConfig = new NeuralNetConfiguration.Builder()
@@ -554,8 +611,9 @@ public class InvoiceRiskAIModel {
                         .build())
                 .build();
 
-        riskLevelClassifier = new MultiLayerNetwork(classifierConfig);
-        riskLevelClassifier.init();
+        MultiLayerNetwork classifier = new MultiLayerNetwork(classifierConfig);
+        classifier.init();
+        return new Networks(regression, classifier);
     }
 
 
@@ -630,8 +688,10 @@ public class InvoiceRiskAIModel {
         log.info("Added 400 edge case training records for better accuracy");
     }
 
-    @Transactional(readOnly = true)
-    public void trainModel() {
+    /**
+     * @return {@code false} when there was no data to train on and {@code candidate} is untouched
+     */
+    private boolean trainModel(Networks candidate) {
         log.info("Training AI model with historical payment data...");
 
         List<HistoricalPaymentData> trainingData = loadHistoricalPaymentData();
@@ -644,47 +704,152 @@ public class InvoiceRiskAIModel {
 
         if (trainingData.isEmpty()) {
             log.warn("No training data available after simulation!");
-            return;
+            return false;
         }
 
-        INDArray features = Nd4j.create(trainingData.size(), 15);
-        INDArray labels = Nd4j.create(trainingData.size(), 2);
-
-        for (int i = 0; i < trainingData.size(); i++) {
-            HistoricalPaymentData data = trainingData.get(i);
-            features.putRow(i, extractFeatureVector(data));
-            labels.putRow(i, Nd4j.create(new double[]{
-                    data.riskScore / 100.0,
-                    Math.min(data.delayDays, 90) / 90.0
-            }));
-        }
+        INDArray features = buildFeatureMatrix(trainingData);
+        INDArray labels = buildRegressionLabels(trainingData);
 
         for (int epoch = 0; epoch < 100; epoch++) {
-            neuralNetwork.fit(features, labels);
+            candidate.regression().fit(features, labels);
         }
 
-        INDArray classifierLabels = Nd4j.create(trainingData.size(), 6);
-        for (int i = 0; i < trainingData.size(); i++) {
-            int levelCode = trainingData.get(i).riskLevel;
-            classifierLabels.putRow(i, oneHotEncode(levelCode, 6));
-        }
+        INDArray classifierLabels = buildClassifierLabels(trainingData);
 
         for (int epoch = 0; epoch < 80; epoch++) {
-            riskLevelClassifier.fit(features, classifierLabels);
+            candidate.classifier().fit(features, classifierLabels);
         }
 
-        calculateFeatureImportance();
+        calculateFeatureImportance(candidate);
+        baselineLoss = regressionLoss(candidate.regression(), features, labels);
 
         log.info("Model training completed!");
+        return true;
+    }
+
+    /**
+     * Incremental training: fits a copy of the current networks (warm start) on invoices paid
+     * since the last checkpoint only, then swaps it in. The new invoices are scored before
+     * fitting; if the loss on them has drifted beyond {@link #DRIFT_TOLERANCE} times the
+     * baseline, the model is rebuilt and fully retrained instead.
+     *
+     * When a full retrain cannot run, the checkpoint stays put so the same invoices are looked
+     * at again next time.
+     */
+    void retrainIncrementally() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = trainingCheckpoint;
+        Networks current = networks;
+
+        if (current == null || since == null || Double.isNaN(baselineLoss)) {
+            if (!retrainFully()) return;
+            trainingCheckpoint = startedAt;
+            saveSnapshot("full training");
+            return;
+        }
+
+        List<Facture> newlyPaid = factureRepository.findPaidSinceWithRelations(since);
+        if (newlyPaid.isEmpty()) {
+            log.info("No invoices paid since {}, model left unchanged", since);
+            trainingCheckpoint = startedAt;
+            return;
+        }
+
+        List<HistoricalPaymentData> batch = extractFeaturesBatch(newlyPaid);
+        INDArray features = buildFeatureMatrix(batch);
+        INDArray labels = buildRegressionLabels(batch);
+
+        double validationLoss = regressionLoss(current.regression(), features, labels);
+        if (validationLoss > Math.max(baselineLoss, MIN_BASELINE_LOSS) * DRIFT_TOLERANCE) {
+            log.warn("Validation loss {} on {} new invoices exceeds baseline {} - full retrain",
+                    validationLoss, batch.size(), baselineLoss);
+            if (!retrainFully()) return;
+            trainingCheckpoint = startedAt;
+            saveSnapshot("full training after drift");
+            return;
+        }
+
+        Networks candidate = current.copy();
+        for (int epoch = 0; epoch < INCREMENTAL_REGRESSION_EPOCHS; epoch++) {
+            candidate.regression().fit(features, labels);
+        }
+        INDArray classifierLabels = buildClassifierLabels(batch);
+        for (int epoch = 0; epoch < INCREMENTAL_CLASSIFIER_EPOCHS; epoch++) {
+            candidate.classifier().fit(features, classifierLabels);
+        }
+        calculateFeatureImportance(candidate);
+        networks = candidate;
+        log.info("Incremental training on {} invoices paid since {} (validation loss {}, baseline {})",
+                batch.size(), since, validationLoss, baselineLoss);
+
+        trainingCheckpoint = startedAt;
+        predictionCache.clear();
+        saveSnapshot("incremental training");
+    }
+
+    /**
+     * @return false when there was nothing to train on and the current model was kept
+     */
+    private boolean retrainFully() {
+        Networks candidate = buildNetworks();
+        if (!trainModel(candidate)) {
+            log.warn("Full retrain skipped, the current model is kept");
+            return false;
+        }
+        networks = candidate;
+        predictionCache.clear();
+        return true;
+    }
+
+    private double regressionLoss(MultiLayerNetwork regression, INDArray features, INDArray labels) {
+        INDArray diff = regression.output(features).sub(labels);
+        return diff.mul(diff).meanNumber().doubleValue();
     }
 
     public INDArray extractFeatureVector(HistoricalPaymentData data) {
-        double[] features = new double[15];
+        double[] features = new double[FEATURE_COUNT];
+        writeFeatures(data, features, 0);
+        return Nd4j.create(new double[][]{features});
+    }
+
+    /**
+     * Builds the whole [n x 15] feature matrix in one pass over a single primitive buffer,
+     * instead of allocating one INDArray per row and copying it in with putRow.
+     */
+    INDArray buildFeatureMatrix(List<HistoricalPaymentData> dataset) {
+        double[] buffer = new double[dataset.size() * FEATURE_COUNT];
+        for (int i = 0; i < dataset.size(); i++) {
+            writeFeatures(dataset.get(i), buffer, i * FEATURE_COUNT);
+        }
+        return Nd4j.create(buffer, new long[]{dataset.size(), FEATURE_COUNT}, 'c');
+    }
+
+    private INDArray buildRegressionLabels(List<HistoricalPaymentData> dataset) {
+        double[] buffer = new double[dataset.size() * 2];
+        for (int i = 0; i < dataset.size(); i++) {
+            HistoricalPaymentData data = dataset.get(i);
+            buffer[i * 2] = data.riskScore / 100.0;  // Target: 0.0 to 1.0 (85 -> 0.85)
+            buffer[i * 2 + 1] = Math.min(Math.max(data.delayDays, 0), 90) / 90.0;
+        }
+        return Nd4j.create(buffer, new long[]{dataset.size(), 2}, 'c');
+    }
+
+    private INDArray buildClassifierLabels(List<HistoricalPaymentData> dataset) {
+        double[] buffer = new double[dataset.size() * 6];
+        for (int i = 0; i < dataset.size(); i++) {
+            int levelCode = dataset.get(i).riskLevel;
+            if (levelCode >= 0 && levelCode < 6) {
+                buffer[i * 6 + levelCode] = 1.0;
+            }
+        }
+        return Nd4j.create(buffer, new long[]{dataset.size(), 6}, 'c');
+    }
 
-        features[0] = data.paymentOnTimeRate;
-        features[1] = data.latePaymentRate;
-        features[2] = data.advancePaymentRate;
-        features[3] = normalizeAmount(data.invoiceAmount);
+    private void writeFeatures(HistoricalPaymentData data, double[] features, int offset) {
+        features[offset] = data.paymentOnTimeRate;
+        features[offset + 1] = data.latePaymentRate;
+        features[offset + 2] = data.advancePaymentRate;
+        features[offset + 3] = normalizeAmount(data.invoiceAmount);
 
         // FIX: For feature 4 (days_until_due), we want:
         // - For future invoices (positive days): value between 0-1 (more days left = lower value)
@@ -700,24 +865,23 @@ public class InvoiceRiskAIModel {
         } else {
             daysUntilDueNorm = 1.0;
         }
-        features[4] = daysUntilDueNorm;
-
-        features[5] = data.isRecurring ? 1.0 : 0.0;
-        features[6] = Math.min(data.clientAge, 3650) / 3650.0;
-        features[7] = Math.min(data.totalConventions, 50) / 50.0;
-        features[8] = Math.min(data.averagePaymentDelay, 90) / 90.0;
-        features[9] = Math.min(data.contractDuration, 730) / 730.0;
-        features[10] = Math.min(data.nbUsers, 1000) / 1000.0;
-        features[11] = data.isEndOfMonth ? 1.0 : 0.0;
-        features[12] = data.isEndOfQuarter ? 1.0 : 0.0;
-        features[13] = data.isEndOfYear ? 1.0 : 0.0;
-        features[14] = Math.min(data.previousLateCount, 20) / 20.0;
-
-        return Nd4j.create(new double[][]{features});
+        features[offset + 4] = daysUntilDueNorm;
+
+        features[offset + 5] = data.isRecurring ? 1.0 : 0.0;
+        features[offset + 6] = Math.min(data.clientAge, 3650) / 3650.0;
+        features[offset + 7] = Math.min(data.totalConventions, 50) / 50.0;
+        features[offset + 8] = Math.min(data.averagePaymentDelay, 90) / 90.0;
+        features[offset + 9] = Math.min(data.contractDuration, 730) / 730.0;
+        features[offset + 10] = Math.min(data.nbUsers, 1000) / 1000.0;
+        features[offset + 11] = data.isEndOfMonth ? 1.0 : 0.0;
+        features[offset + 12] = data.isEndOfQuarter ? 1.0 : 0.0;
+        features[offset + 13] = data.isEndOfYear ? 1.0 : 0.0;
+        features[offset + 14] = Math.min(data.previousLateCount, 20) / 20.0;
     }
 
-    private void calculateFeatureImportance() {
-        INDArray weights = neuralNetwork.getLayer(0).getParam("W");
+    private void calculateFeatureImportance(Networks candidate) {
+        INDArray weights = candidate.regression().getLayer(0).getParam("W");
+        Map<String, Double> importances = new ConcurrentHashMap<>();
 
         String[] featureNames = {
                 "payment_on_time_rate", "late_payment_rate", "advance_payment_rate",
@@ -729,141 +893,191 @@ public class InvoiceRiskAIModel {
 
         for (int i = 0; i < 15 && i < weights.rows(); i++) {
             double importance = Math.abs(weights.getDouble(i, 0));
-            featureImportance.put(featureNames[i], importance);
+            importances.put(featureNames[i], importance);
         }
 
-        double sum = featureImportance.values().stream().mapToDouble(Double::doubleValue).sum();
+        double sum = importances.values().stream().mapToDouble(Double::doubleValue).sum();
         if (sum > 0) {
-            featureImportance.replaceAll((k, v) -> v / sum);
+            importances.replaceAll((k, v) -> v / sum);
         }
+        featureImportance = importances;
     }
 
     @Transactional(readOnly = true)
     public RiskPrediction predictInvoiceRisk(Long factureId) {
-        if (predictionCache.containsKey(factureId)) {
+        return predictInvoiceRisks(List.of(factureId)).get(0);
+    }
+
+    /**
+     * Batch inference. Invoices without a fresh cached prediction are loaded {@value #PREDICTION_CHUNK}
+     * at a time, each chunk's feature rows stacked into a single matrix and scored with one forward
+     * pass per network.
+     *
+     * @return one prediction per id, in input order (the default prediction for unknown ids)
+     */
+    @Transactional(readOnly = true)
+    public List<RiskPrediction> predictInvoiceRisks(Collection<Long> factureIds) {
+        Map<Long, RiskPrediction> predictions = new HashMap<>();
+        Set<Long> toLoad = new LinkedHashSet<>();
+        for (Long factureId : factureIds) {
             RiskPrediction cached = predictionCache.get(factureId);
-            if (cached.getPredictionDate().equals(LocalDate.now())) {
-                return cached;
+            if (cached != null) {
+                predictions.put(factureId, cached);
+            } else {
+                toLoad.add(factureId);
             }
         }
-
-        Optional<Facture> factureOpt = factureRepository.findByIdWithAllRelations(factureId);
-        if (factureOpt.isEmpty()) {
-            return createDefaultPrediction();
+        // Bounded so the IN list stays far below the driver's bind parameter limit and each
+        // fetch-join result and feature matrix stays small
+        Set<Long> chunk = new LinkedHashSet<>();
+        for (Iterator<Long> ids = toLoad.iterator(); ids.hasNext(); ) {
+            chunk.add(ids.next());
+            if (chunk.size() == PREDICTION_CHUNK || !ids.hasNext()) {
+                predictions.putAll(scoreFactures(factureRepository.findAllByIdWithAllRelations(chunk)));
+                chunk = new LinkedHashSet<>();
+            }
         }
 
-        Facture facture = factureOpt.get();
-
-        // EAGERLY fetch lazy relationships within transaction
-        Convention convention = facture.getConvention();
-        if (convention != null) {
-            // Force initialization
-            convention.getStructureBeneficiel();
-            convention.getStructureResponsable();
-            convention.getApplication();
+        List<RiskPrediction> result = new ArrayList<>(factureIds.size());
+        for (Long factureId : factureIds) {
+            RiskPrediction prediction = predictions.get(factureId);
+            result.add(prediction != null ? prediction : createDefaultPrediction());
         }
+        return result;
+    }
 
-        HistoricalPaymentData features = extractFeaturesFromFacture(facture);
-        INDArray featureVector = extractFeatureVector(features);
-
-        // Log the shape for debugging
-        log.debug("Feature vector shape: {}", featureVector.shape());
-
-        try {
-            // Make sure the neural network exists
-            if (neuralNetwork == null || riskLevelClassifier == null) {
-                log.warn("Neural network not initialized, using default prediction");
-                return createDefaultPrediction();
-            }
-
-            INDArray output = neuralNetwork.output(featureVector);
-            double predictedRiskScore = output.getDouble(0) * 100;
-            int predictedDelayDays = (int) Math.round(output.getDouble(1) * 90);
-
-            // Get classifier output
-            INDArray classOutput = riskLevelClassifier.output(featureVector);
-
-            // Apply temperature scaling to make predictions more decisive
-            double temperature = 0.7; // Lower = more decisive
-            for (int i = 0; i < classOutput.length(); i++) {
-                classOutput.putScalar(i, Math.pow(classOutput.getDouble(i), 1.0/temperature));
-            }
-            // Renormalize
-            double sum = classOutput.sumNumber().doubleValue();
-            for (int i = 0; i < classOutput.length(); i++) {
-                classOutput.putScalar(i, classOutput.getDouble(i) / sum);
+    /**
+     * Batch inference for invoices already loaded with their convention and client.
+     */
+    private Map<Long, RiskPrediction> predictLoadedFactures(List<Facture> factures) {
+        Map<Long, RiskPrediction> predictions = new HashMap<>();
+        List<Facture> toScore = new ArrayList<>();
+        for (Facture facture : factures) {
+            RiskPrediction cached = predictionCache.get(facture.getId());
+            if (cached != null) {
+                predictions.put(facture.getId(), cached);
+            } else {
+                toScore.add(facture);
             }
+        }
+        for (int from = 0; from < toScore.size(); from += PREDICTION_CHUNK) {
+            predictions.putAll(scoreFactures(toScore.subList(from, Math.min(from + PREDICTION_CHUNK, toScore.size()))));
+        }
+        return predictions;
+    }
 
-            int predictedLevel = argMax(classOutput);
-            double confidence = classOutput.getDouble(predictedLevel);
-
-            // ============ MINIMAL OVERRIDES (ONLY FOR EXTREME CASES) ============
-            // Only override if the model is completely wrong (off by 2+ levels)
-            int calculatedLevel = features.riskLevel;
-            int levelDifference = Math.abs(predictedLevel - calculatedLevel);
+    private Map<Long, RiskPrediction> scoreFactures(List<Facture> factures) {
+        Map<Long, RiskPrediction> predictions = new HashMap<>();
+        if (factures.isEmpty()) {
+            return predictions;
+        }
+        Networks current = networks;
+        if (current == null) {
+            log.warn("Neural network not initialized, using default prediction");
+            factures.forEach(f -> predictions.put(f.getId(), createDefaultPrediction()));
+            return predictions;
+        }
 
-            if (levelDifference >= 3) {
-                // Model is WAY off - use calculated level
-                log.warn("Model significantly off (predicted={}, calculated={}), using calculated level",
-                        predictedLevel, calculatedLevel);
-                predictedLevel = calculatedLevel;
-                confidence = 0.85;
-            } else if (features.riskScore == 0 && predictedLevel > 1) {
-                // Paid invoice showing as risky - override
-                log.warn("Paid invoice incorrectly flagged as risk level {}, correcting to VERY_LOW", predictedLevel);
-                predictedLevel = 0;
-                confidence = 0.90;
-            } else if (features.daysUntilDue > 30 && features.paymentOnTimeRate == 0 && features.totalConventions == 1 && predictedLevel >= 4) {
-                // New client with future invoice showing as CRITICAL or VERY_HIGH - reduce to HIGH
-                log.warn("New client future invoice showing as level {}, correcting to HIGH", predictedLevel);
-                predictedLevel = 3;
-                confidence = 0.75;
+        try {
+            Set<Long> clientIds = factures.stream()
+                    .map(Facture::getConvention)
+                    .filter(Objects::nonNull)
+                    .map(Convention::getStructureBeneficiel)
+                    .filter(Objects::nonNull)
+                    .map(Structure::getId)
+                    .collect(Collectors.toSet());
+            List<HistoricalPaymentData> features = extractFeatures(factures, loadClientPaymentProfiles(clientIds));
+
+            INDArray featureMatrix = buildFeatureMatrix(features);
+            double[][] regressionOutput = current.regression().output(featureMatrix).toDoubleMatrix();
+            double[][] classifierOutput = current.classifier().output(featureMatrix).toDoubleMatrix();
+
+            for (int i = 0; i < factures.size(); i++) {
+                Facture facture = factures.get(i);
+                RiskPrediction prediction = toPrediction(features.get(i), regressionOutput[i], classifierOutput[i]);
+                Structure client = facture.getConvention() != null ? facture.getConvention().getStructureBeneficiel() : null;
+                predictionCache.put(facture.getId(), client != null ? client.getId() : null, prediction);
+                predictions.put(facture.getId(), prediction);
+
+                log.debug("AI Prediction for invoice {}: Level={}, Delay={} days, Confidence={}%",
+                        facture.getNumeroFacture(), prediction.getLevel().getLabel(), prediction.getPredictedDelayDays(),
+                        Math.round(prediction.getConfidence() * 100));
             }
-            // Otherwise, trust the AI model!
-            // ============ END OF MINIMAL OVERRIDES ============
-
-            RiskPrediction prediction = new RiskPrediction();
-            prediction.setLevel(RiskLevel.fromCode(predictedLevel));
-            prediction.setProbability(confidence);
-            prediction.setConfidence(calculateConfidence(features, predictedLevel));
-            prediction.setPredictedDelayDays(Math.max(0, predictedDelayDays));
-            prediction.setPredictionDate(LocalDate.now());
-
-            Map<String, Double> contributions = calculateFeatureContributions(featureVector, features);
-            prediction.setFeatureContributions(contributions);
-            prediction.setRecommendations(generateAIRecommendations(prediction, features));
-            prediction.setExplanation(generateExplanation(prediction, contributions));
-
-            predictionCache.put(factureId, prediction);
-
-            log.info("AI Prediction for invoice {}: Level={}, Delay={} days, Confidence={}%",
-                    facture.getNumeroFacture(), prediction.getLevel().getLabel(), predictedDelayDays,
-                    Math.round(prediction.getConfidence() * 100));
-
-            return prediction;
+            log.info("Scored {} invoices in one batch", factures.size());
         } catch (Exception e) {
             log.error("Error during prediction: {}", e.getMessage(), e);
-            return createDefaultPrediction();
+            factures.forEach(f -> predictions.putIfAbsent(f.getId(), createDefaultPrediction()));
         }
+        return predictions;
+    }
+
+    /**
+     * Turns one row of network outputs into a prediction: temperature-scaled class
+     * probabilities, the safety overrides, then recommendations and explanation.
+     */
+    private RiskPrediction toPrediction(HistoricalPaymentData features, double[] regressionRow, double[] classRow) {
+        int predictedDelayDays = (int) Math.round(regressionRow[1] * 90);
+
+        // Apply temperature scaling to make predictions more decisive
+        double temperature = 0.7; // Lower = more decisive
+        double[] classOutput = new double[classRow.length];
+        double sum = 0;
+        for (int i = 0; i < classRow.length; i++) {
+            classOutput[i] = Math.pow(classRow[i], 1.0 / temperature);
+            sum += classOutput[i];
+        }
+        // Renormalize
+        for (int i = 0; i < classOutput.length; i++) {
+            classOutput[i] = classOutput[i] / sum;
+        }
+
+        int predictedLevel = argMax(classOutput);
+        double confidence = classOutput[predictedLevel];
+
+        // ============ MINIMAL OVERRIDES (ONLY FOR EXTREME CASES) ============
+        // Only override if the model is completely wrong (off by 2+ levels)
+        int calculatedLevel = features.riskLevel;
+        int levelDifference = Math.abs(predictedLevel - calculatedLevel);
+
+        if (levelDifference >= 3) {
+            // Model is WAY off - use calculated level
+            log.debug("Model significantly off (predicted={}, calculated={}), using calculated level",
+                    predictedLevel, calculatedLevel);
+            predictedLevel = calculatedLevel;
+            confidence = 0.85;
+        } else if (features.riskScore == 0 && predictedLevel > 1) {
+            // Paid invoice showing as risky - override
+            log.debug("Paid invoice incorrectly flagged as risk level {}, correcting to VERY_LOW", predictedLevel);
+            predictedLevel = 0;
+            confidence = 0.90;
+        } else if (features.daysUntilDue > 30 && features.paymentOnTimeRate == 0 && features.totalConventions == 1 && predictedLevel >= 4) {
+            // New client with future invoice showing as CRITICAL or VERY_HIGH - reduce to HIGH
+            log.debug("New client future invoice showing as level {}, correcting to HIGH", predictedLevel);
+            predictedLevel = 3;
+            confidence = 0.75;
+        }
+        // Otherwise, trust the AI model!
+        // ============ END OF MINIMAL OVERRIDES ============
+
+        RiskPrediction prediction = new RiskPrediction();
+        prediction.setLevel(RiskLevel.fromCode(predictedLevel));
+        prediction.setProbability(confidence);
+        prediction.setConfidence(calculateConfidence(features, predictedLevel));
+        prediction.setPredictedDelayDays(Math.max(0, predictedDelayDays));
+        prediction.setRiskScore(features.riskScore);
+        prediction.setPredictionDate(LocalDate.now());
+
+        Map<String, Double> contributions = calculateFeatureContributions(features);
+        prediction.setFeatureContributions(contributions);
+        prediction.setRecommendations(generateAIRecommendations(prediction, features));
+        prediction.setExplanation(generateExplanation(prediction, contributions));
+        return prediction;
     }
 
 
     @Transactional(readOnly = true)
     public List<RiskPrediction> predictClientRisk(Long clientId) {
-        List<Facture> clientFactures = factureRepository.findAll().stream()
-                .filter(f -> {
-                    if (f.getConvention() == null) return false;
-                    Convention conv = f.getConvention();
-                    // Force initialization
-                    Structure beneficiel = conv.getStructureBeneficiel();
-                    return beneficiel != null && beneficiel.getId().equals(clientId);
-                })
-                .filter(f -> !"PAYE".equals(f.getStatutPaiement()))
-                .collect(Collectors.toList());
-
-        return clientFactures.stream()
-                .map(f -> predictInvoiceRisk(f.getId()))
-                .collect(Collectors.toList());
+        return predictInvoiceRisks(factureRepository.findOpenIdsByClientId(clientId));
     }
 
 
@@ -876,17 +1090,18 @@ public class InvoiceRiskAIModel {
         log.debug("New invoice feature vector shape: {}", featureVector.shape());
 
         try {
-            if (neuralNetwork == null || riskLevelClassifier == null) {
+            Networks current = networks;
+            if (current == null) {
                 log.warn("Neural network not initialized, using default prediction");
                 return createDefaultPrediction();
             }
 
-            INDArray output = neuralNetwork.output(featureVector);
+            INDArray output = current.regression().output(featureVector);
             double predictedRiskScore = output.getDouble(0) * 100;
             int predictedDelayDays = (int) Math.round(output.getDouble(1) * 90);
 
             // Get classifier output
-            INDArray classOutput = riskLevelClassifier.output(featureVector);
+            INDArray classOutput = current.classifier().output(featureVector);
 
             // Apply temperature scaling to make predictions more decisive
             double temperature = 0.7; // Lower = more decisive
@@ -925,6 +1140,8 @@ public class InvoiceRiskAIModel {
             RiskPrediction prediction = new RiskPrediction();
             prediction.setLevel(RiskLevel.fromCode(predictedLevel));
             prediction.setProbability(confidence);
+            // No payment history for a new invoice: the regression output is the score
+            prediction.setRiskScore(Math.max(0, Math.min(100, predictedRiskScore)));
             prediction.setConfidence(calculateConfidence(syntheticData, predictedLevel));
             prediction.setPredictedDelayDays(predictedDelayDays);
             prediction.setPredictionDate(LocalDate.now());
@@ -934,7 +1151,7 @@ public class InvoiceRiskAIModel {
             prediction.setExplanation(generateExplanationForNewInvoice(prediction, syntheticData));
 
             // Calculate feature contributions
-            Map<String, Double> contributions = calculateFeatureContributions(featureVector, syntheticData);
+            Map<String, Double> contributions = calculateFeatureContributions(syntheticData);
             prediction.setFeatureContributions(contributions);
 
             log.info("AI Prediction for new invoice: Level={}, Delay={} days, Confidence={}%",
@@ -1050,16 +1267,125 @@ public class InvoiceRiskAIModel {
 
     @Scheduled(cron = "0 0 * * * *")
     public void autoRetrainModel() {
-        log.info("Starting automatic model retraining with fresh data...");
+        scheduleRetrain();
+    }
+
+    /**
+     * Queues an incremental retrain on the training executor and returns immediately.
+     *
+     * @return {@code false} if a training run is already in progress
+     */
+    public boolean scheduleRetrain() {
+        return submitTraining("incremental retrain", this::retrainIncrementally);
+    }
+
+    /**
+     * Queues a retrain from scratch on all invoices on the training executor and returns
+     * immediately. The current model keeps serving predictions until the new one is trained.
+     *
+     * @return {@code false} if a training run is already in progress
+     */
+    public boolean scheduleForceRetrain() {
+        return submitTraining("forced retrain", this::forceRetrain);
+    }
+
+    // At most one training run at a time, always on the training executor
+    private boolean submitTraining(String description, Runnable training) {
+        if (!trainingInProgress.compareAndSet(false, true)) {
+            log.info("Model training already in progress, skipping {}", description);
+            return false;
+        }
+        trainingExecutor.execute(() -> {
+            log.info("Starting {}...", description);
+            try {
+                training.run();
+                log.info("Completed {}", description);
+            } catch (Exception e) {
+                log.error("Failed {}: {}", description, e.getMessage(), e);
+            } finally {
+                trainingInProgress.set(false);
+            }
+        });
+        return true;
+    }
+
+    // ==================== SNAPSHOTS ====================
+
+    private void saveSnapshot(String reason) {
         try {
-            trainModel();
-            predictionCache.clear();
-            log.info("Auto-retraining completed successfully!");
+            Networks current = networks;
+            activeSnapshot = snapshotStore.save(current.regression(), current.classifier(), FEATURE_COUNT,
+                    trainingCheckpoint, baselineLoss, reason, featureImportance);
         } catch (Exception e) {
-            log.error("Auto-retraining failed: {}", e.getMessage());
+            log.warn("Could not save AI model snapshot: {}", e.getMessage());
         }
     }
 
+    private void installSnapshot(ModelSnapshotStore.Snapshot snapshot) {
+        ModelSnapshotStore.SnapshotMetadata metadata = snapshot.metadata();
+        featureImportance = new ConcurrentHashMap<>(metadata.featureImportance());
+        baselineLoss = metadata.baselineLoss();
+        trainingCheckpoint = metadata.trainingCheckpoint();
+        activeSnapshot = metadata.version();
+        networks = new Networks(snapshot.regression(), snapshot.classifier());
+        predictionCache.clear();
+    }
+
+    public List<ModelSnapshotStore.SnapshotMetadata> listSnapshots() {
+        return snapshotStore.list();
+    }
+
+    public String getActiveSnapshot() {
+        return activeSnapshot;
+    }
+
+    public LocalDateTime getTrainingCheckpoint() {
+        return trainingCheckpoint;
+    }
+
+    /**
+     * Reinstalls a previous snapshot and makes it the one loaded at startup. Runs on the training
+     * executor so it never interleaves with a training run; if that run does not let it start
+     * within the rollback timeout, the rollback is cancelled and the caller told to retry.
+     */
+    public void rollbackToSnapshot(String version) {
+        Future<?> rollback = trainingExecutor.submit(() -> {
+            ModelSnapshotStore.Snapshot snapshot = snapshotStore.load(version);
+            if (snapshot.metadata().featureCount() != FEATURE_COUNT) {
+                throw new IllegalArgumentException("Snapshot " + version + " was trained on "
+                        + snapshot.metadata().featureCount() + " features, expected " + FEATURE_COUNT);
+            }
+            installSnapshot(snapshot);
+            snapshotStore.activate(version);
+            log.info("AI model rolled back to snapshot {}", version);
+            return null;
+        });
+        try {
+            rollback.get(rollbackTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // Better to fail now than to switch models later, long after the request returned
+            if (rollback.cancel(false)) {
+                throw new IllegalStateException("AI model is busy training, rollback to " + version
+                        + " cancelled - retry once training is over");
+            }
+            throw new IllegalStateException("Rollback to " + version + " is taking longer than "
+                    + rollbackTimeoutSeconds + "s, it will complete in the background");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rolling back AI model", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to roll back AI model: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdownTrainingExecutor() {
+        trainingExecutor.shutdownNow();
+    }
+
     @Transactional(readOnly = true)
     protected List<HistoricalPaymentData> loadHistoricalPaymentData() {
         List<HistoricalPaymentData> data = new ArrayList<>();
@@ -1067,6 +1393,7 @@ public class InvoiceRiskAIModel {
         // Use the new JOIN FETCH query
         List<Facture> allFactures = factureRepository.findAllPaidWithRelations();
         LocalDate twoYearsAgo = LocalDate.now().minusYears(2);
+        Map<Long, ClientPaymentProfile> profiles = loadClientPaymentProfiles();
 
         for (Facture facture : allFactures) {
             try {
@@ -1079,7 +1406,7 @@ public class InvoiceRiskAIModel {
                 Structure client = conv.getStructureBeneficiel();
                 if (client == null) continue;
 
-                data.add(extractFeaturesFromFacture(facture));
+                data.add(extractFeaturesFromFacture(facture, profiles));
             } catch (Exception e) {
                 log.warn("Error processing facture {}: {}", facture.getId(), e.getMessage());
             }
@@ -1091,16 +1418,41 @@ public class InvoiceRiskAIModel {
 
 
     public INDArray getNeuralNetworkOutput(INDArray features) {
-        if (neuralNetwork == null) return Nd4j.create(2);
-        return neuralNetwork.output(features);
+        Networks current = networks;
+        if (current == null) return Nd4j.create(2);
+        return current.regression().output(features);
     }
 
     public INDArray getClassifierOutput(INDArray features) {
-        if (riskLevelClassifier == null) return Nd4j.create(6);
-        return riskLevelClassifier.output(features);
+        Networks current = networks;
+        if (current == null) return Nd4j.create(6);
+        return current.classifier().output(features);
     }
 
     public HistoricalPaymentData extractFeaturesFromFacture(Facture facture) {
+        return extractFeaturesFromFacture(facture, null);
+    }
+
+    /**
+     * Extracts features for many invoices at once. Client payment history is loaded for every
+     * client in two grouped queries up front rather than per invoice.
+     */
+    public List<HistoricalPaymentData> extractFeaturesBatch(List<Facture> factures) {
+        return extractFeatures(factures, loadClientPaymentProfiles());
+    }
+
+    private List<HistoricalPaymentData> extractFeatures(List<Facture> factures, Map<Long, ClientPaymentProfile> profiles) {
+        List<HistoricalPaymentData> dataset = new ArrayList<>(factures.size());
+        for (Facture facture : factures) {
+            dataset.add(extractFeaturesFromFacture(facture, profiles));
+        }
+        return dataset;
+    }
+
+    /**
+     * @param profiles preloaded client profiles, or {@code null} to query the invoice's client alone
+     */
+    private HistoricalPaymentData extractFeaturesFromFacture(Facture facture, Map<Long, ClientPaymentProfile> profiles) {
         HistoricalPaymentData data = new HistoricalPaymentData();
 
         Convention convention = facture.getConvention();
@@ -1130,33 +1482,17 @@ public class InvoiceRiskAIModel {
         if (client.getCreatedAt() != null) {
             data.clientAge = ChronoUnit.DAYS.between(client.getCreatedAt().toLocalDate(), LocalDate.now());
 
-            List<Convention> clientConventions = conventionRepository.findByStructureBeneficiel(client);
-            data.totalConventions = clientConventions != null ? clientConventions.size() : 0;
+            ClientPaymentProfile profile = profiles != null
+                    ? profiles.getOrDefault(client.getId(), ClientPaymentProfile.EMPTY)
+                    : loadClientPaymentProfile(client.getId());
+            data.totalConventions = profile.totalConventions();
 
             // Calculate payment history correctly
-            List<Facture> clientFactures = new ArrayList<>();
-            if (clientConventions != null) {
-                for (Convention conv : clientConventions) {
-                    List<Facture> convFactures = factureRepository.findByConventionId(conv.getId());
-                    if (convFactures != null) {
-                        clientFactures.addAll(convFactures);
-                    }
-                }
-            }
+            if (profile.paidCount() > 0) {
+                long lateCount = profile.paidCount() - profile.onTimeCount();
 
-            List<Facture> paidClientFactures = clientFactures.stream()
-                    .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                    .collect(Collectors.toList());
-
-            if (!paidClientFactures.isEmpty()) {
-                long onTimeCount = paidClientFactures.stream()
-                        .filter(f -> f.getDatePaiement() != null && f.getDateEcheance() != null &&
-                                !f.getDatePaiement().isAfter(f.getDateEcheance()))
-                        .count();
-                long lateCount = paidClientFactures.size() - onTimeCount;
-
-                data.paymentOnTimeRate = (double) onTimeCount / paidClientFactures.size();
-                data.latePaymentRate = (double) lateCount / paidClientFactures.size();
+                data.paymentOnTimeRate = (double) profile.onTimeCount() / profile.paidCount();
+                data.latePaymentRate = (double) lateCount / profile.paidCount();
                 data.previousLateCount = (int) lateCount;
             }
         }
@@ -1251,10 +1587,14 @@ public class InvoiceRiskAIModel {
         return Math.min(0.95, Math.max(0.5, confidence));
     }
 
-    private INDArray oneHotEncode(int value, int numClasses) {
-        INDArray encoding = Nd4j.zeros(numClasses);
-        encoding.putScalar(value, 1.0);
-        return encoding;
+    private int argMax(double[] values) {
+        int maxIndex = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[maxIndex]) {
+                maxIndex = i;
+            }
+        }
+        return maxIndex;
     }
 
     private int argMax(INDArray array) {
@@ -1271,8 +1611,7 @@ public class InvoiceRiskAIModel {
     }
 
 
-    private Map<String, Double> calculateFeatureContributions(INDArray featureVector,
-                                                              HistoricalPaymentData data) {
+    private Map<String, Double> calculateFeatureContributions(HistoricalPaymentData data) {
         Map<String, Double> contributions = new LinkedHashMap<>();
         contributions.put("💰 Historique de paiement", data.paymentOnTimeRate * 100);
         contributions.put("⏰ Retards antérieurs", data.latePaymentRate * 100);
@@ -1391,6 +1730,7 @@ public class InvoiceRiskAIModel {
         RiskPrediction prediction = new RiskPrediction();
         prediction.setLevel(RiskLevel.MEDIUM);
         prediction.setProbability(0.65);
+        prediction.setRiskScore(40);  // middle of the MEDIUM band
         prediction.setConfidence(0.5);
         prediction.setPredictedDelayDays(15);
         prediction.setPredictionDate(LocalDate.now());
@@ -1748,37 +2088,15 @@ public class InvoiceRiskAIModel {
                     data.clientAge = ChronoUnit.DAYS.between(client.getCreatedAt().toLocalDate(), LocalDate.now());
                 }
 
-                List<Convention> clientConventions = conventionRepository.findByStructureBeneficielId(clientId);
-                data.totalConventions = clientConventions != null ? clientConventions.size() : 0;
-
-                List<Facture> clientFactures = new ArrayList<>();
-                if (clientConventions != null) {
-                    for (Convention conv : clientConventions) {
-                        List<Facture> convFactures = factureRepository.findByConventionId(conv.getId());
-                        if (convFactures != null) {
-                            clientFactures.addAll(convFactures);
-                        }
-                    }
-                }
+                ClientPaymentProfile profile = loadClientPaymentProfile(clientId);
+                data.totalConventions = profile.totalConventions();
 
-                List<Facture> paidFactures = clientFactures.stream()
-                        .filter(f -> "PAYE".equals(f.getStatutPaiement()))
-                        .collect(Collectors.toList());
-
-                if (!paidFactures.isEmpty()) {
-                    long lateCount = paidFactures.stream()
-                            .filter(f -> f.getDatePaiement() != null && f.getDateEcheance() != null &&
-                                    f.getDatePaiement().isAfter(f.getDateEcheance()))
-                            .count();
-                    data.latePaymentRate = (double) lateCount / paidFactures.size();
-                    data.previousLateCount = (int) lateCount;
-
-                    data.averagePaymentDelay = paidFactures.stream()
-                            .filter(f -> f.getDatePaiement() != null && f.getDateEcheance() != null &&
-                                    f.getDatePaiement().isAfter(f.getDateEcheance()))
-                            .mapToLong(f -> ChronoUnit.DAYS.between(f.getDateEcheance(), f.getDatePaiement()))
-                            .average()
-                            .orElse(0);
+                if (profile.paidCount() > 0) {
+                    data.latePaymentRate = (double) profile.lateCount() / profile.paidCount();
+                    data.previousLateCount = (int) profile.lateCount();
+                    data.averagePaymentDelay = profile.lateCount() > 0
+                            ? (double) profile.lateDaysTotal() / profile.lateCount()
+                            : 0;
                 }
             }
         }
@@ -1809,6 +2127,66 @@ public class InvoiceRiskAIModel {
         return hpd;
     }
 
+    /**
+     * Payment history of one client (structure bénéficiaire): conventions held and paid
+     * invoices split into on-time and late.
+     */
+    record ClientPaymentProfile(int totalConventions, long paidCount, long onTimeCount,
+                                long lateCount, long lateDaysTotal) {
+        static final ClientPaymentProfile EMPTY = new ClientPaymentProfile(0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Payment profiles of every client, from one grouped query on conventions and one on paid invoices.
+     */
+    Map<Long, ClientPaymentProfile> loadClientPaymentProfiles() {
+        return toClientPaymentProfiles(conventionRepository.countConventionsByClient(),
+                factureRepository.aggregatePaymentHistoryByClient());
+    }
+
+    /**
+     * Same as {@link #loadClientPaymentProfiles()} restricted to the given clients.
+     */
+    Map<Long, ClientPaymentProfile> loadClientPaymentProfiles(Collection<Long> clientIds) {
+        if (clientIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return toClientPaymentProfiles(conventionRepository.countConventionsForClients(clientIds),
+                factureRepository.aggregatePaymentHistoryForClients(clientIds));
+    }
+
+    private ClientPaymentProfile loadClientPaymentProfile(Long clientId) {
+        return loadClientPaymentProfiles(Set.of(clientId)).getOrDefault(clientId, ClientPaymentProfile.EMPTY);
+    }
+
+    private static Map<Long, ClientPaymentProfile> toClientPaymentProfiles(List<Object[]> conventionRows,
+                                                                         List<Object[]> paymentRows) {
+        Map<Long, Integer> conventionCounts = new HashMap<>();
+        for (Object[] row : conventionRows) {
+            if (row[0] != null) {
+                conventionCounts.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+            }
+        }
+
+        Map<Long, ClientPaymentProfile> profiles = new HashMap<>();
+        conventionCounts.forEach((clientId, count) ->
+                profiles.put(clientId, new ClientPaymentProfile(count, 0, 0, 0, 0)));
+        for (Object[] row : paymentRows) {
+            if (row[0] == null) continue;
+            Long clientId = ((Number) row[0]).longValue();
+            profiles.put(clientId, toClientPaymentProfile(conventionCounts.getOrDefault(clientId, 0), row));
+        }
+        return profiles;
+    }
+
+    private static ClientPaymentProfile toClientPaymentProfile(int conventionCount, Object[] row) {
+        return new ClientPaymentProfile(conventionCount,
+                row[1] != null ? ((Number) row[1]).longValue() : 0,
+                row[2] != null ? ((Number) row[2]).longValue() : 0,
+                row[3] != null ? ((Number) row[3]).longValue() : 0,
+                row[4] != null ? ((Number) row[4]).longValue() : 0);
+    }
+
     // Internal class for training data
     public static class HistoricalPaymentData {
         double invoiceAmount;
@@ -1832,20 +2210,15 @@ public class InvoiceRiskAIModel {
     }
 
 
-    // Add this method to InvoiceRiskAIModel class
-    public void forceRetrain() {
+    // Runs on the training executor, see scheduleForceRetrain
+    void forceRetrain() {
         log.info("Force retraining AI model with current data...");
         try {
-            predictionCache.clear();
-            buildNeuralNetwork();
+            LocalDateTime startedAt = LocalDateTime.now();
+            Networks candidate = buildNetworks();
 
-            List<HistoricalPaymentData> trainingData = new ArrayList<>();
             List<Facture> allFactures = factureRepository.findAllWithAllRelations();
-
-
-            for (Facture facture : allFactures) {
-                trainingData.add(extractFeaturesFromFacture(facture));
-            }
+            List<HistoricalPaymentData> trainingData = extractFeaturesBatch(allFactures);
 
             // Add balanced synthetic data
             trainingData.addAll(generateBalancedSyntheticData());
@@ -1859,8 +2232,11 @@ public class InvoiceRiskAIModel {
                     .collect(Collectors.groupingBy(d -> d.riskLevel, Collectors.counting()));
             log.info("Risk distribution before training: {}", distribution);
 
-            trainModelWithCalculatedRisks(trainingData);
+            trainModelWithCalculatedRisks(candidate, trainingData);
+            networks = candidate;
+            trainingCheckpoint = startedAt;
             predictionCache.clear();
+            saveSnapshot("forced retrain");
 
             log.info("Force retrain completed successfully!");
         } catch (Exception e) {
@@ -1977,63 +2353,48 @@ public class InvoiceRiskAIModel {
         LocalDate today = LocalDate.now();
         LocalDate dueDateUpper = today.plusDays(days);
 
-        // Get all unpaid invoices
-        List<Facture> allFactures = factureRepository.findAllWithAllRelations();
-
-        for (Facture facture : allFactures) {
-            // Skip paid invoices
-            if ("PAYE".equals(facture.getStatutPaiement())) {
-                continue;
-            }
+        // Unpaid invoices due in the next X days or already overdue, scored in one batch
+        List<Facture> upcomingFactures = factureRepository.findOpenDueByWithRelations(dueDateUpper);
+        Map<Long, RiskPrediction> predictions = predictLoadedFactures(upcomingFactures);
 
+        for (Facture facture : upcomingFactures) {
             LocalDate dueDate = facture.getDateEcheance();
-            if (dueDate == null) {
-                continue;
-            }
-
-            // Check if invoice is due within the specified days (including overdue)
-            boolean isDueSoon = !dueDate.isAfter(dueDateUpper);
             boolean isOverdue = dueDate.isBefore(today);
 
-            // Include if due in next X days OR already overdue
-            if (isDueSoon || isOverdue) {
-                // Get AI prediction
-                RiskPrediction prediction = predictInvoiceRisk(facture.getId());
-                HistoricalPaymentData features = extractFeaturesFromFacture(facture);
-
-                Map<String, Object> invoiceData = new HashMap<>();
-                invoiceData.put("id", facture.getId());
-                invoiceData.put("invoiceNumber", facture.getNumeroFacture());
-                invoiceData.put("dueDate", dueDate.toString());
-                invoiceData.put("daysUntilDue", (int) ChronoUnit.DAYS.between(today, dueDate));
-                invoiceData.put("isOverdue", isOverdue);
-                invoiceData.put("overdueDays", isOverdue ? (int) ChronoUnit.DAYS.between(dueDate, today) : 0);
-                invoiceData.put("amount", facture.getMontantTTC() != null ? facture.getMontantTTC().doubleValue() : 0);
-                invoiceData.put("status", facture.getStatutPaiement());
-
-                // Add risk prediction data
-                invoiceData.put("riskLevel", prediction.getLevel().getLabel());
-                invoiceData.put("riskLevelCode", prediction.getLevel().getCode());
-                invoiceData.put("riskColor", prediction.getLevel().getColor());
-                invoiceData.put("riskSeverity", prediction.getLevel().getSeverity());
-                invoiceData.put("riskScore", features.riskScore);
-                invoiceData.put("probability", prediction.getProbability());
-                invoiceData.put("confidence", prediction.getConfidence());
-                invoiceData.put("predictedDelayDays", prediction.getPredictedDelayDays());
-                invoiceData.put("recommendations", prediction.getRecommendations());
-
-                // Add client info if available
-                Convention convention = facture.getConvention();
-                if (convention != null && convention.getStructureBeneficiel() != null) {
-                    Structure client = convention.getStructureBeneficiel();
-                    invoiceData.put("clientId", client.getId());
-                    invoiceData.put("clientName", client.getName());
-                    invoiceData.put("clientEmail", client.getEmail());
-                    invoiceData.put("clientPhone", client.getPhone());
-                }
-
-                results.add(invoiceData);
+            RiskPrediction prediction = predictions.get(facture.getId());
+
+            Map<String, Object> invoiceData = new HashMap<>();
+            invoiceData.put("id", facture.getId());
+            invoiceData.put("invoiceNumber", facture.getNumeroFacture());
+            invoiceData.put("dueDate", dueDate.toString());
+            invoiceData.put("daysUntilDue", (int) ChronoUnit.DAYS.between(today, dueDate));
+            invoiceData.put("isOverdue", isOverdue);
+            invoiceData.put("overdueDays", isOverdue ? (int) ChronoUnit.DAYS.between(dueDate, today) : 0);
+            invoiceData.put("amount", facture.getMontantTTC() != null ? facture.getMontantTTC().doubleValue() : 0);
+            invoiceData.put("status", facture.getStatutPaiement());
+
+            // Add risk prediction data
+            invoiceData.put("riskLevel", prediction.getLevel().getLabel());
+            invoiceData.put("riskLevelCode", prediction.getLevel().getCode());
+            invoiceData.put("riskColor", prediction.getLevel().getColor());
+            invoiceData.put("riskSeverity", prediction.getLevel().getSeverity());
+            invoiceData.put("riskScore", prediction.getRiskScore());
+            invoiceData.put("probability", prediction.getProbability());
+            invoiceData.put("confidence", prediction.getConfidence());
+            invoiceData.put("predictedDelayDays", prediction.getPredictedDelayDays());
+            invoiceData.put("recommendations", prediction.getRecommendations());
+
+            // Add client info if available
+            Convention convention = facture.getConvention();
+            if (convention != null && convention.getStructureBeneficiel() != null) {
+                Structure client = convention.getStructureBeneficiel();
+                invoiceData.put("clientId", client.getId());
+                invoiceData.put("clientName", client.getName());
+                invoiceData.put("clientEmail", client.getEmail());
+                invoiceData.put("clientPhone", client.getPhone());
             }
+
+            results.add(invoiceData);
         }
 
         // Sort by urgency: overdue first, then by due date closest first
@@ -2060,16 +2421,18 @@ public class InvoiceRiskAIModel {
         log.info("Prediction cache cleared");
     }
 
+    public Map<String, Object> getPredictionCacheStats() {
+        return predictionCache.getStats();
+    }
+
     /**
-     * Auto-refresh predictions for upcoming invoices every hour
+     * Drops expired predictions every hour; entries are otherwise invalidated by the write paths
      */
     @Scheduled(cron = "0 0 * * * *")
     public void autoRefreshUpcomingPredictions() {
-        log.info("Auto-refreshing upcoming invoice predictions...");
         try {
-            // Clear cache to force recalculation
-            predictionCache.clear();
-            log.info("Upcoming predictions auto-refreshed successfully");
+            int purged = predictionCache.purgeExpired();
+            log.debug("Purged {} expired predictions", purged);
         } catch (Exception e) {
             log.error("Auto-refresh failed: {}", e.getMessage());
         }
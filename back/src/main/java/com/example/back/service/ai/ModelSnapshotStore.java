@@ -0,0 +1,204 @@
+package com.example.back.service.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Versioned on-disk snapshots of the invoice risk model.
+ *
+ * Each snapshot is a directory {@code <snapshotDir>/<version>/} holding both networks (with
+ * updater state, so training can resume warm) and a {@code metadata.json}. The {@code ACTIVE}
+ * file names the snapshot loaded at startup.
+ */
+@Component
+@Slf4j
+public class ModelSnapshotStore {
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final String REGRESSION_FILE = "regression.zip";
+    private static final String CLASSIFIER_FILE = "classifier.zip";
+    private static final String METADATA_FILE = "metadata.json";
+    private static final String ACTIVE_FILE = "ACTIVE";
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.ai.snapshot.dir:${user.home}/uploads/ai-models}")
+    private String snapshotDir;
+
+    @Value("${app.ai.snapshot.keep:10}")
+    private int keep;
+
+    public ModelSnapshotStore(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public record SnapshotMetadata(String version,
+                                   int featureCount,
+                                   LocalDateTime createdAt,
+                                   LocalDateTime trainingCheckpoint,
+                                   double baselineLoss,
+                                   String reason,
+                                   Map<String, Double> featureImportance) {
+    }
+
+    public record Snapshot(SnapshotMetadata metadata,
+                           MultiLayerNetwork regression,
+                           MultiLayerNetwork classifier) {
+    }
+
+    /**
+     * Writes a new snapshot, marks it active and prunes the oldest ones beyond the retention limit.
+     *
+     * @return the version of the new snapshot
+     */
+    public synchronized String save(MultiLayerNetwork regression, MultiLayerNetwork classifier,
+                                    int featureCount, LocalDateTime trainingCheckpoint,
+                                    double baselineLoss, String reason,
+                                    Map<String, Double> featureImportance) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        String version = "v" + now.format(VERSION_FORMAT);
+        // Two saves within the same millisecond still get distinct, ordered versions
+        while (Files.exists(root().resolve(version))) {
+            now = now.plus(1, ChronoUnit.MILLIS);
+            version = "v" + now.format(VERSION_FORMAT);
+        }
+        Path dir = root().resolve(version);
+        Path tmp = root().resolve(version + ".tmp");
+        Files.createDirectories(tmp);
+
+        ModelSerializer.writeModel(regression, tmp.resolve(REGRESSION_FILE).toFile(), true);
+        ModelSerializer.writeModel(classifier, tmp.resolve(CLASSIFIER_FILE).toFile(), true);
+        SnapshotMetadata metadata = new SnapshotMetadata(version, featureCount, now, trainingCheckpoint,
+                baselineLoss, reason, new LinkedHashMap<>(featureImportance));
+        objectMapper.writeValue(tmp.resolve(METADATA_FILE).toFile(), metadata);
+
+        // A half-written snapshot must never be picked up, so it only appears under its final name once complete
+        Files.move(tmp, dir);
+        activate(version);
+        prune();
+
+        log.info("Saved AI model snapshot {} ({})", version, reason);
+        return version;
+    }
+
+    public Optional<Snapshot> loadActive() {
+        try {
+            Path active = root().resolve(ACTIVE_FILE);
+            if (!Files.exists(active)) {
+                return Optional.empty();
+            }
+            String version = Files.readString(active, StandardCharsets.UTF_8).trim();
+            return Optional.of(load(version));
+        } catch (Exception e) {
+            log.warn("Could not load active AI model snapshot: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public Snapshot load(String version) throws IOException {
+        Path dir = snapshotPath(version);
+        SnapshotMetadata metadata = objectMapper.readValue(dir.resolve(METADATA_FILE).toFile(), SnapshotMetadata.class);
+        MultiLayerNetwork regression = ModelSerializer.restoreMultiLayerNetwork(dir.resolve(REGRESSION_FILE).toFile(), true);
+        MultiLayerNetwork classifier = ModelSerializer.restoreMultiLayerNetwork(dir.resolve(CLASSIFIER_FILE).toFile(), true);
+        return new Snapshot(metadata, regression, classifier);
+    }
+
+    /**
+     * All complete snapshots, newest first.
+     */
+    public List<SnapshotMetadata> list() {
+        List<SnapshotMetadata> snapshots = new ArrayList<>();
+        for (Path dir : snapshotDirectories()) {
+            try {
+                snapshots.add(objectMapper.readValue(dir.resolve(METADATA_FILE).toFile(), SnapshotMetadata.class));
+            } catch (IOException e) {
+                log.warn("Skipping unreadable AI model snapshot {}: {}", dir.getFileName(), e.getMessage());
+            }
+        }
+        snapshots.sort(Comparator.comparing(SnapshotMetadata::version).reversed());
+        return snapshots;
+    }
+
+    public Optional<String> activeVersion() {
+        try {
+            Path active = root().resolve(ACTIVE_FILE);
+            return Files.exists(active)
+                    ? Optional.of(Files.readString(active, StandardCharsets.UTF_8).trim())
+                    : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    public synchronized void activate(String version) throws IOException {
+        snapshotPath(version);
+        Files.writeString(root().resolve(ACTIVE_FILE), version, StandardCharsets.UTF_8);
+    }
+
+    private void prune() {
+        String active = activeVersion().orElse(null);
+        List<Path> dirs = snapshotDirectories();
+        dirs.sort(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed());
+        for (int i = keep; i < dirs.size(); i++) {
+            Path dir = dirs.get(i);
+            if (dir.getFileName().toString().equals(active)) continue;
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            } catch (IOException e) {
+                log.warn("Could not delete old AI model snapshot {}: {}", dir.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private List<Path> snapshotDirectories() {
+        Path root = Paths.get(snapshotDir);
+        if (!Files.isDirectory(root)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> children = Files.list(root)) {
+            return children
+                    .filter(Files::isDirectory)
+                    .filter(dir -> !dir.getFileName().toString().endsWith(".tmp"))
+                    .filter(dir -> Files.exists(dir.resolve(METADATA_FILE)))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException e) {
+            log.warn("Could not list AI model snapshots: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private Path snapshotPath(String version) {
+        if (version == null || !version.matches("v[0-9-]+")) {
+            throw new IllegalArgumentException("Invalid snapshot version: " + version);
+        }
+        Path dir = Paths.get(snapshotDir).resolve(version);
+        if (!Files.exists(dir.resolve(METADATA_FILE))) {
+            throw new IllegalArgumentException("Snapshot not found: " + version);
+        }
+        return dir;
+    }
+
+    private Path root() throws IOException {
+        Path root = Paths.get(snapshotDir);
+        if (!Files.exists(root)) {
+            Files.createDirectories(root);
+        }
+        return root;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.back.service.ai;
+
+import com.example.back.entity.Convention;
+import com.example.back.entity.Facture;
+import com.example.back.entity.Structure;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of invoice risk predictions.
+ *
+ * Entries are evicted least-recently-used once {@code maxSize} is reached, expire after
+ * {@code ttlMinutes} (and at the end of the day they were computed for, since the features
+ * depend on the days left before the due date), and are invalidated precisely by the write
+ * paths: editing an invoice evicts it, a change to a client's payment history or conventions
+ * evicts every invoice of that client.
+ */
+@Component
+@Slf4j
+public class RiskPredictionCache {
+
+    @Value("${app.ai.prediction-cache.max-size:100000}")
+    private int maxSize;
+
+    @Value("${app.ai.prediction-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private record Entry(Long clientId, InvoiceRiskAIModel.RiskPrediction prediction, LocalDate day, long expiresAt) {
+    }
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<Long, Set<Long>> invoicesByClient = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public synchronized InvoiceRiskAIModel.RiskPrediction get(Long factureId) {
+        Entry entry = entries.get(factureId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(entry)) {
+            remove(factureId);
+            expirations.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.prediction();
+    }
+
+    public synchronized void put(Long factureId, Long clientId, InvoiceRiskAIModel.RiskPrediction prediction) {
+        if (factureId == null || maxSize <= 0) return;
+        remove(factureId);
+        entries.put(factureId, new Entry(clientId, prediction, LocalDate.now(),
+                System.currentTimeMillis() + ttlMinutes * 60_000L));
+        if (clientId != null) {
+            invoicesByClient.computeIfAbsent(clientId, id -> new HashSet<>()).add(factureId);
+        }
+        while (entries.size() > maxSize) {
+            remove(entries.keySet().iterator().next());
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Call with the invoice before and after a change. The invoice itself is always evicted;
+     * once it is (or was) paid it is part of the client's payment history, so all the client's
+     * predictions are evicted too.
+     */
+    public void evict(Facture facture) {
+        if (facture == null) return;
+        Long factureId = facture.getId();
+        Long clientId = "PAYE".equals(facture.getStatutPaiement()) || facture.getDatePaiement() != null
+                ? clientIdOf(facture) : null;
+        afterCompletion(() -> {
+            evictClient(clientId);
+            evict(factureId);
+        });
+    }
+
+    /**
+     * A convention created, edited or removed changes its client's convention count.
+     */
+    public void evict(Convention convention) {
+        if (convention == null || convention.getStructureBeneficiel() == null) return;
+        Long clientId = convention.getStructureBeneficiel().getId();
+        afterCompletion(() -> evictClient(clientId));
+    }
+
+    public synchronized void evict(Long factureId) {
+        if (factureId != null && remove(factureId) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public synchronized void evictClient(Long clientId) {
+        if (clientId == null) return;
+        Set<Long> factureIds = invoicesByClient.remove(clientId);
+        if (factureIds == null) return;
+        for (Long factureId : factureIds) {
+            if (entries.remove(factureId) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        invoicesByClient.clear();
+    }
+
+    /**
+     * Drops expired entries so they do not hold memory until their next lookup.
+     *
+     * @return the number of entries removed
+     */
+    public synchronized int purgeExpired() {
+        List<Long> expired = new ArrayList<>();
+        entries.forEach((factureId, entry) -> {
+            if (isExpired(entry)) expired.add(factureId);
+        });
+        expired.forEach(this::remove);
+        expirations.add(expired.size());
+        return expired.size();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlMinutes", ttlMinutes);
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.sum());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.currentTimeMillis() >= entry.expiresAt() || !LocalDate.now().equals(entry.day());
+    }
+
+    private Entry remove(Long factureId) {
+        Entry entry = entries.remove(factureId);
+        if (entry != null && entry.clientId() != null) {
+            Set<Long> factureIds = invoicesByClient.get(entry.clientId());
+            if (factureIds != null) {
+                factureIds.remove(factureId);
+                if (factureIds.isEmpty()) {
+                    invoicesByClient.remove(entry.clientId());
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Evicting before the writing transaction completes would let a concurrent prediction
+     * re-cache the invoice from the old, still committed data.
+     */
+    private void afterCompletion(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+
+    private static Long clientIdOf(Facture facture) {
+        Convention convention = facture.getConvention();
+        Structure client = convention != null ? convention.getStructureBeneficiel() : null;
+        return client != null ? client.getId() : null;
+    }
+}
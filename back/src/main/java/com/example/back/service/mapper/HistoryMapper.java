@@ -127,7 +127,7 @@ public class HistoryMapper {
         return !newValue.equals(oldValue);
     }
 
-    private String getActionTypeLabel(String actionType) {
+    public String getActionTypeLabel(String actionType) {
         if (actionType == null) return "Inconnu";
         switch (actionType) {
             case "CREATE": return "Création";
@@ -156,7 +156,7 @@ public class HistoryMapper {
         }
     }
 
-    private String getEntityTypeLabel(String entityType) {
+    public String getEntityTypeLabel(String entityType) {
         if (entityType == null) return "Inconnu";
         switch (entityType) {
             case "USER": return "Utilisateur";
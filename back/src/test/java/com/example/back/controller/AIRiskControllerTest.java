@@ -0,0 +1,92 @@
+package com.example.back.controller;
+
+import com.example.back.repository.ApplicationRepository;
+import com.example.back.repository.FactureRepository;
+import com.example.back.repository.StructureRepository;
+import com.example.back.service.ai.AIRecommendationEngine;
+import com.example.back.service.ai.InvoiceRiskAIModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AIRiskControllerTest {
+
+    @Mock
+    private InvoiceRiskAIModel riskAIModel;
+
+    @Mock
+    private AIRecommendationEngine recommendationEngine;
+
+    @Mock
+    private FactureRepository factureRepository;
+
+    @Mock
+    private StructureRepository structureRepository;
+
+    @Mock
+    private ApplicationRepository applicationRepository;
+
+    @InjectMocks
+    private AIRiskController controller;
+
+    @BeforeEach
+    void setUp() {
+        // [factureId, clientId, clientCode, clientName, montantTTC, dateEcheance]
+        List<Object[]> openInvoices = List.of(
+                new Object[]{10L, 1L, "CL1", "Alpha", new BigDecimal("1000"), LocalDate.now().plusDays(5)},
+                new Object[]{11L, 1L, "CL1", "Alpha", new BigDecimal("300"), LocalDate.now().minusDays(3)},
+                new Object[]{12L, 2L, "CL2", "Beta", new BigDecimal("500"), LocalDate.now().plusDays(5)});
+        when(factureRepository.findOpenInvoicesWithClient()).thenReturn(openInvoices);
+        // Equal levels and a high classifier confidence everywhere: only the risk score tells them apart
+        when(riskAIModel.predictInvoiceRisks(List.of(10L, 11L, 12L))).thenReturn(List.of(
+                prediction(InvoiceRiskAIModel.RiskLevel.HIGH, 60),
+                prediction(InvoiceRiskAIModel.RiskLevel.LOW, 20),
+                prediction(InvoiceRiskAIModel.RiskLevel.HIGH, 80)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getHighRiskClients_ranksAndAveragesByRiskScore() {
+        ResponseEntity<?> response = controller.getHighRiskClients("HIGH");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<Map<String, Object>> clients = (List<Map<String, Object>>) ((Map<String, Object>) response.getBody()).get("clients");
+        assertThat(clients).extracting(c -> c.get("clientCode")).containsExactly("CL2", "CL1");
+        assertThat(clients.get(0)).containsEntry("maxRiskScore", 80.0).containsEntry("averageRiskScore", 80.0);
+        assertThat(clients.get(1)).containsEntry("maxRiskScore", 60.0).containsEntry("averageRiskScore", 40.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getRiskDashboard_averagesRiskScoresOfAllOpenInvoices() {
+        ResponseEntity<?> response = controller.getRiskDashboard();
+
+        Map<String, Object> dashboard = (Map<String, Object>) ((Map<String, Object>) response.getBody()).get("data");
+        assertThat((double) dashboard.get("averageRiskScore")).isCloseTo(160.0 / 3, within(1e-9));
+        assertThat(dashboard).containsEntry("highRiskClients", 2L)
+                .containsEntry("totalOverdueAmount", new BigDecimal("300"));
+    }
+
+    private static InvoiceRiskAIModel.RiskPrediction prediction(InvoiceRiskAIModel.RiskLevel level, double riskScore) {
+        InvoiceRiskAIModel.RiskPrediction prediction = new InvoiceRiskAIModel.RiskPrediction();
+        prediction.setLevel(level);
+        prediction.setProbability(0.9);
+        prediction.setRiskScore(riskScore);
+        return prediction;
+    }
+}
@@ -7,6 +7,8 @@ import com.example.back.payload.request.SignupRequest;
 import com.example.back.payload.response.MessageResponse;
 import com.example.back.repository.RoleRepository;
 import com.example.back.repository.UserRepository;
+import com.example.back.security.services.PrincipalCache;
+import com.example.back.service.AsyncTaskMetrics;
 import com.example.back.service.AvatarService;
 import com.example.back.service.EmailService;
 import com.example.back.service.HistoryService;
@@ -44,6 +46,10 @@ class AdminControllerTest {
     private HistoryService historyService;
     @Mock
     private EmailService emailService;
+    @Mock
+    private PrincipalCache principalCache;
+    @Mock
+    private AsyncTaskMetrics asyncTaskMetrics;
 
     @InjectMocks
     private AdminController controller;
@@ -85,6 +91,7 @@ class AdminControllerTest {
         assertThat(regular.getAccountNonLocked()).isFalse();
         verify(historyService).logUserLock(regular, admin);
         verify(emailService).sendAccountLockedByAdminEmail(regular.getEmail(), regular.getUsername());
+        verify(principalCache).evict("regular");
     }
 
     @Test
@@ -179,5 +186,21 @@ class AdminControllerTest {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(((MessageResponse) response.getBody()).getMessage()).isEqualTo("User roles updated successfully");
+        assertThat(regular.getRoles()).containsExactly(decideurRole);
+        verify(userRepository).save(regular);
+        verify(principalCache).evict("regular");
+    }
+
+    @Test
+    void getAsyncExecutors_returnsExecutorSnapshot() {
+        Map<String, Map<String, Object>> snapshot = Map.of("smsExecutor", Map.of("queueDepth", 3));
+        when(asyncTaskMetrics.snapshot()).thenReturn(snapshot);
+
+        ResponseEntity<?> response = controller.getAsyncExecutors();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat((Map<String, Object>) response.getBody())
+                .containsEntry("success", true)
+                .containsEntry("executors", snapshot);
     }
 }
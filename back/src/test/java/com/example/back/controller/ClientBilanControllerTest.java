@@ -1,5 +1,6 @@
 package com.example.back.controller;
 
+import com.example.back.entity.Structure;
 import com.example.back.payload.request.ClientBilanRequest;
 import com.example.back.payload.response.ClientBilanResponse;
 import com.example.back.service.ClientBilanService;
@@ -13,13 +14,22 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -132,26 +142,36 @@ class ClientBilanControllerTest {
     }
 
     @Test
-    void exportBilanToPdf_setsAttachmentHeaders() {
-        when(clientBilanService.exportBilanToPdf(7L, null, null)).thenReturn(new byte[]{1, 2});
+    void exportBilanToPdf_streamsRenderedDocument() throws IOException {
+        ClientBilanService.BilanExport export = new ClientBilanService.BilanExport(new ClientBilanResponse(), new Structure());
+        when(clientBilanService.prepareBilanExport(7L, null, null)).thenReturn(export);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write(new byte[]{1, 2});
+            return null;
+        }).when(clientBilanService).writeBilanPdf(eq(export), any(OutputStream.class));
 
-        ResponseEntity<byte[]> response = controller.exportBilanToPdf(7L, null, null);
+        ResponseEntity<StreamingResponseBody> response = controller.exportBilanToPdf(7L, null, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
                 .isEqualTo("attachment; filename=client-bilan-7.pdf");
-        assertThat(response.getBody()).containsExactly(1, 2);
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(-1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        assertThat(out.toByteArray()).containsExactly(1, 2);
     }
 
     @Test
-    void exportBilanToExcel_setsAttachmentHeaders() {
-        when(clientBilanService.exportBilanToExcel(8L, null, null)).thenReturn(new byte[]{3, 4});
+    void exportBilanToExcel_rendersOnlyWhenTheBodyIsWritten() throws IOException {
+        ClientBilanService.BilanExport export = new ClientBilanService.BilanExport(new ClientBilanResponse(), new Structure());
+        when(clientBilanService.prepareBilanExport(8L, null, null)).thenReturn(export);
 
-        ResponseEntity<byte[]> response = controller.exportBilanToExcel(8L, null, null);
+        ResponseEntity<StreamingResponseBody> response = controller.exportBilanToExcel(8L, null, null);
 
-        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
                 .isEqualTo("attachment; filename=client-bilan-8.xlsx");
-        assertThat(response.getBody()).containsExactly(3, 4);
+        verify(clientBilanService, never()).writeBilanExcel(any(), any());
+        response.getBody().writeTo(new ByteArrayOutputStream());
+        verify(clientBilanService).writeBilanExcel(eq(export), any(OutputStream.class));
     }
 }
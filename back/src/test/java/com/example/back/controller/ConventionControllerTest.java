@@ -17,8 +17,12 @@ import com.example.back.repository.OldConventionRepository;
 import com.example.back.repository.OldFactureRepository;
 import com.example.back.repository.UserRepository;
 import com.example.back.service.ApplicationService;
+import com.example.back.service.ClientScorecardService;
 import com.example.back.service.ConventionService;
 import com.example.back.service.HistoryService;
+import com.example.back.service.StatsMetricsService;
+import com.example.back.service.WorkloadLedgerService;
+import com.example.back.service.ai.RiskPredictionCache;
 import com.example.back.service.mapper.ConventionMapper;
 import com.example.back.support.ControllerTestSupport;
 import org.junit.jupiter.api.AfterEach;
@@ -63,6 +67,17 @@ class ConventionControllerTest {
     private OldFactureRepository oldFactureRepository;
     @Mock
     private OldConventionRepository oldConventionRepository;
+    @Mock
+    private StatsMetricsService statsMetricsService;
+
+    @Mock
+    private RiskPredictionCache riskPredictionCache;
+
+    @Mock
+    private WorkloadLedgerService workloadLedger;
+
+    @Mock
+    private ClientScorecardService clientScorecardService;
 
     @InjectMocks
     private ConventionController controller;
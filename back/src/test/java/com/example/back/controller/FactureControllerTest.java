@@ -10,10 +10,13 @@ import com.example.back.payload.request.SendEmailRequest;
 import com.example.back.payload.response.FactureResponse;
 import com.example.back.repository.ConventionRepository;
 import com.example.back.repository.FactureRepository;
+import com.example.back.service.ClientScorecardService;
 import com.example.back.service.ConventionService;
 import com.example.back.service.EmailService;
 import com.example.back.service.HistoryService;
 import com.example.back.service.NotificationService;
+import com.example.back.service.StatsMetricsService;
+import com.example.back.service.ai.RiskPredictionCache;
 import com.example.back.service.UserContextService;
 import com.example.back.service.mapper.FactureMapper;
 import com.example.back.support.ControllerTestSupport;
@@ -55,6 +58,14 @@ class FactureControllerTest {
     private HistoryService historyService;
     @Mock
     private NotificationService notificationService;
+    @Mock
+    private StatsMetricsService statsMetricsService;
+
+    @Mock
+    private RiskPredictionCache riskPredictionCache;
+
+    @Mock
+    private ClientScorecardService clientScorecardService;
 
     @InjectMocks
     private FactureController controller;
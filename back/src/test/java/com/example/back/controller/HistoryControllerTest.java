@@ -1,6 +1,8 @@
 package com.example.back.controller;
 
+import com.example.back.payload.response.HistoryPageResponse;
 import com.example.back.payload.response.HistoryResponse;
+import com.example.back.service.HistoryArchiveService;
 import com.example.back.service.HistoryService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,7 +12,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
-import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +25,9 @@ class HistoryControllerTest {
     @Mock
     private HistoryService historyService;
 
+    @Mock
+    private HistoryArchiveService historyArchiveService;
+
     @InjectMocks
     private HistoryController controller;
 
@@ -33,25 +37,25 @@ class HistoryControllerTest {
         entry.setId(1L);
         entry.setActionTypeLabel("CREATE");
 
-        when(historyService.getAllHistory()).thenReturn(List.of(entry));
+        when(historyService.getAllHistory(null, 50)).thenReturn(new HistoryPageResponse(List.of(entry), "next", true));
 
-        ResponseEntity<?> response = controller.getAllHistory();
+        ResponseEntity<?> response = controller.getAllHistory(null, 50);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat((Map<String, Object>) response.getBody())
                 .containsEntry("success", true)
-                .containsEntry("count", 1);
+                .containsEntry("count", 1)
+                .containsEntry("nextCursor", "next")
+                .containsEntry("hasMore", true);
     }
 
     @Test
     void getHistoryStats_aggregatesActionEntityAndUsers() {
-        HistoryResponse entry = new HistoryResponse();
-        entry.setActionTypeLabel("CREATE");
-        entry.setEntityTypeLabel("CONVENTION");
-        entry.setUserFullName("Alice Doe");
-        entry.setTimestamp(LocalDateTime.now());
-
-        when(historyService.getAllHistory()).thenReturn(List.of(entry));
+        when(historyService.getHistoryStats()).thenReturn(Map.of(
+                "totalEntries", 1L,
+                "byActionType", Map.of("Création", 1L),
+                "byEntityType", Map.of("Convention", 1L),
+                "byUser", Map.of("Alice Doe", 1L)));
 
         ResponseEntity<?> response = controller.getHistoryStats();
 
@@ -74,9 +78,9 @@ class HistoryControllerTest {
 
     @Test
     void getHistoryByUser_returnsEntries() {
-        when(historyService.getHistoryByUser(4L)).thenReturn(List.of(new HistoryResponse()));
+        when(historyService.getHistoryByUser(4L, null, 50)).thenReturn(page(new HistoryResponse()));
 
-        ResponseEntity<?> response = controller.getHistoryByUser(4L);
+        ResponseEntity<?> response = controller.getHistoryByUser(4L, null, 50);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat((Map<String, Object>) response.getBody()).containsEntry("count", 1);
@@ -84,9 +88,9 @@ class HistoryControllerTest {
 
     @Test
     void getHistoryByEntity_returnsEntries() {
-        when(historyService.getHistoryByEntity("CONVENTION", 9L)).thenReturn(List.of(new HistoryResponse()));
+        when(historyService.getHistoryByEntity("CONVENTION", 9L, null, 50)).thenReturn(page(new HistoryResponse()));
 
-        ResponseEntity<?> response = controller.getHistoryByEntity("CONVENTION", 9L);
+        ResponseEntity<?> response = controller.getHistoryByEntity("CONVENTION", 9L, null, 50);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat((Map<String, Object>) response.getBody()).containsEntry("count", 1);
@@ -95,9 +99,9 @@ class HistoryControllerTest {
     @Test
     void getHistoryByDate_returnsDateEcho() {
         LocalDate date = LocalDate.of(2026, 4, 1);
-        when(historyService.getHistoryByDate(date)).thenReturn(List.of(new HistoryResponse()));
+        when(historyService.getHistoryByDate(date, null, 50)).thenReturn(page(new HistoryResponse()));
 
-        ResponseEntity<?> response = controller.getHistoryByDate(date);
+        ResponseEntity<?> response = controller.getHistoryByDate(date, null, 50);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat((Map<String, Object>) response.getBody()).containsEntry("date", "2026-04-01");
@@ -105,9 +109,12 @@ class HistoryControllerTest {
 
     @Test
     void getHistoryGroupedByDay_returnsTotalDays() {
-        when(historyService.getHistoryGroupedByDay()).thenReturn(Map.of(LocalDate.of(2026, 4, 1), List.of(new HistoryResponse())));
+        LocalDate from = LocalDate.of(2026, 4, 1);
+        LocalDate to = LocalDate.of(2026, 4, 30);
+        when(historyService.getHistoryGroupedByDay(from, to, 100))
+                .thenReturn(Map.of(LocalDate.of(2026, 4, 1), List.of(new HistoryResponse())));
 
-        ResponseEntity<?> response = controller.getHistoryGroupedByDay();
+        ResponseEntity<?> response = controller.getHistoryGroupedByDay(from, to, 100);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat((Map<String, Object>) response.getBody()).containsEntry("totalDays", 1);
@@ -115,12 +122,16 @@ class HistoryControllerTest {
 
     @Test
     void searchHistory_returnsEntries() {
-        when(historyService.searchHistory("APP", "CREATE", 2L, LocalDate.of(2026, 4, 1)))
-                .thenReturn(List.of(new HistoryResponse()));
+        when(historyService.searchHistory("APP", "CREATE", 2L, LocalDate.of(2026, 4, 1), null, 50))
+                .thenReturn(page(new HistoryResponse()));
 
-        ResponseEntity<?> response = controller.searchHistory("APP", "CREATE", 2L, LocalDate.of(2026, 4, 1));
+        ResponseEntity<?> response = controller.searchHistory("APP", "CREATE", 2L, LocalDate.of(2026, 4, 1), null, 50);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat((Map<String, Object>) response.getBody()).containsEntry("count", 1);
     }
+
+    private static HistoryPageResponse page(HistoryResponse... items) {
+        return new HistoryPageResponse(List.of(items), null, false);
+    }
 }
@@ -10,6 +10,7 @@ import com.example.back.repository.ConventionRepository;
 import com.example.back.repository.FactureRepository;
 import com.example.back.repository.StructureRepository;
 import com.example.back.repository.ZoneGeographiqueRepository;
+import com.example.back.service.ClientScorecardService;
 import com.example.back.service.EntitySyncService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,6 +25,8 @@ import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +45,9 @@ class NomenclatureControllerTest {
     @Mock
     private ConventionRepository conventionRepository;
 
+    @Mock
+    private ClientScorecardService clientScorecardService;
+
     @InjectMocks
     private NomenclatureController controller;
 
@@ -147,5 +153,7 @@ class NomenclatureControllerTest {
         assertThat(controller.getStructuresResponsable().getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(controller.getStructuresBeneficiel().getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(controller.generateClientCode("Client Name").getStatusCode()).isEqualTo(HttpStatus.OK);
+        // created, updated and deleted
+        verify(clientScorecardService, times(3)).markDirty(2L);
     }
 }
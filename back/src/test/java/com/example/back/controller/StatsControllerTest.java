@@ -8,10 +8,12 @@ import com.example.back.entity.ZoneType;
 import com.example.back.repository.ApplicationRepository;
 import com.example.back.repository.ConventionRepository;
 import com.example.back.repository.FactureRepository;
+import com.example.back.repository.StatsRepository;
 import com.example.back.repository.StructureRepository;
 import com.example.back.repository.UserRepository;
 import com.example.back.repository.ZoneGeographiqueRepository;
 import com.example.back.service.UserContextService;
+import com.example.back.service.StatsMetricsService;
 import com.example.back.support.ControllerTestSupport;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,11 +23,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
-import java.time.LocalDateTime;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +51,10 @@ class StatsControllerTest {
     private ApplicationRepository applicationRepository;
     @Mock
     private UserContextService userContextService;
+    @Mock
+    private StatsMetricsService statsMetricsService;
+    @Mock
+    private StatsRepository statsRepository;
 
     @InjectMocks
     private StatsController controller;
@@ -84,11 +94,12 @@ class StatsControllerTest {
 
     @Test
     void getUserDetailedStats_excludesAdminsFromMainDistribution() {
-        User admin = ControllerTestSupport.user(1L, "admin", ERole.ROLE_ADMIN);
-        User commercial = ControllerTestSupport.user(2L, "commercial", ERole.ROLE_COMMERCIAL_METIER);
-        commercial.setLastLogin(LocalDateTime.now().minusMonths(4));
-
-        when(userRepository.findAll()).thenReturn(List.of(admin, commercial));
+        when(userRepository.countUsersByRoleExcluding(ERole.ROLE_ADMIN))
+                .thenReturn(List.<Object[]>of(new Object[]{ERole.ROLE_COMMERCIAL_METIER, 1L}));
+        when(userRepository.activitySummaryExcluding(eq(ERole.ROLE_ADMIN), any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 1L, 0L, 1L}));
+        when(userRepository.countUsersByRole()).thenReturn(List.of(
+                new Object[]{ERole.ROLE_ADMIN, 1L}, new Object[]{ERole.ROLE_COMMERCIAL_METIER, 1L}));
 
         ResponseEntity<?> response = controller.getUserDetailedStats();
 
@@ -96,7 +107,13 @@ class StatsControllerTest {
         Map<String, Object> body = (Map<String, Object>) response.getBody();
         Map<String, Object> data = (Map<String, Object>) body.get("data");
         assertThat(body).containsEntry("success", true);
-        assertThat(data).containsKey("usersByRole");
+        assertThat((Map<String, Long>) data.get("roleDistribution")).containsOnlyKeys("ROLE_COMMERCIAL_METIER");
+        assertThat((Map<String, Long>) data.get("usersByRole"))
+                .containsEntry("commercialMetier", 1L)
+                .containsEntry("chefDeProjet", 0L)
+                .containsEntry("admin", 1L);
+        assertThat((Map<String, Long>) data.get("userActivity")).containsEntry("total", 1L).containsEntry("inactive", 1L);
+        verify(userRepository, never()).findAll();
     }
 
     @Test
@@ -116,4 +133,45 @@ class StatsControllerTest {
 
         assertThat(responses).allSatisfy(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
     }
+
+    @Test
+    void getSummaryStats_forChefUsesScopedAggregates() {
+        User chef = ControllerTestSupport.user(5L, "chef", ERole.ROLE_CHEF_PROJET);
+        List<Object[]> factureRows = List.<Object[]>of(
+                new Object[]{"PAYE", 3L, new BigDecimal("300.00")},
+                new Object[]{"NON_PAYE", 2L, new BigDecimal("150.00")});
+
+        when(userContextService.getCurrentUser()).thenReturn(chef);
+        when(statsRepository.factureStatusBreakdown(5L, null)).thenReturn(factureRows);
+        when(statsRepository.countApplications(5L, null)).thenReturn(4L);
+
+        ResponseEntity<?> response = controller.getSummaryStats();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Map<String, Object> data = (Map<String, Object>) ((Map<String, Object>) response.getBody()).get("data");
+        assertThat(data)
+                .containsEntry("totalFactures", 5L)
+                .containsEntry("totalApplications", 4L)
+                .containsEntry("overdueToday", 0L);
+        verify(factureRepository, never()).findAll();
+    }
+
+    @Test
+    void getApplicationDetailedStats_forChefReadsProgressFromTheScopedSummary() {
+        User chef = ControllerTestSupport.user(5L, "chef", ERole.ROLE_CHEF_PROJET);
+
+        when(userContextService.getCurrentUser()).thenReturn(chef);
+        when(statsRepository.applicationProgressSummary(eq(5L), eq(null), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{new BigDecimal("42.456"), 3L, 2L}));
+
+        ResponseEntity<?> response = controller.getApplicationDetailedStats();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Map<String, Object> data = (Map<String, Object>) ((Map<String, Object>) response.getBody()).get("data");
+        assertThat((Map<String, Object>) data.get("progressStats"))
+                .containsEntry("averageProgress", 42.46)
+                .containsEntry("onTrackApplications", 3L)
+                .containsEntry("delayedApplications", 2L);
+        verify(statsRepository, never()).applicationSchedules(any(), any(), any());
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.back.security.jwt;
 
+import com.example.back.security.services.PrincipalCache;
 import com.example.back.security.services.UserDetailsServiceImpl;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,6 +17,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collections;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -28,6 +30,9 @@ class AuthTokenFilterTest {
     @Mock
     private UserDetailsServiceImpl userDetailsService;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @Mock
     private HttpServletRequest request;
 
@@ -66,6 +71,24 @@ class AuthTokenFilterTest {
         // Assert
         verify(jwtUtils).validateJwtToken("valid.jwt.token");
         verify(userDetailsService).loadUserByUsername("testuser");
+        verify(principalCache).put("testuser", userDetails, 0L);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_WithCachedPrincipal_ShouldNotLoadUser() throws Exception {
+        // Arrange
+        when(request.getHeader("Authorization")).thenReturn("Bearer valid.jwt.token");
+        when(jwtUtils.validateJwtToken("valid.jwt.token")).thenReturn(true);
+        when(jwtUtils.getUserNameFromJwtToken("valid.jwt.token")).thenReturn("testuser");
+        when(principalCache.get("testuser")).thenReturn(userDetails);
+
+        // Act
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isSameAs(userDetails);
         verify(filterChain).doFilter(request, response);
     }
 
@@ -0,0 +1,95 @@
+package com.example.back.security.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrincipalCacheTest {
+
+    private PrincipalCache principalCache;
+
+    private UserDetails userDetails;
+
+    @BeforeEach
+    void setUp() {
+        principalCache = new PrincipalCache();
+        ReflectionTestUtils.setField(principalCache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(principalCache, "maxSize", 2);
+        userDetails = User.builder()
+                .username("testuser")
+                .password("password")
+                .authorities(Collections.emptyList())
+                .build();
+    }
+
+    @Test
+    void put_thenGet_returnsCachedPrincipal() {
+        principalCache.put("testuser", userDetails, principalCache.generation());
+
+        assertThat(principalCache.get("testuser")).isSameAs(userDetails);
+    }
+
+    @Test
+    void evict_removesPrincipal() {
+        principalCache.put("testuser", userDetails, principalCache.generation());
+
+        principalCache.evict("testuser");
+
+        assertThat(principalCache.get("testuser")).isNull();
+    }
+
+    @Test
+    void put_afterEviction_doesNotCacheStalePrincipal() {
+        long loadedAt = principalCache.generation();
+        principalCache.evict("testuser");
+
+        principalCache.put("testuser", userDetails, loadedAt);
+
+        assertThat(principalCache.get("testuser")).isNull();
+    }
+
+    @Test
+    void evict_insideATransactionEvictsAgainAfterTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            principalCache.evict("testuser");
+
+            // A request served before the commit still reads the old row
+            principalCache.put("testuser", userDetails, principalCache.generation());
+            assertThat(principalCache.get("testuser")).isSameAs(userDetails);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(principalCache.get("testuser")).isNull();
+    }
+
+    @Test
+    void get_whenExpired_returnsNull() {
+        ReflectionTestUtils.setField(principalCache, "ttlSeconds", 0L);
+
+        principalCache.put("testuser", userDetails, principalCache.generation());
+
+        assertThat(principalCache.get("testuser")).isNull();
+    }
+
+    @Test
+    void put_whenFull_staysBounded() {
+        principalCache.put("a", userDetails, principalCache.generation());
+        principalCache.put("b", userDetails, principalCache.generation());
+        principalCache.put("c", userDetails, principalCache.generation());
+
+        assertThat(principalCache.size()).isLessThanOrEqualTo(2);
+        assertThat(principalCache.get("c")).isSameAs(userDetails);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.back.service;
 
 import com.example.back.entity.User;
 import com.example.back.repository.UserRepository;
+import com.example.back.security.services.PrincipalCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -25,6 +26,9 @@ class AccountUnlockSchedulerTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @InjectMocks
     private AccountUnlockScheduler accountUnlockScheduler;
 
@@ -88,6 +92,8 @@ class AccountUnlockSchedulerTest {
         assertThat(savedUser2.getAccountLockedUntil()).isNull();
         assertThat(savedUser2.getFailedLoginAttempts()).isZero();
 
+        verify(principalCache).evict("user1");
+        verify(principalCache).evict("user2");
         verify(userRepository, times(1)).findByAccountLockedUntilBeforeAndLockedByAdminFalse(any(LocalDateTime.class));
     }
 
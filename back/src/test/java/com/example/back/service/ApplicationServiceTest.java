@@ -41,6 +41,14 @@ class ApplicationServiceTest {
 
     @Mock
     private Authentication authentication;
+    @Mock
+    private StatsMetricsService statsMetricsService;
+
+    @Mock
+    private WorkloadLedgerService workloadLedger;
+
+    @Mock
+    private ClientScorecardService clientScorecardService;
 
     @InjectMocks
     private ApplicationService applicationService;
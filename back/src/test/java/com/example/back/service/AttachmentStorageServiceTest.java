@@ -0,0 +1,119 @@
+package com.example.back.service;
+
+import com.example.back.entity.AttachmentBlob;
+import com.example.back.repository.AttachmentBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttachmentStorageServiceTest {
+
+    // SHA-256 of "invoice"
+    private static final String INVOICE_SHA256 = "52d6e3de4fa0dcc29946695f93940c3e7f26f30e1e39f4b1a49ad98839112786";
+
+    @Mock
+    private AttachmentBlobRepository blobRepository;
+
+    @InjectMocks
+    private AttachmentStorageService storageService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(storageService, "uploadDir", uploadDir.toString());
+    }
+
+    @Test
+    void store_keepsIdenticalUploadsOnce() throws Exception {
+        AttachmentStorageService.StoredBlob first = storageService.store(pdf("facture.pdf", "invoice"));
+        AttachmentStorageService.StoredBlob second = storageService.store(pdf("copie.pdf", "invoice"));
+
+        assertThat(first.sha256()).isEqualTo(INVOICE_SHA256);
+        assertThat(second.path()).isEqualTo(first.path());
+        assertThat(first.size()).isEqualTo(7);
+        assertThat(Files.readString(first.path())).isEqualTo("invoice");
+        assertThat(first.path().getParent().getFileName().toString()).isEqualTo(first.sha256().substring(0, 2));
+        verify(blobRepository, times(2)).acquire(eq(first.sha256()), eq(7L), anyString());
+        try (var tmp = Files.list(uploadDir.resolve("blobs").resolve("tmp"))) {
+            assertThat(tmp).isEmpty();
+        }
+    }
+
+    @Test
+    void store_handsTheFileToTheCollectorWhenTheTransactionRollsBack() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            AttachmentStorageService.StoredBlob stored = storageService.store(pdf("facture.pdf", "invoice"));
+            assertThat(stored.path()).exists();
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(blobRepository).registerUnreferenced(INVOICE_SHA256, 7L,
+                "blobs/" + INVOICE_SHA256.substring(0, 2) + "/" + INVOICE_SHA256);
+    }
+
+    @Test
+    void store_registersNothingWhenTheTransactionCommits() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            storageService.store(pdf("facture.pdf", "invoice"));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(blobRepository, never()).registerUnreferenced(anyString(), anyLong(), anyString());
+    }
+
+    @Test
+    void collectGarbage_deletesOnlyBlobsStillUnreferenced() throws Exception {
+        AttachmentStorageService.StoredBlob stored = storageService.store(pdf("facture.pdf", "invoice"));
+        AttachmentBlob unused = blob(stored.sha256(), "blobs/" + stored.sha256().substring(0, 2) + "/" + stored.sha256());
+        AttachmentBlob reused = blob("ff00", "blobs/ff/ff00");
+        when(blobRepository.findUnreferencedSince(any(), any())).thenReturn(List.of(unused, reused));
+        when(blobRepository.deleteIfUnreferenced(stored.sha256())).thenReturn(1);
+        when(blobRepository.deleteIfUnreferenced("ff00")).thenReturn(0);
+
+        int removed = storageService.collectGarbage();
+
+        assertThat(removed).isEqualTo(1);
+        assertThat(stored.path()).doesNotExist();
+    }
+
+    private static MockMultipartFile pdf(String name, String content) {
+        return new MockMultipartFile("files", name, "application/pdf", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static AttachmentBlob blob(String sha256, String storagePath) {
+        AttachmentBlob blob = new AttachmentBlob();
+        blob.setSha256(sha256);
+        blob.setStoragePath(storagePath);
+        return blob;
+    }
+}
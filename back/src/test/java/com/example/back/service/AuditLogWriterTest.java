@@ -0,0 +1,144 @@
+package com.example.back.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ChatQueryCache chatQueryCache;
+
+    @InjectMocks
+    private AuditLogWriter auditLogWriter;
+
+    @BeforeEach
+    void setUp() {
+        // Queue wired by hand so no background thread competes with the assertions
+        ReflectionTestUtils.setField(auditLogWriter, "queueCapacity", 2);
+        ReflectionTestUtils.setField(auditLogWriter, "batchSize", 200);
+        ReflectionTestUtils.setField(auditLogWriter, "queue", new ArrayBlockingQueue<>(2));
+        ReflectionTestUtils.setField(auditLogWriter, "running", true);
+    }
+
+    @Test
+    void append_queuesWithoutTouchingTheDatabase() {
+        auditLogWriter.append(event(1L));
+
+        verifyNoInteractions(jdbcTemplate);
+        assertThat(auditLogWriter.getStats()).containsEntry("queued", 1);
+    }
+
+    @Test
+    void append_insideATransactionWaitsForTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            auditLogWriter.append(event(1L));
+            assertThat(auditLogWriter.getStats()).containsEntry("queued", 0);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(auditLogWriter.getStats()).containsEntry("queued", 1);
+    }
+
+    @Test
+    void append_writesNothingWhenTheTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            auditLogWriter.append(event(1L));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(auditLogWriter.flush()).isZero();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void append_writesSynchronouslyWhenQueueIsFull() {
+        auditLogWriter.append(event(1L));
+        auditLogWriter.append(event(2L));
+        auditLogWriter.append(event(3L));
+
+        verify(jdbcTemplate).batchUpdate(eq(AuditLogWriter.INSERT_SQL), argThat((List<Object[]> rows) ->
+                rows.size() == 1 && Long.valueOf(3L).equals(rows.get(0)[3])), any(int[].class));
+        assertThat(auditLogWriter.getStats())
+                .containsEntry("queued", 2)
+                .containsEntry("overflows", 1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_writesQueuedEventsInOneBatch() {
+        auditLogWriter.append(event(1L));
+        auditLogWriter.append(event(2L));
+
+        int written = auditLogWriter.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(AuditLogWriter.INSERT_SQL), rows.capture(), any(int[].class));
+        assertThat(written).isEqualTo(2);
+        assertThat(rows.getValue()).hasSize(2);
+        assertThat(auditLogWriter.getStats())
+                .containsEntry("queued", 0)
+                .containsEntry("written", 2L)
+                .containsEntry("batches", 1L);
+    }
+
+    @Test
+    void flush_retriesAFailedBatchRowByRowAndDropsOnlyTheBadRow() {
+        auditLogWriter.append(event(1L));
+        auditLogWriter.append(event(2L));
+        when(jdbcTemplate.batchUpdate(eq(AuditLogWriter.INSERT_SQL), anyList(), any(int[].class)))
+                .thenThrow(new DataIntegrityViolationException("history_user_id_fkey"));
+        when(jdbcTemplate.update(eq(AuditLogWriter.INSERT_SQL), any(Object[].class), any(int[].class)))
+                .thenAnswer(invocation -> {
+                    Object[] row = invocation.getArgument(1);
+                    if (Long.valueOf(2L).equals(row[3])) {
+                        throw new DataIntegrityViolationException("history_user_id_fkey");
+                    }
+                    return 1;
+                });
+
+        int written = auditLogWriter.flush();
+
+        assertThat(written).isEqualTo(1);
+        verify(jdbcTemplate, times(2)).update(eq(AuditLogWriter.INSERT_SQL), any(Object[].class), any(int[].class));
+        assertThat(auditLogWriter.getStats())
+                .containsEntry("written", 1L)
+                .containsEntry("batches", 0L)
+                .containsEntry("failures", 1L);
+    }
+
+    private static AuditLogWriter.AuditEvent event(Long entityId) {
+        return new AuditLogWriter.AuditEvent(LocalDateTime.now(), "LOGIN", "USER", entityId, "user" + entityId,
+                "Test User", entityId, "login", null, null, "127.0.0.1", "JUnit");
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.back.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ChatCacheInvalidatorTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private ChatQueryCache chatQueryCache;
+
+    @InjectMocks
+    private ChatCacheInvalidator chatCacheInvalidator;
+
+    @Test
+    void invalidateAfterCommit_bumpsRightAwayOutsideATransaction() {
+        chatCacheInvalidator.invalidateAfterCommit("factures");
+
+        verify(chatQueryCache).invalidateTable("factures");
+    }
+
+    @Test
+    void invalidateAfterCommit_bumpsEachTableOnceAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            chatCacheInvalidator.invalidateAfterCommit("factures");
+            chatCacheInvalidator.invalidateAfterCommit("factures");
+            chatCacheInvalidator.invalidateAfterCommit("workloads");
+            verify(chatQueryCache, never()).invalidateTable("factures");
+
+            assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> {
+                sync.afterCommit();
+                sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            });
+
+            verify(chatQueryCache, times(1)).invalidateTable("factures");
+            verify(chatQueryCache, times(1)).invalidateTable("workloads");
+            assertThat(TransactionSynchronizationManager.getResource(chatCacheInvalidator)).isNull();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void invalidateAfterCommit_keepsTheCacheOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            chatCacheInvalidator.invalidateAfterCommit("history");
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            verify(chatQueryCache, never()).invalidateTable("history");
+            assertThat(TransactionSynchronizationManager.getResource(chatCacheInvalidator)).isNull();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.back.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatQueryCacheTest {
+
+    private static final String INVOICES_SQL =
+            "SELECT c.nom, f.montant_ttc FROM factures f JOIN conventions c ON c.id = f.convention_id";
+
+    private ChatQueryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ChatQueryCache(2, 60L, 2, 60L, 2, 60L, 2);
+    }
+
+    @Test
+    void normalizeQuestion_ignoresCaseAccentsPunctuationAndSpacing() {
+        assertThat(ChatQueryCache.normalizeQuestion("  Factures   impayées ? "))
+                .isEqualTo(ChatQueryCache.normalizeQuestion("factures impayees"))
+                .isEqualTo("factures impayees");
+    }
+
+    @Test
+    void normalizeQuestion_keepsOperatorsSignsAndDecimals() {
+        assertThat(ChatQueryCache.normalizeQuestion("factures montant > 5000"))
+                .isNotEqualTo(ChatQueryCache.normalizeQuestion("factures montant < 5000"))
+                .isNotEqualTo(ChatQueryCache.normalizeQuestion("factures montant = 5000"));
+        assertThat(ChatQueryCache.normalizeQuestion("Écart de -2,5 % ?")).isEqualTo("ecart de -2,5 %");
+    }
+
+    @Test
+    void getSql_sharesEntriesBetweenEquivalentQuestions() {
+        cache.putSql("Factures impayées ?", "SELECT 1");
+
+        assertThat(cache.getSql("factures impayees")).isEqualTo("SELECT 1");
+    }
+
+    @Test
+    void putSql_evictsLeastRecentlyUsedBeyondMaxSize() {
+        cache.putSql("a", "SELECT 'a'");
+        cache.putSql("b", "SELECT 'b'");
+        cache.getSql("a");
+        cache.putSql("c", "SELECT 'c'");
+
+        assertThat(cache.getSql("a")).isNotNull();
+        assertThat(cache.getSql("b")).isNull();
+        assertThat(cache.sqlSize()).isEqualTo(2);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> sqlStats = (Map<String, Object>) cache.getStats().get("sql");
+        assertThat(sqlStats)
+                .containsEntry("evictions", 1L)
+                .containsEntry("hits", 2L)
+                .containsEntry("misses", 1L);
+    }
+
+    @Test
+    void tablesOf_readsFromAndJoinClauses() {
+        assertThat(ChatQueryCache.tablesOf(INVOICES_SQL)).containsExactly("conventions", "factures");
+        assertThat(ChatQueryCache.tablesOf("SELECT 1")).containsExactly(ChatQueryCache.ANY_TABLE);
+    }
+
+    @Test
+    void invalidateTable_dropsAnswersAndResultsReadFromIt() {
+        List<Map<String, Object>> rows = List.of(Map.of("nom", "Alpha"));
+        Map<String, Long> versions = cache.snapshot(INVOICES_SQL);
+        cache.putResult(INVOICES_SQL, rows, versions);
+        cache.putAnswer("factures", "1 facture", versions);
+
+        cache.invalidateTable("structures");
+        assertThat(cache.getResult(INVOICES_SQL)).isEqualTo(rows);
+
+        cache.invalidateTable("FACTURES");
+        assertThat(cache.getResult(INVOICES_SQL)).isNull();
+        assertThat(cache.getAnswer("factures")).isNull();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> resultStats = (Map<String, Object>) cache.getStats().get("queryResult");
+        assertThat(resultStats).containsEntry("invalidations", 1L);
+    }
+
+    @Test
+    void putResult_skipsResultsAboveMaxRows() {
+        cache.putResult(INVOICES_SQL, List.of(Map.of(), Map.of(), Map.of()), cache.snapshot(INVOICES_SQL));
+
+        assertThat(cache.resultSize()).isZero();
+    }
+
+    @Test
+    void purgeExpired_removesOutdatedEntries() {
+        cache.putAnswer("factures", "1 facture", cache.snapshot(INVOICES_SQL));
+        cache.putAnswer("aide", "Bonjour", Map.of());
+
+        cache.invalidateTable("conventions");
+
+        assertThat(cache.purgeExpired()).isEqualTo(1);
+        assertThat(cache.getAnswer("aide")).isEqualTo("Bonjour");
+    }
+}
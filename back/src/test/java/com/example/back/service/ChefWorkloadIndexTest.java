@@ -0,0 +1,92 @@
+package com.example.back.service;
+
+import com.example.back.entity.User;
+import com.example.back.entity.Workload;
+import com.example.back.repository.WorkloadRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChefWorkloadIndexTest {
+
+    @Mock
+    private WorkloadRepository workloadRepository;
+
+    @InjectMocks
+    private ChefWorkloadIndex chefWorkloadIndex;
+
+    @Test
+    void topCandidates_returnsLeastLoadedChefsExcludingCurrentOne() {
+        when(workloadRepository.findAllWithChef()).thenReturn(List.of(
+                workload(1L, 0, 0.0, 0L),
+                workload(2L, 1, 100000.0, 30L),
+                workload(3L, 2, 500000.0, 90L),
+                workload(4L, 4, 3000000.0, 600L)));
+
+        List<ChefWorkloadIndex.Candidate> candidates = chefWorkloadIndex.topCandidates(1L, 10000.0, 10L, 2, 100.0);
+
+        assertThat(candidates).extracting(c -> c.entry().chefId()).containsExactly(2L, 3L);
+        assertThat(candidates.get(0).projectedWorkload()).isEqualTo(Workload.score(2, 110000.0, 40L));
+    }
+
+    @Test
+    void topCandidates_skipsChefsAboveTheProjectedLimit() {
+        when(workloadRepository.findAllWithChef()).thenReturn(List.of(
+                workload(1L, 1, 0.0, 0L),
+                workload(2L, 4, 4000000.0, 700L)));
+
+        List<ChefWorkloadIndex.Candidate> candidates = chefWorkloadIndex.topCandidates(null, 0.0, 0L, 3, 75.0);
+
+        assertThat(candidates).extracting(c -> c.entry().chefId()).containsExactly(1L);
+    }
+
+    @Test
+    void markDirty_reloadsOnlyTheChangedChef() {
+        when(workloadRepository.findAllWithChef()).thenReturn(List.of(
+                workload(1L, 0, 0.0, 0L),
+                workload(2L, 1, 0.0, 0L)));
+        chefWorkloadIndex.topCandidates(null, 0.0, 0L, 1, 100.0);
+
+        when(workloadRepository.findAllWithChefByChefIds(anyCollection())).thenReturn(List.of(workload(1L, 3, 0.0, 0L)));
+        chefWorkloadIndex.markDirty(1L);
+        List<ChefWorkloadIndex.Candidate> candidates = chefWorkloadIndex.topCandidates(null, 0.0, 0L, 1, 100.0);
+
+        assertThat(candidates).extracting(c -> c.entry().chefId()).containsExactly(2L);
+        assertThat(chefWorkloadIndex.size()).isEqualTo(2);
+        verify(workloadRepository, times(1)).findAllWithChef();
+    }
+
+    @Test
+    void invalidate_reloadsEverything() {
+        when(workloadRepository.findAllWithChef()).thenReturn(List.of(workload(1L, 0, 0.0, 0L)));
+        chefWorkloadIndex.topCandidates(null, 0.0, 0L, 1, 100.0);
+
+        chefWorkloadIndex.invalidate();
+        chefWorkloadIndex.topCandidates(null, 0.0, 0L, 1, 100.0);
+
+        verify(workloadRepository, times(2)).findAllWithChef();
+        verify(workloadRepository, never()).findAllWithChefByChefIds(anyCollection());
+    }
+
+    private static Workload workload(Long chefId, int apps, double value, long duration) {
+        User chef = new User();
+        chef.setId(chefId);
+        chef.setFirstName("Chef");
+        chef.setLastName(String.valueOf(chefId));
+        Workload workload = new Workload();
+        workload.setChefDeProjet(chef);
+        workload.setCurrentApplicationsCount(apps);
+        workload.setTotalApplicationsValue(value);
+        workload.setTotalApplicationsDuration(duration);
+        return workload;
+    }
+}
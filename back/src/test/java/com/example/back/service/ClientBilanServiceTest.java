@@ -0,0 +1,178 @@
+package com.example.back.service;
+
+import com.example.back.entity.ClientScorecard;
+import com.example.back.entity.Structure;
+import com.example.back.payload.response.ClientBilanResponse;
+import com.example.back.repository.ApplicationRepository;
+import com.example.back.repository.ClientScorecardRepository;
+import com.example.back.repository.ConventionRepository;
+import com.example.back.repository.FactureRepository;
+import com.example.back.repository.StructureRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClientBilanServiceTest {
+
+    @Mock
+    private StructureRepository structureRepository;
+
+    @Mock
+    private ConventionRepository conventionRepository;
+
+    @Mock
+    private FactureRepository factureRepository;
+
+    @Mock
+    private ApplicationRepository applicationRepository;
+
+    @Mock
+    private HistoryService historyService;
+
+    @Mock
+    private ClientScorecardRepository clientScorecardRepository;
+
+    @InjectMocks
+    private ClientBilanService clientBilanService;
+
+    @BeforeEach
+    void setUp() {
+        when(factureRepository.aggregateInvoicesByConventionForClients(anyCollection(), any(LocalDate.class)))
+                .thenReturn(List.of(
+                        new Object[]{100L, new BigDecimal("1000.00"), BigDecimal.ZERO, BigDecimal.ZERO, 2L, 0L, 2L, 45},
+                        new Object[]{101L, BigDecimal.ZERO, new BigDecimal("500.00"), new BigDecimal("500.00"), 0L, 0L, 0L, 0}));
+    }
+
+    @AfterEach
+    void tearDown() {
+        clientBilanService.shutdownPortfolioPool();
+    }
+
+    @Test
+    void generateAllClientsBilan_ratesEveryClientFromAggregates() {
+        when(structureRepository.findByTypeStructure("Client")).thenReturn(List.of(client(1L), client(2L)));
+        when(conventionRepository.findPortfolioRowsForClients(List.of(1L, 2L), false)).thenReturn(List.of(
+                convention(1L, 100L, LocalDate.of(2025, 1, 1)),
+                convention(1L, 101L, LocalDate.of(2025, 6, 1))));
+
+        List<ClientBilanResponse> bilans = clientBilanService.generateAllClientsBilan(null, null);
+
+        assertThat(bilans).extracting(ClientBilanResponse::getClientId).containsExactly(2L, 1L);
+        ClientBilanResponse bilan = bilans.get(1);
+        assertThat(bilan.getSummary().getTotalConventions()).isEqualTo(2);
+        assertThat(bilan.getSummary().getActiveConventions()).isEqualTo(2);
+        assertThat(bilan.getSummary().getApplicationNames()).containsExactly("App");
+        assertThat(bilan.getPaymentStats().getLatePayments()).isEqualTo(2);
+        assertThat(bilan.getPaymentStats().getPaymentBehavior()).isEqualTo("VERY_POOR");
+        assertThat(bilan.getFinancialSummary().getTotalContractValue()).isEqualByComparingTo("2000");
+        assertThat(bilan.getFinancialSummary().getTotalOverdue()).isEqualByComparingTo("500");
+        assertThat(bilan.getFinancialSummary().getPaymentComplianceRate()).isEqualByComparingTo("50");
+        assertThat(bilan.getRating().getOverallScore()).isEqualTo(29);
+        assertThat(bilan.getConventions()).isEmpty();
+        assertThat(bilans.get(0).getRating().getOverallScore()).isEqualTo(35);
+        verify(factureRepository, never()).findByConventionId(anyLong());
+        verifyNoInteractions(historyService);
+    }
+
+    @Test
+    void generateAllClientsBilan_appliesDateRange() {
+        when(structureRepository.findByTypeStructure("Client")).thenReturn(List.of(client(1L), client(2L)));
+        when(conventionRepository.findPortfolioRowsForClients(List.of(1L, 2L), false)).thenReturn(List.of(
+                convention(1L, 100L, LocalDate.of(2024, 1, 1)),
+                convention(1L, 101L, LocalDate.of(2025, 6, 1))));
+
+        List<ClientBilanResponse> bilans = clientBilanService.generateAllClientsBilan(LocalDate.of(2025, 1, 1), null);
+
+        ClientBilanResponse bilan = bilans.stream().filter(b -> b.getClientId() == 1L).findFirst().orElseThrow();
+        assertThat(bilan.getSummary().getTotalConventions()).isEqualTo(1);
+        assertThat(bilan.getPaymentStats().getTotalPayments()).isZero();
+    }
+
+    @Test
+    void getClientsWithPoorPayment_followsScorecardOrder() {
+        when(clientScorecardRepository.findPoorPayers(2, 30)).thenReturn(List.of(scorecard(2L), scorecard(1L)));
+        when(structureRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(client(1L), client(2L)));
+        when(conventionRepository.findPortfolioRowsForClients(List.of(1L, 2L), true)).thenReturn(List.of(
+                convention(1L, 100L, LocalDate.of(2025, 1, 1)),
+                convention(2L, 101L, LocalDate.of(2025, 1, 1))));
+
+        List<ClientBilanResponse> poorPayers = clientBilanService.getClientsWithPoorPayment(2, 30);
+
+        assertThat(poorPayers).extracting(ClientBilanResponse::getClientId).containsExactly(2L, 1L);
+        verify(structureRepository, never()).findByTypeStructure(any());
+    }
+
+    @Test
+    void getPaginatedClientBilans_buildsOnlyThePageClients() {
+        PageRequest pageable = PageRequest.of(1, 1);
+        when(clientScorecardRepository.searchByScore("client", pageable))
+                .thenReturn(new PageImpl<>(List.of(scorecard(1L)), pageable, 2));
+        when(structureRepository.findAllById(List.of(1L))).thenReturn(List.of(client(1L)));
+        when(conventionRepository.findPortfolioRowsForClients(List.of(1L), false)).thenReturn(List.<Object[]>of(
+                convention(1L, 100L, LocalDate.of(2025, 1, 1))));
+
+        Page<ClientBilanResponse> page = clientBilanService.getPaginatedClientBilans(pageable, "CLIENT");
+
+        assertThat(page.getContent()).extracting(ClientBilanResponse::getClientId).containsExactly(1L);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getNumber()).isEqualTo(1);
+    }
+
+    @Test
+    void computeScorecards_takesLateHistoryFromArchivedConventions() {
+        when(conventionRepository.findPortfolioRowsForClients(List.of(1L), false)).thenReturn(List.<Object[]>of(
+                convention(1L, 101L, LocalDate.of(2025, 6, 1))));
+        when(conventionRepository.findPortfolioRowsForClients(List.of(1L), true)).thenReturn(List.of(
+                convention(1L, 100L, LocalDate.of(2024, 1, 1)),
+                convention(1L, 101L, LocalDate.of(2025, 6, 1))));
+
+        List<ClientScorecard> scorecards = clientBilanService.computeScorecards(List.of(client(1L)));
+
+        assertThat(scorecards).hasSize(1);
+        ClientScorecard scorecard = scorecards.get(0);
+        assertThat(scorecard.getClientCode()).isEqualTo("CL1");
+        assertThat(scorecard.getTotalConventions()).isEqualTo(1);
+        assertThat(scorecard.getLatePayments()).isEqualTo(2);
+        assertThat(scorecard.getMaxDaysLate()).isEqualTo(45);
+        assertThat(scorecard.getTotalOverdue()).isEqualByComparingTo("500");
+        assertThat(scorecard.getComputedAt()).isNotNull();
+    }
+
+    private static Structure client(Long id) {
+        Structure structure = new Structure();
+        structure.setId(id);
+        structure.setCode("CL" + id);
+        structure.setName("Client " + id);
+        structure.setTypeStructure("Client");
+        return structure;
+    }
+
+    private static ClientScorecard scorecard(Long clientId) {
+        ClientScorecard scorecard = new ClientScorecard();
+        scorecard.setClientId(clientId);
+        return scorecard;
+    }
+
+    private static Object[] convention(Long clientId, Long conventionId, LocalDate dateDebut) {
+        return new Object[]{clientId, conventionId, "EN COURS", false, new BigDecimal("1000.00"),
+                dateDebut, dateDebut.plusYears(1), 10L, "App"};
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.back.service;
+
+import com.example.back.entity.ClientScorecard;
+import com.example.back.entity.Convention;
+import com.example.back.entity.Facture;
+import com.example.back.entity.Structure;
+import com.example.back.repository.ClientScorecardRepository;
+import com.example.back.repository.FactureRepository;
+import com.example.back.repository.StructureRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClientScorecardServiceTest {
+
+    @Mock
+    private ClientScorecardRepository clientScorecardRepository;
+
+    @Mock
+    private ClientBilanService clientBilanService;
+
+    @Mock
+    private StructureRepository structureRepository;
+
+    @Mock
+    private FactureRepository factureRepository;
+
+    @Mock
+    private ChatCacheInvalidator chatCacheInvalidator;
+
+    @InjectMocks
+    private ClientScorecardService service;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refreshClients_updatesExistingRowsAndDropsNonClients() {
+        Structure client = structure(1L, "Client");
+        when(structureRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(client, structure(2L, "Interne")));
+        when(clientBilanService.computeScorecards(List.of(client))).thenReturn(List.of(scorecard(null, 1L)));
+        when(clientScorecardRepository.findByClientIdIn(List.of(1L))).thenReturn(List.of(scorecard(7L, 1L)));
+
+        assertThat(service.refreshClients(List.of(1L, 2L))).isEqualTo(1);
+
+        verify(clientScorecardRepository).deleteByClientIdIn(Set.of(2L));
+        ArgumentCaptor<List<ClientScorecard>> saved = ArgumentCaptor.forClass(List.class);
+        verify(clientScorecardRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(ClientScorecard::getId).containsExactly(7L);
+    }
+
+    @Test
+    void refreshDirty_recomputesMarkedClientsOnce() {
+        Structure client = structure(1L, "Client");
+        when(structureRepository.findAllById(List.of(1L))).thenReturn(List.of(client));
+        when(clientBilanService.computeScorecards(List.of(client))).thenReturn(List.of(scorecard(null, 1L)));
+
+        service.markDirty(facture(1L));
+        service.markDirty(facture(1L));
+
+        assertThat(service.refreshDirty()).isEqualTo(1);
+        assertThat(service.refreshDirty()).isZero();
+        verify(clientBilanService, times(1)).computeScorecards(any());
+    }
+
+    @Test
+    void refreshNewlyOverdue_scansDueDatesSinceLastPass() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        ReflectionTestUtils.setField(service, "overdueScannedThrough", yesterday.minusDays(3));
+        when(factureRepository.findClientIdsWithOpenInvoicesDueBetween(yesterday.minusDays(2), yesterday))
+                .thenReturn(List.of());
+
+        assertThat(service.refreshNewlyOverdue()).isZero();
+        assertThat(service.refreshNewlyOverdue()).isZero();
+
+        verify(factureRepository, times(1)).findClientIdsWithOpenInvoicesDueBetween(any(), any());
+    }
+
+    private static Facture facture(Long clientId) {
+        Convention convention = new Convention();
+        convention.setStructureBeneficiel(structure(clientId, "Client"));
+        Facture facture = new Facture();
+        facture.setConvention(convention);
+        return facture;
+    }
+
+    private static Structure structure(Long id, String type) {
+        Structure structure = new Structure();
+        structure.setId(id);
+        structure.setTypeStructure(type);
+        return structure;
+    }
+
+    private static ClientScorecard scorecard(Long id, Long clientId) {
+        ClientScorecard scorecard = new ClientScorecard();
+        scorecard.setId(id);
+        scorecard.setClientId(clientId);
+        return scorecard;
+    }
+}
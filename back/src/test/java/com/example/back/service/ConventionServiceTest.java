@@ -4,6 +4,7 @@ import com.example.back.entity.*;
 import com.example.back.payload.request.ConventionRequest;
 import com.example.back.payload.request.RenewalRequestDTO;
 import com.example.back.repository.*;
+import com.example.back.service.ai.RiskPredictionCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -46,6 +47,20 @@ class ConventionServiceTest {
 
     @Mock
     private Authentication authentication;
+    @Mock
+    private StatsMetricsService statsMetricsService;
+
+    @Mock
+    private RiskPredictionCache riskPredictionCache;
+
+    @Mock
+    private WorkloadLedgerService workloadLedger;
+
+    @Mock
+    private ClientScorecardService clientScorecardService;
+
+    @Mock
+    private ChatCacheInvalidator chatCacheInvalidator;
 
     @InjectMocks
     private ConventionService conventionService;
@@ -282,6 +297,7 @@ class ConventionServiceTest {
         // Then
         assertThat(result).isNotNull();
         verify(conventionRepository).save(any(Convention.class));
+        verify(clientScorecardService, atLeastOnce()).markDirty(testConvention);
     }
 
 
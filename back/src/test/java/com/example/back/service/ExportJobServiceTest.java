@@ -0,0 +1,211 @@
+package com.example.back.service;
+
+import com.example.back.entity.*;
+import com.example.back.payload.request.ExportJobRequest;
+import com.example.back.payload.response.ClientBilanResponse;
+import com.example.back.repository.ExportJobItemRepository;
+import com.example.back.repository.ExportJobRepository;
+import com.example.back.repository.StructureRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportJobServiceTest {
+
+    @Mock
+    private ExportJobRepository jobRepository;
+
+    @Mock
+    private ExportJobItemRepository itemRepository;
+
+    @Mock
+    private StructureRepository structureRepository;
+
+    @Mock
+    private ClientBilanService clientBilanService;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private static final LocalDateTime CLAIMED_AT = LocalDateTime.of(2024, 5, 2, 10, 0);
+
+    @TempDir
+    Path jobsDir;
+
+    private ExportJobService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ExportJobService(jobRepository, itemRepository, structureRepository, clientBilanService,
+                messagingTemplate, Runnable::run);
+        ReflectionTestUtils.setField(service, "jobsDir", jobsDir.toString());
+        ReflectionTestUtils.setField(service, "maxAttempts", 2);
+    }
+
+    @Test
+    void submit_rejectsStructuresThatAreNotClients() {
+        ExportJobRequest request = new ExportJobRequest();
+        request.setFormat(ExportFormat.PDF);
+        request.setClientIds(List.of(1L, 2L));
+        when(structureRepository.findAllById(any())).thenReturn(List.of(client(1L), supplier(2L)));
+
+        assertThatThrownBy(() -> service.submit(request, "alice"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("2");
+        verifyNoInteractions(jobRepository, itemRepository);
+    }
+
+    @Test
+    void render_writesTheClientFileAndCountsIt() throws Exception {
+        ExportJob job = job(ExportFormat.PDF);
+        ExportJobItem item = claimed(new ExportJobItem(10L, 1L));
+        when(itemRepository.reportClaim(any(), any(), any(), any(), anyInt(), any())).thenReturn(1);
+        ClientBilanService.BilanExport export = new ClientBilanService.BilanExport(new ClientBilanResponse(), client(1L));
+        when(clientBilanService.prepareBilanExport(1L, null, null)).thenReturn(export);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("pdf".getBytes());
+            return null;
+        }).when(clientBilanService).writeBilanPdf(eq(export), any(OutputStream.class));
+        when(jobRepository.findById(10L)).thenReturn(Optional.of(job));
+
+        service.render(job, item);
+
+        assertThat(item.getStatus()).isEqualTo(ExportStatus.COMPLETED);
+        assertThat(Files.readString(jobsDir.resolve("10").resolve(item.getFileName()))).isEqualTo("pdf");
+        verify(itemRepository).reportClaim(5L, CLAIMED_AT, ExportStatus.COMPLETED, item.getFileName(), 1, null);
+        verify(jobRepository).incrementCompleted(10L);
+        verify(messagingTemplate).convertAndSend(eq("/topic/export-jobs/10"), any(Object.class));
+    }
+
+    @Test
+    void render_retriesThenGivesUp() {
+        ExportJob job = job(ExportFormat.EXCEL);
+        ExportJobItem item = claimed(new ExportJobItem(10L, 1L));
+        when(clientBilanService.prepareBilanExport(1L, null, null)).thenThrow(new RuntimeException("Client not found"));
+        when(itemRepository.reportClaim(any(), any(), any(), any(), anyInt(), any())).thenReturn(1);
+        when(jobRepository.findById(10L)).thenReturn(Optional.of(job));
+
+        service.render(job, item);
+        assertThat(item.getStatus()).isEqualTo(ExportStatus.PENDING);
+        verify(jobRepository, never()).incrementFailed(any());
+
+        service.render(job, claimed(item));
+        assertThat(item.getStatus()).isEqualTo(ExportStatus.FAILED);
+        verify(jobRepository).incrementFailed(10L);
+    }
+
+    @Test
+    void render_dropsTheReportOfAClaimThatWasHandedOutAgain() throws Exception {
+        ExportJob job = job(ExportFormat.PDF);
+        ExportJobItem item = claimed(new ExportJobItem(10L, 1L));
+        ClientBilanService.BilanExport export = new ClientBilanService.BilanExport(new ClientBilanResponse(), client(1L));
+        when(clientBilanService.prepareBilanExport(1L, null, null)).thenReturn(export);
+        // The stale claim was requeued and another worker holds the item now
+        when(itemRepository.reportClaim(any(), eq(CLAIMED_AT), any(), any(), anyInt(), any())).thenReturn(0);
+
+        service.render(job, item);
+
+        verify(jobRepository, never()).incrementCompleted(any());
+        verify(jobRepository, never()).findById(any());
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void assembleReadyJobs_runsOnTheExportExecutorOncePerJob() {
+        List<Runnable> submitted = new ArrayList<>();
+        service = new ExportJobService(jobRepository, itemRepository, structureRepository, clientBilanService,
+                messagingTemplate, submitted::add);
+        when(jobRepository.findReadyToAssemble()).thenReturn(List.of(job(ExportFormat.PDF)));
+
+        service.assembleReadyJobs();
+        service.assembleReadyJobs();
+
+        assertThat(submitted).hasSize(1);
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void assembleReadyJobs_zipsRenderedFilesAndListsFailures() throws Exception {
+        ExportJob job = job(ExportFormat.PDF);
+        Files.createDirectories(jobsDir.resolve("10"));
+        Files.writeString(jobsDir.resolve("10").resolve("bilan-CL1-1.pdf"), "one");
+        ExportJobItem done = new ExportJobItem(10L, 1L);
+        done.setFileName("bilan-CL1-1.pdf");
+        ExportJobItem failed = new ExportJobItem(10L, 2L);
+        failed.setLastError("Client not found");
+        when(jobRepository.findReadyToAssemble()).thenReturn(List.of(job));
+        when(itemRepository.findByJobIdAndStatusOrderByIdAsc(10L, ExportStatus.COMPLETED)).thenReturn(List.of(done));
+        when(itemRepository.findByJobIdAndStatusOrderByIdAsc(10L, ExportStatus.FAILED)).thenReturn(List.of(failed));
+        when(jobRepository.save(job)).thenReturn(job);
+
+        service.assembleReadyJobs();
+
+        assertThat(job.getStatus()).isEqualTo(ExportStatus.COMPLETED);
+        assertThat(job.getFinishedAt()).isNotNull();
+        assertThat(Files.exists(jobsDir.resolve("10"))).isFalse();
+        assertThat(zipEntries(Path.of(job.getArchivePath()))).containsExactly("bilan-CL1-1.pdf", "erreurs.txt");
+        assertThat(service.getArchive(job)).isPresent();
+    }
+
+    private static List<String> zipEntries(Path archive) throws Exception {
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+
+    private static ExportJobItem claimed(ExportJobItem item) {
+        item.setId(5L);
+        item.setStatus(ExportStatus.RUNNING);
+        item.setClaimedAt(CLAIMED_AT);
+        return item;
+    }
+
+    private static ExportJob job(ExportFormat format) {
+        ExportJob job = new ExportJob();
+        job.setId(10L);
+        job.setFormat(format);
+        job.setStatus(ExportStatus.RUNNING);
+        job.setTotalItems(2);
+        return job;
+    }
+
+    private static Structure client(Long id) {
+        Structure structure = new Structure();
+        structure.setId(id);
+        structure.setCode("CL" + id);
+        structure.setTypeStructure("Client");
+        return structure;
+    }
+
+    private static Structure supplier(Long id) {
+        Structure structure = new Structure();
+        structure.setId(id);
+        structure.setTypeStructure("Fournisseur");
+        return structure;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.back.service;
+
+import com.example.back.entity.History;
+import com.example.back.entity.User;
+import com.example.back.payload.response.HistoryPageResponse;
+import com.example.back.payload.response.HistoryResponse;
+import com.example.back.repository.HistoryRepository;
+import com.example.back.service.mapper.HistoryMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HistoryArchiveServiceTest {
+
+    @Mock
+    private HistoryRepository historyRepository;
+
+    @Mock
+    private HistoryMapper historyMapper;
+
+    @Mock
+    private ChatCacheInvalidator chatCacheInvalidator;
+
+    @InjectMocks
+    private HistoryArchiveService archiveService;
+
+    @TempDir
+    Path archiveDir;
+
+    private final YearMonth month = YearMonth.of(2024, 1);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(archiveService, "archiveDir", archiveDir.toString());
+        ReflectionTestUtils.setField(archiveService, "retentionMonths", 12);
+    }
+
+    @Test
+    void archiveMonth_writesRowsThenDeletesThem() throws Exception {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        when(historyRepository.findPage(isNull(), isNull(), isNull(), isNull(), eq(from), eq(to), isNull(), isNull(), any()))
+                .thenReturn(List.of(history(2L, "UPDATE"), history(1L, "CREATE")));
+        when(historyRepository.findPage(isNull(), isNull(), isNull(), isNull(), eq(from), eq(to), any(LocalDateTime.class), eq(1L), any()))
+                .thenReturn(List.of());
+
+        int archived = archiveService.archiveMonth(month);
+
+        assertThat(archived).isEqualTo(2);
+        assertThat(archiveDir.resolve("history-2024-01.jsonl.gz")).exists();
+        verify(historyRepository).deleteByTimestampRange(from, to);
+        assertThat(archiveService.listArchivedMonths())
+                .singleElement()
+                .satisfies(entry -> assertThat(entry).containsEntry("month", "2024-01"));
+    }
+
+    @Test
+    void archiveMonth_rerunAfterACrashBeforeTheDeleteDoesNotDuplicateRows() throws Exception {
+        when(historyRepository.findPage(isNull(), isNull(), isNull(), isNull(), any(), any(), isNull(), isNull(), any()))
+                .thenReturn(List.of(history(2L, "UPDATE"), history(1L, "CREATE")))
+                .thenReturn(List.of(history(3L, "DELETE"), history(2L, "UPDATE"), history(1L, "CREATE")));
+        when(historyRepository.findPage(isNull(), isNull(), isNull(), isNull(), any(), any(), any(LocalDateTime.class), eq(1L), any()))
+                .thenReturn(List.of());
+        when(historyMapper.toResponse(any(History.class))).thenAnswer(invocation -> {
+            HistoryResponse response = new HistoryResponse();
+            response.setId(invocation.<History>getArgument(0).getId());
+            return response;
+        });
+        // The first run's delete never reached the table, so the second run sees its rows again
+        archiveService.archiveMonth(month);
+
+        int archived = archiveService.archiveMonth(month);
+
+        assertThat(archived).isEqualTo(3);
+        assertThat(archiveService.readMonth("2024-01", null, null, null, null, null, 50).getItems())
+                .extracting(HistoryResponse::getId)
+                .containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void readMonth_filtersAndPagesArchivedEntries() throws Exception {
+        when(historyRepository.findPage(isNull(), isNull(), isNull(), isNull(), any(), any(), isNull(), isNull(), any()))
+                .thenReturn(List.of(history(3L, "UPDATE"), history(2L, "CREATE"), history(1L, "CREATE")));
+        when(historyRepository.findPage(isNull(), isNull(), isNull(), isNull(), any(), any(), any(LocalDateTime.class), eq(1L), any()))
+                .thenReturn(List.of());
+        archiveService.archiveMonth(month);
+        when(historyMapper.toResponse(any(History.class))).thenAnswer(invocation -> {
+            History history = invocation.getArgument(0);
+            HistoryResponse response = new HistoryResponse();
+            response.setId(history.getId());
+            response.setUsername(history.getUser().getUsername());
+            return response;
+        });
+
+        HistoryPageResponse first = archiveService.readMonth("2024-01", null, null, "CREATE", null, null, 1);
+        HistoryPageResponse second = archiveService.readMonth("2024-01", null, null, "CREATE", null, first.getNextCursor(), 1);
+
+        assertThat(first.getItems()).extracting(HistoryResponse::getId).containsExactly(2L);
+        assertThat(first.getItems().get(0).getUsername()).isEqualTo("admin");
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(second.getItems()).extracting(HistoryResponse::getId).containsExactly(1L);
+        assertThat(second.isHasMore()).isFalse();
+    }
+
+    @Test
+    void readMonth_rejectsUnknownMonth() {
+        assertThatThrownBy(() -> archiveService.readMonth("2023-05", null, null, null, null, null, 50))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private History history(Long id, String actionType) {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("admin");
+        user.setFirstName("Admin");
+        user.setLastName("User");
+
+        History history = new History();
+        history.setId(id);
+        history.setTimestamp(month.atDay(10).atTime(12, 0).minusMinutes(id));
+        history.setActionType(actionType);
+        history.setEntityType("CONVENTION");
+        history.setEntityId(5L);
+        history.setEntityCode("CONV-" + id);
+        history.setUser(user);
+        history.setNewValues("{\"etat\":\"EN_COURS\"}");
+        return history;
+    }
+}
@@ -1,12 +1,14 @@
 package com.example.back.service;
 
 import com.example.back.entity.*;
+import com.example.back.payload.response.HistoryPageResponse;
 import com.example.back.payload.response.HistoryResponse;
 import com.example.back.repository.HistoryRepository;
 import com.example.back.service.mapper.HistoryMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -18,6 +20,7 @@ import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -31,6 +34,9 @@ class HistoryServiceTest {
     @Mock
     private HistoryMapper historyMapper;
 
+    @Mock
+    private AuditLogWriter auditLogWriter;
+
 
     @InjectMocks
     private HistoryService historyService;
@@ -123,48 +129,64 @@ class HistoryServiceTest {
 
 
     @Test
-    void getAllHistory_Success() {
+    void getAllHistory_returnsFirstPageWithCursor() {
         // Given
-        List<History> histories = Arrays.asList(testHistory);
-        HistoryResponse response = new HistoryResponse();
+        History older = new History();
+        older.setId(2L);
+        older.setTimestamp(testHistory.getTimestamp().minusMinutes(1));
 
-        when(historyRepository.findAll()).thenReturn(histories);
-        when(historyMapper.toResponse(testHistory)).thenReturn(response);
+        when(historyRepository.findPage(isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(),
+                eq(PageRequest.of(0, 2)))).thenReturn(Arrays.asList(testHistory, older));
+        when(historyMapper.toResponse(testHistory)).thenReturn(new HistoryResponse());
 
         // When
-        List<HistoryResponse> result = historyService.getAllHistory();
+        HistoryPageResponse result = historyService.getAllHistory(null, 1);
 
         // Then
-        assertThat(result).hasSize(1);
+        assertThat(result.getItems()).hasSize(1);
+        assertThat(result.isHasMore()).isTrue();
+        assertThat(result.getNextCursor()).isNotNull();
     }
 
     @Test
-    void getRecentHistory_Success() {
+    void getAllHistory_nextPageStartsAfterCursor() {
         // Given
-        List<History> histories = Arrays.asList(testHistory);
-        HistoryResponse response = new HistoryResponse();
+        History last = new History();
+        last.setId(7L);
+        last.setTimestamp(LocalDateTime.of(2026, 4, 1, 10, 15, 30));
 
-        when(historyRepository.findRecent(any(PageRequest.class))).thenReturn(histories);
-        when(historyMapper.toResponse(testHistory)).thenReturn(response);
+        when(historyRepository.findPage(isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), any(), any(), any()))
+                .thenReturn(Arrays.asList(last, testHistory));
+        when(historyMapper.toResponse(any(History.class))).thenReturn(new HistoryResponse());
+        String cursor = historyService.getAllHistory(null, 1).getNextCursor();
 
         // When
-        List<HistoryResponse> result = historyService.getRecentHistory(10);
+        historyService.getAllHistory(cursor, 10);
 
         // Then
-        assertThat(result).hasSize(1);
+        verify(historyRepository).findPage(isNull(), isNull(), isNull(), isNull(), isNull(), isNull(),
+                eq(LocalDateTime.of(2026, 4, 1, 10, 15, 30)), eq(7L), eq(PageRequest.of(0, 11)));
+    }
+
+    @Test
+    void getAllHistory_rejectsMalformedCursor() {
+        assertThatThrownBy(() -> historyService.getAllHistory("not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
     }
 
     @Test
-    void getHistoryByUser_Success() {
+    void getRecentHistory_Success() {
         // Given
         List<History> histories = Arrays.asList(testHistory);
         HistoryResponse response = new HistoryResponse();
 
-        when(historyRepository.findByUserIdOrderByTimestampDesc(1L)).thenReturn(histories);
+        when(historyRepository.findPage(any(), any(), any(), any(), any(), any(), any(), any(), any(PageRequest.class)))
+                .thenReturn(histories);
         when(historyMapper.toResponse(testHistory)).thenReturn(response);
 
         // When
-        List<HistoryResponse> result = historyService.getHistoryByUser(1L);
+        List<HistoryResponse> result = historyService.getRecentHistory(10);
 
         // Then
         assertThat(result).hasSize(1);
@@ -173,51 +195,67 @@ class HistoryServiceTest {
     @Test
     void getHistoryByEntity_Success() {
         // Given
-        List<History> histories = Arrays.asList(testHistory);
-        HistoryResponse response = new HistoryResponse();
-
-        when(historyRepository.findByEntityTypeAndEntityIdOrderByTimestampDesc("APPLICATION", 1L))
-                .thenReturn(histories);
-        when(historyMapper.toResponse(testHistory)).thenReturn(response);
+        when(historyRepository.findPage(eq("APPLICATION"), eq(1L), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), any()))
+                .thenReturn(Arrays.asList(testHistory));
+        when(historyMapper.toResponse(testHistory)).thenReturn(new HistoryResponse());
 
         // When
-        List<HistoryResponse> result = historyService.getHistoryByEntity("APPLICATION", 1L);
+        HistoryPageResponse result = historyService.getHistoryByEntity("APPLICATION", 1L, null, 50);
 
         // Then
-        assertThat(result).hasSize(1);
+        assertThat(result.getItems()).hasSize(1);
+        assertThat(result.isHasMore()).isFalse();
     }
 
     @Test
-    void getHistoryByDate_Success() {
+    void searchHistory_filtersDateAsTimestampRange() {
         // Given
         LocalDate today = LocalDate.now();
-        List<History> histories = Arrays.asList(testHistory);
-        HistoryResponse response = new HistoryResponse();
-
-        when(historyRepository.findByDate(today)).thenReturn(histories);
-        when(historyMapper.toResponse(testHistory)).thenReturn(response);
+        when(historyRepository.findPage(eq("APPLICATION"), isNull(), eq("CREATE"), eq(1L),
+                eq(today.atStartOfDay()), eq(today.plusDays(1).atStartOfDay()), isNull(), isNull(), any()))
+                .thenReturn(Arrays.asList(testHistory));
+        when(historyMapper.toResponse(testHistory)).thenReturn(new HistoryResponse());
 
         // When
-        List<HistoryResponse> result = historyService.getHistoryByDate(today);
+        HistoryPageResponse result = historyService.searchHistory("APPLICATION", "CREATE", 1L, today, null, 50);
 
         // Then
-        assertThat(result).hasSize(1);
+        assertThat(result.getItems()).hasSize(1);
     }
 
     @Test
-    void searchHistory_Success() {
+    void getHistoryGroupedByDay_usesOneQueryForTheRange() {
         // Given
-        List<History> histories = Arrays.asList(testHistory);
-        HistoryResponse response = new HistoryResponse();
+        LocalDate from = LocalDate.of(2026, 4, 1);
+        LocalDate to = LocalDate.of(2026, 4, 2);
+        History first = new History();
+        first.setTimestamp(LocalDateTime.of(2026, 4, 2, 9, 0));
+        History second = new History();
+        second.setTimestamp(LocalDateTime.of(2026, 4, 1, 9, 0));
 
-        when(historyRepository.searchHistory(any(), any(), any(), any())).thenReturn(histories);
-        when(historyMapper.toResponse(testHistory)).thenReturn(response);
+        when(historyRepository.findLatestPerDay(from.atStartOfDay(), LocalDate.of(2026, 4, 3).atStartOfDay(), 100))
+                .thenReturn(Arrays.asList(first, second));
+        when(historyMapper.toResponse(any(History.class))).thenReturn(new HistoryResponse());
 
         // When
-        List<HistoryResponse> result = historyService.searchHistory(
-                "APPLICATION", "CREATE", 1L, LocalDate.now());
+        Map<LocalDate, List<HistoryResponse>> result = historyService.getHistoryGroupedByDay(from, to, 100);
 
         // Then
-        assertThat(result).hasSize(1);
+        assertThat(result.keySet()).containsExactly(to, from);
+        verify(historyRepository, times(1)).findLatestPerDay(any(), any(), anyInt());
+    }
+
+    @Test
+    void logUserLogin_queuesEventWithoutSaving() {
+        // When
+        historyService.logUserLogin(testUser);
+
+        // Then
+        ArgumentCaptor<AuditLogWriter.AuditEvent> captor = ArgumentCaptor.forClass(AuditLogWriter.AuditEvent.class);
+        verify(auditLogWriter).append(captor.capture());
+        assertThat(captor.getValue().actionType()).isEqualTo("LOGIN");
+        assertThat(captor.getValue().userId()).isEqualTo(1L);
+        assertThat(captor.getValue().newValues()).contains("testuser");
+        verifyNoInteractions(historyRepository);
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,9 @@
 package com.example.back.service;
 
 import com.example.back.entity.*;
+import com.example.back.payload.request.MailActionRequest;
 import com.example.back.payload.request.MailRequest;
+import com.example.back.payload.response.MailBatchActionResponse;
 import com.example.back.payload.response.MailResponse;
 import com.example.back.repository.*;
 import com.example.back.service.mapper.MailMapper;
@@ -55,6 +57,12 @@ class MailServiceTest {
     @Mock
     private MailGroupRepository groupRepository;
 
+    @Mock
+    private MailboxCounterService counterService;
+
+    @Mock
+    private AttachmentStorageService attachmentStorage;
+
     @InjectMocks
     private MailService mailService;
 
@@ -257,6 +265,7 @@ class MailServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getSubject()).isEqualTo("Draft Subject");
         verify(draftRepository).save(any(MailDraft.class));
+        verify(counterService).recordDrafts(testUser.getEmail(), 1);
     }
 
     @Test
@@ -297,6 +306,25 @@ class MailServiceTest {
 
         // Then
         verify(draftRepository).delete(testDraft);
+        verify(counterService).recordDrafts(testUser.getEmail(), -1);
+    }
+
+    @Test
+    void deleteDraft_releasesStoredAttachmentBlobs() {
+        // Given
+        MailDraftAttachment attachment = new MailDraftAttachment();
+        attachment.setDraft(testDraft);
+        attachment.setFilePath("blobs/ab/abc");
+        attachment.setBlobHash("abc");
+        testDraft.setAttachments(new ArrayList<>(List.of(attachment)));
+        when(draftRepository.findById(1L)).thenReturn(Optional.of(testDraft));
+
+        // When
+        mailService.deleteDraft(1L, testUser);
+
+        // Then
+        verify(attachmentStorage).release("abc");
+        verify(draftRepository).delete(testDraft);
     }
 
     // ==================== MAIL RETRIEVAL TESTS ====================
@@ -380,34 +408,37 @@ class MailServiceTest {
         Page<Mail> mailPage = new PageImpl<>(Arrays.asList(testMail));
         MailResponse response = new MailResponse();
 
-        when(mailRepository.searchByUserEmail(eq(testUser.getEmail()), anyString(), any()))
+        when(mailRepository.searchByUserEmail(eq(testUser.getEmail()), eq("fact:* & 2024:*"), any()))
                 .thenReturn(mailPage);
         when(mailMapper.toResponse(any(Mail.class), anyString())).thenReturn(response);
 
         // When
-        Page<MailResponse> result = mailService.searchMails(testUser.getEmail(), "test", 0, 10);
+        Page<MailResponse> result = mailService.searchMails(testUser.getEmail(), "Fact-2024", 0, 10);
 
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(1);
     }
 
+    @Test
+    void searchMails_withoutSearchableWordsSkipsTheQuery() {
+        Page<MailResponse> result = mailService.searchMails(testUser.getEmail(), " & | ! ", 0, 10);
+
+        assertThat(result.getContent()).isEmpty();
+        verify(mailRepository, never()).searchByUserEmail(anyString(), anyString(), any());
+    }
+
     @Test
     void getStats_Success() {
         // Given
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(mailRepository.findInboxByRecipientEmail(eq(testUser.getEmail()), any()))
-                .thenReturn(new PageImpl<>(Arrays.asList(testMail)));
-        when(mailRepository.countUnreadByRecipientEmail(testUser.getEmail())).thenReturn(5L);
-        when(mailRepository.findBySenderEmailAndIsDeletedFalseOrderBySentAtDesc(eq(testUser.getEmail()), any()))
-                .thenReturn(new PageImpl<>(Arrays.asList(testMail)));
-        when(mailRepository.findStarredByUserEmail(eq(testUser.getEmail()), any()))
-                .thenReturn(new PageImpl<>(Arrays.asList(testMail)));
-        when(mailRepository.findArchivedByUserEmail(eq(testUser.getEmail()), any()))
-                .thenReturn(new PageImpl<>(Arrays.asList(testMail)));
-        when(mailRepository.findTrashByUserEmail(eq(testUser.getEmail()), any()))
-                .thenReturn(new PageImpl<>(Arrays.asList(testMail)));
-        when(draftRepository.countByUser(testUser)).thenReturn(2L);
+        MailboxCounter counters = new MailboxCounter();
+        counters.setEmail(testUser.getEmail());
+        counters.setInboxCount(1);
+        counters.setUnreadCount(5);
+        counters.setTrashCount(1);
+        counters.setDraftCount(2);
+        when(counterService.getCounters(testUser.getEmail())).thenReturn(counters);
         when(groupRepository.countByIsSystemTrue()).thenReturn(4L);
         when(groupRepository.countCustomGroupsForUser(testUser)).thenReturn(1L);
         when(mailRepository.countAllGroupMailsForUser(testUser)).thenReturn(10L);
@@ -422,5 +453,65 @@ class MailServiceTest {
         assertThat(result.getInboxCount()).isEqualTo(1);
         assertThat(result.getUnreadCount()).isEqualTo(5);
         assertThat(result.getDraftCount()).isEqualTo(2);
+        assertThat(result.getTrashCount()).isEqualTo(1);
+        verify(mailRepository, never()).findInboxByRecipientEmail(anyString(), any());
+        verify(draftRepository, never()).countByUser(any());
+    }
+
+    @Test
+    void markAsRead_updatesCountersWithPreviousState() {
+        // Given
+        mailRecipient.setEmail(testRecipient.getEmail());
+        when(mailRepository.findById(1L)).thenReturn(Optional.of(testMail));
+
+        // When
+        mailService.markAsRead(1L, testRecipient.getEmail());
+
+        // Then
+        assertThat(mailRecipient.getIsRead()).isTrue();
+        verify(recipientRepository).save(mailRecipient);
+        verify(counterService).recordChange(testRecipient.getEmail(),
+                new MailboxCounterService.Contribution(1, 1, 0, 0, 0, 0),
+                new MailboxCounterService.Contribution(1, 0, 0, 0, 0, 0));
+    }
+
+    @Test
+    void performBatchAction_updatesSelectionInOneStatementAndAdjustsCounters() {
+        // Given
+        MailActionRequest request = new MailActionRequest();
+        request.setAction("read");
+        request.setMailIds(Arrays.asList(1L, 2L, 2L, 3L));
+        List<Object[]> states = new ArrayList<>();
+        states.add(new Object[]{1L, "TO", false, false, false, false});
+        states.add(new Object[]{2L, "TO", false, false, false, false});
+        states.add(new Object[]{3L, "TO", true, false, false, false});
+        when(recipientRepository.findStatesByEmailAndMailIds(testRecipient.getEmail(), List.of(1L, 2L, 3L)))
+                .thenReturn(states);
+        when(recipientRepository.bulkSetRead(eq(testRecipient.getEmail()), eq(List.of(1L, 2L, 3L)), eq(true), any()))
+                .thenReturn(2);
+        MailboxCounter counters = new MailboxCounter();
+        counters.setUnreadCount(4);
+        when(counterService.getCounters(testRecipient.getEmail())).thenReturn(counters);
+
+        // When
+        MailBatchActionResponse result = mailService.performBatchAction(request, testRecipient.getEmail());
+
+        // Then
+        assertThat(result.getRequested()).isEqualTo(3);
+        assertThat(result.getAffected()).isEqualTo(2);
+        assertThat(result.getUnreadCount()).isEqualTo(4);
+        verify(counterService).recordBulkChange(eq(testRecipient.getEmail()), eq(states), any());
+        verify(mailRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void performBatchAction_rejectsUnknownAction() {
+        MailActionRequest request = new MailActionRequest();
+        request.setAction("SHRED");
+        request.setMailIds(List.of(1L));
+
+        assertThatThrownBy(() -> mailService.performBatchAction(request, testRecipient.getEmail()))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(recipientRepository);
     }
-}
\ No newline at end of file
+}
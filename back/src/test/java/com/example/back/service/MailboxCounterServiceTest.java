@@ -0,0 +1,119 @@
+package com.example.back.service;
+
+import com.example.back.entity.MailRecipient;
+import com.example.back.repository.MailboxCounterRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MailboxCounterServiceTest {
+
+    @Mock
+    private MailboxCounterRepository counterRepository;
+
+    @Mock
+    private ChatCacheInvalidator chatCacheInvalidator;
+
+    @InjectMocks
+    private MailboxCounterService counterService;
+
+    @Test
+    void recordAdded_countsAMailOncePerMailboxFolder() {
+        counterService.recordAdded(List.of(
+                recipient("sender@example.com", "FROM", true),
+                recipient("alice@example.com", "TO", false),
+                recipient("alice@example.com", "CC", false),
+                recipient("bob@example.com", "BCC", false)));
+
+        verify(counterRepository).addDeltas("sender@example.com", 0, 0, 1, 0, 0, 0);
+        verify(counterRepository).addDeltas("alice@example.com", 1, 1, 0, 0, 0, 0);
+        verify(counterRepository).addDeltas("bob@example.com", 1, 1, 0, 0, 0, 0);
+        verifyNoMoreInteractions(counterRepository);
+    }
+
+    @Test
+    void recordRemoved_uncountsTheMailboxRowsOfTheMailOnce() {
+        counterService.recordRemoved(List.of(
+                recipient("alice@example.com", "TO", false),
+                recipient("alice@example.com", "CC", true)));
+
+        verify(counterRepository).addDeltas("alice@example.com", -1, -1, 0, 0, 0, 0);
+    }
+
+    @Test
+    void recordChange_movesUnreadInboxMailToTrash() {
+        MailRecipient recipient = recipient("alice@example.com", "TO", false);
+        recipient.setIsStarred(true);
+        List<MailRecipient> rows = List.of(recipient);
+        MailboxCounterService.Contribution before = MailboxCounterService.Contribution.of(rows);
+
+        recipient.setIsDeleted(true);
+        counterService.recordChange("alice@example.com", before, MailboxCounterService.Contribution.of(rows));
+
+        verify(counterRepository).addDeltas("alice@example.com", -1, -1, 0, -1, 0, 1);
+    }
+
+    @Test
+    void recordChange_keepsAMailListedByAnotherRowOfTheMailbox() {
+        MailRecipient to = recipient("alice@example.com", "TO", false);
+        MailRecipient cc = recipient("alice@example.com", "CC", false);
+        List<MailRecipient> rows = List.of(to, cc);
+        MailboxCounterService.Contribution before = MailboxCounterService.Contribution.of(rows);
+
+        to.setIsDeleted(true);
+        counterService.recordChange("alice@example.com", before, MailboxCounterService.Contribution.of(rows));
+
+        verify(counterRepository).addDeltas("alice@example.com", 0, 0, 0, 0, 0, 1);
+    }
+
+    @Test
+    void recordChange_skipsChangesThatDoNotMoveCounters() {
+        MailRecipient recipient = recipient("alice@example.com", "TO", true);
+        List<MailRecipient> rows = List.of(recipient);
+        MailboxCounterService.Contribution before = MailboxCounterService.Contribution.of(rows);
+
+        recipient.setIsRead(true);
+        counterService.recordChange("alice@example.com", before, MailboxCounterService.Contribution.of(rows));
+
+        verify(counterRepository, never()).addDeltas(anyString(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void recordBulkChange_countsEachMailOnce() {
+        List<Object[]> states = List.of(
+                new Object[]{1L, "TO", false, true, false, false},
+                new Object[]{1L, "CC", false, false, false, false},
+                new Object[]{2L, "TO", true, false, false, false},
+                new Object[]{3L, "FROM", true, false, false, false},
+                new Object[]{3L, "TO", true, false, false, false});
+
+        counterService.recordBulkChange("alice@example.com", states, row -> row.setIsDeleted(true));
+
+        verify(counterRepository).addDeltas("alice@example.com", -3, -1, -1, -1, 0, 3);
+    }
+
+    @Test
+    void recordDrafts_upsertsTheDraftDelta() {
+        counterService.recordDrafts("alice@example.com", -1);
+        counterService.recordDrafts("alice@example.com", 0);
+
+        verify(counterRepository).addDraftDelta("alice@example.com", -1);
+        verifyNoMoreInteractions(counterRepository);
+    }
+
+    private static MailRecipient recipient(String email, String type, boolean read) {
+        MailRecipient recipient = new MailRecipient();
+        recipient.setEmail(email);
+        recipient.setType(type);
+        recipient.setIsRead(read);
+        return recipient;
+    }
+}
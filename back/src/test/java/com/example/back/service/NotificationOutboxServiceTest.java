@@ -0,0 +1,175 @@
+package com.example.back.service;
+
+import com.example.back.entity.*;
+import com.example.back.payload.response.MailResponse;
+import com.example.back.repository.FactureRepository;
+import com.example.back.repository.NotificationOutboxRepository;
+import com.example.back.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxServiceTest {
+
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private FactureRepository factureRepository;
+
+    @Mock
+    private MailService mailService;
+
+    @Mock
+    private SmsService smsService;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @InjectMocks
+    private NotificationOutboxService outboxService;
+
+    private User testUser;
+    private Facture testFacture;
+    private Notification testNotification;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboxService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(outboxService, "backoffSeconds", 30L);
+        ReflectionTestUtils.setField(outboxService, "maxBackoffMinutes", 60L);
+
+        testUser = new User();
+        testUser.setId(1L);
+        testUser.setUsername("testuser");
+        testUser.setPhone("+21612345678");
+
+        testFacture = new Facture();
+        testFacture.setId(1L);
+        testFacture.setNumeroFacture("FACT-2024-001");
+        testFacture.setDateEcheance(LocalDate.now().plusDays(3));
+
+        testNotification = new Notification();
+        testNotification.setId(10L);
+        testNotification.setUser(testUser);
+        testNotification.setReferenceId(1L);
+        testNotification.setReferenceType("FACTURE");
+        testNotification.setDaysUntilDue(3);
+    }
+
+    // ==================== ENQUEUE TESTS ====================
+
+    @Test
+    void enqueue_EmailOnly() {
+        testUser.setNotifMode("email");
+
+        outboxService.enqueue(testNotification);
+
+        assertThat(queuedChannels()).containsExactly(NotificationChannel.WEBSOCKET, NotificationChannel.EMAIL);
+    }
+
+    @Test
+    void enqueue_SmsOnly() {
+        testUser.setNotifMode("sms");
+
+        outboxService.enqueue(testNotification);
+
+        assertThat(queuedChannels()).containsExactly(NotificationChannel.WEBSOCKET, NotificationChannel.SMS);
+    }
+
+    @Test
+    void enqueue_Both() {
+        testUser.setNotifMode("both");
+
+        outboxService.enqueue(testNotification);
+
+        assertThat(queuedChannels()).containsExactly(
+                NotificationChannel.WEBSOCKET, NotificationChannel.EMAIL, NotificationChannel.SMS);
+    }
+
+    // ==================== DELIVERY TESTS ====================
+
+    @Test
+    void process_emailMarksEntryAndNotificationSent() {
+        NotificationOutbox entry = new NotificationOutbox(10L, NotificationChannel.EMAIL);
+        when(notificationRepository.findByIdWithUser(10L)).thenReturn(Optional.of(testNotification));
+        when(factureRepository.findByIdWithAllRelations(1L)).thenReturn(Optional.of(testFacture));
+        when(mailService.sendFactureDueNotification(testUser, testFacture, 3)).thenReturn(new MailResponse());
+
+        outboxService.process(entry);
+
+        assertThat(entry.getStatus()).isEqualTo(OutboxStatus.SENT);
+        assertThat(entry.getAttempts()).isEqualTo(1);
+        verify(notificationRepository).markEmailSent(eq(testNotification.getId()), any(LocalDateTime.class));
+        verify(notificationRepository, never()).save(any());
+        verify(outboxRepository).save(entry);
+    }
+
+    @Test
+    void process_failureIsRetriedWithBackoff() {
+        ReflectionTestUtils.setField(outboxService, "smsIntervalMs", 0L);
+        NotificationOutbox entry = new NotificationOutbox(10L, NotificationChannel.SMS);
+        when(notificationRepository.findByIdWithUser(10L)).thenReturn(Optional.of(testNotification));
+        when(factureRepository.findByIdWithAllRelations(1L)).thenReturn(Optional.of(testFacture));
+        when(smsService.deliverNotificationSms(testNotification, testFacture, 3))
+                .thenThrow(new IllegalStateException("provider down"));
+
+        LocalDateTime before = LocalDateTime.now();
+        outboxService.process(entry);
+
+        assertThat(entry.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(entry.getAttempts()).isEqualTo(1);
+        assertThat(entry.getLastError()).isEqualTo("provider down");
+        assertThat(entry.getNextAttemptAt()).isAfterOrEqualTo(before.plusSeconds(30));
+
+        entry.setAttempts(2);
+        outboxService.process(entry);
+
+        assertThat(entry.getStatus()).isEqualTo(OutboxStatus.FAILED);
+    }
+
+    @Test
+    void process_cancelsEntryOfDeletedNotification() {
+        NotificationOutbox entry = new NotificationOutbox(10L, NotificationChannel.WEBSOCKET);
+        when(notificationRepository.findByIdWithUser(10L)).thenReturn(Optional.empty());
+
+        outboxService.process(entry);
+
+        assertThat(entry.getStatus()).isEqualTo(OutboxStatus.CANCELLED);
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void backoff_doublesUpToTheCap() {
+        assertThat(outboxService.backoff(1)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(outboxService.backoff(3)).isEqualTo(Duration.ofSeconds(120));
+        assertThat(outboxService.backoff(30)).isEqualTo(Duration.ofMinutes(60));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<NotificationChannel> queuedChannels() {
+        ArgumentCaptor<List<NotificationOutbox>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).saveAll(captor.capture());
+        return captor.getValue().stream().map(NotificationOutbox::getChannel).toList();
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.back.service;
 
 import com.example.back.entity.*;
-import com.example.back.payload.response.MailResponse;
 import com.example.back.repository.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,7 +8,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -26,15 +24,11 @@ class NotificationServiceTest {
     @Mock
     private NotificationRepository notificationRepository;
 
-
-    @Mock
-    private MailService mailService;
-
     @Mock
-    private SmsService smsService;
+    private FactureRepository factureRepository;
 
     @Mock
-    private SimpMessagingTemplate messagingTemplate;
+    private NotificationOutboxService outboxService;
 
     @InjectMocks
     private NotificationService notificationService;
@@ -141,15 +135,6 @@ class NotificationServiceTest {
             return saved;
         });
 
-        doNothing().when(messagingTemplate).convertAndSendToUser(anyString(), anyString(), any());
-
-        // Mock the mail service
-        when(mailService.sendFactureDueNotification(any(User.class), any(Facture.class), anyInt()))
-                .thenReturn(new MailResponse());
-
-        // Mock the sms service (void method)
-        doNothing().when(smsService).sendNotificationSms(any(Notification.class), any(Facture.class), anyInt());
-
         // When
         Notification result = notificationService.createFactureDueNotification(testFacture, 3);
 
@@ -158,9 +143,38 @@ class NotificationServiceTest {
         assertThat(result.getTitle()).isEqualTo("Facture à échéance dans 3 jours");
         assertThat(result.getType()).isEqualTo("WARNING");
 
-        // Verify save was called multiple times (once per recipient, plus potentially in sendNotificationViaChannels)
-        // Use atLeast() instead of times(1) since it will be called multiple times
-        verify(notificationRepository, atLeast(1)).save(any(Notification.class));
+        // One notification per recipient (chef de projet and commercial), each queued for delivery
+        verify(notificationRepository, times(2)).save(any(Notification.class));
+        verify(outboxService, times(2)).enqueue(any(Notification.class));
+    }
+
+    // ==================== DUE-DATE SCANNER TESTS ====================
+
+    @Test
+    void checkUnpaidInvoices_skipsInvoicesAlreadyNotifiedToday() {
+        LocalDate today = LocalDate.now();
+        when(factureRepository.findNotifiableDueBetween(today.minusDays(5), today.plusDays(5)))
+                .thenReturn(List.of(testFacture));
+        when(notificationRepository.findFactureNotificationKeysSince(List.of(1L), today.atStartOfDay()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 3}));
+
+        notificationService.checkUnpaidInvoices();
+
+        verify(notificationRepository, never()).save(any(Notification.class));
+        verify(factureRepository, never()).findByStatutPaiement(anyString());
+    }
+
+    @Test
+    void checkUnpaidInvoices_laterRunsTheSameDayOnlyLookAtChangedInvoices() {
+        when(factureRepository.findNotifiableDueBetween(any(), any())).thenReturn(List.of());
+        when(factureRepository.findNotifiableDueBetweenChangedSince(any(), any(), any())).thenReturn(List.of());
+
+        notificationService.checkUnpaidInvoices();
+        notificationService.checkUnpaidInvoices();
+
+        verify(factureRepository, times(1)).findNotifiableDueBetween(any(), any());
+        verify(factureRepository, times(1)).findNotifiableDueBetweenChangedSince(any(), any(), any());
+        verify(notificationRepository, never()).findFactureNotificationKeysSince(any(), any());
     }
 
     // ==================== MARK AS READ TESTS ====================
@@ -284,64 +298,6 @@ class NotificationServiceTest {
         verify(notificationRepository).countByUserAndIsReadFalse(testUser);
     }
 
-    // ==================== SEND NOTIFICATION TESTS ====================
-
-    @Test
-    void sendNotificationViaChannels_EmailOnly() {
-        // Given
-        testUser.setNotifMode("email");
-        testNotification.setUser(testUser);
-
-        // MailResponse is returned, not void
-        when(mailService.sendFactureDueNotification(any(User.class), any(Facture.class), anyInt()))
-                .thenReturn(new com.example.back.payload.response.MailResponse());
-
-        // When
-        notificationService.sendNotificationViaChannels(testNotification, testFacture, 3);
-
-        // Then
-        verify(mailService).sendFactureDueNotification(eq(testUser), eq(testFacture), eq(3));
-        verify(smsService, never()).sendNotificationSms(any(), any(), anyInt());
-        verify(notificationRepository).save(testNotification);
-    }
-
-    @Test
-    void sendNotificationViaChannels_SmsOnly() {
-        // Given
-        testUser.setNotifMode("sms");
-        testNotification.setUser(testUser);
-
-        // For void methods
-        doNothing().when(smsService).sendNotificationSms(any(), any(), anyInt());
-
-        // When
-        notificationService.sendNotificationViaChannels(testNotification, testFacture, 3);
-
-        // Then
-        verify(smsService).sendNotificationSms(eq(testNotification), eq(testFacture), eq(3));
-        verify(mailService, never()).sendFactureDueNotification(any(), any(), anyInt());
-        verify(notificationRepository).save(testNotification);
-    }
-
-    @Test
-    void sendNotificationViaChannels_Both() {
-        // Given
-        testUser.setNotifMode("both");
-        testNotification.setUser(testUser);
-
-        when(mailService.sendFactureDueNotification(any(User.class), any(Facture.class), anyInt()))
-                .thenReturn(new com.example.back.payload.response.MailResponse());
-        doNothing().when(smsService).sendNotificationSms(any(), any(), anyInt());
-
-        // When
-        notificationService.sendNotificationViaChannels(testNotification, testFacture, 3);
-
-        // Then
-        verify(mailService).sendFactureDueNotification(eq(testUser), eq(testFacture), eq(3));
-        verify(smsService).sendNotificationSms(eq(testNotification), eq(testFacture), eq(3));
-        verify(notificationRepository).save(testNotification);
-    }
-
     // ==================== DELETE NOTIFICATIONS FOR FACTURE TESTS ====================
 
     @Test
@@ -0,0 +1,96 @@
+package com.example.back.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RejectedTaskStoreTest {
+
+    @Mock
+    private AsyncTaskMetrics metrics;
+
+    @InjectMocks
+    private RejectedTaskStore store;
+
+    private ThreadPoolExecutor executor;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "capacity", 1);
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1),
+                store.handlerFor("smsExecutor"));
+        // One running task and one queued task saturate the executor
+        executor.execute(this::awaitRelease);
+        executor.execute(() -> { });
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void rejectedTaskIsStoredAndResubmittedOnceThereIsRoom() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+
+        executor.execute(runs::incrementAndGet);
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(runs.get()).isZero();
+        verify(metrics).recordRejected("smsExecutor");
+
+        release.countDown();
+        awaitCompleted(2);
+
+        assertThat(store.resubmitPending()).isEqualTo(1);
+        awaitCompleted(3);
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(store.size()).isZero();
+        verify(metrics).recordResubmitted("smsExecutor");
+    }
+
+    @Test
+    void taskRunsOnCallerWhenStoreIsFull() {
+        executor.execute(() -> { });
+        AtomicInteger runs = new AtomicInteger();
+
+        executor.execute(runs::incrementAndGet);
+
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(store.size()).isEqualTo(1);
+        verify(metrics).recordCallerRuns("smsExecutor");
+    }
+
+    private void awaitCompleted(long tasks) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getCompletedTaskCount() < tasks && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -37,6 +37,9 @@ class RequestServiceTest {
     @Mock
     private RequestMapper requestMapper;
 
+    @Mock
+    private WorkloadLedgerService workloadLedger;
+
     @InjectMocks
     private RequestService requestService;
 
@@ -0,0 +1,118 @@
+package com.example.back.service;
+
+import com.example.back.entity.Facture;
+import com.example.back.entity.MetricType;
+import com.example.back.repository.ApplicationRepository;
+import com.example.back.repository.ConventionRepository;
+import com.example.back.repository.DailyMetricRepository;
+import com.example.back.repository.FactureRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatsMetricsServiceTest {
+
+    @Mock
+    private DailyMetricRepository dailyMetricRepository;
+
+    @Mock
+    private FactureRepository factureRepository;
+
+    @Mock
+    private ConventionRepository conventionRepository;
+
+    @Mock
+    private ApplicationRepository applicationRepository;
+
+    @Mock
+    private ChatCacheInvalidator chatCacheInvalidator;
+
+    @InjectMocks
+    private StatsMetricsService statsMetricsService;
+
+    @Test
+    void refresh_recomputesOnlyDirtyDays() {
+        LocalDate paidOn = LocalDate.of(2026, 3, 10);
+        Facture facture = new Facture();
+        facture.setStatutPaiement("PAYE");
+        facture.setDatePaiement(paidOn);
+
+        when(dailyMetricRepository.count()).thenReturn(1L);
+        when(factureRepository.aggregatePaidByDay(paidOn, paidOn))
+                .thenReturn(Collections.singletonList(new Object[]{paidOn, 2L, new BigDecimal("300.00")}));
+
+        statsMetricsService.markDirty(facture);
+        statsMetricsService.refresh();
+        statsMetricsService.refresh();
+
+        verify(dailyMetricRepository, times(1)).upsert(paidOn, "FACTURE_PAID", 2L, new BigDecimal("300.00"));
+        verify(factureRepository, never()).aggregateIssuedByDay(any(), any());
+    }
+
+    @Test
+    void refresh_writesZeroWhenDayBecameEmpty() {
+        LocalDate dueOn = LocalDate.of(2026, 4, 1);
+        Facture facture = new Facture();
+        facture.setDateEcheance(dueOn);
+
+        when(dailyMetricRepository.count()).thenReturn(1L);
+        when(factureRepository.aggregateDueByDay(dueOn, dueOn)).thenReturn(List.of());
+        when(factureRepository.aggregateOutstandingByDay(dueOn, dueOn)).thenReturn(List.of());
+
+        statsMetricsService.markDirty(facture);
+        statsMetricsService.refresh();
+
+        verify(dailyMetricRepository).upsert(dueOn, "FACTURE_DUE", 0L, BigDecimal.ZERO);
+        verify(dailyMetricRepository).upsert(dueOn, "FACTURE_OUTSTANDING", 0L, BigDecimal.ZERO);
+    }
+
+    @Test
+    void refresh_keepsDirtyDaysWhenTheUpsertFails() {
+        LocalDate paidOn = LocalDate.of(2026, 3, 10);
+        Facture facture = new Facture();
+        facture.setStatutPaiement("PAYE");
+        facture.setDatePaiement(paidOn);
+
+        when(dailyMetricRepository.count()).thenReturn(1L);
+        when(factureRepository.aggregatePaidByDay(paidOn, paidOn))
+                .thenReturn(Collections.singletonList(new Object[]{paidOn, 2L, new BigDecimal("300.00")}));
+        doThrow(new RuntimeException("connection reset")).doNothing()
+                .when(dailyMetricRepository).upsert(paidOn, "FACTURE_PAID", 2L, new BigDecimal("300.00"));
+
+        statsMetricsService.markDirty(facture);
+        statsMetricsService.refresh();
+        statsMetricsService.refresh();
+
+        verify(dailyMetricRepository, times(2)).upsert(paidOn, "FACTURE_PAID", 2L, new BigDecimal("300.00"));
+    }
+
+    @Test
+    void total_rebuildsOnFirstUseWhenTableIsEmpty() {
+        when(dailyMetricRepository.count()).thenReturn(0L);
+        when(dailyMetricRepository.sumBetween(eq(MetricType.FACTURE_PAID), any(), any()))
+                .thenReturn(Collections.singletonList(new Object[]{5L, new BigDecimal("1000.00")}));
+
+        StatsMetricsService.MetricTotal total = statsMetricsService.total(MetricType.FACTURE_PAID);
+
+        assertThat(total.count()).isEqualTo(5L);
+        assertThat(total.amount()).isEqualByComparingTo("1000.00");
+        verify(dailyMetricRepository).deleteAllInBatch();
+        verify(dailyMetricRepository).saveAll(anyList());
+        verify(dailyMetricRepository, never()).upsert(any(), anyString(), anyLong(), any());
+    }
+}
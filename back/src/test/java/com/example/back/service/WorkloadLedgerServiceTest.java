@@ -0,0 +1,149 @@
+package com.example.back.service;
+
+import com.example.back.entity.Application;
+import com.example.back.entity.Convention;
+import com.example.back.entity.User;
+import com.example.back.entity.Workload;
+import com.example.back.repository.ConventionRepository;
+import com.example.back.repository.UserRepository;
+import com.example.back.repository.WorkloadRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkloadLedgerServiceTest {
+
+    @Mock
+    private WorkloadRepository workloadRepository;
+
+    @Mock
+    private ConventionRepository conventionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ChefWorkloadIndex chefWorkloadIndex;
+
+    @Mock
+    private ChatCacheInvalidator chatCacheInvalidator;
+
+    @InjectMocks
+    private WorkloadLedgerService workloadLedger;
+
+    @Test
+    void recordApplicationChange_newApplicationAddsCountAndDuration() {
+        Application application = application(10L, chef(1L), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31));
+
+        workloadLedger.recordApplicationChange(WorkloadLedgerService.Share.NONE, application);
+
+        verify(workloadRepository).addDeltas(1L, 1, 0.0, 30L);
+        verify(workloadRepository).refreshScore(1L);
+        verify(chefWorkloadIndex).markDirty(1L);
+        verifyNoInteractions(conventionRepository);
+    }
+
+    @Test
+    void recordApplicationChange_reassignmentMovesConventionValue() {
+        Application application = application(10L, chef(1L), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 11));
+        WorkloadLedgerService.Share before = WorkloadLedgerService.Share.of(application);
+        application.setChefDeProjet(chef(2L));
+        when(conventionRepository.sumActiveMontantTTCByApplicationId(10L)).thenReturn(BigDecimal.valueOf(5000));
+
+        workloadLedger.recordApplicationChange(before, application);
+
+        verify(workloadRepository).addDeltas(1L, -1, -5000.0, -10L);
+        verify(workloadRepository).addDeltas(2L, 1, 5000.0, 10L);
+    }
+
+    @Test
+    void recordApplicationChange_datesOnlyAppliesDurationDelta() {
+        Application application = application(10L, chef(1L), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 11));
+        WorkloadLedgerService.Share before = WorkloadLedgerService.Share.of(application);
+        application.setDateFin(LocalDate.of(2025, 1, 21));
+
+        workloadLedger.recordApplicationChange(before, application);
+
+        verify(workloadRepository).addDeltas(1L, 0, 0.0, 10L);
+        verifyNoInteractions(conventionRepository);
+    }
+
+    @Test
+    void recordConventionChange_archiveRemovesAmount() {
+        Convention convention = new Convention();
+        convention.setApplication(application(10L, chef(1L), null, null));
+        convention.setMontantTTC(BigDecimal.valueOf(1200));
+        WorkloadLedgerService.Share before = WorkloadLedgerService.Share.of(convention);
+        convention.setArchived(true);
+
+        workloadLedger.recordConventionChange(before, convention);
+
+        verify(workloadRepository).addDeltas(1L, 0, -1200.0, 0L);
+    }
+
+    @Test
+    void recordConventionChange_unassignedApplicationIsIgnored() {
+        Convention convention = new Convention();
+        convention.setApplication(application(10L, null, null, null));
+        convention.setMontantTTC(BigDecimal.valueOf(1200));
+
+        workloadLedger.recordConventionChange(WorkloadLedgerService.Share.NONE, convention);
+
+        verifyNoInteractions(workloadRepository);
+    }
+
+    @Test
+    void reconcile_repairsDriftAndCreatesMissingRows() {
+        User drifting = chef(1L);
+        User missing = chef(2L);
+        Workload stale = new Workload();
+        stale.setChefDeProjet(drifting);
+        stale.setCurrentApplicationsCount(1);
+        stale.setTotalApplicationsValue(0.0);
+        stale.setTotalApplicationsDuration(0L);
+        when(workloadRepository.computeTotalsByChef()).thenReturn(List.<Object[]>of(
+                new Object[]{1L, 2L, new BigDecimal("1000.00"), 60L}));
+        when(workloadRepository.findAll()).thenReturn(List.of(stale));
+        when(userRepository.findByRoleName("ROLE_CHEF_PROJET")).thenReturn(List.of(drifting, missing));
+
+        int drifted = workloadLedger.reconcile();
+
+        ArgumentCaptor<Workload> saved = ArgumentCaptor.forClass(Workload.class);
+        verify(workloadRepository, times(2)).save(saved.capture());
+        assertThat(drifted).isEqualTo(1);
+        assertThat(stale.getCurrentApplicationsCount()).isEqualTo(2);
+        assertThat(stale.getTotalApplicationsDuration()).isEqualTo(60L);
+        assertThat(stale.getCurrentWorkloadScore()).isEqualTo(Workload.score(2, 1000.0, 60L));
+        assertThat(saved.getAllValues().get(1).getChefDeProjet()).isSameAs(missing);
+        assertThat(saved.getAllValues().get(1).getCurrentApplicationsCount()).isZero();
+        verify(chefWorkloadIndex).invalidate();
+    }
+
+    private static User chef(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("chef" + id);
+        return user;
+    }
+
+    private static Application application(Long id, User chef, LocalDate dateDebut, LocalDate dateFin) {
+        Application application = new Application();
+        application.setId(id);
+        application.setChefDeProjet(chef);
+        application.setDateDebut(dateDebut);
+        application.setDateFin(dateFin);
+        return application;
+    }
+}
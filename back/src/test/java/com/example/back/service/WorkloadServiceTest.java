@@ -45,6 +45,12 @@ class WorkloadServiceTest {
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private WorkloadLedgerService workloadLedger;
+
+    @Mock
+    private ChefWorkloadIndex chefWorkloadIndex;
+
     @InjectMocks
     private WorkloadService workloadService;
 
@@ -184,11 +190,8 @@ class WorkloadServiceTest {
     @Test
     void checkAssignment_WithinThresholds_ReturnsCanAssign() {
         // Given
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testChef));
-        when(workloadRepository.findByChefDeProjet(testChef)).thenReturn(Optional.of(testWorkload));
+        when(workloadRepository.findByChefDeProjetId(1L)).thenReturn(Optional.of(testWorkload));
         when(applicationRepository.findById(1L)).thenReturn(Optional.of(testApplication));
-        when(applicationRepository.findByChefDeProjet(testChef)).thenReturn(Arrays.asList(testApplication));
-        when(workloadRepository.save(any(Workload.class))).thenReturn(testWorkload);
 
         // When
         WorkloadService.AssignmentCheck result = workloadService.checkAssignment(1L, 1L);
@@ -196,6 +199,48 @@ class WorkloadServiceTest {
         // Then
         assertThat(result).isNotNull();
         assertThat(result.isCanAssign()).isTrue();
+        verify(applicationRepository, never()).findByChefDeProjet(any());
+        verify(workloadRepository, never()).save(any());
+    }
+
+    @Test
+    void checkAssignment_AlternativesComeFromWorkloadIndex() {
+        // Given
+        ChefWorkloadIndex.Entry other = new ChefWorkloadIndex.Entry(2L, "Other Chef", 1, 0.0, 0L, 8.0);
+        when(workloadRepository.findByChefDeProjetId(1L)).thenReturn(Optional.of(testWorkload));
+        when(applicationRepository.findById(1L)).thenReturn(Optional.of(testApplication));
+        when(chefWorkloadIndex.topCandidates(eq(1L), eq(100000.0), anyLong(), eq(3), eq(75.0)))
+                .thenReturn(List.of(new ChefWorkloadIndex.Candidate(other, 27.0)));
+
+        // When
+        WorkloadService.AssignmentCheck result = workloadService.checkAssignment(1L, 1L);
+
+        // Then
+        assertThat(result.getAlternativeChefs()).hasSize(1);
+        WorkloadService.AlternativeChef alternative = result.getAlternativeChefs().get(0);
+        assertThat(alternative.getChefId()).isEqualTo(2L);
+        assertThat(alternative.getChefName()).isEqualTo("Other Chef");
+        assertThat(alternative.getProjectedWorkload()).isEqualTo(27.0);
+        assertThat(alternative.getWorkloadIncrease()).isEqualTo(19.0);
+        verify(workloadRepository, never()).findAll();
+    }
+
+    @Test
+    void checkAssignment_WithoutWorkloadRow_ComputesIt() {
+        // Given
+        when(workloadRepository.findByChefDeProjetId(1L)).thenReturn(Optional.empty());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testChef));
+        when(workloadRepository.findByChefDeProjet(testChef)).thenReturn(Optional.empty());
+        when(applicationRepository.findByChefDeProjet(testChef)).thenReturn(Arrays.asList(testApplication));
+        when(workloadRepository.save(any(Workload.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(applicationRepository.findById(1L)).thenReturn(Optional.of(testApplication));
+
+        // When
+        WorkloadService.AssignmentCheck result = workloadService.checkAssignment(1L, 1L);
+
+        // Then
+        assertThat(result.getAnalysis().getCurrentWorkload()).isGreaterThan(0.0);
+        verify(workloadRepository).save(any(Workload.class));
     }
 
 
@@ -206,11 +251,10 @@ class WorkloadServiceTest {
         setupSystemUser();
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(testChef));
-        when(workloadRepository.findByChefDeProjet(testChef)).thenReturn(Optional.of(testWorkload));
+        when(workloadRepository.findByChefDeProjetId(1L)).thenReturn(Optional.of(testWorkload));
         when(applicationRepository.findById(1L)).thenReturn(Optional.of(testApplication));
-        when(applicationRepository.findByChefDeProjet(testChef)).thenReturn(Arrays.asList(testApplication));
         when(applicationRepository.save(any(Application.class))).thenReturn(testApplication);
-        when(workloadRepository.save(any(Workload.class))).thenReturn(testWorkload);
+        when(workloadRepository.findScoreByChefId(1L)).thenReturn(46.0);
 
         MailResponse mockResponse = new MailResponse();
         mockResponse.setId(1L);
@@ -229,7 +273,9 @@ class WorkloadServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.isSuccess()).isTrue();
         assertThat(result.isBlocked()).isFalse();
+        assertThat(result.getUpdatedWorkload()).isEqualTo(46.0);
         verify(applicationRepository).save(any(Application.class));
+        verify(workloadLedger).recordApplicationChange(any(WorkloadLedgerService.Share.class), eq(testApplication));
     }
 
 
@@ -237,14 +283,8 @@ class WorkloadServiceTest {
     void getWorkloadDashboard_Success() {
         // Given
         // No authentication needed for this test - don't call setupAuthentication
-        List<User> allChefs = Arrays.asList(testChef);
         List<Workload> allWorkloads = Arrays.asList(testWorkload);
 
-        when(userRepository.findAll()).thenReturn(allChefs);
-        when(userRepository.findById(testChef.getId())).thenReturn(Optional.of(testChef));
-        when(workloadRepository.findByChefDeProjet(testChef)).thenReturn(Optional.of(testWorkload));
-        when(applicationRepository.findByChefDeProjet(testChef)).thenReturn(Arrays.asList(testApplication));
-        when(workloadRepository.save(any(Workload.class))).thenReturn(testWorkload);
         when(workloadRepository.findAllOrderedByWorkload()).thenReturn(allWorkloads);
 
         // When
@@ -254,6 +294,8 @@ class WorkloadServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getTotalChefs()).isEqualTo(1);
         assertThat(result.getWorkloads()).hasSize(1);
+        verify(userRepository, never()).findAll();
+        verify(applicationRepository, never()).findByChefDeProjet(any());
     }
 
 
@@ -292,16 +334,10 @@ class WorkloadServiceTest {
         largeConvention.setArchived(false);
         largeApplication.setConventions(Arrays.asList(largeConvention));
 
-        List<Application> multipleApps = Arrays.asList(
-                testApplication, testApplication, testApplication, testApplication, testApplication
-        );
-
         when(userRepository.findById(1L)).thenReturn(Optional.of(testChef));
-        when(workloadRepository.findByChefDeProjet(testChef)).thenReturn(Optional.of(highWorkload));
+        when(workloadRepository.findByChefDeProjetId(1L)).thenReturn(Optional.of(highWorkload));
         when(applicationRepository.findById(1L)).thenReturn(Optional.of(largeApplication));
-        when(applicationRepository.findByChefDeProjet(testChef)).thenReturn(multipleApps);
         when(applicationRepository.save(any(Application.class))).thenReturn(largeApplication);
-        when(workloadRepository.save(any(Workload.class))).thenReturn(highWorkload);
 
         MailResponse mockResponse = new MailResponse();
         mockResponse.setId(1L);
@@ -0,0 +1,273 @@
+package com.example.back.service.ai;
+
+import com.example.back.entity.Convention;
+import com.example.back.entity.Facture;
+import com.example.back.entity.Structure;
+import com.example.back.repository.ConventionRepository;
+import com.example.back.repository.FactureRepository;
+import com.example.back.repository.StructureRepository;
+import com.example.back.repository.TrainingDataRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceRiskAIModelTest {
+
+    @Mock
+    private FactureRepository factureRepository;
+
+    @Mock
+    private ConventionRepository conventionRepository;
+
+    @Mock
+    private StructureRepository structureRepository;
+
+    @Mock
+    private TrainingDataRepository trainingDataRepository;
+
+    @Mock
+    private ModelSnapshotStore snapshotStore;
+
+    @Mock
+    private RiskPredictionCache predictionCache;
+
+    @InjectMocks
+    private InvoiceRiskAIModel model;
+
+    @Test
+    void extractFeaturesBatch_loadsClientHistoryOnceForAllInvoices() {
+        Structure client = new Structure();
+        client.setId(7L);
+        client.setCreatedAt(LocalDateTime.now().minusYears(1));
+        Convention convention = new Convention();
+        convention.setStructureBeneficiel(client);
+
+        Facture first = facture(convention, "1000.00");
+        Facture second = facture(convention, "2500.00");
+
+        when(conventionRepository.countConventionsByClient())
+                .thenReturn(List.<Object[]>of(new Object[]{7L, 2L}));
+        when(factureRepository.aggregatePaymentHistoryByClient())
+                .thenReturn(List.<Object[]>of(new Object[]{7L, 4L, 3L, 1L, 12L}));
+
+        List<InvoiceRiskAIModel.HistoricalPaymentData> dataset = model.extractFeaturesBatch(List.of(first, second));
+
+        assertThat(dataset).hasSize(2).allSatisfy(data -> {
+            assertThat(data.totalConventions).isEqualTo(2);
+            assertThat(data.paymentOnTimeRate).isEqualTo(0.75);
+            assertThat(data.latePaymentRate).isEqualTo(0.25);
+        });
+        verify(conventionRepository, times(1)).countConventionsByClient();
+        verify(factureRepository, times(1)).aggregatePaymentHistoryByClient();
+        verify(factureRepository, never()).aggregatePaymentHistoryForClients(anyCollection());
+        verify(factureRepository, never()).findByConventionId(anyLong());
+    }
+
+    @Test
+    void extractFeaturesFromFacture_queriesOnlyTheInvoiceClient() {
+        Structure client = new Structure();
+        client.setId(9L);
+        client.setCreatedAt(LocalDateTime.now().minusMonths(6));
+        Convention convention = new Convention();
+        convention.setStructureBeneficiel(client);
+
+        when(conventionRepository.countConventionsForClients(Set.of(9L)))
+                .thenReturn(List.<Object[]>of(new Object[]{9L, 1L}));
+        when(factureRepository.aggregatePaymentHistoryForClients(Set.of(9L))).thenReturn(List.of());
+
+        InvoiceRiskAIModel.HistoricalPaymentData data = model.extractFeaturesFromFacture(facture(convention, "500.00"));
+
+        assertThat(data.totalConventions).isEqualTo(1);
+        assertThat(data.paymentOnTimeRate).isZero();
+        verify(conventionRepository, never()).countConventionsByClient();
+    }
+
+    @Test
+    void predictInvoiceRisks_returnsDefaultsInInputOrderWhileModelIsNotReady() {
+        Structure client = new Structure();
+        client.setId(3L);
+        Convention convention = new Convention();
+        convention.setStructureBeneficiel(client);
+        Facture known = facture(convention, "800.00");
+        known.setId(11L);
+
+        when(factureRepository.findAllByIdWithAllRelations(Set.of(11L, 12L))).thenReturn(List.of(known));
+
+        List<InvoiceRiskAIModel.RiskPrediction> predictions = model.predictInvoiceRisks(List.of(12L, 11L));
+
+        assertThat(predictions).hasSize(2)
+                .allSatisfy(p -> assertThat(p.getLevel()).isEqualTo(InvoiceRiskAIModel.RiskLevel.MEDIUM));
+        verify(factureRepository, times(1)).findAllByIdWithAllRelations(anyCollection());
+        verify(factureRepository, never()).findByIdWithAllRelations(anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void predictInvoiceRisks_loadsUncachedInvoicesInBoundedChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, 2 * InvoiceRiskAIModel.PREDICTION_CHUNK + 1).boxed().toList();
+        when(factureRepository.findAllByIdWithAllRelations(anyCollection())).thenReturn(List.of());
+
+        List<InvoiceRiskAIModel.RiskPrediction> predictions = model.predictInvoiceRisks(ids);
+
+        ArgumentCaptor<Collection<Long>> chunks = ArgumentCaptor.forClass(Collection.class);
+        verify(factureRepository, times(3)).findAllByIdWithAllRelations(chunks.capture());
+        assertThat(chunks.getAllValues()).extracting(Collection::size)
+                .containsExactly(InvoiceRiskAIModel.PREDICTION_CHUNK, InvoiceRiskAIModel.PREDICTION_CHUNK, 1);
+        assertThat(predictions).hasSize(ids.size());
+    }
+
+    @Test
+    void retrainIncrementally_leavesTheModelAloneWhenNothingWasPaid() {
+        InvoiceRiskAIModel.Networks live = trainedModel(0.05);
+        when(factureRepository.findPaidSinceWithRelations(any())).thenReturn(List.of());
+
+        model.retrainIncrementally();
+
+        assertThat(ReflectionTestUtils.getField(model, "networks")).isSameAs(live);
+        assertThat(model.getTrainingCheckpoint()).isAfter(LocalDateTime.now().minusMinutes(1));
+        verifyNoInteractions(snapshotStore, predictionCache);
+    }
+
+    @Test
+    void retrainIncrementally_fitsACopyAndSwapsItInWithoutTouchingTheLiveNetworks() throws Exception {
+        InvoiceRiskAIModel.Networks live = trainedModel(100.0);
+        INDArray liveWeights = live.regression().params().dup();
+        when(factureRepository.findPaidSinceWithRelations(any())).thenReturn(List.of(paidFacture()));
+
+        model.retrainIncrementally();
+
+        assertThat(ReflectionTestUtils.getField(model, "networks")).isNotSameAs(live);
+        assertThat(live.regression().params()).isEqualTo(liveWeights);
+        verify(factureRepository, never()).findAllPaidWithRelations();
+        verify(predictionCache).clear();
+        verify(snapshotStore).save(any(), any(), eq(InvoiceRiskAIModel.FEATURE_COUNT), any(), eq(100.0),
+                eq("incremental training"), anyMap());
+    }
+
+    @Test
+    void retrainIncrementally_retrainsFullyOnDriftAndKeepsTheModelWithoutData() {
+        InvoiceRiskAIModel.Networks live = trainedModel(0.0);
+        Object checkpoint = ReflectionTestUtils.getField(model, "trainingCheckpoint");
+        when(factureRepository.findPaidSinceWithRelations(any())).thenReturn(List.of(paidFacture()));
+
+        model.retrainIncrementally();
+
+        // Drift triggers the full retrain; with no history to train on, the live pair stays
+        verify(factureRepository, times(2)).findAllPaidWithRelations();
+        assertThat(ReflectionTestUtils.getField(model, "networks")).isSameAs(live);
+        // ...and the drifted invoices are checked again next time
+        assertThat(ReflectionTestUtils.getField(model, "trainingCheckpoint")).isEqualTo(checkpoint);
+        verify(predictionCache, never()).clear();
+        verifyNoInteractions(snapshotStore);
+    }
+
+    @Test
+    void retrainIncrementally_withoutAModelKeepsTheCheckpointWhenNothingCanBeTrained() {
+        model.retrainIncrementally();
+
+        assertThat(ReflectionTestUtils.getField(model, "networks")).isNull();
+        assertThat(ReflectionTestUtils.getField(model, "trainingCheckpoint")).isNull();
+        verifyNoInteractions(snapshotStore, predictionCache);
+    }
+
+    @Test
+    void scheduleForceRetrain_refusesWhileAnotherTrainingRuns() {
+        AtomicBoolean trainingInProgress = (AtomicBoolean) ReflectionTestUtils.getField(model, "trainingInProgress");
+        trainingInProgress.set(true);
+
+        assertThat(model.scheduleForceRetrain()).isFalse();
+        assertThat(model.scheduleRetrain()).isFalse();
+        verifyNoInteractions(factureRepository);
+    }
+
+    @Test
+    void rollbackToSnapshot_installsTheOlderSnapshotAndActivatesIt() throws Exception {
+        InvoiceRiskAIModel.Networks older = model.buildNetworks();
+        ModelSnapshotStore.SnapshotMetadata metadata = new ModelSnapshotStore.SnapshotMetadata("v20240101-000000-000",
+                InvoiceRiskAIModel.FEATURE_COUNT, LocalDateTime.now(), LocalDateTime.now(), 0.5, "initial training", Map.of());
+        when(snapshotStore.load("v20240101-000000-000"))
+                .thenReturn(new ModelSnapshotStore.Snapshot(metadata, older.regression(), older.classifier()));
+        ReflectionTestUtils.setField(model, "rollbackTimeoutSeconds", 5L);
+
+        model.rollbackToSnapshot("v20240101-000000-000");
+
+        InvoiceRiskAIModel.Networks installed = (InvoiceRiskAIModel.Networks) ReflectionTestUtils.getField(model, "networks");
+        assertThat(installed.regression()).isSameAs(older.regression());
+        verify(snapshotStore).activate("v20240101-000000-000");
+    }
+
+    @Test
+    void rollbackToSnapshot_givesUpWhileTrainingHoldsTheExecutor() throws Exception {
+        ExecutorService trainingExecutor = (ExecutorService) ReflectionTestUtils.getField(model, "trainingExecutor");
+        CountDownLatch training = new CountDownLatch(1);
+        trainingExecutor.submit(() -> {
+            training.await();
+            return null;
+        });
+        ReflectionTestUtils.setField(model, "rollbackTimeoutSeconds", 1L);
+
+        try {
+            assertThatThrownBy(() -> model.rollbackToSnapshot("v20240101-000000-000"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("cancelled");
+        } finally {
+            training.countDown();
+        }
+        // The cancelled rollback must not switch the model once training is over
+        trainingExecutor.submit(() -> null).get();
+        verifyNoInteractions(snapshotStore);
+    }
+
+    private InvoiceRiskAIModel.Networks trainedModel(double baselineLoss) {
+        InvoiceRiskAIModel.Networks networks = model.buildNetworks();
+        ReflectionTestUtils.setField(model, "networks", networks);
+        ReflectionTestUtils.setField(model, "trainingCheckpoint", LocalDateTime.now().minusDays(1));
+        ReflectionTestUtils.setField(model, "baselineLoss", baselineLoss);
+        return networks;
+    }
+
+    private static Facture paidFacture() {
+        Structure client = new Structure();
+        client.setId(5L);
+        client.setCreatedAt(LocalDateTime.now().minusYears(2));
+        Convention convention = new Convention();
+        convention.setStructureBeneficiel(client);
+        Facture facture = facture(convention, "12000.00");
+        facture.setId(21L);
+        facture.setStatutPaiement("PAYE");
+        facture.setDateEcheance(LocalDate.now().minusDays(40));
+        facture.setDatePaiement(LocalDate.now().minusDays(5));
+        return facture;
+    }
+
+    private static Facture facture(Convention convention, String amount) {
+        Facture facture = new Facture();
+        facture.setConvention(convention);
+        facture.setMontantTTC(new BigDecimal(amount));
+        facture.setDateEcheance(LocalDate.now().plusDays(10));
+        return facture;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.back.service.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ModelSnapshotStoreTest {
+
+    @TempDir
+    Path snapshotDir;
+
+    private ModelSnapshotStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ModelSnapshotStore(new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(store, "snapshotDir", snapshotDir.toString());
+        ReflectionTestUtils.setField(store, "keep", 2);
+    }
+
+    @Test
+    void save_thenLoadActiveRestoresNetworksAndMetadata() throws Exception {
+        MultiLayerNetwork regression = network(2);
+        LocalDateTime checkpoint = LocalDateTime.of(2024, 3, 1, 8, 0);
+
+        String version = store.save(regression, network(6), 15, checkpoint, 0.02, "initial training",
+                Map.of("late_payment_rate", 0.4));
+
+        ModelSnapshotStore.Snapshot active = store.loadActive().orElseThrow();
+        assertThat(active.metadata().version()).isEqualTo(version);
+        assertThat(active.metadata().featureCount()).isEqualTo(15);
+        assertThat(active.metadata().trainingCheckpoint()).isEqualTo(checkpoint);
+        assertThat(active.metadata().featureImportance()).containsEntry("late_payment_rate", 0.4);
+        assertThat(active.regression().params()).isEqualTo(regression.params());
+        assertThat(active.classifier().getLayer(0).getParam("W").columns()).isEqualTo(6);
+    }
+
+    @Test
+    void loadActive_isEmptyWithoutSnapshots() {
+        assertThat(store.loadActive()).isEmpty();
+    }
+
+    @Test
+    void save_prunesTheOldestSnapshotsBeyondTheLimit() throws Exception {
+        List<String> versions = saveSnapshots(3);
+
+        assertThat(store.list()).extracting(ModelSnapshotStore.SnapshotMetadata::version)
+                .containsExactly(versions.get(2), versions.get(1));
+        assertThat(Files.exists(snapshotDir.resolve(versions.get(0)))).isFalse();
+    }
+
+    @Test
+    void prune_keepsTheActiveSnapshotEvenBeyondTheLimit() throws Exception {
+        ReflectionTestUtils.setField(store, "keep", 3);
+        List<String> versions = saveSnapshots(3);
+        store.activate(versions.get(0));
+
+        ReflectionTestUtils.setField(store, "keep", 1);
+        ReflectionTestUtils.invokeMethod(store, "prune");
+
+        assertThat(store.list()).extracting(ModelSnapshotStore.SnapshotMetadata::version)
+                .containsExactly(versions.get(2), versions.get(0));
+        assertThat(store.activeVersion()).contains(versions.get(0));
+    }
+
+    @Test
+    void activate_rollsBackToAnOlderSnapshot() throws Exception {
+        List<String> versions = saveSnapshots(2);
+        assertThat(store.activeVersion()).contains(versions.get(1));
+
+        store.activate(versions.get(0));
+
+        assertThat(store.loadActive().orElseThrow().metadata().version()).isEqualTo(versions.get(0));
+    }
+
+    @Test
+    void activate_rejectsUnknownOrMalformedVersions() {
+        assertThatThrownBy(() -> store.activate("v20240101-000000-000"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.activate("../ACTIVE"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<String> saveSnapshots(int count) throws Exception {
+        List<String> versions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            versions.add(store.save(network(2), network(6), 15, LocalDateTime.now(), 0.01, "snapshot " + i, Map.of()));
+        }
+        return versions;
+    }
+
+    private static MultiLayerNetwork network(int outputs) {
+        MultiLayerConfiguration config = new NeuralNetConfiguration.Builder()
+                .seed(42)
+                .list()
+                .layer(0, new OutputLayer.Builder()
+                        .nIn(15)
+                        .nOut(outputs)
+                        .activation(Activation.IDENTITY)
+                        .lossFunction(LossFunctions.LossFunction.MSE)
+                        .build())
+                .build();
+        MultiLayerNetwork network = new MultiLayerNetwork(config);
+        network.init();
+        return network;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.back.service.ai;
+
+import com.example.back.entity.Convention;
+import com.example.back.entity.Facture;
+import com.example.back.entity.Structure;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RiskPredictionCacheTest {
+
+    private RiskPredictionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RiskPredictionCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 60L);
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedBeyondMaxSize() {
+        cache.put(1L, 10L, new InvoiceRiskAIModel.RiskPrediction());
+        cache.put(2L, 10L, new InvoiceRiskAIModel.RiskPrediction());
+        cache.get(1L);
+        cache.put(3L, 10L, new InvoiceRiskAIModel.RiskPrediction());
+
+        assertThat(cache.get(1L)).isNotNull();
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.getStats())
+                .containsEntry("size", 2)
+                .containsEntry("evictions", 1L)
+                .containsEntry("hits", 2L)
+                .containsEntry("misses", 1L);
+    }
+
+    @Test
+    void evict_paidInvoiceInvalidatesOnlyItsClient() {
+        cache.put(1L, 10L, new InvoiceRiskAIModel.RiskPrediction());
+        cache.put(2L, 20L, new InvoiceRiskAIModel.RiskPrediction());
+
+        Structure client = new Structure();
+        client.setId(10L);
+        Convention convention = new Convention();
+        convention.setStructureBeneficiel(client);
+        Facture paid = new Facture();
+        paid.setId(5L);
+        paid.setConvention(convention);
+        paid.setStatutPaiement("PAYE");
+        paid.setDatePaiement(LocalDate.now());
+
+        cache.evict(paid);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNotNull();
+        assertThat(cache.getStats()).containsEntry("invalidations", 1L);
+    }
+
+    @Test
+    void evict_waitsForTheWritingTransactionToComplete() {
+        cache.put(1L, 10L, new InvoiceRiskAIModel.RiskPrediction());
+        Structure client = new Structure();
+        client.setId(10L);
+        Convention convention = new Convention();
+        convention.setStructureBeneficiel(client);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evict(convention);
+            assertThat(cache.get(1L)).isNotNull();
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void get_treatsExpiredEntriesAsMisses() {
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 0L);
+        cache.put(1L, 10L, new InvoiceRiskAIModel.RiskPrediction());
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.getStats())
+                .containsEntry("size", 0)
+                .containsEntry("expirations", 1L);
+    }
+}